@@ -0,0 +1,37 @@
+package com.dpgrandslam.stockdataservice.adapter.api;
+
+import com.dpgrandslam.stockdataservice.domain.model.TradeDateIngestionStatistics;
+import com.dpgrandslam.stockdataservice.domain.service.IngestionStatistics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Exposes the option ingestion statistics at /actuator/ingestion and /actuator/ingestion/{tradeDate}.
+ */
+@Component
+@Endpoint(id = "ingestion")
+@RequiredArgsConstructor
+public class IngestionStatisticsEndpoint {
+
+    private final IngestionStatistics ingestionStatistics;
+
+    @ReadOperation
+    public List<TradeDateIngestionStatistics> statistics() {
+        return ingestionStatistics.getStatistics();
+    }
+
+    /**
+     * @param tradeDate the trade date in ISO format
+     * @return the statistics of the trade date, or null (a 404) if nothing was recorded for it
+     */
+    @ReadOperation
+    public TradeDateIngestionStatistics statistics(@Selector String tradeDate) {
+        return ingestionStatistics.getStatistics(LocalDate.parse(tradeDate)).orElse(null);
+    }
+}
@@ -2,10 +2,14 @@ package com.dpgrandslam.stockdataservice.adapter.api;
 
 import com.dpgrandslam.stockdataservice.domain.error.OptionsChainLoadException;
 import com.dpgrandslam.stockdataservice.domain.model.FearGreedIndex;
+import com.dpgrandslam.stockdataservice.domain.model.options.ChainDailySummary;
 import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPageCursor;
 import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChainPage;
 import com.dpgrandslam.stockdataservice.domain.model.stock.*;
 import com.dpgrandslam.stockdataservice.domain.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -15,22 +19,33 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
-@CrossOrigin(origins = "http://localhost:3000")
+@CrossOrigin(origins = "http://localhost:3000", exposedHeaders = StockDataServiceController.NEXT_CURSOR_HEADER)
 @Controller
 @RequestMapping("/data")
 @Slf4j
 public class StockDataServiceController {
 
     private static final LocalDate MIN_DATE = LocalDate.of(1900, 1, 1);
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final int DEFAULT_PAGE_LIMIT = 1000;
+    private static final int MAX_PAGE_LIMIT = 10000;
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     @Autowired
     private OptionsChainLoadService optionsChainLoadService;
 
+    @Autowired
+    private LiveOptionsChainCache liveOptionsChainCache;
+
     @Autowired
     private TrackedStockService trackedStockService;
 
@@ -47,15 +62,33 @@ public class StockDataServiceController {
     @Autowired
     private VIXLoadService vixLoadService;
 
+    @Autowired
+    private ChainDailySummaryService chainDailySummaryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping("/option/{ticker}")
     public ResponseEntity<List<OptionsChain>> getOptionsChain(@PathVariable(name = "ticker") String ticker,
                                                              @RequestParam(name = "expirationDate") Optional<String> expirationDate,
                                                              @RequestParam(name = "startDate") Optional<String> startDate,
-                                                             @RequestParam(name = "endDate") Optional<String> endDate) throws OptionsChainLoadException {
+                                                             @RequestParam(name = "endDate") Optional<String> endDate,
+                                                             @RequestParam(name = "limit") Optional<Integer> limit,
+                                                             @RequestParam(name = "cursor") Optional<String> cursor) throws OptionsChainLoadException {
         log.info("Received request for options data with ticker: {}, expirationDate: {}, startDate: {}, and endDate: {}",
                 ticker, expirationDate.orElse(null), startDate.orElse(null), endDate.orElse(null));
         List<OptionsChain> retVal = new ArrayList<>();
-        if ((startDate.isPresent() || endDate.isPresent()) && expirationDate.isPresent()) {
+        if ((limit.isPresent() || cursor.isPresent()) && expirationDate.isPresent()) {
+            // Pages run across every expiration, a single expiration is returned whole
+            log.warn("Received paged request for options data with ticker {} and expirationDate {}. Paging is not supported for a single expiration.",
+                    ticker, expirationDate.get());
+            return ResponseEntity.badRequest().build();
+        } else if (limit.isPresent() || cursor.isPresent()) {
+            return getOptionsChainPage(ticker,
+                    startDate.map(LocalDate::parse).orElse(MIN_DATE),
+                    endDate.map(LocalDate::parse).orElse(LocalDate.now()),
+                    limit, cursor);
+        } else if ((startDate.isPresent() || endDate.isPresent()) && expirationDate.isPresent()) {
             retVal.add(optionsChainLoadService.loadCompleteOptionsChainForExpirationDateWithPriceDataInRange(ticker,
                     expirationDate.map(LocalDate::parse).get(),
                     startDate.map(LocalDate::parse).orElse(MIN_DATE),
@@ -67,19 +100,88 @@ public class StockDataServiceController {
                     endDate.map(LocalDate::parse).orElse(LocalDate.now())
             );
         } else if (expirationDate.isPresent()){
-            retVal.add(optionsChainLoadService.loadLiveOptionsChainForExpirationDate(ticker, expirationDate.map(LocalDate::parse).get()));
+            retVal.add(liveOptionsChainCache.getLiveOptionsChainForExpirationDate(ticker, expirationDate.map(LocalDate::parse).get()));
         } else {
-            retVal = optionsChainLoadService.loadFullLiveOptionsChain(ticker);
+            retVal = liveOptionsChainCache.getFullLiveOptionsChain(ticker);
         }
         return ResponseEntity.ok(retVal);
     }
 
+    @GetMapping(value = "/option/{ticker}/stream", produces = NDJSON_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamOptionsChain(@PathVariable(name = "ticker") String ticker,
+                                                                    @RequestParam(name = "startDate") Optional<String> startDate,
+                                                                    @RequestParam(name = "endDate") Optional<String> endDate) {
+        log.info("Received request to stream options data with ticker: {}, startDate: {}, and endDate: {}",
+                ticker, startDate.orElse(null), endDate.orElse(null));
+        LocalDate start = startDate.map(LocalDate::parse).orElse(MIN_DATE);
+        LocalDate end = endDate.map(LocalDate::parse).orElse(LocalDate.now());
+        StreamingResponseBody body = outputStream -> {
+            try {
+                optionsChainLoadService.streamFullOptionsChainWithAllDataBetweenDates(ticker, start, end, optionsChain -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(optionsChain));
+                        outputStream.write('\n');
+                        outputStream.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (OptionsChainLoadException e) {
+                throw new IOException("Could not load live options chain for ticker " + ticker, e);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_MEDIA_TYPE))
+                .body(body);
+    }
+
+    @GetMapping("/option/{ticker}/summary")
+    public ResponseEntity<List<ChainDailySummary>> getOptionsChainSummary(@PathVariable(name = "ticker") String ticker,
+                                                                         @RequestParam(name = "expirationDate") Optional<String> expirationDate,
+                                                                         @RequestParam(name = "startDate") Optional<String> startDate,
+                                                                         @RequestParam(name = "endDate") Optional<String> endDate) {
+        return ResponseEntity.ok(chainDailySummaryService.getSummaries(ticker,
+                expirationDate.map(LocalDate::parse),
+                startDate.map(LocalDate::parse).orElse(MIN_DATE),
+                endDate.map(LocalDate::parse).orElse(LocalDate.now())));
+    }
+
     @GetMapping("/option/{ticker}/all")
+    // Not read only, a failed live load queues price data load retries through the parse failed event
     @Transactional
-    public ResponseEntity<List<OptionsChain>> getFullOptionsChain(@PathVariable String ticker) throws OptionsChainLoadException {
+    public ResponseEntity<List<OptionsChain>> getFullOptionsChain(@PathVariable String ticker,
+                                                                  @RequestParam(name = "limit") Optional<Integer> limit,
+                                                                  @RequestParam(name = "cursor") Optional<String> cursor) throws OptionsChainLoadException {
+        if (limit.isPresent() || cursor.isPresent()) {
+            return getOptionsChainPage(ticker, MIN_DATE, LocalDate.now(), limit, cursor);
+        }
         return ResponseEntity.ok(optionsChainLoadService.loadFullOptionsChainWithAllData(ticker));
     }
 
+    /**
+     * Returns one page of stored options data. The cursor for the next page is sent in the X-Next-Cursor header and
+     * is left out on the last page.
+     */
+    private ResponseEntity<List<OptionsChain>> getOptionsChainPage(String ticker, LocalDate startDate, LocalDate endDate,
+                                                                  Optional<Integer> limit, Optional<String> cursor) {
+        OptionPageCursor after;
+        try {
+            after = cursor.map(OptionPageCursor::decode).orElse(null);
+        } catch (IllegalArgumentException e) {
+            log.warn("Received invalid options page cursor {}.", cursor.get());
+            return ResponseEntity.badRequest().build();
+        }
+        int pageLimit = Math.min(Math.max(limit.orElse(DEFAULT_PAGE_LIMIT), 1), MAX_PAGE_LIMIT);
+        log.info("Loading page of options data with ticker: {}, startDate: {}, endDate: {}, limit: {}, and cursor: {}",
+                ticker, startDate, endDate, pageLimit, after);
+        OptionsChainPage page = optionsChainLoadService.loadOptionsChainPageBetweenDates(ticker, startDate, endDate, after, pageLimit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        page.getNextCursor().ifPresent(next -> response.header(NEXT_CURSOR_HEADER, next.encode()));
+        return response.body(page.getOptionsChains());
+    }
+
     @GetMapping("/stock/{ticker}")
     public ResponseEntity<List<EndOfDayStockData>> getEndOfDayStockData(@PathVariable String ticker,
                                                                   Optional<String> startDate,
@@ -1,6 +1,10 @@
 package com.dpgrandslam.stockdataservice.adapter.apiclient;
 
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.springframework.stereotype.Component;
@@ -12,14 +16,34 @@ import java.util.UUID;
 @Slf4j
 public class BasicWebPageLoader implements WebpageLoader {
 
+    private final OkHttpClient httpClient;
+
+    public BasicWebPageLoader(OkHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
     @Override
     public Document parseUrl(String url) {
-        try {
-            return Jsoup.connect(url)
-                    .cookie("APID", UUID.randomUUID().toString())
-                    .header("User-Agent", "bot " + Math.random() * 10)
-                    .get();
-        } catch (IOException e) {
+        String html = loadPage(url);
+        return html == null ? null : Jsoup.parse(html, url);
+    }
+
+    @Override
+    public String loadPage(String url) {
+        Request request = new Request.Builder()
+                .url(url)
+                .header("Cookie", "APID=" + UUID.randomUUID())
+                .header("User-Agent", "bot " + Math.random() * 10)
+                .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
+                .build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                log.error("Could not load url: {}. Status {}.", url, response.code());
+                return null;
+            }
+            return body.string();
+        } catch (IOException | IllegalArgumentException e) {
             log.error("Could not connect to url: {}.", url, e);
             return null;
         }
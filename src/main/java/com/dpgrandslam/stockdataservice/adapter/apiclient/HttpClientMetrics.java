@@ -0,0 +1,103 @@
+package com.dpgrandslam.stockdataservice.adapter.apiclient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency of the calls made with the shared http client, and whether each call opened a new connection or
+ * reused a pooled one, by host.
+ */
+@Component
+public class HttpClientMetrics implements EventListener.Factory {
+
+    public static final String METRIC_PREFIX = "http.client";
+
+    private final MeterRegistry meterRegistry;
+
+    public HttpClientMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public EventListener create(Call call) {
+        return new CallListener(call.request().url().host());
+    }
+
+    private Timer callTimer(String host, String outcome) {
+        return Timer.builder(METRIC_PREFIX + ".calls")
+                .description("Time from starting a call until its response body is read or it fails")
+                .tag("host", host)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Timer connectTimer(String host) {
+        return Timer.builder(METRIC_PREFIX + ".connect")
+                .description("Time to open a new connection, including the tls handshake")
+                .tag("host", host)
+                .register(meterRegistry);
+    }
+
+    private Counter connectionCounter(String host, String type) {
+        return Counter.builder(METRIC_PREFIX + ".connections")
+                .description("Connections acquired by calls, either newly opened or reused from the pool")
+                .tag("host", host)
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private class CallListener extends EventListener {
+
+        private final String host;
+        private long callStart;
+        private long connectStart;
+        private boolean connected;
+
+        private CallListener(String host) {
+            this.host = host;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            connected = true;
+            connectTimer(host).record(System.nanoTime() - connectStart, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            connectionCounter(host, connected ? "new" : "reused").increment();
+            connected = false;
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            callTimer(host, "success").record(System.nanoTime() - callStart, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            callTimer(host, "failure").record(System.nanoTime() - callStart, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.dpgrandslam.stockdataservice.adapter.apiclient;
+
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The result of a single call for the options of a ticker. It lists the expiration dates of the ticker and holds the
+ * options of the expiration the call was made for, the closest expiration if the call did not ask for one.
+ */
+public interface OptionsChainResponse {
+
+    /**
+     * @return the url the response was loaded from
+     */
+    String getUrl();
+
+    /**
+     * @return if the response could be loaded
+     */
+    boolean isLoaded();
+
+    /**
+     * @return the expiration dates in the order the response lists them
+     * @throws IllegalStateException if the response does not list the expiration dates
+     */
+    List<LocalDate> getExpirationDates();
+
+    /**
+     * @return the calls followed by the puts
+     * @throws IllegalStateException if the response does not have the options
+     */
+    List<Option> getOptions();
+}
@@ -0,0 +1,121 @@
+package com.dpgrandslam.stockdataservice.adapter.apiclient;
+
+import com.dpgrandslam.stockdataservice.domain.config.WebpageFetchConfigurationProperties;
+import com.dpgrandslam.stockdataservice.domain.util.TokenBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs page fetches within a per host rate limit and a per host limit on requests in flight, and runs tasks that make
+ * such fetches in parallel. Every fetch of a host shares the same limits, whether it is made from one of the parallel
+ * tasks or on the caller's thread.
+ */
+@Component
+@Slf4j
+public class WebpageFetchExecutor {
+
+    private final WebpageFetchConfigurationProperties properties;
+
+    private final Map<String, HostLimiter> hostLimiters = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor;
+
+    public WebpageFetchExecutor(@Qualifier("WebpageFetchConfigurationProperties") WebpageFetchConfigurationProperties properties) {
+        this.properties = properties;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(properties.getThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "webpage-fetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Fetches a url on the calling thread once the host's limits allow it.
+     *
+     * @param url the url to fetch
+     * @param loader makes the request
+     * @return the result of the loader
+     */
+    public <T> T fetch(String url, Function<String, T> loader) {
+        HostLimiter limiter = hostLimiters.computeIfAbsent(hostOf(url), this::createLimiter);
+        try {
+            limiter.inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting to fetch " + url);
+        }
+        try {
+            limiter.rate.acquire();
+            return loader.apply(url);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting to fetch " + url);
+        } finally {
+            limiter.inFlight.release();
+        }
+    }
+
+    /**
+     * Runs a task that makes one or more fetches on one of the fetch threads.
+     *
+     * @param task the task
+     * @return completes with the task's result, or exceptionally with what it threw. Cancelling it before the task
+     * starts keeps the task from running.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(task.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private HostLimiter createLimiter(String host) {
+        WebpageFetchConfigurationProperties.HostLimits limits = properties.getLimits(host);
+        log.info("Limiting fetches from {} to {} per second with at most {} in flight.", host, limits.getRequestsPerSecond(),
+                limits.getMaxInFlight());
+        return new HostLimiter(new TokenBucket(limits.getRequestsPerSecond(), limits.getBurst()),
+                new Semaphore(limits.getMaxInFlight(), true));
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? url : host;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private static class HostLimiter {
+
+        private final TokenBucket rate;
+        private final Semaphore inFlight;
+
+        private HostLimiter(TokenBucket rate, Semaphore inFlight) {
+            this.rate = rate;
+            this.inFlight = inFlight;
+        }
+    }
+}
@@ -7,4 +7,15 @@ import java.io.IOException;
 @FunctionalInterface
 public interface WebpageLoader {
     Document parseUrl(String url);
+
+    /**
+     * Loads the html of a page without parsing it, for callers that read the page in a single pass.
+     *
+     * @param url the url of the page
+     * @return the html, or null if the page could not be loaded
+     */
+    default String loadPage(String url) {
+        Document document = parseUrl(url);
+        return document == null ? null : document.outerHtml();
+    }
 }
@@ -0,0 +1,21 @@
+package com.dpgrandslam.stockdataservice.adapter.apiclient;
+
+import feign.Headers;
+import feign.Param;
+import feign.RequestLine;
+import feign.Response;
+
+/**
+ * The yahoo-finance options endpoint. The raw response is returned so the body can be read as a stream, the caller
+ * has to close it.
+ */
+@Headers({"Accept: application/json"})
+public interface YahooFinanceOptionsApiClient {
+
+    @RequestLine("GET /v7/finance/options/{ticker}")
+    Response getOptions(@Param("ticker") String ticker);
+
+    @RequestLine("GET /v7/finance/options/{ticker}?date={date}")
+    Response getOptions(@Param("ticker") String ticker, @Param("date") long date);
+
+}
@@ -0,0 +1,392 @@
+package com.dpgrandslam.stockdataservice.adapter.apiclient;
+
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.util.HtmlTokenizer;
+import org.jsoup.internal.StringUtil;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * The expiration dates and options of a yahoo-finance options page, read in a single pass over the html with an
+ * {@link HtmlTokenizer} instead of a parsed document. The page is walked the same way the selectors
+ * <code>div#Col1-1-OptionContracts-Proxy div.controls select option</code> and
+ * <code>div#Col1-1-OptionContracts-Proxy table.calls|table.puts tbody tr td.data-colN</code> would match it, and the
+ * text of a cell is normalized the same way {@link org.jsoup.nodes.Element#text()} does it, so the result is the same
+ * as selecting from the parsed document.
+ */
+public class YahooFinanceOptionsPage implements OptionsChainResponse {
+
+    private static final String OPTION_CONTRACTS_ID = "Col1-1-OptionContracts-Proxy";
+    private static final String DATA_COLUMN_CLASS = "data-col";
+    private static final int COLUMNS = 11;
+    private static final int STRIKE_COLUMN = 2;
+
+    /**
+     * Builds an option from the cells of a table row.
+     */
+    @FunctionalInterface
+    public interface RowMapper {
+
+        /**
+         * @param optionType the type of the table the row is in
+         * @param cells the text of the row's cells by column number, null where the row does not have the column. The
+         *              strike column holds the text of its link. The array is reused for the next row.
+         * @return the option, or null to skip the row
+         */
+        Option map(Option.OptionType optionType, String[] cells);
+    }
+
+    private final String url;
+    private final boolean loaded;
+    private final boolean optionContractsFound;
+    private final List<String> expirationValues;
+    private final List<Option> options;
+    private final RuntimeException rowError;
+
+    private YahooFinanceOptionsPage(String url, boolean loaded, boolean optionContractsFound, List<String> expirationValues,
+                                    List<Option> options, RuntimeException rowError) {
+        this.url = url;
+        this.loaded = loaded;
+        this.optionContractsFound = optionContractsFound;
+        this.expirationValues = expirationValues;
+        this.options = options;
+        this.rowError = rowError;
+    }
+
+    /**
+     * @param url the url the page was loaded from
+     * @param html the html of the page, or null if it could not be loaded
+     * @param rowMapper builds the options from the rows of the calls and puts tables. What it throws is not thrown
+     *                  here but by {@link #getOptions()}, so the expiration dates of the page can still be read.
+     * @return the page
+     */
+    public static YahooFinanceOptionsPage parse(String url, String html, RowMapper rowMapper) {
+        if (html == null) {
+            return new YahooFinanceOptionsPage(url, false, false, null, null, null);
+        }
+        Walker walker = new Walker(new HtmlTokenizer(html), rowMapper);
+        walker.walk();
+        List<Option> options = null;
+        if (walker.optionContractsFound) {
+            options = new ArrayList<>(walker.calls.size() + walker.puts.size());
+            options.addAll(walker.calls);
+            options.addAll(walker.puts);
+        }
+        return new YahooFinanceOptionsPage(url, true, walker.optionContractsFound,
+                walker.expirationSelectFound ? walker.expirationValues : null, options, walker.rowError);
+    }
+
+    @Override
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return if the page could be loaded
+     */
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return the expiration dates in the order the page lists them, or an empty list if the page could not be loaded
+     * @throws IllegalStateException if the page does not have the expiration date selector, e.g. an error page
+     * @throws NumberFormatException if an expiration date is not an epoch second
+     */
+    @Override
+    public List<LocalDate> getExpirationDates() {
+        if (!loaded) {
+            return new LinkedList<>();
+        }
+        if (expirationValues == null) {
+            throw new IllegalStateException("The page at " + url + " does not have an expiration date selector.");
+        }
+        List<LocalDate> expirationDates = new LinkedList<>();
+        expirationValues.forEach(value ->
+                expirationDates.add(LocalDate.ofInstant(Instant.ofEpochSecond(Long.parseLong(value)), ZoneId.of("Z"))));
+        return expirationDates;
+    }
+
+    /**
+     * @return the calls followed by the puts, or an empty list if the page could not be loaded
+     * @throws IllegalStateException if the page does not have the option contracts section, e.g. an error page, or a
+     * row of the tables could not be mapped to an option
+     */
+    @Override
+    public List<Option> getOptions() {
+        if (!loaded) {
+            return new LinkedList<>();
+        }
+        if (!optionContractsFound) {
+            throw new IllegalStateException("The page at " + url + " does not have an option contracts section.");
+        }
+        if (rowError != null) {
+            throw new IllegalStateException("An option row of the page at " + url + " could not be read.", rowError);
+        }
+        return options;
+    }
+
+    private static class Walker {
+
+        private final HtmlTokenizer tokenizer;
+        private final RowMapper rowMapper;
+
+        // Names of the open elements, and the depth at which each section of interest was opened, 0 when it is not open
+        private final List<String> openElements = new ArrayList<>();
+        private int optionContractsDepth;
+        private int controlsDepth;
+        private int selectDepth;
+        private int tableDepth;
+        private int tbodyDepth;
+        private int rowDepth;
+        private int cellDepth;
+        private int linkDepth;
+
+        private boolean optionContractsFound;
+        private boolean controlsFound;
+        private boolean expirationSelectFound;
+        private boolean callsFound;
+        private boolean putsFound;
+
+        private Option.OptionType tableType;
+        private final String[] cells = new String[COLUMNS];
+        // Bit n is set once the row had a cell of column n, since only the first one of each column is read
+        private int columnsFound;
+        private int cellColumn;
+        private boolean cellLinkFound;
+        private final StringBuilder cellText = new StringBuilder();
+
+        private final List<String> expirationValues = new ArrayList<>();
+        private final List<Option> calls = new ArrayList<>();
+        private final List<Option> puts = new ArrayList<>();
+        // The first row the row mapper failed on, the rows after it are not mapped
+        private RuntimeException rowError;
+
+        private Walker(HtmlTokenizer tokenizer, RowMapper rowMapper) {
+            this.tokenizer = tokenizer;
+            this.rowMapper = rowMapper;
+        }
+
+        private void walk() {
+            HtmlTokenizer.Token token;
+            while ((token = tokenizer.next()) != HtmlTokenizer.Token.EOF) {
+                switch (token) {
+                    case START_TAG:
+                        startTag();
+                        break;
+                    case END_TAG:
+                        endTag(tokenizer.tagName());
+                        break;
+                    case TEXT:
+                        if (isCapturingText()) {
+                            appendText(tokenizer.text());
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            while (!openElements.isEmpty()) {
+                pop();
+            }
+        }
+
+        private void startTag() {
+            String name = tokenizer.tagName();
+            closeImpliedElements(name);
+            if (tokenizer.isSelfClosing()) {
+                if (name.equals("br") && isCapturingText() && cellText.length() > 0 && !endsWithWhitespace()) {
+                    cellText.append(' ');
+                }
+                return;
+            }
+            openElements.add(name);
+            int depth = openElements.size();
+            if (optionContractsDepth == 0) {
+                if (!optionContractsFound && name.equals("div") && OPTION_CONTRACTS_ID.equals(tokenizer.attribute("id"))) {
+                    optionContractsDepth = depth;
+                    optionContractsFound = true;
+                }
+                return;
+            }
+            if (!controlsFound && name.equals("div") && tokenizer.hasClass("controls")) {
+                controlsDepth = depth;
+                controlsFound = true;
+            } else if (controlsDepth > 0 && !expirationSelectFound && name.equals("select")) {
+                selectDepth = depth;
+                expirationSelectFound = true;
+            } else if (selectDepth > 0 && name.equals("option")) {
+                String value = tokenizer.attribute("value");
+                expirationValues.add(value == null ? "" : value);
+            }
+            if (tableDepth == 0) {
+                if (name.equals("table")) {
+                    if (!callsFound && tokenizer.hasClass("calls")) {
+                        startTable(Option.OptionType.CALL, depth);
+                        callsFound = true;
+                    } else if (!putsFound && tokenizer.hasClass("puts")) {
+                        startTable(Option.OptionType.PUT, depth);
+                        putsFound = true;
+                    }
+                }
+                return;
+            }
+            if (tbodyDepth == 0) {
+                if (name.equals("tbody")) {
+                    tbodyDepth = depth;
+                }
+            } else if (rowDepth == 0) {
+                if (name.equals("tr")) {
+                    rowDepth = depth;
+                    Arrays.fill(cells, null);
+                    columnsFound = 0;
+                }
+            } else if (cellDepth == 0) {
+                if (name.equals("td")) {
+                    int column = dataColumn();
+                    if (column >= 0 && (columnsFound & (1 << column)) == 0) {
+                        columnsFound |= 1 << column;
+                        cellDepth = depth;
+                        cellColumn = column;
+                        cellLinkFound = false;
+                        cellText.setLength(0);
+                    }
+                }
+            } else if (cellColumn == STRIKE_COLUMN && !cellLinkFound && name.equals("a")) {
+                linkDepth = depth;
+                cellLinkFound = true;
+            }
+        }
+
+        private void startTable(Option.OptionType optionType, int depth) {
+            tableDepth = depth;
+            tableType = optionType;
+        }
+
+        private void endTag(String name) {
+            int index = openElements.lastIndexOf(name);
+            if (index < 0) {
+                return;
+            }
+            while (openElements.size() > index) {
+                pop();
+            }
+        }
+
+        // Closes the cells and rows that the start of another cell or row closes without an end tag
+        private void closeImpliedElements(String name) {
+            boolean cell = name.equals("td") || name.equals("th");
+            if (!cell && !name.equals("tr") && !name.equals("option")) {
+                return;
+            }
+            for (int i = openElements.size() - 1; i >= 0; i--) {
+                String open = openElements.get(i);
+                if ((cell && (open.equals("td") || open.equals("th")))
+                        || (name.equals("tr") && open.equals("tr"))
+                        || (name.equals("option") && open.equals("option"))) {
+                    while (openElements.size() > i) {
+                        pop();
+                    }
+                    return;
+                }
+                if (open.equals("table") || (cell && open.equals("tr")) || (name.equals("option") && open.equals("select"))) {
+                    return;
+                }
+            }
+        }
+
+        private void mapRow() {
+            try {
+                Option option = rowMapper.map(tableType, cells);
+                if (option != null) {
+                    (tableType == Option.OptionType.CALL ? calls : puts).add(option);
+                }
+            } catch (RuntimeException e) {
+                rowError = e;
+            }
+        }
+
+        private void pop() {
+            int depth = openElements.size();
+            openElements.remove(depth - 1);
+            if (depth == linkDepth) {
+                linkDepth = 0;
+            }
+            if (depth == cellDepth) {
+                cells[cellColumn] = cellColumn == STRIKE_COLUMN && !cellLinkFound ? null : cellText.toString().trim();
+                cellDepth = 0;
+            }
+            if (depth == rowDepth) {
+                if (rowError == null) {
+                    mapRow();
+                }
+                rowDepth = 0;
+            }
+            if (depth == tbodyDepth) {
+                tbodyDepth = 0;
+            }
+            if (depth == tableDepth) {
+                tableDepth = 0;
+            }
+            if (depth == selectDepth) {
+                selectDepth = 0;
+            }
+            if (depth == controlsDepth) {
+                controlsDepth = 0;
+            }
+            if (depth == optionContractsDepth) {
+                optionContractsDepth = 0;
+            }
+        }
+
+        private boolean isCapturingText() {
+            return cellDepth > 0 && (cellColumn != STRIKE_COLUMN || linkDepth > 0);
+        }
+
+        private void appendText(String text) {
+            StringUtil.appendNormalisedWhitespace(cellText, text, cellText.length() == 0 || endsWithWhitespace());
+        }
+
+        private boolean endsWithWhitespace() {
+            return cellText.length() > 0 && cellText.charAt(cellText.length() - 1) == ' ';
+        }
+
+        // The n of the data-coln class of the current td, or -1 if it does not have one
+        private int dataColumn() {
+            String classes = tokenizer.attribute("class");
+            if (classes == null) {
+                return -1;
+            }
+            int length = classes.length();
+            int i = 0;
+            while (i < length) {
+                while (i < length && Character.isWhitespace(classes.charAt(i))) {
+                    i++;
+                }
+                int classStart = i;
+                while (i < length && !Character.isWhitespace(classes.charAt(i))) {
+                    i++;
+                }
+                int digitsStart = classStart + DATA_COLUMN_CLASS.length();
+                if (i > digitsStart && classes.regionMatches(true, classStart, DATA_COLUMN_CLASS, 0, DATA_COLUMN_CLASS.length())) {
+                    int column = 0;
+                    for (int digit = digitsStart; digit < i && column >= 0; digit++) {
+                        char c = classes.charAt(digit);
+                        column = c >= '0' && c <= '9' ? column * 10 + (c - '0') : -1;
+                        if (column >= COLUMNS) {
+                            column = -1;
+                        }
+                    }
+                    if (column >= 0) {
+                        return column;
+                    }
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.dpgrandslam.stockdataservice.adapter.apiclient;
+
+import com.dpgrandslam.stockdataservice.domain.model.options.LiveOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The expiration dates and options of a response from the yahoo-finance options endpoint, decoded with a streaming
+ * {@link JsonParser} as the body is read instead of binding the whole payload to objects first. Only the first result
+ * and its first set of options are read, everything else in the payload is skipped.
+ */
+public class YahooFinanceOptionsResponse implements OptionsChainResponse {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String url;
+    private final String error;
+    private final List<LocalDate> expirationDates;
+    private final LocalDate expirationDate;
+    private final List<Option> options;
+
+    private YahooFinanceOptionsResponse(String url, String error, List<LocalDate> expirationDates, LocalDate expirationDate,
+                                        List<Option> options) {
+        this.url = url;
+        this.error = error;
+        this.expirationDates = expirationDates;
+        this.expirationDate = expirationDate;
+        this.options = options;
+    }
+
+    /**
+     * @param url the url the response was loaded from
+     * @param body the body of the response
+     * @param dataObtained the time the options were obtained, every option gets its own timestamp of it
+     * @param tradeDate the trade date of the options
+     * @return the response
+     * @throws IOException if the body can not be read or is not json
+     */
+    public static YahooFinanceOptionsResponse parse(String url, InputStream body, Instant dataObtained,
+                                                    LocalDate tradeDate) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            Reader reader = new Reader(parser, dataObtained, tradeDate);
+            reader.read();
+            List<Option> options = null;
+            if (reader.optionsFound) {
+                options = new ArrayList<>(reader.calls.size() + reader.puts.size());
+                options.addAll(reader.calls);
+                options.addAll(reader.puts);
+            }
+            String error = reader.error;
+            if (error == null && !reader.resultFound) {
+                error = "The response does not have a result.";
+            }
+            return new YahooFinanceOptionsResponse(url, error, reader.resultFound ? reader.expirationDates : null,
+                    reader.expirationDate, options);
+        }
+    }
+
+    /**
+     * @param url the url the response was requested from
+     * @param error why there is no response
+     * @return a response without a result
+     */
+    public static YahooFinanceOptionsResponse failed(String url, String error) {
+        return new YahooFinanceOptionsResponse(url, error, null, null, null);
+    }
+
+    @Override
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return if the response has a result, false if yahoo-finance returned an error or it could not be loaded
+     */
+    @Override
+    public boolean isLoaded() {
+        return error == null;
+    }
+
+    /**
+     * @return the error yahoo-finance returned or the reason the response could not be loaded, null if there is none
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return the expiration dates in the order the response lists them
+     * @throws IllegalStateException if the response does not have a result
+     */
+    @Override
+    public List<LocalDate> getExpirationDates() {
+        if (expirationDates == null) {
+            throw new IllegalStateException("The response from " + url + " does not have a result. " + error);
+        }
+        return new LinkedList<>(expirationDates);
+    }
+
+    /**
+     * @return the expiration date of the options in the response
+     * @throws IllegalStateException if the response does not have any options
+     */
+    public LocalDate getExpirationDate() {
+        if (expirationDate == null) {
+            throw new IllegalStateException("The response from " + url + " does not have any options. " + (error == null ? "" : error));
+        }
+        return expirationDate;
+    }
+
+    /**
+     * @return the calls followed by the puts
+     * @throws IllegalStateException if the response does not have any options
+     */
+    @Override
+    public List<Option> getOptions() {
+        if (options == null) {
+            throw new IllegalStateException("The response from " + url + " does not have any options. " + (error == null ? "" : error));
+        }
+        return options;
+    }
+
+    private static class Reader {
+
+        private final JsonParser parser;
+        private final Instant dataObtained;
+        private final LocalDate tradeDate;
+
+        private boolean resultFound;
+        private boolean optionsFound;
+        private String error;
+        private LocalDate expirationDate;
+
+        private final List<LocalDate> expirationDates = new ArrayList<>();
+        private final List<Option> calls = new ArrayList<>();
+        private final List<Option> puts = new ArrayList<>();
+
+        private Reader(JsonParser parser, Instant dataObtained, LocalDate tradeDate) {
+            this.parser = parser;
+            this.dataObtained = dataObtained;
+            this.tradeDate = tradeDate;
+        }
+
+        private void read() throws IOException {
+            if (next() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "The response is not a json object.");
+            }
+            while (next() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                // The options are wrapped in optionChain, errors such as an invalid crumb come wrapped in finance
+                if (next() == JsonToken.START_OBJECT && (name.equals("optionChain") || name.equals("finance"))) {
+                    readEnvelope();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        private void readEnvelope() throws IOException {
+            while (next() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = next();
+                if (name.equals("result") && value == JsonToken.START_ARRAY) {
+                    readResults();
+                } else if (name.equals("error") && value == JsonToken.START_OBJECT) {
+                    readError();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        private void readResults() throws IOException {
+            JsonToken token;
+            while ((token = next()) != JsonToken.END_ARRAY) {
+                if (token == JsonToken.START_OBJECT && !resultFound) {
+                    resultFound = true;
+                    readResult();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        private void readResult() throws IOException {
+            while (next() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = next();
+                if (name.equals("expirationDates") && value == JsonToken.START_ARRAY) {
+                    JsonToken token;
+                    while ((token = next()) != JsonToken.END_ARRAY) {
+                        if (token == JsonToken.VALUE_NUMBER_INT) {
+                            expirationDates.add(toDate(parser.getLongValue()));
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else if (name.equals("options") && value == JsonToken.START_ARRAY) {
+                    JsonToken token;
+                    while ((token = next()) != JsonToken.END_ARRAY) {
+                        if (token == JsonToken.START_OBJECT && !optionsFound) {
+                            optionsFound = true;
+                            readOptions();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        private void readOptions() throws IOException {
+            while (next() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = next();
+                if (name.equals("expirationDate") && value == JsonToken.VALUE_NUMBER_INT) {
+                    expirationDate = toDate(parser.getLongValue());
+                } else if (name.equals("calls") && value == JsonToken.START_ARRAY) {
+                    readContracts(Option.OptionType.CALL, calls);
+                } else if (name.equals("puts") && value == JsonToken.START_ARRAY) {
+                    readContracts(Option.OptionType.PUT, puts);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        private void readContracts(Option.OptionType optionType, List<Option> options) throws IOException {
+            JsonToken token;
+            while ((token = next()) != JsonToken.END_ARRAY) {
+                if (token == JsonToken.START_OBJECT) {
+                    options.add(readContract(optionType));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        private Option readContract(Option.OptionType optionType) throws IOException {
+            double strike = Double.NaN;
+            // Fields of contracts that have not traded are left out, the options pages show those as "-" which is read as 0
+            double lastPrice = 0;
+            double bid = 0;
+            double ask = 0;
+            long volume = 0;
+            long openInterest = 0;
+            Double impliedVolatility = null;
+            while (next() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                if (!next().isNumeric()) {
+                    parser.skipChildren();
+                    continue;
+                }
+                switch (name) {
+                    case "strike":
+                        strike = parser.getDoubleValue();
+                        break;
+                    case "lastPrice":
+                        lastPrice = parser.getDoubleValue();
+                        break;
+                    case "bid":
+                        bid = parser.getDoubleValue();
+                        break;
+                    case "ask":
+                        ask = parser.getDoubleValue();
+                        break;
+                    case "volume":
+                        volume = parser.getLongValue();
+                        break;
+                    case "openInterest":
+                        openInterest = parser.getLongValue();
+                        break;
+                    case "impliedVolatility":
+                        // A fraction here, but stored as the percentage with two decimals the options pages show
+                        impliedVolatility = Math.round(parser.getDoubleValue() * 10000) / 100.0;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (Double.isNaN(strike)) {
+                throw new JsonParseException(parser, "Option contract does not have a strike.");
+            }
+            Option option = new LiveOption();
+            option.setStrike(strike);
+            option.setOptionType(optionType);
+            OptionPriceData priceData = option.getMostRecentPriceData();
+            priceData.setLastTradePrice(lastPrice);
+            priceData.setBid(bid);
+            priceData.setAsk(ask);
+            priceData.setVolume((int) volume);
+            priceData.setOpenInterest((int) openInterest);
+            priceData.setImpliedVolatility(impliedVolatility);
+            priceData.setDataObtainedDate(Timestamp.from(dataObtained));
+            priceData.setTradeDate(tradeDate);
+            return option;
+        }
+
+        private void readError() throws IOException {
+            String code = null;
+            String description = null;
+            while (next() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = next();
+                if (name.equals("code") && value == JsonToken.VALUE_STRING) {
+                    code = parser.getText();
+                } else if (name.equals("description") && value == JsonToken.VALUE_STRING) {
+                    description = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            error = code + ": " + description;
+        }
+
+        private JsonToken next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new JsonParseException(parser, "Unexpected end of the response.");
+            }
+            return token;
+        }
+
+        private static LocalDate toDate(long epochSecond) {
+            return LocalDate.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.of("Z"));
+        }
+    }
+}
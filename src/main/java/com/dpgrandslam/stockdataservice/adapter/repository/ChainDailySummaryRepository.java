@@ -0,0 +1,16 @@
+package com.dpgrandslam.stockdataservice.adapter.repository;
+
+import com.dpgrandslam.stockdataservice.domain.model.options.ChainDailySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ChainDailySummaryRepository extends JpaRepository<ChainDailySummary, ChainDailySummary.Key> {
+
+    List<ChainDailySummary> findAllByTickerAndTradeDateBetweenOrderByTradeDateAscExpirationAsc(String ticker, LocalDate startDate, LocalDate endDate);
+
+    List<ChainDailySummary> findAllByTickerAndExpirationAndTradeDateBetweenOrderByTradeDateAsc(String ticker, LocalDate expiration, LocalDate startDate, LocalDate endDate);
+}
@@ -1,14 +1,176 @@
 package com.dpgrandslam.stockdataservice.adapter.repository;
 
 import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOptionColumnStore;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionChainKey;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPageCursor;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChainPage;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.function.Consumer;
 
 public interface HistoricalOptionJDBCRepository {
 
     Set<HistoricalOption> findByTickerBetweenDates(String ticker, LocalDate startDate, LocalDate endDate);
 
+    /**
+     * Finds every option for a ticker and expiration with all of its price data. The options are built straight from
+     * the result set and are not attached to a persistence context.
+     *
+     * @param ticker the ticker to look for
+     * @param expiration the expiration to look for
+     * @return the options, including options without any price data
+     */
+    Set<HistoricalOption> findByTickerAndExpiration(String ticker, LocalDate expiration);
+
+    /**
+     * Finds the options for a ticker and expiration with price data between the two dates. Only the price data
+     * between the dates is loaded and options without any are left out.
+     *
+     * @param ticker the ticker to look for
+     * @param expiration the expiration to look for
+     * @param startDate the start date
+     * @param endDate the end date
+     * @return the options with price data between the dates
+     */
+    Set<HistoricalOption> findByTickerAndExpirationBetweenDates(String ticker, LocalDate expiration, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Finds one page of price data rows for a ticker between the two dates, ordered by expiration, strike, option type
+     * and trade date and grouped into options chains. Pages are found by seeking past the cursor, so each page costs
+     * the same no matter how deep into the history it is.
+     *
+     * @param ticker the ticker to look for
+     * @param startDate the start date
+     * @param endDate the end date
+     * @param after the cursor of the previous page, or null for the first page
+     * @param limit the maximum number of price data rows in the page
+     * @return the page, with a cursor for the next page if there is one
+     */
+    OptionsChainPage findPageByTickerBetweenDates(String ticker, LocalDate startDate, LocalDate endDate, OptionPageCursor after, int limit);
+
+    /**
+     * Loads every option for a ticker, with all of its price data, into a {@link HistoricalOptionColumnStore}.
+     *
+     * @param ticker the ticker to look for
+     * @return the column store for the ticker
+     */
+    HistoricalOptionColumnStore findColumnStoreByTicker(String ticker);
+
+    /**
+     * Loads every option for a ticker that expires between the two dates, with all of its price data, into a
+     * {@link HistoricalOptionColumnStore}.
+     *
+     * @param ticker the ticker to look for
+     * @param startExpiration the first expiration, inclusive
+     * @param endExpiration the last expiration, inclusive
+     * @return the column store for the options
+     */
+    HistoricalOptionColumnStore findColumnStoreByTickerAndExpirationBetween(String ticker, LocalDate startExpiration, LocalDate endExpiration);
+
+    /**
+     * Finds the months that stored options expire in for every ticker, for options that expire before the date.
+     *
+     * @param date options expiring on or after this date are left out
+     * @return the expiration months keyed by ticker
+     */
+    Map<String, SortedSet<YearMonth>> findExpirationMonthsBefore(LocalDate date);
+
+    /**
+     * Deletes the options for a ticker that expire between the two dates along with all of their price data.
+     *
+     * @param ticker the ticker
+     * @param startExpiration the first expiration, inclusive
+     * @param endExpiration the last expiration, inclusive
+     * @return the number of options deleted
+     */
+    int deleteByTickerAndExpirationBetween(String ticker, LocalDate startExpiration, LocalDate endExpiration);
+
+    /**
+     * Streams the options with price data between the two dates, one options chain per expiration. Rows are read
+     * through a cursor so only the chain currently being built is held in memory.
+     *
+     * @param ticker the ticker to look for
+     * @param startDate the start date
+     * @param endDate the end date
+     * @param consumer receives each options chain in expiration order
+     */
+    void streamByTickerBetweenDates(String ticker, LocalDate startDate, LocalDate endDate, Consumer<OptionsChain> consumer);
+
+    /**
+     * Streams the ticker, expiration, strike and option type of every option with price data on the trade date. The
+     * options have no id or price data set.
+     *
+     * @param tradeDate the trade date to look for
+     * @param consumer receives each option
+     */
+    void streamOptionsOnTradeDate(LocalDate tradeDate, Consumer<HistoricalOption> consumer);
+
+    /**
+     * Rebuilds the chain_daily_summary rows for a ticker and expiration between the two trade dates from the stored
+     * price data. Each summary is inserted or updated in one statement, so concurrent writers of the same chain do not
+     * conflict.
+     *
+     * @param ticker the ticker
+     * @param expiration the expiration of the chain
+     * @param startDate the first trade date to rebuild
+     * @param endDate the last trade date to rebuild
+     */
+    void refreshChainDailySummary(String ticker, LocalDate expiration, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Creates the monthly option_price_data partitions covering the two dates that do not exist yet. Rows of those
+     * months that are in the default partition are moved into the new partitions. Only supported on PostgreSQL once
+     * option_price_data has been partitioned.
+     *
+     * @param fromDate the first date that should have a partition
+     * @param toDate the last date that should have a partition
+     * @return the number of partitions created
+     */
+    int createPriceDataPartitions(LocalDate fromDate, LocalDate toDate);
+
     Set<LocalDate> getExpirationDatesForOptionsAfterDate(String ticker, LocalDate date);
 
+    Map<OptionChainKey, Long> findOptionIdsByTickerAndExpiration(String ticker, LocalDate expiration);
+
+    /**
+     * Inserts every option in the chain that does not exist yet along with any price data that is not already stored
+     * for the option's trade date. Uses batch statements instead of loading each option individually. The chain daily
+     * summaries for the inserted trade dates are rebuilt in the same transaction. On PostgreSQL rows that another
+     * writer inserts at the same time are skipped instead of failing the call and are not counted.
+     *
+     * @param optionsChain the options chain to store
+     * @return the number of price data rows actually inserted
+     * @throws org.springframework.dao.IncorrectResultSizeDataAccessException if an option of the chain can not be found
+     * after inserting it
+     */
+    int upsertOptionsChain(OptionsChain optionsChain);
+
+    /**
+     * Same as {@link #upsertOptionsChain(OptionsChain)}, but the lookup of the price data that is already stored can be
+     * skipped when the caller knows none of the chain's trade dates are stored yet. On PostgreSQL stored rows are
+     * still skipped by the insert itself, so a wrong guess does not change the rows stored or the count returned.
+     *
+     * @param optionsChain the options chain to store
+     * @param checkStoredPriceData false to skip looking up the price data that is already stored
+     * @return the number of price data rows actually inserted
+     */
+    int upsertOptionsChain(OptionsChain optionsChain, boolean checkStoredPriceData);
+
+    /**
+     * Stages the options and their price data in a temp table with postgres COPY and merges them into the option
+     * tables with set based SQL. Options and price data that already exist are skipped and the chain daily summaries
+     * for the staged trade dates are rebuilt. Only supported on PostgreSQL.
+     *
+     * @param options the options to store
+     * @return the number of price data rows inserted
+     */
+    int copyOptions(Collection<? extends HistoricalOption> options);
+
 }
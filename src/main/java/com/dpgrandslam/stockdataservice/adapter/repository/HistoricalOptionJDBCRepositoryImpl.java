@@ -1,29 +1,156 @@
 package com.dpgrandslam.stockdataservice.adapter.repository;
 
 import com.dpgrandslam.stockdataservice.adapter.repository.mapper.ExpirationDateResultSetExtractor;
+import com.dpgrandslam.stockdataservice.adapter.repository.mapper.HistoricalOptionColumnStoreResultSetExtractor;
 import com.dpgrandslam.stockdataservice.adapter.repository.mapper.HistoricalOptionResultSetExtractor;
+import com.dpgrandslam.stockdataservice.adapter.repository.mapper.OptionIdResultSetExtractor;
+import com.dpgrandslam.stockdataservice.adapter.repository.mapper.OptionTradeDateResultSetExtractor;
+import com.dpgrandslam.stockdataservice.adapter.repository.mapper.OptionsChainRowCallbackHandler;
 import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOptionColumnStore;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionChainKey;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPageCursor;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChainPage;
+import com.dpgrandslam.stockdataservice.domain.util.DatabaseUtils;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+import org.postgresql.PGConnection;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.time.LocalDate;
-import java.util.Set;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class HistoricalOptionJDBCRepositoryImpl implements HistoricalOptionJDBCRepository{
 
-    private static final String FIND_BETWEEN_DATES_SQL = "SELECT * FROM historical_option ho left join option_price_data " +
+    private static final int BATCH_SIZE = 500;
+    private static final int STREAM_FETCH_SIZE = 5000;
+
+    private static final String FIND_BETWEEN_DATES_SQL = "SELECT * FROM historical_option ho inner join option_price_data " +
             "pd on ho.option_id = pd.option_id WHERE ho.ticker = ? and pd.trade_date >= ? and pd.trade_date <= ?";
+    private static final String FIND_BY_EXPIRATION_SQL = "SELECT * FROM historical_option ho left join option_price_data " +
+            "pd on ho.option_id = pd.option_id WHERE ho.ticker = ? and ho.expiration = ?";
+    private static final String FIND_BY_EXPIRATION_BETWEEN_DATES_SQL = "SELECT * FROM historical_option ho inner join option_price_data " +
+            "pd on ho.option_id = pd.option_id WHERE ho.ticker = ? and ho.expiration = ? and pd.trade_date >= ? and pd.trade_date <= ?";
+    private static final String FIND_ALL_BY_TICKER_ORDERED_SQL = "SELECT * FROM historical_option ho left join option_price_data " +
+            "pd on ho.option_id = pd.option_id WHERE ho.ticker = ? " +
+            "order by ho.expiration, ho.strike, ho.option_type, ho.option_id, pd.trade_date";
+    private static final String FIND_BY_EXPIRATION_RANGE_ORDERED_SQL = "SELECT * FROM historical_option ho left join option_price_data " +
+            "pd on ho.option_id = pd.option_id WHERE ho.ticker = ? and ho.expiration >= ? and ho.expiration <= ? " +
+            "order by ho.expiration, ho.strike, ho.option_type, ho.option_id, pd.trade_date";
+    private static final String FIND_EXPIRATIONS_BEFORE_SQL = "select distinct ticker, expiration from historical_option " +
+            "where expiration < ?";
+    private static final String DELETE_PRICE_DATA_BY_EXPIRATION_RANGE_SQL = "delete from option_price_data where option_id in " +
+            "(select option_id from historical_option where ticker = ? and expiration >= ? and expiration <= ?)";
+    private static final String DELETE_OPTIONS_BY_EXPIRATION_RANGE_SQL = "delete from historical_option where ticker = ? " +
+            "and expiration >= ? and expiration <= ?";
+    private static final String STREAM_BETWEEN_DATES_SQL = "SELECT * FROM historical_option ho inner join option_price_data " +
+            "pd on ho.option_id = pd.option_id WHERE ho.ticker = ? and pd.trade_date >= ? and pd.trade_date <= ? " +
+            "order by ho.expiration, ho.strike, ho.option_type, pd.trade_date";
+    private static final String FIND_PAGE_BETWEEN_DATES_SQL = "SELECT * FROM historical_option ho inner join option_price_data " +
+            "pd on ho.option_id = pd.option_id WHERE ho.ticker = ? and pd.trade_date >= ? and pd.trade_date <= ? " +
+            "order by ho.expiration, ho.strike, ho.option_type, pd.trade_date limit ?";
+    // Seeks past (expiration, strike, option_type, trade_date) of the cursor instead of using an offset
+    private static final String FIND_PAGE_BETWEEN_DATES_AFTER_SQL = "SELECT * FROM historical_option ho inner join option_price_data " +
+            "pd on ho.option_id = pd.option_id WHERE ho.ticker = ? and pd.trade_date >= ? and pd.trade_date <= ? " +
+            "and ho.expiration >= ? and (ho.expiration > ? or (ho.strike > ? or (ho.strike = ? and (ho.option_type > ? " +
+            "or (ho.option_type = ? and pd.trade_date > ?))))) " +
+            "order by ho.expiration, ho.strike, ho.option_type, pd.trade_date limit ?";
+    private static final String FIND_OPTIONS_ON_TRADE_DATE_SQL = "select ho.ticker, ho.expiration, ho.strike, ho.option_type " +
+            "from historical_option ho inner join option_price_data pd on ho.option_id = pd.option_id where pd.trade_date = ?";
     private static final String FIND_EXPIRATION_AFTER_DATE_SQL = "select distinct expiration from historical_option " +
-            "inner join option_price_data opd on historical_option.option_id = opd.option_id where trade_date >= ? " +
+            "inner join option_price_data opd on historical_option.option_id = opd.option_id where opd.trade_date >= ? " +
             "and ticker = ? order by expiration";
+    private static final String FIND_OPTION_IDS_SQL = "select option_id, strike, option_type from historical_option " +
+            "where ticker = ? and expiration = ?";
+    private static final String FIND_TRADE_DATES_BETWEEN_SQL = "select pd.option_id, pd.trade_date from option_price_data pd " +
+            "inner join historical_option ho on ho.option_id = pd.option_id where ho.ticker = ? and ho.expiration = ? " +
+            "and pd.trade_date >= ? and pd.trade_date <= ?";
+    private static final String CREATE_PRICE_DATA_PARTITIONS_SQL = "select create_option_price_data_partitions(?, ?)";
+    private static final String INSERT_OPTION_SQL = "insert into historical_option (option_id, ticker, option_type, expiration, strike) " +
+            "values (nextval('historical_option_seq'), ?, ?, ?, ?)";
+    private static final String INSERT_PRICE_DATA_COLUMNS = "insert into option_price_data (id, option_id, trade_date, bid, ask, " +
+            "last_trade_price, volume, open_interest, implied_volatility, data_obtained_date) values ";
+    private static final String PRICE_DATA_VALUES = "(nextval('option_price_data_seq'), ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int PRICE_DATA_PARAMETERS = 9;
+    private static final String INSERT_PRICE_DATA_SQL = INSERT_PRICE_DATA_COLUMNS + PRICE_DATA_VALUES;
+    // Another writer can insert the same rows between reading what is stored and inserting, those rows are skipped
+    private static final String INSERT_OPTION_IF_ABSENT_SQL = INSERT_OPTION_SQL + " on conflict (strike, expiration, ticker, option_type) do nothing";
+    private static final String PRICE_DATA_CONFLICT = " on conflict (option_id, trade_date) do nothing";
+    private static final String INSERT_PRICE_DATA_BATCH_IF_ABSENT_SQL = insertPriceDataIfAbsentSql(BATCH_SIZE);
+    private static final String CREATE_STAGE_TABLE_SQL = "create temp table if not exists option_csv_stage (ticker varchar(255), " +
+            "option_type varchar(255), expiration date, strike float8, trade_date date, bid float8, ask float8, " +
+            "last_trade_price float8, volume integer, open_interest integer, implied_volatility float8, data_obtained_date timestamp)";
+    private static final String TRUNCATE_STAGE_TABLE_SQL = "truncate option_csv_stage";
+    private static final String COPY_STAGE_TABLE_SQL = "copy option_csv_stage (ticker, option_type, expiration, strike, trade_date, " +
+            "bid, ask, last_trade_price, volume, open_interest, implied_volatility, data_obtained_date) from stdin with (format csv)";
+    private static final String MERGE_STAGED_OPTIONS_SQL = "insert into historical_option (option_id, ticker, option_type, expiration, strike) " +
+            "select nextval('historical_option_seq'), s.ticker, s.option_type, s.expiration, s.strike from " +
+            "(select distinct ticker, option_type, expiration, strike from option_csv_stage) s " +
+            "on conflict (strike, expiration, ticker, option_type) do nothing";
+    private static final String MERGE_STAGED_PRICE_DATA_SQL = "insert into option_price_data (id, option_id, trade_date, bid, ask, " +
+            "last_trade_price, volume, open_interest, implied_volatility, data_obtained_date) " +
+            "select nextval('option_price_data_seq'), ho.option_id, s.trade_date, s.bid, s.ask, s.last_trade_price, s.volume, " +
+            "s.open_interest, s.implied_volatility, s.data_obtained_date from " +
+            "(select distinct on (ticker, option_type, expiration, strike, trade_date) * from option_csv_stage) s, historical_option ho " +
+            "where ho.ticker = s.ticker and ho.option_type = s.option_type and ho.expiration = s.expiration and ho.strike = s.strike " +
+            "on conflict (option_id, trade_date) do nothing";
+    private static final String SUMMARY_COLUMNS = "ticker, expiration, trade_date, call_volume, put_volume, call_open_interest, " +
+            "put_open_interest, option_count, iv_volume_sum, iv_volume";
+    private static final String SUMMARY_AGGREGATES = "ho.ticker, ho.expiration, pd.trade_date, " +
+            "coalesce(sum(case when ho.option_type = 'CALL' then pd.volume end), 0), " +
+            "coalesce(sum(case when ho.option_type = 'PUT' then pd.volume end), 0), " +
+            "coalesce(sum(case when ho.option_type = 'CALL' then pd.open_interest end), 0), " +
+            "coalesce(sum(case when ho.option_type = 'PUT' then pd.open_interest end), 0), " +
+            "count(*), " +
+            "coalesce(sum(pd.implied_volatility * pd.volume), 0), " +
+            "coalesce(sum(case when pd.implied_volatility is not null then pd.volume end), 0)";
+    // Concurrent writers of the same chain each upsert the summaries instead of racing a delete against an insert
+    private static final String SUMMARY_CONFLICT_UPDATE = " on conflict (ticker, expiration, trade_date) do update set " +
+            "call_volume = excluded.call_volume, put_volume = excluded.put_volume, " +
+            "call_open_interest = excluded.call_open_interest, put_open_interest = excluded.put_open_interest, " +
+            "option_count = excluded.option_count, iv_volume_sum = excluded.iv_volume_sum, iv_volume = excluded.iv_volume";
+    private static final String SELECT_CHAIN_SUMMARY_SQL = "select " + SUMMARY_AGGREGATES + " from historical_option ho " +
+            "inner join option_price_data pd on ho.option_id = pd.option_id " +
+            "where ho.ticker = ? and ho.expiration = ? and pd.trade_date >= ? and pd.trade_date <= ? " +
+            "group by ho.ticker, ho.expiration, pd.trade_date";
+    private static final String UPSERT_CHAIN_SUMMARY_SQL = "insert into chain_daily_summary (" + SUMMARY_COLUMNS + ") " +
+            SELECT_CHAIN_SUMMARY_SQL + SUMMARY_CONFLICT_UPDATE;
+    private static final String MERGE_CHAIN_SUMMARY_SQL = "merge into chain_daily_summary (" + SUMMARY_COLUMNS + ") " +
+            "key (ticker, expiration, trade_date) " + SELECT_CHAIN_SUMMARY_SQL;
+    private static final String UPSERT_STAGED_CHAIN_SUMMARY_SQL = "insert into chain_daily_summary (" + SUMMARY_COLUMNS + ") " +
+            "select " + SUMMARY_AGGREGATES + " from (select distinct ticker, expiration, trade_date from option_csv_stage) k " +
+            "inner join historical_option ho on ho.ticker = k.ticker and ho.expiration = k.expiration " +
+            "inner join option_price_data pd on pd.option_id = ho.option_id and pd.trade_date = k.trade_date " +
+            "group by ho.ticker, ho.expiration, pd.trade_date" + SUMMARY_CONFLICT_UPDATE;
 
     private final JdbcTemplate jdbcTemplate;
 
+    private volatile Boolean postgres;
+
     @Override
+    @Transactional(readOnly = true)
     public Set<HistoricalOption> findByTickerBetweenDates(final String ticker, LocalDate startDate, LocalDate endDate) {
         return jdbcTemplate.query(FIND_BETWEEN_DATES_SQL, (ps) -> {
             ps.setString(1, ticker);
@@ -33,6 +160,138 @@ public class HistoricalOptionJDBCRepositoryImpl implements HistoricalOptionJDBCR
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Set<HistoricalOption> findByTickerAndExpiration(String ticker, LocalDate expiration) {
+        return jdbcTemplate.query(FIND_BY_EXPIRATION_SQL, (ps) -> {
+            ps.setString(1, ticker);
+            ps.setDate(2, Date.valueOf(expiration));
+        }, new HistoricalOptionResultSetExtractor());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<HistoricalOption> findByTickerAndExpirationBetweenDates(String ticker, LocalDate expiration, LocalDate startDate, LocalDate endDate) {
+        return jdbcTemplate.query(FIND_BY_EXPIRATION_BETWEEN_DATES_SQL, (ps) -> {
+            ps.setString(1, ticker);
+            ps.setDate(2, Date.valueOf(expiration));
+            ps.setDate(3, Date.valueOf(startDate));
+            ps.setDate(4, Date.valueOf(endDate));
+        }, new HistoricalOptionResultSetExtractor());
+    }
+
+    @Override
+    @Transactional
+    public HistoricalOptionColumnStore findColumnStoreByTicker(String ticker) {
+        // Not read only on purpose, the cache keeps what this reads and a lagging replica would leave out chains that
+        // were just written, which are not patched in since the ticker was not cached when they were written
+        return jdbcTemplate.query(FIND_ALL_BY_TICKER_ORDERED_SQL, new HistoricalOptionColumnStoreResultSetExtractor(ticker), ticker);
+    }
+
+    @Override
+    @Transactional
+    public HistoricalOptionColumnStore findColumnStoreByTickerAndExpirationBetween(String ticker, LocalDate startExpiration, LocalDate endExpiration) {
+        // Not read only on purpose, the cache re-reads expirations right after writing them and a lagging replica would
+        // hide the rows that were just written
+        return jdbcTemplate.query(FIND_BY_EXPIRATION_RANGE_ORDERED_SQL, new HistoricalOptionColumnStoreResultSetExtractor(ticker),
+                ticker, Date.valueOf(startExpiration), Date.valueOf(endExpiration));
+    }
+
+    @Override
+    public Map<String, SortedSet<YearMonth>> findExpirationMonthsBefore(LocalDate date) {
+        Map<String, SortedSet<YearMonth>> expirationMonths = new HashMap<>();
+        jdbcTemplate.query(FIND_EXPIRATIONS_BEFORE_SQL, (RowCallbackHandler) rs -> {
+            expirationMonths.computeIfAbsent(rs.getString("ticker"), x -> new TreeSet<>())
+                    .add(YearMonth.from(rs.getDate("expiration").toLocalDate()));
+        }, Date.valueOf(date));
+        return expirationMonths;
+    }
+
+    @Override
+    @Transactional
+    public int deleteByTickerAndExpirationBetween(String ticker, LocalDate startExpiration, LocalDate endExpiration) {
+        jdbcTemplate.update(DELETE_PRICE_DATA_BY_EXPIRATION_RANGE_SQL, ticker, Date.valueOf(startExpiration), Date.valueOf(endExpiration));
+        return jdbcTemplate.update(DELETE_OPTIONS_BY_EXPIRATION_RANGE_SQL, ticker, Date.valueOf(startExpiration), Date.valueOf(endExpiration));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamByTickerBetweenDates(String ticker, LocalDate startDate, LocalDate endDate, Consumer<OptionsChain> consumer) {
+        OptionsChainRowCallbackHandler rowCallbackHandler = new OptionsChainRowCallbackHandler(consumer);
+        // Postgres only uses a cursor when a fetch size is set and the statement runs inside a transaction
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(STREAM_BETWEEN_DATES_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setString(1, ticker);
+            ps.setDate(2, Date.valueOf(startDate));
+            ps.setDate(3, Date.valueOf(endDate));
+            return ps;
+        }, rowCallbackHandler);
+        rowCallbackHandler.finish();
+    }
+
+    @Override
+    @Transactional
+    public void streamOptionsOnTradeDate(LocalDate tradeDate, Consumer<HistoricalOption> consumer) {
+        // Not read only on purpose, a lagging replica would hide rows that were just written
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(FIND_OPTIONS_ON_TRADE_DATE_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setDate(1, Date.valueOf(tradeDate));
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(HistoricalOption.builder()
+                .ticker(rs.getString("ticker"))
+                .expiration(rs.getDate("expiration").toLocalDate())
+                .strike(rs.getDouble("strike"))
+                .optionType(Option.OptionType.valueOf(rs.getString("option_type")))
+                .build()));
+    }
+
+    @Override
+    public int createPriceDataPartitions(LocalDate fromDate, LocalDate toDate) {
+        Integer created = jdbcTemplate.queryForObject(CREATE_PRICE_DATA_PARTITIONS_SQL, Integer.class,
+                Date.valueOf(fromDate), Date.valueOf(toDate));
+        return created == null ? 0 : created;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OptionsChainPage findPageByTickerBetweenDates(String ticker, LocalDate startDate, LocalDate endDate,
+                                                         OptionPageCursor after, int limit) {
+        List<OptionsChain> optionsChains = new ArrayList<>();
+        OptionsChainRowCallbackHandler chainHandler = new OptionsChainRowCallbackHandler(optionsChains::add);
+        final OptionPageCursor[] lastRow = new OptionPageCursor[1];
+        final int[] rows = new int[1];
+        // One extra row is read to find out if there is another page
+        RowCallbackHandler pageHandler = rs -> {
+            if (++rows[0] > limit) {
+                return;
+            }
+            chainHandler.processRow(rs);
+            lastRow[0] = new OptionPageCursor(rs.getDate("expiration").toLocalDate(), rs.getDouble("strike"),
+                    Option.OptionType.valueOf(rs.getString("option_type")), rs.getDate("trade_date").toLocalDate());
+        };
+        jdbcTemplate.query(after == null ? FIND_PAGE_BETWEEN_DATES_SQL : FIND_PAGE_BETWEEN_DATES_AFTER_SQL, ps -> {
+            int i = 1;
+            ps.setString(i++, ticker);
+            ps.setDate(i++, Date.valueOf(startDate));
+            ps.setDate(i++, Date.valueOf(endDate));
+            if (after != null) {
+                ps.setDate(i++, Date.valueOf(after.getExpiration()));
+                ps.setDate(i++, Date.valueOf(after.getExpiration()));
+                ps.setDouble(i++, after.getStrike());
+                ps.setDouble(i++, after.getStrike());
+                ps.setString(i++, after.getOptionType().name());
+                ps.setString(i++, after.getOptionType().name());
+                ps.setDate(i++, Date.valueOf(after.getTradeDate()));
+            }
+            ps.setInt(i, limit + 1);
+        }, pageHandler);
+        chainHandler.finish();
+        return new OptionsChainPage(optionsChains, rows[0] > limit ? lastRow[0] : null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Set<LocalDate> getExpirationDatesForOptionsAfterDate(String ticker, LocalDate date) {
         return jdbcTemplate.query(FIND_EXPIRATION_AFTER_DATE_SQL, (ps) -> {
             ps.setDate(1, Date.valueOf(date));
@@ -40,4 +299,203 @@ public class HistoricalOptionJDBCRepositoryImpl implements HistoricalOptionJDBCR
         }, new ExpirationDateResultSetExtractor());
     }
 
+    @Override
+    public Map<OptionChainKey, Long> findOptionIdsByTickerAndExpiration(String ticker, LocalDate expiration) {
+        return jdbcTemplate.query(FIND_OPTION_IDS_SQL, (ps) -> {
+            ps.setString(1, ticker);
+            ps.setDate(2, Date.valueOf(expiration));
+        }, new OptionIdResultSetExtractor());
+    }
+
+    @Override
+    @Transactional
+    public int upsertOptionsChain(OptionsChain optionsChain) {
+        return upsertOptionsChain(optionsChain, true);
+    }
+
+    @Override
+    @Transactional
+    public int upsertOptionsChain(OptionsChain optionsChain, boolean checkStoredPriceData) {
+        final String ticker = optionsChain.getTicker();
+        final LocalDate expiration = optionsChain.getExpirationDate();
+        Map<OptionChainKey, Long> optionIds = findOptionIdsByTickerAndExpiration(ticker, expiration);
+        boolean hasExistingOptions = !optionIds.isEmpty();
+
+        // Rows are inserted in key order, so concurrent writers of the same chain wait on each other instead of deadlocking
+        List<Option> missingOptions = optionsChain.getAllOptions().stream()
+                .filter(option -> !optionIds.containsKey(option.getOptionChainKey()))
+                .sorted(Comparator.comparingDouble(Option::getStrike).thenComparing(Option::getOptionType))
+                .collect(Collectors.toList());
+        if (!missingOptions.isEmpty()) {
+            log.debug("Inserting {} new options for ticker {} and expiration {}.", missingOptions.size(), ticker, expiration);
+            jdbcTemplate.batchUpdate(isPostgres() ? INSERT_OPTION_IF_ABSENT_SQL : INSERT_OPTION_SQL, missingOptions, BATCH_SIZE, (ps, option) -> {
+                ps.setString(1, ticker);
+                ps.setString(2, option.getOptionType().name());
+                ps.setDate(3, Date.valueOf(expiration));
+                ps.setDouble(4, option.getStrike());
+            });
+            optionIds.putAll(findOptionIdsByTickerAndExpiration(ticker, expiration));
+            int stillMissing = (int) missingOptions.stream().filter(option -> !optionIds.containsKey(option.getOptionChainKey())).count();
+            if (stillMissing > 0) {
+                throw new IncorrectResultSizeDataAccessException("Could not find " + stillMissing + " options for ticker " + ticker +
+                        " and expiration " + expiration + " after inserting them.", missingOptions.size(), missingOptions.size() - stillMissing);
+            }
+        }
+
+        List<Pair<Long, OptionPriceData>> priceData = new ArrayList<>();
+        optionsChain.getAllOptions().forEach(option -> option.getOptionPriceData().stream()
+                .filter(data -> data.getTradeDate() != null)
+                .forEach(data -> priceData.add(Pair.of(optionIds.get(option.getOptionChainKey()), data))));
+        if (priceData.isEmpty()) {
+            return 0;
+        }
+
+        // Only options that existed before this call can already have price data stored
+        Set<Pair<Long, LocalDate>> storedTradeDates = new HashSet<>();
+        if (hasExistingOptions && checkStoredPriceData) {
+            LocalDate minTradeDate = priceData.stream().map(p -> p.getRight().getTradeDate()).min(Comparator.naturalOrder()).get();
+            LocalDate maxTradeDate = priceData.stream().map(p -> p.getRight().getTradeDate()).max(Comparator.naturalOrder()).get();
+            storedTradeDates.addAll(findTradeDatesBetween(ticker, expiration, minTradeDate, maxTradeDate));
+        }
+        List<Pair<Long, OptionPriceData>> newPriceData = priceData.stream()
+                .filter(p -> storedTradeDates.add(Pair.of(p.getLeft(), p.getRight().getTradeDate())))
+                .sorted(Comparator.comparing((Pair<Long, OptionPriceData> p) -> p.getLeft()).thenComparing(p -> p.getRight().getTradeDate()))
+                .collect(Collectors.toList());
+        if (newPriceData.size() < priceData.size()) {
+            log.debug("Skipping {} price data rows for ticker {} and expiration {} that already exist.",
+                    priceData.size() - newPriceData.size(), ticker, expiration);
+        }
+
+        int inserted = insertPriceData(newPriceData);
+        if (inserted < newPriceData.size()) {
+            log.debug("Skipped {} price data rows for ticker {} and expiration {} that another writer inserted.",
+                    newPriceData.size() - inserted, ticker, expiration);
+        }
+        if (inserted > 0) {
+            refreshChainDailySummary(ticker, expiration,
+                    newPriceData.stream().map(p -> p.getRight().getTradeDate()).min(Comparator.naturalOrder()).get(),
+                    newPriceData.stream().map(p -> p.getRight().getTradeDate()).max(Comparator.naturalOrder()).get());
+        }
+        return inserted;
+    }
+
+    /**
+     * Inserts the price data and counts the rows that were actually inserted. On PostgreSQL rows that are already stored
+     * are skipped by the on conflict clause. reWriteBatchedInserts makes batch update counts unknown there, so rows are
+     * inserted with one multi row statement per batch whose update count is exact.
+     */
+    private int insertPriceData(List<Pair<Long, OptionPriceData>> priceData) {
+        if (priceData.isEmpty()) {
+            return 0;
+        }
+        if (!isPostgres()) {
+            int[][] counts = jdbcTemplate.batchUpdate(INSERT_PRICE_DATA_SQL, priceData, BATCH_SIZE,
+                    (ps, p) -> setPriceData(ps, 0, p));
+            return Arrays.stream(counts).flatMapToInt(Arrays::stream).sum();
+        }
+        int inserted = 0;
+        for (int from = 0; from < priceData.size(); from += BATCH_SIZE) {
+            List<Pair<Long, OptionPriceData>> batch = priceData.subList(from, Math.min(from + BATCH_SIZE, priceData.size()));
+            String sql = batch.size() == BATCH_SIZE ? INSERT_PRICE_DATA_BATCH_IF_ABSENT_SQL : insertPriceDataIfAbsentSql(batch.size());
+            inserted += jdbcTemplate.update(sql, ps -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    setPriceData(ps, i * PRICE_DATA_PARAMETERS, batch.get(i));
+                }
+            });
+        }
+        return inserted;
+    }
+
+    private static void setPriceData(PreparedStatement ps, int offset, Pair<Long, OptionPriceData> p) throws SQLException {
+        OptionPriceData data = p.getRight();
+        ps.setLong(offset + 1, p.getLeft());
+        ps.setDate(offset + 2, Date.valueOf(data.getTradeDate()));
+        ps.setObject(offset + 3, data.getBid(), Types.DOUBLE);
+        ps.setObject(offset + 4, data.getAsk(), Types.DOUBLE);
+        ps.setObject(offset + 5, data.getLastTradePrice(), Types.DOUBLE);
+        ps.setObject(offset + 6, data.getVolume(), Types.INTEGER);
+        ps.setObject(offset + 7, data.getOpenInterest(), Types.INTEGER);
+        ps.setObject(offset + 8, data.getImpliedVolatility(), Types.DOUBLE);
+        ps.setTimestamp(offset + 9, data.getDataObtainedDate());
+    }
+
+    private static String insertPriceDataIfAbsentSql(int rows) {
+        return INSERT_PRICE_DATA_COLUMNS + String.join(", ", Collections.nCopies(rows, PRICE_DATA_VALUES)) + PRICE_DATA_CONFLICT;
+    }
+
+    @Override
+    @Transactional
+    public int copyOptions(Collection<? extends HistoricalOption> options) {
+        StringBuilder csv = new StringBuilder();
+        options.forEach(option -> option.getOptionPriceData().forEach(data -> {
+            appendCsvValue(csv, option.getTicker()).append(',');
+            appendCsvValue(csv, option.getOptionType().name()).append(',');
+            appendCsvValue(csv, option.getExpiration()).append(',');
+            appendCsvValue(csv, option.getStrike()).append(',');
+            appendCsvValue(csv, data.getTradeDate()).append(',');
+            appendCsvValue(csv, data.getBid()).append(',');
+            appendCsvValue(csv, data.getAsk()).append(',');
+            appendCsvValue(csv, data.getLastTradePrice()).append(',');
+            appendCsvValue(csv, data.getVolume()).append(',');
+            appendCsvValue(csv, data.getOpenInterest()).append(',');
+            appendCsvValue(csv, data.getImpliedVolatility()).append(',');
+            appendCsvValue(csv, data.getDataObtainedDate()).append('\n');
+        }));
+        if (csv.length() == 0) {
+            return 0;
+        }
+        jdbcTemplate.execute(CREATE_STAGE_TABLE_SQL);
+        jdbcTemplate.execute(TRUNCATE_STAGE_TABLE_SQL);
+        Long staged = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGE_TABLE_SQL, new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new SQLException("Could not copy options into stage table.", e);
+            }
+        });
+        int newOptions = jdbcTemplate.update(MERGE_STAGED_OPTIONS_SQL);
+        int newPriceData = jdbcTemplate.update(MERGE_STAGED_PRICE_DATA_SQL);
+        if (newPriceData > 0) {
+            jdbcTemplate.update(UPSERT_STAGED_CHAIN_SUMMARY_SQL);
+        }
+        log.debug("Staged {} rows with COPY. Merged {} new options and {} new price data rows.", staged, newOptions, newPriceData);
+        return newPriceData;
+    }
+
+    @Override
+    @Transactional
+    public void refreshChainDailySummary(String ticker, LocalDate expiration, LocalDate startDate, LocalDate endDate) {
+        int summaries = jdbcTemplate.update(isPostgres() ? UPSERT_CHAIN_SUMMARY_SQL : MERGE_CHAIN_SUMMARY_SQL,
+                ticker, Date.valueOf(expiration), Date.valueOf(startDate), Date.valueOf(endDate));
+        log.debug("Rebuilt {} chain daily summaries for ticker {} and expiration {} between {} and {}.", summaries,
+                ticker, expiration, startDate, endDate);
+    }
+
+    /**
+     * H2, used by the local profile and the tests, has no on conflict clause. It only ever has one writer, so skipping
+     * the rows that were read as stored before inserting is enough there, and summaries are upserted with merge.
+     */
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = DatabaseUtils.isPostgres(jdbcTemplate.getDataSource());
+        }
+        return postgres;
+    }
+
+    private StringBuilder appendCsvValue(StringBuilder csv, Object value) {
+        if (value != null) {
+            csv.append(value);
+        }
+        return csv;
+    }
+
+    private Set<Pair<Long, LocalDate>> findTradeDatesBetween(String ticker, LocalDate expiration, LocalDate startDate, LocalDate endDate) {
+        return jdbcTemplate.query(FIND_TRADE_DATES_BETWEEN_SQL, (ps) -> {
+            ps.setString(1, ticker);
+            ps.setDate(2, Date.valueOf(expiration));
+            ps.setDate(3, Date.valueOf(startDate));
+            ps.setDate(4, Date.valueOf(endDate));
+        }, new OptionTradeDateResultSetExtractor());
+    }
+
 }
@@ -0,0 +1,76 @@
+package com.dpgrandslam.stockdataservice.adapter.repository;
+
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOptionColumnStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Keeps archive segments on local disk under {@code <directory>/<ticker>/<yyyy-MM>.seg.gz}.
+ */
+@Slf4j
+public class LocalOptionArchiveRepository implements OptionArchiveRepository {
+
+    private final Path directory;
+
+    public LocalOptionArchiveRepository(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Optional<HistoricalOptionColumnStore> findSegment(String ticker, YearMonth month) {
+        try (InputStream in = Files.newInputStream(segmentPath(ticker, month))) {
+            return Optional.of(OptionArchiveSegments.decode(in));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read option archive segment " + segmentPath(ticker, month), e);
+        }
+    }
+
+    @Override
+    public void saveSegment(HistoricalOptionColumnStore segment, YearMonth month) {
+        Path path = segmentPath(segment.getTicker(), month);
+        try {
+            Files.createDirectories(path.getParent());
+            // Write next to the segment and move it into place so readers never see a partial file
+            Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            Files.write(temp, OptionArchiveSegments.encode(segment));
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write option archive segment " + path, e);
+        }
+        log.debug("Wrote option archive segment {}.", path);
+    }
+
+    @Override
+    public SortedSet<YearMonth> findSegmentMonths(String ticker) {
+        SortedSet<YearMonth> months = new TreeSet<>();
+        Path tickerDirectory = directory.resolve(ticker);
+        if (!Files.isDirectory(tickerDirectory)) {
+            return months;
+        }
+        try (Stream<Path> files = Files.list(tickerDirectory)) {
+            files.map(file -> OptionArchiveSegments.segmentMonth(file.getFileName().toString()))
+                    .forEach(month -> month.ifPresent(months::add));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list option archive segments in " + tickerDirectory, e);
+        }
+        return months;
+    }
+
+    private Path segmentPath(String ticker, YearMonth month) {
+        return directory.resolve(ticker).resolve(OptionArchiveSegments.segmentName(month));
+    }
+}
@@ -0,0 +1,38 @@
+package com.dpgrandslam.stockdataservice.adapter.repository;
+
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOptionColumnStore;
+
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.SortedSet;
+
+/**
+ * Stores archived options as one gzipped {@link HistoricalOptionColumnStore} segment per ticker and expiration month.
+ */
+public interface OptionArchiveRepository {
+
+    /**
+     * Finds the archived segment for a ticker and expiration month.
+     *
+     * @param ticker the ticker
+     * @param month the expiration month
+     * @return the segment, if the month has been archived
+     */
+    Optional<HistoricalOptionColumnStore> findSegment(String ticker, YearMonth month);
+
+    /**
+     * Saves the segment for a ticker and expiration month, replacing the segment that is already there.
+     *
+     * @param segment the options that expire in the month
+     * @param month the expiration month
+     */
+    void saveSegment(HistoricalOptionColumnStore segment, YearMonth month);
+
+    /**
+     * Finds every expiration month that has been archived for a ticker.
+     *
+     * @param ticker the ticker
+     * @return the archived months in order
+     */
+    SortedSet<YearMonth> findSegmentMonths(String ticker);
+}
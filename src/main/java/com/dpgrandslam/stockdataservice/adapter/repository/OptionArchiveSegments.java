@@ -0,0 +1,51 @@
+package com.dpgrandslam.stockdataservice.adapter.repository;
+
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOptionColumnStore;
+
+import java.io.*;
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Naming and encoding shared by the {@link OptionArchiveRepository} implementations.
+ */
+final class OptionArchiveSegments {
+
+    private static final String SEGMENT_SUFFIX = ".seg.gz";
+
+    private OptionArchiveSegments() {
+    }
+
+    static String segmentName(YearMonth month) {
+        return month + SEGMENT_SUFFIX;
+    }
+
+    static Optional<YearMonth> segmentMonth(String name) {
+        if (!name.endsWith(SEGMENT_SUFFIX)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(YearMonth.parse(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    static byte[] encode(HistoricalOptionColumnStore segment) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(bytes)))) {
+            segment.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not encode option archive segment for ticker " + segment.getTicker(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static HistoricalOptionColumnStore decode(InputStream inputStream) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(inputStream)))) {
+            return HistoricalOptionColumnStore.readFrom(in);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.dpgrandslam.stockdataservice.adapter.repository;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOptionColumnStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Keeps archive segments in S3 under {@code <keyPrefix>/<ticker>/<yyyy-MM>.seg.gz}.
+ */
+@Slf4j
+public class S3OptionArchiveRepository implements OptionArchiveRepository {
+
+    private static final int NOT_FOUND = 404;
+
+    private final AmazonS3 amazonS3;
+    private final String bucket;
+    private final String keyPrefix;
+
+    public S3OptionArchiveRepository(AmazonS3 amazonS3, String bucket, String keyPrefix) {
+        this.amazonS3 = amazonS3;
+        this.bucket = bucket;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public Optional<HistoricalOptionColumnStore> findSegment(String ticker, YearMonth month) {
+        String key = segmentKey(ticker, month);
+        try (S3Object object = amazonS3.getObject(bucket, key)) {
+            return Optional.of(OptionArchiveSegments.decode(object.getObjectContent()));
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == NOT_FOUND) {
+                return Optional.empty();
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read option archive segment " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public void saveSegment(HistoricalOptionColumnStore segment, YearMonth month) {
+        String key = segmentKey(segment.getTicker(), month);
+        byte[] bytes = OptionArchiveSegments.encode(segment);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(bytes.length);
+        metadata.setContentType("application/gzip");
+        amazonS3.putObject(bucket, key, new ByteArrayInputStream(bytes), metadata);
+        log.debug("Wrote option archive segment {} to bucket {}.", key, bucket);
+    }
+
+    @Override
+    public SortedSet<YearMonth> findSegmentMonths(String ticker) {
+        SortedSet<YearMonth> months = new TreeSet<>();
+        ListObjectsV2Request request = new ListObjectsV2Request()
+                .withBucketName(bucket)
+                .withPrefix(tickerPrefix(ticker));
+        ListObjectsV2Result result;
+        do {
+            result = amazonS3.listObjectsV2(request);
+            result.getObjectSummaries().forEach(summary -> OptionArchiveSegments
+                    .segmentMonth(summary.getKey().substring(summary.getKey().lastIndexOf('/') + 1))
+                    .ifPresent(months::add));
+            request.setContinuationToken(result.getNextContinuationToken());
+        } while (result.isTruncated());
+        return months;
+    }
+
+    private String tickerPrefix(String ticker) {
+        return keyPrefix + "/" + ticker + "/";
+    }
+
+    private String segmentKey(String ticker, YearMonth month) {
+        return tickerPrefix(ticker) + OptionArchiveSegments.segmentName(month);
+    }
+}
@@ -0,0 +1,53 @@
+package com.dpgrandslam.stockdataservice.adapter.repository.mapper;
+
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOptionColumnStore;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads option rows left joined to their price data, ordered by expiration, strike, option type and trade date,
+ * straight into a {@link HistoricalOptionColumnStore}.
+ */
+public class HistoricalOptionColumnStoreResultSetExtractor implements ResultSetExtractor<HistoricalOptionColumnStore> {
+
+    private final String ticker;
+
+    public HistoricalOptionColumnStoreResultSetExtractor(String ticker) {
+        this.ticker = ticker;
+    }
+
+    @Override
+    public HistoricalOptionColumnStore extractData(ResultSet rs) throws SQLException, DataAccessException {
+        HistoricalOptionColumnStore.Builder builder = HistoricalOptionColumnStore.builder(ticker);
+        long currentOptionId = 0;
+        boolean first = true;
+        while (rs.next()) {
+            long optionId = rs.getLong("option_id");
+            if (first || optionId != currentOptionId) {
+                builder.startOption(optionId,
+                        rs.getDate("expiration").toLocalDate(),
+                        rs.getDouble("strike"),
+                        Option.OptionType.valueOf(rs.getString("option_type")));
+                currentOptionId = optionId;
+                first = false;
+            }
+            Long priceDataId = rs.getObject("id", Long.class);
+            if (priceDataId != null) {
+                builder.addPriceData(priceDataId,
+                        rs.getDate("trade_date").toLocalDate(),
+                        rs.getObject("last_trade_price", Double.class),
+                        rs.getObject("bid", Double.class),
+                        rs.getObject("ask", Double.class),
+                        rs.getObject("implied_volatility", Double.class),
+                        rs.getObject("volume", Integer.class),
+                        rs.getObject("open_interest", Integer.class),
+                        rs.getTimestamp("data_obtained_date"));
+            }
+        }
+        return builder.build();
+    }
+}
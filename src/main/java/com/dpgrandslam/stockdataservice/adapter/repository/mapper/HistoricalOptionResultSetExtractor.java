@@ -16,6 +16,20 @@ public class HistoricalOptionResultSetExtractor implements ResultSetExtractor<Se
         final Map<Long, List<OptionPriceData>> optionPriceDataMap = new HashMap<>();
         Set<HistoricalOption> historicalOptions = new HashSet<>();
         while (rs.next()) {
+            HistoricalOption ho = HistoricalOption.builder()
+                    .ticker(rs.getString("ticker"))
+                    .strike(rs.getDouble("strike"))
+                    .optionType(Option.OptionType.valueOf(rs.getString("option_type")))
+                    .expiration(rs.getDate("expiration").toLocalDate())
+                    .build();
+            Long id = rs.getLong("option_id");
+            ho.setId(id);
+            historicalOptions.add(ho);
+            List<OptionPriceData> optionPriceData = optionPriceDataMap.computeIfAbsent(id, x -> new ArrayList<>());
+            // Options left joined to their price data have a row without price data when there is none
+            if (rs.getObject("id") == null) {
+                continue;
+            }
             OptionPriceData opd = OptionPriceData.builder()
                     .id(rs.getLong("id"))
                     .ask(rs.getDouble("ask"))
@@ -27,16 +41,7 @@ public class HistoricalOptionResultSetExtractor implements ResultSetExtractor<Se
                     .tradeDate(rs.getDate("trade_date").toLocalDate())
                     .volume(rs.getInt("volume"))
                     .build();
-            HistoricalOption ho = HistoricalOption.builder()
-                    .ticker(rs.getString("ticker"))
-                    .strike(rs.getDouble("strike"))
-                    .optionType(Option.OptionType.valueOf(rs.getString("option_type")))
-                    .expiration(rs.getDate("expiration").toLocalDate())
-                    .build();
-            Long id = rs.getLong("option_id");
-            ho.setId(id);
-            optionPriceDataMap.computeIfAbsent(id, x -> new ArrayList<>()).add(opd);
-            historicalOptions.add(ho);
+            optionPriceData.add(opd);
         }
         historicalOptions.forEach(option -> option.initializeHistoricalPriceData(optionPriceDataMap.get(option.getId())));
         return historicalOptions;
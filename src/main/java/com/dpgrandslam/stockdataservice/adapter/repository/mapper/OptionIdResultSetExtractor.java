@@ -0,0 +1,24 @@
+package com.dpgrandslam.stockdataservice.adapter.repository.mapper;
+
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionChainKey;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class OptionIdResultSetExtractor implements ResultSetExtractor<Map<OptionChainKey, Long>> {
+
+    @Override
+    public Map<OptionChainKey, Long> extractData(ResultSet rs) throws SQLException, DataAccessException {
+        Map<OptionChainKey, Long> optionIds = new HashMap<>();
+        while (rs.next()) {
+            OptionChainKey key = new OptionChainKey(rs.getDouble("strike"), Option.OptionType.valueOf(rs.getString("option_type")));
+            optionIds.put(key, rs.getLong("option_id"));
+        }
+        return optionIds;
+    }
+}
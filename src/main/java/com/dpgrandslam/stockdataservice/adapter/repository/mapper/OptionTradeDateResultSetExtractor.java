@@ -0,0 +1,23 @@
+package com.dpgrandslam.stockdataservice.adapter.repository.mapper;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+public class OptionTradeDateResultSetExtractor implements ResultSetExtractor<Set<Pair<Long, LocalDate>>> {
+
+    @Override
+    public Set<Pair<Long, LocalDate>> extractData(ResultSet rs) throws SQLException, DataAccessException {
+        Set<Pair<Long, LocalDate>> tradeDates = new HashSet<>();
+        while (rs.next()) {
+            tradeDates.add(Pair.of(rs.getLong("option_id"), rs.getDate("trade_date").toLocalDate()));
+        }
+        return tradeDates;
+    }
+}
@@ -0,0 +1,66 @@
+package com.dpgrandslam.stockdataservice.adapter.repository.mapper;
+
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+/**
+ * Builds options chains from rows ordered by expiration. Each chain is handed to the consumer as soon as the rows for
+ * the next expiration start, so only one chain is held in memory at a time. Call {@link #finish()} after the query
+ * to emit the last chain.
+ */
+public class OptionsChainRowCallbackHandler implements RowCallbackHandler {
+
+    private final Consumer<OptionsChain> consumer;
+
+    private OptionsChain current;
+
+    public OptionsChainRowCallbackHandler(Consumer<OptionsChain> consumer) {
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        String ticker = rs.getString("ticker");
+        LocalDate expiration = rs.getDate("expiration").toLocalDate();
+        if (current == null || !current.getExpirationDate().equals(expiration)) {
+            finish();
+            current = new OptionsChain(ticker, expiration);
+        }
+        OptionPriceData opd = OptionPriceData.builder()
+                .id(rs.getLong("id"))
+                .ask(rs.getObject("ask", Double.class))
+                .bid(rs.getObject("bid", Double.class))
+                .dataObtainedDate(rs.getTimestamp("data_obtained_date"))
+                .impliedVolatility(rs.getObject("implied_volatility", Double.class))
+                .lastTradePrice(rs.getObject("last_trade_price", Double.class))
+                .openInterest(rs.getObject("open_interest", Integer.class))
+                .tradeDate(rs.getDate("trade_date").toLocalDate())
+                .volume(rs.getObject("volume", Integer.class))
+                .build();
+        HistoricalOption ho = HistoricalOption.builder()
+                .ticker(ticker)
+                .strike(rs.getDouble("strike"))
+                .optionType(Option.OptionType.valueOf(rs.getString("option_type")))
+                .expiration(expiration)
+                .build();
+        ho.setId(rs.getLong("option_id"));
+        ho.initializeHistoricalPriceData(Collections.singletonList(opd));
+        current.addOption(ho);
+    }
+
+    public void finish() {
+        if (current != null) {
+            consumer.accept(current);
+            current = null;
+        }
+    }
+}
@@ -4,9 +4,11 @@ import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.dpgrandslam.stockdataservice.adapter.apiclient.CNNFearGreedClient;
+import com.dpgrandslam.stockdataservice.adapter.apiclient.YahooFinanceOptionsApiClient;
 import com.dpgrandslam.stockdataservice.adapter.apiclient.tiingo.TiingoApiClient;
 import com.dpgrandslam.stockdataservice.domain.util.BasicAuthorizationTarget;
 import feign.Feign;
+import feign.Retryer;
 import feign.gson.GsonDecoder;
 import feign.gson.GsonEncoder;
 import feign.okhttp.OkHttpClient;
@@ -31,14 +33,33 @@ public class ApiClientsConfiguration {
         return new ApiClientConfigurationProperties();
     }
 
+    @Bean("YahooFinanceJsonApiClientConfigurationProperties")
+    @ConfigurationProperties(prefix = "api.client.yahoo-finance-json")
+    public ApiClientConfigurationProperties yahooFinanceJsonApiClientConfigurationProperties() {
+        return new ApiClientConfigurationProperties();
+    }
+
+    @Bean
+    public YahooFinanceOptionsApiClient yahooFinanceOptionsApiClient(
+            @Qualifier("YahooFinanceJsonApiClientConfigurationProperties") ApiClientConfigurationProperties configurationProperties,
+            okhttp3.OkHttpClient httpClient) {
+        // Responses are read as streams by the caller, and failed loads are retried by the options retry queue
+        return Feign.builder()
+                .logger(new Slf4jLogger(YahooFinanceOptionsApiClient.class))
+                .client(new OkHttpClient(httpClient))
+                .retryer(Retryer.NEVER_RETRY)
+                .target(new BasicAuthorizationTarget<>(YahooFinanceOptionsApiClient.class, configurationProperties));
+    }
+
     @Bean
     public TiingoApiClient tiingoApiClient(
-            @Qualifier("TiingoApiClientConfigurationProperties") ApiClientConfigurationProperties configurationProperties) {
+            @Qualifier("TiingoApiClientConfigurationProperties") ApiClientConfigurationProperties configurationProperties,
+            okhttp3.OkHttpClient httpClient) {
         return Feign.builder()
                 .decoder(new GsonDecoder())
                 .encoder(new GsonEncoder())
                 .logger(new Slf4jLogger(TiingoApiClient.class))
-                .client(new OkHttpClient())
+                .client(new OkHttpClient(httpClient))
                 .target(new BasicAuthorizationTarget<>(TiingoApiClient.class, configurationProperties));
     }
 
@@ -55,12 +76,13 @@ public class ApiClientsConfiguration {
     }
 
     @Bean
-    public CNNFearGreedClient cnnFearGreedClient(@Qualifier("FearGreedClientConfigurationProperties") ApiClientConfigurationProperties configurationProperties) {
+    public CNNFearGreedClient cnnFearGreedClient(@Qualifier("FearGreedClientConfigurationProperties") ApiClientConfigurationProperties configurationProperties,
+                                                 okhttp3.OkHttpClient httpClient) {
         return Feign.builder()
                 .decoder(new GsonDecoder())
                 .encoder(new GsonEncoder())
                 .logger(new Slf4jLogger(CNNFearGreedClient.class))
-                .client(new OkHttpClient())
+                .client(new OkHttpClient(httpClient))
                 .target(new BasicAuthorizationTarget<>(CNNFearGreedClient.class, configurationProperties));
     }
 
@@ -1,10 +1,11 @@
 package com.dpgrandslam.stockdataservice.domain.config;
 
 import com.dpgrandslam.stockdataservice.domain.model.FearGreedIndex;
-import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOptionColumnStore;
 import com.dpgrandslam.stockdataservice.domain.model.stock.EndOfDayStockData;
 import com.dpgrandslam.stockdataservice.domain.model.stock.YahooFinanceQuote;
 import com.dpgrandslam.stockdataservice.domain.model.tiingo.TiingoStockSearchResponse;
+import com.dpgrandslam.stockdataservice.domain.util.BloomFilter;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.Data;
@@ -14,14 +15,16 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Configuration
 public class CacheConfiguration {
 
+    private static final long HISTORICAL_OPTION_CACHE_MAX_KB = 512 * 1024;
+    private static final long OPTION_ARCHIVE_SEGMENT_CACHE_MAX_KB = 128 * 1024;
 
     @Bean
     public Cache<String, List<TiingoStockSearchResponse>> stockSearchCache() {
@@ -32,11 +35,34 @@ public class CacheConfiguration {
     }
 
     @Bean
-    public Cache<String, Set<HistoricalOption.CacheableHistoricalOption>> historicalOptionCache() {
+    public Cache<String, HistoricalOptionColumnStore> historicalOptionSnapshotCache() {
+        // Weighed in KB since a single ticker's snapshot can be hundreds of MB
         return Caffeine.newBuilder()
-                .expireAfterWrite(30, TimeUnit.MINUTES)
+                .expireAfterAccess(1, TimeUnit.DAYS)
+                .recordStats()
+                .maximumWeight(HISTORICAL_OPTION_CACHE_MAX_KB)
+                .weigher((String ticker, HistoricalOptionColumnStore snapshot) ->
+                        (int) Math.min(Integer.MAX_VALUE, snapshot.estimatedSizeInBytes() / 1024 + 1))
+                .build();
+    }
+
+    @Bean
+    public Cache<Pair<String, YearMonth>, HistoricalOptionColumnStore> optionArchiveSegmentCache() {
+        // Decoded archive segments, keyed by ticker and expiration month and weighed in KB like the snapshots
+        return Caffeine.newBuilder()
+                .expireAfterAccess(1, TimeUnit.DAYS)
                 .recordStats()
-                .maximumSize(2)
+                .maximumWeight(OPTION_ARCHIVE_SEGMENT_CACHE_MAX_KB)
+                .weigher((Pair<String, YearMonth> key, HistoricalOptionColumnStore segment) ->
+                        (int) Math.min(Integer.MAX_VALUE, segment.estimatedSizeInBytes() / 1024 + 1))
+                .build();
+    }
+
+    @Bean
+    public Cache<LocalDate, BloomFilter> priceDataDuplicateFilterCache() {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(12, TimeUnit.HOURS)
+                .maximumSize(30)
                 .build();
     }
 
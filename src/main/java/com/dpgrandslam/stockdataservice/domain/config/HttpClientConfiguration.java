@@ -0,0 +1,55 @@
+package com.dpgrandslam.stockdataservice.domain.config;
+
+import com.dpgrandslam.stockdataservice.adapter.apiclient.HttpClientMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one http client every outbound call is made with, so connections to a host are kept alive and reused across
+ * the page loaders and the api clients instead of each opening, and shaking hands on, its own.
+ */
+@Configuration
+public class HttpClientConfiguration {
+
+    @Bean("HttpClientConfigurationProperties")
+    @ConfigurationProperties(prefix = "http-client")
+    public HttpClientConfigurationProperties httpClientConfigurationProperties() {
+        return new HttpClientConfigurationProperties();
+    }
+
+    @Bean
+    public OkHttpClient httpClient(@Qualifier("HttpClientConfigurationProperties") HttpClientConfigurationProperties properties,
+                                   HttpClientMetrics httpClientMetrics, MeterRegistry meterRegistry) {
+        ConnectionPool connectionPool = new ConnectionPool(properties.getMaxIdleConnections(), properties.getKeepAliveSeconds(), TimeUnit.SECONDS);
+        Gauge.builder(HttpClientMetrics.METRIC_PREFIX + ".pool.connections", connectionPool, ConnectionPool::connectionCount)
+                .description("Open connections in the http client pool")
+                .register(meterRegistry);
+        Gauge.builder(HttpClientMetrics.METRIC_PREFIX + ".pool.idle", connectionPool, ConnectionPool::idleConnectionCount)
+                .description("Idle connections in the http client pool")
+                .register(meterRegistry);
+        HttpClientConfigurationProperties.Timeouts defaults = properties.getDefaults();
+        // Responses are gzip decoded transparently, since the client asks for gzip when a request does not say otherwise
+        return new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .connectTimeout(defaults.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(defaults.getReadTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .writeTimeout(defaults.getWriteTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .addInterceptor(chain -> {
+                    HttpClientConfigurationProperties.Timeouts timeouts = properties.getTimeouts(chain.request().url().host());
+                    return chain.withConnectTimeout(timeouts.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS)
+                            .withReadTimeout(timeouts.getReadTimeoutMillis(), TimeUnit.MILLISECONDS)
+                            .withWriteTimeout(timeouts.getWriteTimeoutMillis(), TimeUnit.MILLISECONDS)
+                            .proceed(chain.request());
+                })
+                .eventListenerFactory(httpClientMetrics)
+                .build();
+    }
+}
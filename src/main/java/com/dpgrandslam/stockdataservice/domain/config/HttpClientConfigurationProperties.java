@@ -0,0 +1,37 @@
+package com.dpgrandslam.stockdataservice.domain.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+public class HttpClientConfigurationProperties {
+
+    // Idle connections kept open across every host
+    private int maxIdleConnections = 16;
+    private long keepAliveSeconds = 300;
+    // Timeouts for hosts that are not listed under hosts
+    private Timeouts defaults = new Timeouts();
+    // Timeouts by host name, e.g. finance.yahoo.com
+    private Map<String, Timeouts> hosts = new HashMap<>();
+
+    /**
+     * @param host the host name
+     * @return the timeouts listed for the host, or the defaults if it is not listed
+     */
+    public Timeouts getTimeouts(String host) {
+        return hosts.getOrDefault(host, defaults);
+    }
+
+    @Getter
+    @Setter
+    public static class Timeouts {
+
+        private int connectTimeoutMillis = 5000;
+        private int readTimeoutMillis = 30000;
+        private int writeTimeoutMillis = 10000;
+    }
+}
@@ -0,0 +1,15 @@
+package com.dpgrandslam.stockdataservice.domain.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LiveOptionsChainCacheConfiguration {
+
+    @Bean("LiveOptionsChainCacheConfigurationProperties")
+    @ConfigurationProperties(prefix = "live-options-chain-cache")
+    public LiveOptionsChainCacheConfigurationProperties liveOptionsChainCacheConfigurationProperties() {
+        return new LiveOptionsChainCacheConfigurationProperties();
+    }
+}
@@ -0,0 +1,21 @@
+package com.dpgrandslam.stockdataservice.domain.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class LiveOptionsChainCacheConfigurationProperties {
+
+    // When disabled every request for a live options chain loads it
+    private boolean enabled = true;
+    // How long a loaded chain is served without reloading it while the market is open
+    private long marketHoursTtlSeconds = 30;
+    // How long a loaded chain is served without reloading it while the market is closed
+    private long afterHoursTtlSeconds = 900;
+    // How long after its ttl a chain is still served while a reload runs in the background
+    private long maxStaleSeconds = 300;
+    private long maximumSize = 500;
+    // Threads that reload stale chains in the background
+    private int refreshThreads = 2;
+}
@@ -0,0 +1,32 @@
+package com.dpgrandslam.stockdataservice.domain.config;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.dpgrandslam.stockdataservice.adapter.repository.LocalOptionArchiveRepository;
+import com.dpgrandslam.stockdataservice.adapter.repository.OptionArchiveRepository;
+import com.dpgrandslam.stockdataservice.adapter.repository.S3OptionArchiveRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+@Configuration
+public class OptionArchiveConfiguration {
+
+    @Bean("OptionArchiveConfigurationProperties")
+    @ConfigurationProperties(prefix = "option-archive")
+    public OptionArchiveConfigurationProperties optionArchiveConfigurationProperties() {
+        return new OptionArchiveConfigurationProperties();
+    }
+
+    @Bean
+    public OptionArchiveRepository optionArchiveRepository(
+            @Qualifier("OptionArchiveConfigurationProperties") OptionArchiveConfigurationProperties properties,
+            AmazonS3 amazonS3) {
+        if (properties.getStorage() == OptionArchiveConfigurationProperties.Storage.S3) {
+            return new S3OptionArchiveRepository(amazonS3, properties.getBucketName(), properties.getKeyPrefix());
+        }
+        return new LocalOptionArchiveRepository(Paths.get(properties.getPath()));
+    }
+}
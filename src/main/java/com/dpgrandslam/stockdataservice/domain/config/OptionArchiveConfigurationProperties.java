@@ -0,0 +1,21 @@
+package com.dpgrandslam.stockdataservice.domain.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class OptionArchiveConfigurationProperties {
+
+    private boolean enabled;
+    // Options that expired before the first day of the month this many months ago are archived
+    private int months = 12;
+    private Storage storage = Storage.LOCAL;
+    private String path = "option-archive";
+    private String bucketName;
+    private String keyPrefix = "option-archive";
+
+    public enum Storage {
+        LOCAL, S3
+    }
+}
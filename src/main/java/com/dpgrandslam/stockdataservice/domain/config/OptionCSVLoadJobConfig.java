@@ -1,8 +1,12 @@
 package com.dpgrandslam.stockdataservice.domain.config;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.dpgrandslam.stockdataservice.domain.jobs.optioncsv.OptionCSVCopyItemProcessor;
+import com.dpgrandslam.stockdataservice.domain.jobs.optioncsv.OptionCSVCopyItemWriter;
 import com.dpgrandslam.stockdataservice.domain.jobs.optioncsv.OptionCSVItemProcessor;
 import com.dpgrandslam.stockdataservice.domain.jobs.optioncsv.OptionCSVFile;
+import com.dpgrandslam.stockdataservice.domain.jobs.optioncsv.OptionCSVItemWriter;
+import com.dpgrandslam.stockdataservice.domain.jobs.optioncsv.OptionCSVWriteModeDecider;
 import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
 import com.dpgrandslam.stockdataservice.domain.util.AWSS3ItemReader;
 import lombok.AllArgsConstructor;
@@ -51,12 +55,15 @@ public class OptionCSVLoadJobConfig {
 
     public static final String JOB_NAME = "option-csv-load-job";
     public static final String STEP_NAME = "option-csv-load-step";
+    public static final String COPY_STEP_NAME = "option-csv-copy-load-step";
+
+    private static final int COPY_CHUNK_SIZE = 5000;
 
     @Bean("optionCsvLoadJobStep")
     public Step optionCsvLoadJobStep(StepBuilderFactory stepBuilderFactory,
                                      ItemReader<OptionCSVFile> itemReader,
                                      OptionCSVItemProcessor itemProcessor,
-                                     ItemWriter<HistoricalOption> itemWriter) {
+                                     OptionCSVItemWriter itemWriter) {
         return stepBuilderFactory.get(STEP_NAME)
                 .<OptionCSVFile, HistoricalOption>chunk(50)
                 .reader(itemReader)
@@ -69,6 +76,23 @@ public class OptionCSVLoadJobConfig {
                 .build();
     }
 
+    @Bean("optionCsvCopyLoadJobStep")
+    public Step optionCsvCopyLoadJobStep(StepBuilderFactory stepBuilderFactory,
+                                         ItemReader<OptionCSVFile> itemReader,
+                                         OptionCSVCopyItemProcessor itemProcessor,
+                                         OptionCSVCopyItemWriter itemWriter) {
+        return stepBuilderFactory.get(COPY_STEP_NAME)
+                .<OptionCSVFile, HistoricalOption>chunk(COPY_CHUNK_SIZE)
+                .reader(itemReader)
+                .processor(itemProcessor)
+                .writer(itemWriter)
+                .faultTolerant()
+                .skipLimit(1000000)
+                .skip(DateTimeParseException.class)
+                .taskExecutor(taskExecutor())
+                .build();
+    }
+
     @Bean
     public TaskExecutor taskExecutor() {
         ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
@@ -81,18 +105,24 @@ public class OptionCSVLoadJobConfig {
     }
 
     @Bean("optionCSVLoadJob")
-    public Job optionCSVLoadJob(JobBuilderFactory jobBuilderFactory, @Qualifier("optionCsvLoadJobStep") Step optionCsvLoadJobStep) {
+    public Job optionCSVLoadJob(JobBuilderFactory jobBuilderFactory,
+                                @Qualifier("optionCsvLoadJobStep") Step optionCsvLoadJobStep,
+                                @Qualifier("optionCsvCopyLoadJobStep") Step optionCsvCopyLoadJobStep,
+                                OptionCSVWriteModeDecider writeModeDecider) {
         return jobBuilderFactory.get(JOB_NAME)
                 .incrementer(new RunIdIncrementer())
                 .validator(jobParametersValidator())
-                .start(optionCsvLoadJobStep)
+                .start(writeModeDecider)
+                .on(OptionCSVWriteModeDecider.COPY).to(optionCsvCopyLoadJobStep)
+                .from(writeModeDecider).on("*").to(optionCsvLoadJobStep)
+                .end()
                 .build();
     }
 
     private JobParametersValidator jobParametersValidator() {
         return new DefaultJobParametersValidator(
                 new String[] {"bucket", "keyPrefix"},
-                new String[0]
+                new String[] {OptionCSVWriteModeDecider.WRITE_MODE_PARAM}
         );
     }
 
@@ -0,0 +1,15 @@
+package com.dpgrandslam.stockdataservice.domain.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class OptionsChainWriteQueueConfiguration {
+
+    @Bean("OptionsChainWriteQueueConfigurationProperties")
+    @ConfigurationProperties(prefix = "options-chain-write-queue")
+    public OptionsChainWriteQueueConfigurationProperties optionsChainWriteQueueConfigurationProperties() {
+        return new OptionsChainWriteQueueConfigurationProperties();
+    }
+}
@@ -0,0 +1,19 @@
+package com.dpgrandslam.stockdataservice.domain.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class OptionsChainWriteQueueConfigurationProperties {
+
+    // When disabled options chains are written on the loading thread
+    private boolean enabled = true;
+    // Maximum number of options chains waiting to be written
+    private int capacity = 500;
+    private int consumers = 2;
+    // Maximum number of queued options chains written in one transaction
+    private int batchSize = 10;
+    // How long a producer waits for room in a full queue before writing the chain itself
+    private long offerTimeoutSeconds = 120;
+}
@@ -0,0 +1,15 @@
+package com.dpgrandslam.stockdataservice.domain.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ReadReplicaConfigurationProperties {
+
+    private boolean enabled;
+    private String url;
+    private String username;
+    private String password;
+
+}
@@ -0,0 +1,63 @@
+package com.dpgrandslam.stockdataservice.domain.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.Optional;
+
+/**
+ * Replaces the auto-configured DataSource with one that sends read-only transactions to a replica when
+ * spring.datasource.replica.enabled is true. The replica uses the primary's username and password unless its own are
+ * set, and both pools use the spring.datasource.hikari settings.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.datasource.replica", name = "enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfiguration {
+
+    @Bean("ReadReplicaConfigurationProperties")
+    @ConfigurationProperties(prefix = "spring.datasource.replica")
+    public ReadReplicaConfigurationProperties readReplicaConfigurationProperties() {
+        return new ReadReplicaConfigurationProperties();
+    }
+
+    // The pools are beans so they are closed on shutdown, but only the routing DataSource can be injected
+    @Bean(name = "PrimaryPoolDataSource", autowireCandidate = false)
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryPoolDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(name = "ReplicaPoolDataSource", autowireCandidate = false)
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource replicaPoolDataSource(DataSourceProperties dataSourceProperties) {
+        ReadReplicaConfigurationProperties replicaProperties = readReplicaConfigurationProperties();
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(dataSourceProperties.determineDriverClassName())
+                .url(replicaProperties.getUrl())
+                .username(Optional.ofNullable(replicaProperties.getUsername()).orElse(dataSourceProperties.determineUsername()))
+                .password(Optional.ofNullable(replicaProperties.getPassword()).orElse(dataSourceProperties.determinePassword()))
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return ReadReplicaRoutingDataSource.lazy(primaryPoolDataSource(dataSourceProperties),
+                replicaPoolDataSource(dataSourceProperties));
+    }
+}
@@ -0,0 +1,41 @@
+package com.dpgrandslam.stockdataservice.domain.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sends connections for read-only transactions to the replica and everything else to the primary.
+ *
+ * <p>Transaction managers get their connection before the transaction is marked read-only, so this should be wrapped
+ * in a {@link LazyConnectionDataSourceProxy} (see {@link #lazy(DataSource, DataSource)}), which only gets the real
+ * connection when the first statement runs.</p>
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(Target.PRIMARY, primary);
+        targetDataSources.put(Target.REPLICA, replica);
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public static DataSource lazy(DataSource primary, DataSource replica) {
+        return new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primary, replica));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Target.REPLICA : Target.PRIMARY;
+    }
+}
@@ -0,0 +1,33 @@
+package com.dpgrandslam.stockdataservice.domain.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+public class WebpageFetchConfigurationProperties {
+
+    // Threads that fetch pages in parallel, shared by every host
+    private int threads = 8;
+    // Limits for hosts that are not listed under hosts
+    private HostLimits defaults = new HostLimits();
+    // Limits by host name, e.g. finance.yahoo.com
+    private Map<String, HostLimits> hosts = new HashMap<>();
+
+    public HostLimits getLimits(String host) {
+        return hosts.getOrDefault(host, defaults);
+    }
+
+    @Getter
+    @Setter
+    public static class HostLimits {
+
+        private double requestsPerSecond = 5;
+        // Requests that can be made at once after the host was idle
+        private int burst = 5;
+        private int maxInFlight = 4;
+    }
+}
@@ -7,8 +7,10 @@ import com.dpgrandslam.stockdataservice.domain.model.OptionPriceDataLoadRetry;
 import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
 import com.dpgrandslam.stockdataservice.domain.model.stock.TrackedStock;
 import com.dpgrandslam.stockdataservice.domain.service.HistoricOptionsDataService;
+import com.dpgrandslam.stockdataservice.domain.service.IngestionStatistics;
 import com.dpgrandslam.stockdataservice.domain.service.OptionPriceDataLoadRetryService;
 import com.dpgrandslam.stockdataservice.domain.service.OptionsChainLoadService;
+import com.dpgrandslam.stockdataservice.domain.service.OptionsChainWriteQueue;
 import com.dpgrandslam.stockdataservice.domain.service.TrackedStockService;
 import com.dpgrandslam.stockdataservice.domain.util.TimeUtils;
 import com.dpgrandslam.stockdataservice.domain.util.TimerUtil;
@@ -24,6 +26,7 @@ import javax.annotation.PostConstruct;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Component
@@ -35,6 +38,7 @@ public class EndOfDayOptionsLoaderJob {
 
     private static final int MAIN_JOB = 0;
     private static final int RETRY_JOB = 1;
+    private static final long QUEUED_WRITES_WAIT_SECONDS = 60;
 
     @Autowired
     private OptionsChainLoadService optionsChainLoadService;
@@ -51,6 +55,12 @@ public class EndOfDayOptionsLoaderJob {
     @Autowired
     private OptionPriceDataLoadRetryService optionRetryService;
 
+    @Autowired
+    private OptionsChainWriteQueue optionsChainWriteQueue;
+
+    @Autowired
+    private IngestionStatistics ingestionStatistics;
+
     private Queue<String> trackedStocks;
 
     private Map<String, Integer> failCountMap;
@@ -148,8 +158,10 @@ public class EndOfDayOptionsLoaderJob {
         log.info("Getting options in retry table for trade date {}.", tradeDate);
         Set<OptionPriceDataLoadRetry> retrySet = optionRetryService.getAllWithTradeDate(tradeDate);
         log.info("Found {} options in retry table for trade date {}.", retrySet.size(),tradeDate);
+        ingestionStatistics.reconcileRetries(tradeDate, retrySet);
         if (!retrySet.isEmpty()) {
             log.info("Starting retry job. Retry queue has {} options to retry.", retrySet.size());
+            historicOptionsDataService.warmPriceDataDuplicateFilter(tradeDate);
             retryJobStatus = JobStatus.RUNNING_SCHEDULED;
             retrySet.forEach(failed -> {
                 try {
@@ -199,11 +211,16 @@ public class EndOfDayOptionsLoaderJob {
                         try {
                             List<OptionsChain> fullOptionsChain = optionsChainLoadService
                                     .loadFullLiveOptionsChain(current.getTicker());
-                            historicOptionsDataService.addFullOptionsChain(fullOptionsChain);
-                            trackedStockService.updateOptionUpdatedTimestamp(current.getTicker());
+                            // The ticker is only marked as updated once every chain is written, the next ticker is
+                            // loaded while the writes are still queued
+                            String ticker = current.getTicker();
+                            optionsChainWriteQueue.enqueue(ticker, fullOptionsChain, () -> {
+                                trackedStockService.updateOptionUpdatedTimestamp(ticker);
+                                log.info("Options chain for {} stored successfully.", ticker);
+                            });
                             failCountMap.remove(current.getTicker());
-                            log.info("Options chain for {} processed successfully.", current.getTicker());
-                            log.info("Took {} seconds to process options for {}", timerUtil.stop() / 1000.0, current.getTicker());
+                            log.info("Took {} seconds to load options for {}. {} options chains are waiting to be written.",
+                                    timerUtil.stop() / 1000.0, current.getTicker(), optionsChainWriteQueue.getDepth());
                         } catch (OptionsChainLoadException e) {
                             Integer failCount = failCountMap.putIfAbsent(current.getTicker(), 1);
                             if (failCount == null || failCount < MAX_RETRY) {
@@ -234,28 +251,67 @@ public class EndOfDayOptionsLoaderJob {
     private void startJob() {
         if (mainJobStatus == JobStatus.NOT_STARTED) {
             mainJobStatus = JobStatus.RUNNING_SCHEDULED;
+            historicOptionsDataService.warmPriceDataDuplicateFilter(timeUtils.getCurrentOrLastTradeDate());
         }
     }
 
     private void completeJob(int job) {
         if (job == RETRY_JOB && retryJobStatus.isRunning()) {
-            if (optionRetryService.getAllWithTradeDate(timeUtils.getCurrentOrLastTradeDate()).isEmpty()) {
+            if (reconcileIngestionStatistics()) {
                 retryJobStatus = JobStatus.COMPLETE;
             } else {
                 retryJobStatus = JobStatus.COMPLETE_WITH_FAILURES;
             }
             log.info("Retry job finished with status: {}", retryJobStatus.name());
         } else if (job == MAIN_JOB && mainJobStatus.isRunning()) {
+            if (!awaitQueuedWrites()) {
+                return;
+            }
             log.info("Main job finished.");
-            if (optionRetryService.getAllWithTradeDate(timeUtils.getCurrentOrLastTradeDate()).isEmpty()) {
+            if (reconcileIngestionStatistics()) {
                 mainJobStatus = JobStatus.COMPLETE;
             } else {
                 mainJobStatus = JobStatus.COMPLETE_WITH_FAILURES;
             }
             log.info("Main job finished with status: {}", mainJobStatus.name());
         }
-        long optionsLoadedCount = historicOptionsDataService.countOptionsLoadedOnTradeDate(timeUtils.getCurrentOrLastTradeDate());
-        log.info("Loaded {} options for date {}", optionsLoadedCount, timeUtils.getCurrentOrLastTradeDate());
+    }
+
+    /**
+     * The last tickers of the main job can still be in the write queue. The job is only completed once they are stored,
+     * otherwise the statistics would be reconciled without them. If they take longer than the wait the job stays
+     * running and the next run tries to complete it again.
+     *
+     * @return true if every queued options chain is written
+     */
+    private boolean awaitQueuedWrites() {
+        try {
+            if (optionsChainWriteQueue.awaitWritten(QUEUED_WRITES_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                return true;
+            }
+            log.info("{} options chains are still waiting to be written. Completing the main job on the next run.",
+                    optionsChainWriteQueue.getPending());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Brings the ingestion statistics of the trade date in line with the database. Only runs when a job completes, so
+     * the retries and price data rows are not counted in the database after every batch.
+     *
+     * @return true if there are no retries left for the trade date
+     */
+    private boolean reconcileIngestionStatistics() {
+        LocalDate tradeDate = timeUtils.getCurrentOrLastTradeDate();
+        Set<OptionPriceDataLoadRetry> retries = optionRetryService.getAllWithTradeDate(tradeDate);
+        ingestionStatistics.reconcileRetries(tradeDate, retries);
+        long optionsLoadedCount = historicOptionsDataService.countOptionsLoadedOnTradeDate(tradeDate);
+        ingestionStatistics.reconcileRows(tradeDate, optionsLoadedCount);
+        log.info("Loaded {} options for date {}, {} of them by this instance. {} options are waiting to be retried.",
+                optionsLoadedCount, tradeDate, ingestionStatistics.getRowsWritten(tradeDate), retries.size());
+        return retries.isEmpty();
     }
 
     @EventListener(TrackedStockAddedEvent.class)
@@ -276,7 +332,7 @@ public class EndOfDayOptionsLoaderJob {
         if (mainJobStatus.isRunning() || mainJobStatus == JobStatus.COMPLETE_WITH_FAILURES) {
             optionRetryService.addOrUpdateRetry(e.getTicker(), e.getExpiration(), e.getTradeDate());
             log.info("Successfully added option with ticker [{}], expiration date [{}], and trade date [{}] to retry queue. " +
-                    "There are now {} options in the retry queue.", e.getTicker(), e.getExpiration(), e.getTradeDate(), optionRetryService.getAllWithTradeDate(e.getTradeDate()).size());
+                    "There are now {} options in the retry queue.", e.getTicker(), e.getExpiration(), e.getTradeDate(), ingestionStatistics.getPendingRetries(e.getTradeDate()));
         }
     }
 }
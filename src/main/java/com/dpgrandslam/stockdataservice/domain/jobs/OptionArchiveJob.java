@@ -0,0 +1,45 @@
+package com.dpgrandslam.stockdataservice.domain.jobs;
+
+import com.dpgrandslam.stockdataservice.domain.service.OptionArchiveService;
+import com.dpgrandslam.stockdataservice.domain.util.TimerUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.SortedSet;
+
+/**
+ * Moves options that expired more than the configured number of months ago from the database into the option
+ * archive, one ticker and expiration month at a time. Does nothing unless the archive is enabled.
+ */
+@Component
+@Slf4j
+public class OptionArchiveJob {
+
+    @Autowired
+    private OptionArchiveService optionArchiveService;
+
+    @Scheduled(cron = "0 0 3 * * SUN")
+    public void runJob() {
+        if (!optionArchiveService.isEnabled()) {
+            log.debug("Option archive is not enabled, expired options will not be archived.");
+            return;
+        }
+        TimerUtil timerUtil = TimerUtil.startTimer();
+        Map<String, SortedSet<YearMonth>> monthsToArchive = optionArchiveService.findMonthsToArchive();
+        int archived = 0;
+        for (Map.Entry<String, SortedSet<YearMonth>> entry : monthsToArchive.entrySet()) {
+            for (YearMonth month : entry.getValue()) {
+                try {
+                    archived += optionArchiveService.archiveMonth(entry.getKey(), month);
+                } catch (RuntimeException e) {
+                    log.error("Could not archive options for ticker {} expiring in {}.", entry.getKey(), month, e);
+                }
+            }
+        }
+        log.info("Archived {} options expiring before {} in {} ms.", archived, optionArchiveService.getArchiveCutoff(), timerUtil.stop());
+    }
+}
@@ -0,0 +1,48 @@
+package com.dpgrandslam.stockdataservice.domain.jobs;
+
+import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionJDBCRepository;
+import com.dpgrandslam.stockdataservice.domain.util.DatabaseUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+
+/**
+ * Makes sure the monthly option_price_data partitions exist a few months ahead of the current date so new price data
+ * never lands in the default partition. Rows that already did are moved into the partition of their month when it is
+ * created. Does nothing on databases other than PostgreSQL.
+ */
+@Component
+@Slf4j
+public class OptionPriceDataPartitionJob {
+
+    private static final int MONTHS_AHEAD = 3;
+
+    @Autowired
+    private HistoricalOptionJDBCRepository historicalOptionJDBCRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 1 * * *")
+    public void runJob() {
+        if (!DatabaseUtils.isPostgres(dataSource)) {
+            log.debug("Database is not PostgreSQL, option price data partitions will not be created.");
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        try {
+            int created = historicalOptionJDBCRepository.createPriceDataPartitions(today, today.plusMonths(MONTHS_AHEAD));
+            log.info("Created {} option price data partitions through {}.", created, today.plusMonths(MONTHS_AHEAD));
+        } catch (DataAccessException e) {
+            log.error("Could not create option price data partitions.", e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.dpgrandslam.stockdataservice.domain.jobs.optioncsv;
+
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
+import com.dpgrandslam.stockdataservice.domain.model.stock.TrackedStock;
+import com.dpgrandslam.stockdataservice.domain.service.TrackedStockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityNotFoundException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Processor for the COPY write mode of the option csv job. Only parses and filters rows, existing options and
+ * price data are resolved by the writer when the chunk is merged into the database.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OptionCSVCopyItemProcessor implements ItemProcessor<OptionCSVFile, HistoricalOption> {
+
+    private final TrackedStockService trackedStockService;
+
+    private volatile Map<String, LocalDate> tracked;
+
+    @Override
+    public HistoricalOption process(OptionCSVFile optionCSVFile) throws Exception {
+        Map<String, LocalDate> trackedStocks = getTrackedStocks();
+        if (!trackedStocks.containsKey(optionCSVFile.getSymbol())) {
+            return null;
+        }
+
+        HistoricalOption historicalOption = optionCSVFile.toHistoricalOption();
+        OptionPriceData optionPriceData = historicalOption.getMostRecentPriceData();
+
+        if (optionPriceData.getTradeDate().isAfter(historicalOption.getExpiration())) {
+            log.warn("Trade date for {} is after expiration: {}. Skipping...", optionPriceData, historicalOption.getExpiration());
+            return null;
+        }
+        if (optionPriceData.getTradeDate().isBefore(trackedStocks.get(historicalOption.getTicker()))) {
+            try {
+                TrackedStock trackedStock = trackedStockService.findByTicker(optionCSVFile.getSymbol());
+                trackedStock.setOptionsHistoricDataStartDate(optionPriceData.getTradeDate());
+                trackedStockService.saveTrackedStock(trackedStock);
+                trackedStocks.put(historicalOption.getTicker(), optionPriceData.getTradeDate());
+            } catch (EntityNotFoundException e) {
+                log.warn("{}. Skipping update...", e.getMessage());
+                return null;
+            }
+        }
+        return historicalOption;
+    }
+
+    private Map<String, LocalDate> getTrackedStocks() {
+        if (tracked == null) {
+            synchronized (this) {
+                if (tracked == null) {
+                    tracked = trackedStockService.getAllTrackedStocks(true).stream()
+                            .collect(Collectors.toConcurrentMap(TrackedStock::getTicker, TrackedStock::getOptionsHistoricDataStartDate));
+                }
+            }
+        }
+        return tracked;
+    }
+}
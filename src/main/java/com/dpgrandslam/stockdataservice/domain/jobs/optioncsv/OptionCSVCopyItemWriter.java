@@ -0,0 +1,24 @@
+package com.dpgrandslam.stockdataservice.domain.jobs.optioncsv;
+
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.service.HistoricOptionsDataService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class OptionCSVCopyItemWriter implements ItemWriter<HistoricalOption> {
+
+    private final HistoricOptionsDataService dataService;
+
+    @Override
+    public void write(List<? extends HistoricalOption> list) throws Exception {
+        int inserted = dataService.copyOptions(list);
+        log.debug("Merged {} of {} option csv rows into the database.", inserted, list.size());
+    }
+}
@@ -1,7 +1,17 @@
 package com.dpgrandslam.stockdataservice.domain.jobs.optioncsv;
 
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
 import lombok.Data;
 
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+
 @Data
 public class OptionCSVFile {
 
@@ -20,4 +30,40 @@ public class OptionCSVFile {
     private String underlyingPrice;
     private String dataDate;
 
+    /**
+     * Parses the row into a historical option holding a single price data point for the row's trade date.
+     *
+     * @return the parsed option
+     */
+    public HistoricalOption toHistoricalOption() {
+        HistoricalOption historicalOption = HistoricalOption.builder()
+                .optionType(putCall.equalsIgnoreCase("call") ? Option.OptionType.CALL : Option.OptionType.PUT)
+                .strike(Double.parseDouble(strikePrice))
+                .expiration(parseDate(expirationDate))
+                .ticker(symbol.toUpperCase())
+                .build();
+
+        OptionPriceData optionPriceData = OptionPriceData.builder()
+                .tradeDate(parseDate(dataDate))
+                .openInterest(Integer.parseInt(openInterest))
+                .bid(Double.parseDouble(bidPrice))
+                .ask(Double.parseDouble(askPrice))
+                .volume(Integer.parseInt(volume))
+                .lastTradePrice(Double.parseDouble(lastPrice))
+                .dataObtainedDate(Timestamp.from(Instant.now()))
+                .build();
+        historicalOption.setOptionPriceData(Collections.singleton(optionPriceData));
+        optionPriceData.setOption(historicalOption);
+        return historicalOption;
+    }
+
+    private static LocalDate parseDate(String dateString) {
+        LocalDate date;
+        try {
+            date = LocalDate.parse(dateString);
+        } catch (DateTimeParseException e) {
+            date = LocalDate.parse(dateString, DateTimeFormatter.ofPattern("M/d/yyyy"));
+        }
+        return date;
+    }
 }
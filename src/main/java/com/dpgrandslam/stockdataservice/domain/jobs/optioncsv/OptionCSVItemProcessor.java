@@ -1,7 +1,6 @@
 package com.dpgrandslam.stockdataservice.domain.jobs.optioncsv;
 
 import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
-import com.dpgrandslam.stockdataservice.domain.model.options.Option;
 import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
 import com.dpgrandslam.stockdataservice.domain.model.stock.TrackedStock;
 import com.dpgrandslam.stockdataservice.domain.service.HistoricOptionsDataService;
@@ -13,11 +12,7 @@ import org.springframework.stereotype.Component;
 
 import javax.persistence.EntityNotFoundException;
 import javax.transaction.Transactional;
-import java.sql.Timestamp;
-import java.time.Instant;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -44,22 +39,8 @@ public class OptionCSVItemProcessor implements ItemProcessor<OptionCSVFile, Hist
             return null;
         }
 
-        HistoricalOption historicalOption = HistoricalOption.builder()
-                .optionType(optionCSVFile.getPutCall().equalsIgnoreCase("call") ? Option.OptionType.CALL : Option.OptionType.PUT)
-                .strike(Double.parseDouble(optionCSVFile.getStrikePrice()))
-                .expiration(parseDate(optionCSVFile.getExpirationDate()))
-                .ticker(optionCSVFile.getSymbol().toUpperCase())
-                .build();
-
-        OptionPriceData optionPriceData = OptionPriceData.builder()
-                .tradeDate(parseDate(optionCSVFile.getDataDate()))
-                .openInterest(Integer.parseInt(optionCSVFile.getOpenInterest()))
-                .bid(Double.parseDouble(optionCSVFile.getBidPrice()))
-                .ask(Double.parseDouble(optionCSVFile.getAskPrice()))
-                .volume(Integer.parseInt(optionCSVFile.getVolume()))
-                .lastTradePrice(Double.parseDouble(optionCSVFile.getLastPrice()))
-                .dataObtainedDate(Timestamp.from(Instant.now()))
-                .build();
+        HistoricalOption historicalOption = optionCSVFile.toHistoricalOption();
+        OptionPriceData optionPriceData = historicalOption.getMostRecentPriceData();
 
         if (optionPriceData.getTradeDate().isAfter(historicalOption.getExpiration())) {
             log.warn("Trade date for {} is after expiration: {}. Skipping...", optionPriceData, historicalOption.getExpiration());
@@ -69,8 +50,9 @@ public class OptionCSVItemProcessor implements ItemProcessor<OptionCSVFile, Hist
         try {
             existing = historicOptionsDataService.findOption(historicalOption.getTicker(), historicalOption.getExpiration(),
                     historicalOption.getStrike(), historicalOption.getOptionType());
-            if (existing.getOptionPriceData().stream().map(OptionPriceData::getTradeDate)
-                    .collect(Collectors.toSet()).contains(optionPriceData.getTradeDate())) {
+            // Only read the stored price history when the duplicate filter cannot rule the trade date out
+            if (historicOptionsDataService.mightHavePriceDataOnTradeDate(historicalOption, optionPriceData.getTradeDate())
+                    && existing.getPriceHistory().containsTradeDate(optionPriceData.getTradeDate())) {
                 log.warn("Option Price data for {} already exists. Skipping...", optionPriceData);
                 return null;
             }
@@ -81,9 +63,6 @@ public class OptionCSVItemProcessor implements ItemProcessor<OptionCSVFile, Hist
         if (existing != null) {
             existing.getOptionPriceData().add(optionPriceData);
             optionPriceData.setOption(existing);
-        } else {
-            historicalOption.setOptionPriceData(Collections.singleton(optionPriceData));
-            optionPriceData.setOption(historicalOption);
         }
         if (optionPriceData.getTradeDate().isBefore(tracked.get(historicalOption.getTicker()))) {
             try {
@@ -96,16 +75,7 @@ public class OptionCSVItemProcessor implements ItemProcessor<OptionCSVFile, Hist
                 return null;
             }
         }
+        historicOptionsDataService.markPriceDataOnTradeDate(historicalOption, optionPriceData.getTradeDate());
         return existing != null ? existing : historicalOption;
     }
-
-    private LocalDate parseDate(String dateString) {
-        LocalDate date;
-        try {
-            date = LocalDate.parse(dateString);
-        } catch (DateTimeParseException e) {
-            date = LocalDate.parse(dateString, DateTimeFormatter.ofPattern("M/d/yyyy"));
-        }
-        return date;
-    }
 }
@@ -1,6 +1,7 @@
 package com.dpgrandslam.stockdataservice.domain.jobs.optioncsv;
 
 import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.service.ChainDailySummaryService;
 import com.dpgrandslam.stockdataservice.domain.service.HistoricOptionsDataService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,8 +18,11 @@ public class OptionCSVItemWriter implements ItemWriter<HistoricalOption> {
 
     private final HistoricOptionsDataService dataService;
 
+    private final ChainDailySummaryService chainDailySummaryService;
+
     @Override
     public void write(List<? extends HistoricalOption> list) throws Exception {
         dataService.saveOptions(list.stream().map(x -> (HistoricalOption) x).collect(Collectors.toList()));
+        chainDailySummaryService.refreshSummaries(list);
     }
 }
@@ -0,0 +1,41 @@
+package com.dpgrandslam.stockdataservice.domain.jobs.optioncsv;
+
+import com.dpgrandslam.stockdataservice.domain.util.DatabaseUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.job.flow.FlowExecutionStatus;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Chooses how the option csv job writes its data. The COPY mode stages rows with postgres COPY and merges them with
+ * set based SQL, every other database falls back to the JPA writer.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class OptionCSVWriteModeDecider implements JobExecutionDecider {
+
+    public static final String WRITE_MODE_PARAM = "writeMode";
+    public static final String COPY = "COPY";
+    public static final String JPA = "JPA";
+
+    private final DataSource dataSource;
+
+    @Override
+    public FlowExecutionStatus decide(JobExecution jobExecution, StepExecution stepExecution) {
+        String writeMode = jobExecution.getJobParameters().getString(WRITE_MODE_PARAM);
+        if (COPY.equalsIgnoreCase(writeMode)) {
+            if (DatabaseUtils.isPostgres(dataSource)) {
+                log.info("Running option csv job with COPY write mode.");
+                return new FlowExecutionStatus(COPY);
+            }
+            log.warn("COPY write mode is only supported on PostgreSQL. Falling back to JPA write mode.");
+        }
+        return new FlowExecutionStatus(JPA);
+    }
+}
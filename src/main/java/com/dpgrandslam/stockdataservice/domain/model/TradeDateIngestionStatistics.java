@@ -0,0 +1,40 @@
+package com.dpgrandslam.stockdataservice.domain.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TradeDateIngestionStatistics {
+
+    private LocalDate tradeDate;
+
+    // Price data rows written through this instance since it started
+    private long rowsWritten;
+
+    // Price data rows stored for the trade date when the last job completed
+    private Long storedRows;
+
+    private Instant reconciledAt;
+
+    private int pendingRetries;
+
+    private long retriesAdded;
+
+    private long retryAttempts;
+
+    private long retriesResolved;
+
+    // Only filled in when a single trade date is asked for
+    private Map<String, Map<LocalDate, Long>> rowsWrittenByTickerAndExpiration;
+}
@@ -0,0 +1,68 @@
+package com.dpgrandslam.stockdataservice.domain.model.options;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Totals for one options chain (ticker and expiration) on one trade date. Rows are rebuilt from option_price_data
+ * whenever price data for the chain and trade date is written.
+ */
+@Entity
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@IdClass(ChainDailySummary.Key.class)
+public class ChainDailySummary {
+
+    @Id
+    private String ticker;
+
+    @Id
+    private LocalDate expiration;
+
+    @Id
+    @Column(name = "trade_date")
+    private LocalDate tradeDate;
+
+    private long callVolume;
+
+    private long putVolume;
+
+    private long callOpenInterest;
+
+    private long putOpenInterest;
+
+    private long optionCount;
+
+    // Sum of implied volatility * volume, divided by ivVolume to get the volume weighted implied volatility
+    @JsonIgnore
+    private double ivVolumeSum;
+
+    // Volume of the options that have an implied volatility
+    @JsonIgnore
+    private long ivVolume;
+
+    @Transient
+    public Double getPutCallRatio() {
+        return callVolume == 0 ? null : (double) putVolume / callVolume;
+    }
+
+    @Transient
+    public Double getVolumeWeightedImpliedVolatility() {
+        return ivVolume == 0 ? null : ivVolumeSum / ivVolume;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String ticker;
+        private LocalDate expiration;
+        private LocalDate tradeDate;
+    }
+}
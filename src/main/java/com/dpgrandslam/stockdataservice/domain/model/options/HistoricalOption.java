@@ -1,5 +1,6 @@
 package com.dpgrandslam.stockdataservice.domain.model.options;
 
+import com.dpgrandslam.stockdataservice.domain.util.ValueInterner;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 
@@ -16,8 +17,14 @@ import java.util.*;
 })
 public class HistoricalOption extends Option {
 
+    /**
+     * Ids handed out per sequence call. Has to match the increment of the sequence in the database.
+     */
+    public static final int ID_ALLOCATION_SIZE = 100;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "historical_option_seq")
+    @SequenceGenerator(name = "historical_option_seq", sequenceName = "historical_option_seq", allocationSize = ID_ALLOCATION_SIZE)
     @Column(name = "option_id")
     @EqualsAndHashCode.Include
     @JsonIgnore
@@ -32,18 +39,25 @@ public class HistoricalOption extends Option {
     @ToString.Exclude
     private List<OptionPriceData> historicalPriceData;
 
+    // Sorted copy of price data that hibernate loaded into a persistent collection, see getPriceHistory()
+    @ToString.Exclude
+    private transient OptionPriceHistory sortedPriceData;
+
+    @ToString.Exclude
+    private transient int sortedPriceDataFingerprint;
+
     public HistoricalOption() {
-        historicalPriceData = new LinkedList<>();
+        historicalPriceData = new OptionPriceHistory();
     }
 
     @Builder
-    public HistoricalOption(String ticker, OptionType optionType, LocalDate expiration, Double strike, Set<OptionPriceData> historicalPriceData) {
-        super.ticker =  ticker;
+    public HistoricalOption(String ticker, OptionType optionType, LocalDate expiration, double strike, Set<OptionPriceData> historicalPriceData) {
+        super.ticker = ValueInterner.ticker(ticker);
         super.optionType = optionType;
-        super.expiration = expiration;
+        super.expiration = ValueInterner.date(expiration);
         super.strike = strike;
         if (historicalPriceData == null) {
-            this.historicalPriceData = new LinkedList<>();
+            this.historicalPriceData = new OptionPriceHistory();
         } else {
             initializeHistoricalPriceData(historicalPriceData);
         }
@@ -55,17 +69,62 @@ public class HistoricalOption extends Option {
         return historicalPriceData;
     }
 
+    /**
+     * Gets the price data sorted by trade date. When the price data was loaded by hibernate it is held in a persistent
+     * collection, in that case a sorted copy is returned that should not be changed. The copy is reused until price
+     * data is added to, removed from or replaced in the persistent collection.
+     *
+     * @return the price history
+     */
+    @Transient
+    @JsonIgnore
+    public OptionPriceHistory getPriceHistory() {
+        if (historicalPriceData instanceof OptionPriceHistory) {
+            return (OptionPriceHistory) historicalPriceData;
+        }
+        int fingerprint = fingerprint(historicalPriceData);
+        if (sortedPriceData == null || sortedPriceDataFingerprint != fingerprint) {
+            sortedPriceData = new OptionPriceHistory(historicalPriceData);
+            sortedPriceDataFingerprint = fingerprint;
+        }
+        return sortedPriceData;
+    }
+
+    /**
+     * @return the price data with the latest trade date, or null if there is none
+     */
     @Transient
     @Override
     public OptionPriceData getMostRecentPriceData() {
-        return historicalPriceData.stream()
-                .min(Comparator.comparing(OptionPriceData::getDataObtainedDate))
-                .orElse(null);
+        return getPriceHistory().latest();
+    }
+
+    /**
+     * Creates a detached copy of this option that only has the price data with a trade date between the two dates.
+     *
+     * @param startDate the start date, inclusive
+     * @param endDate the end date, inclusive
+     * @return the copy
+     */
+    public HistoricalOption withPriceDataBetween(LocalDate startDate, LocalDate endDate) {
+        HistoricalOption copy = new HistoricalOption(ticker, optionType, expiration, strike, null);
+        copy.setId(id);
+        copy.setOptionPriceData(getPriceHistory().between(startDate, endDate));
+        return copy;
     }
 
     @Override
     public void setOptionPriceData(Collection<OptionPriceData> optionPriceData) {
-        historicalPriceData = new LinkedList<>(optionPriceData);
+        historicalPriceData = new OptionPriceHistory(optionPriceData);
+    }
+
+    // Changes whenever an element of the collection is added, removed or replaced, without allocating or sorting
+    private static int fingerprint(Collection<OptionPriceData> priceData) {
+        int fingerprint = priceData.size();
+        for (OptionPriceData data : priceData) {
+            fingerprint = 31 * fingerprint + System.identityHashCode(data);
+        }
+        return fingerprint;
     }
 
     public void initializeHistoricalPriceData(Collection<OptionPriceData> priceData) {
@@ -73,60 +132,9 @@ public class HistoricalOption extends Option {
             priceData.forEach(item -> {
                 item.setOption(this);
             });
-            this.historicalPriceData = new LinkedList<>(priceData);
+            this.historicalPriceData = new OptionPriceHistory(priceData);
         } else {
-            this.historicalPriceData = new LinkedList<>();
-        }
-    }
-
-    public static HistoricalOption fromCacheableHistoricalOption(CacheableHistoricalOption ho) {
-        HistoricalOption historicalOption = new HistoricalOption();
-        historicalOption.setOptionPriceData(ho.getOptionPriceData());
-        historicalOption.setOptionType(ho.getOptionType());
-        historicalOption.setId(ho.getId());
-        historicalOption.setExpiration(ho.getExpiration());
-        historicalOption.setStrike(ho.getStrike());
-        historicalOption.setTicker(ho.getTicker());
-        return historicalOption;
-    }
-
-    @EqualsAndHashCode(callSuper = true)
-    @Data
-    public static class CacheableHistoricalOption extends Option {
-
-        private List<OptionPriceData> optionPriceData;
-        private Long id;
-
-        private CacheableHistoricalOption(HistoricalOption historicalOption) {
-            super(historicalOption.getTicker(),
-                    historicalOption.getOptionType(),
-                    historicalOption.getExpiration(),
-                    historicalOption.getStrike());
-            this.id = historicalOption.id;
-            setOptionPriceData(historicalOption.getOptionPriceData());
-        }
-
-        @Override
-        public Collection<OptionPriceData> getOptionPriceData() {
-            return optionPriceData;
-        }
-
-        @Override
-        public OptionPriceData getMostRecentPriceData() {
-            return optionPriceData.stream()
-                    .min(Comparator.comparing(OptionPriceData::getDataObtainedDate))
-                    .orElse(null);
-        }
-
-        @Override
-        public void setOptionPriceData(Collection<OptionPriceData> optionPriceData) {
-            List<OptionPriceData> opd = new LinkedList<>(optionPriceData);
-            opd.forEach(d -> d.setOption(null));
-            this.optionPriceData = opd;
-        }
-
-        public static CacheableHistoricalOption fromHistoricalOption(HistoricalOption historicalOption) {
-            return new CacheableHistoricalOption(historicalOption);
+            this.historicalPriceData = new OptionPriceHistory();
         }
     }
 }
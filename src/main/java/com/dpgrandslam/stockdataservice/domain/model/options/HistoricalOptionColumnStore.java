@@ -0,0 +1,498 @@
+package com.dpgrandslam.stockdataservice.domain.model.options;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Compact, read-only in-memory form of every stored option for a single ticker. Option and price data fields are held
+ * in parallel primitive arrays sorted by (expiration, strike, option type, trade date) instead of as entity objects.
+ * {@link HistoricalOption} objects are only built when they are asked for.
+ *
+ * <p>The price data for the option at index {@code i} is at indexes {@code priceStart[i]} (inclusive) to
+ * {@code priceStart[i + 1]} (exclusive) of the price arrays. Null values are stored as {@link Double#NaN},
+ * {@code Integer.MIN_VALUE} and {@code Long.MIN_VALUE}.</p>
+ */
+public final class HistoricalOptionColumnStore {
+
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final Option.OptionType[] OPTION_TYPES = Option.OptionType.values();
+    private static final int FORMAT_VERSION = 1;
+    private static final int OPTION_BYTES = 8 + 4 + 8 + 1 + 4;
+    private static final int PRICE_DATA_BYTES = 8 + 4 + 8 + 8 + 8 + 8 + 4 + 4 + 8;
+
+    private final String ticker;
+
+    // Option columns
+    private final long[] optionIds;
+    private final int[] expirations;
+    private final double[] strikes;
+    private final byte[] optionTypes;
+    private final int[] priceStart;
+
+    // Price data columns
+    private final long[] priceIds;
+    private final int[] tradeDates;
+    private final double[] lastTradePrices;
+    private final double[] bids;
+    private final double[] asks;
+    private final double[] impliedVolatilities;
+    private final int[] volumes;
+    private final int[] openInterests;
+    // Epoch nanoseconds so the Timestamp's sub-millisecond precision survives
+    private final long[] dataObtainedDates;
+
+    private HistoricalOptionColumnStore(Builder builder) {
+        this.ticker = builder.ticker;
+        int options = builder.optionCount;
+        int prices = builder.priceCount;
+        this.optionIds = Arrays.copyOf(builder.optionIds, options);
+        this.expirations = Arrays.copyOf(builder.expirations, options);
+        this.strikes = Arrays.copyOf(builder.strikes, options);
+        this.optionTypes = Arrays.copyOf(builder.optionTypes, options);
+        this.priceStart = Arrays.copyOf(builder.priceStart, options + 1);
+        this.priceStart[options] = prices;
+        this.priceIds = Arrays.copyOf(builder.priceIds, prices);
+        this.tradeDates = Arrays.copyOf(builder.tradeDates, prices);
+        this.lastTradePrices = Arrays.copyOf(builder.lastTradePrices, prices);
+        this.bids = Arrays.copyOf(builder.bids, prices);
+        this.asks = Arrays.copyOf(builder.asks, prices);
+        this.impliedVolatilities = Arrays.copyOf(builder.impliedVolatilities, prices);
+        this.volumes = Arrays.copyOf(builder.volumes, prices);
+        this.openInterests = Arrays.copyOf(builder.openInterests, prices);
+        this.dataObtainedDates = Arrays.copyOf(builder.dataObtainedDates, prices);
+    }
+
+    /**
+     * Creates a store from already loaded options. The options and their price data do not need to be sorted.
+     *
+     * @param ticker the ticker of the options
+     * @param options the options to store
+     * @return the store
+     */
+    public static HistoricalOptionColumnStore of(String ticker, Collection<? extends Option> options) {
+        List<Option> sorted = new ArrayList<>(options);
+        sorted.sort(Comparator.comparing(Option::getExpiration)
+                .thenComparing(Option::getStrike)
+                .thenComparing(Option::getOptionType));
+        Builder builder = builder(ticker);
+        for (Option option : sorted) {
+            Long id = option instanceof HistoricalOption ? ((HistoricalOption) option).getId() : null;
+            builder.startOption(id, option.getExpiration(), option.getStrike(), option.getOptionType());
+            List<OptionPriceData> priceData = new ArrayList<>(option.getOptionPriceData());
+            priceData.sort(Comparator.comparing(OptionPriceData::getTradeDate, Comparator.nullsFirst(Comparator.naturalOrder())));
+            priceData.forEach(builder::addPriceData);
+        }
+        return builder.build();
+    }
+
+    public static Builder builder(String ticker) {
+        return new Builder(ticker);
+    }
+
+    public String getTicker() {
+        return ticker;
+    }
+
+    public int optionCount() {
+        return optionIds.length;
+    }
+
+    public int priceDataCount() {
+        return priceIds.length;
+    }
+
+    /**
+     * @return the approximate number of bytes held by the columns of the store
+     */
+    public long estimatedSizeInBytes() {
+        return (long) optionCount() * OPTION_BYTES + (long) priceDataCount() * PRICE_DATA_BYTES;
+    }
+
+    /**
+     * Creates a new store where every option expiring between the two dates is replaced with the options of another
+     * store, which must only hold options expiring between the same dates. The columns are copied around the replaced
+     * range, so this store is left unchanged.
+     *
+     * @param fromExpiration the first expiration to replace, inclusive
+     * @param toExpiration the last expiration to replace, inclusive
+     * @param replacement the options expiring between the two dates
+     * @return the new store
+     */
+    public HistoricalOptionColumnStore withExpirationsReplaced(LocalDate fromExpiration, LocalDate toExpiration,
+                                                               HistoricalOptionColumnStore replacement) {
+        int from = firstExpirationNotBefore(fromExpiration.toEpochDay());
+        int to = firstExpirationNotBefore(toExpiration.toEpochDay() + 1);
+        int priceFrom = priceStart[from];
+        int priceTo = priceStart[to];
+        int addedOptions = replacement.optionCount();
+        int addedPrices = replacement.priceDataCount();
+
+        Builder builder = new Builder(ticker);
+        builder.optionCount = from + addedOptions + optionCount() - to;
+        builder.optionIds = splice(optionIds, from, to, replacement.optionIds, addedOptions);
+        builder.expirations = splice(expirations, from, to, replacement.expirations, addedOptions);
+        builder.strikes = splice(strikes, from, to, replacement.strikes, addedOptions);
+        builder.optionTypes = splice(optionTypes, from, to, replacement.optionTypes, addedOptions);
+        builder.priceStart = new int[builder.optionCount + 1];
+        System.arraycopy(priceStart, 0, builder.priceStart, 0, from);
+        for (int i = 0; i < addedOptions; i++) {
+            builder.priceStart[from + i] = replacement.priceStart[i] + priceFrom;
+        }
+        int shift = priceFrom + addedPrices - priceTo;
+        for (int i = to; i < optionCount(); i++) {
+            builder.priceStart[i - to + from + addedOptions] = priceStart[i] + shift;
+        }
+
+        builder.priceCount = priceFrom + addedPrices + priceDataCount() - priceTo;
+        builder.priceIds = splice(priceIds, priceFrom, priceTo, replacement.priceIds, addedPrices);
+        builder.tradeDates = splice(tradeDates, priceFrom, priceTo, replacement.tradeDates, addedPrices);
+        builder.lastTradePrices = splice(lastTradePrices, priceFrom, priceTo, replacement.lastTradePrices, addedPrices);
+        builder.bids = splice(bids, priceFrom, priceTo, replacement.bids, addedPrices);
+        builder.asks = splice(asks, priceFrom, priceTo, replacement.asks, addedPrices);
+        builder.impliedVolatilities = splice(impliedVolatilities, priceFrom, priceTo, replacement.impliedVolatilities, addedPrices);
+        builder.volumes = splice(volumes, priceFrom, priceTo, replacement.volumes, addedPrices);
+        builder.openInterests = splice(openInterests, priceFrom, priceTo, replacement.openInterests, addedPrices);
+        builder.dataObtainedDates = splice(dataObtainedDates, priceFrom, priceTo, replacement.dataObtainedDates, addedPrices);
+        return builder.build();
+    }
+
+    /**
+     * Builds the option at the given index along with all of its price data.
+     *
+     * @param index the index of the option, between 0 and {@link #optionCount()}
+     * @return a new HistoricalOption
+     */
+    public HistoricalOption getHistoricalOption(int index) {
+        return buildHistoricalOption(index, priceStart[index], priceStart[index + 1]);
+    }
+
+    /**
+     * Builds the option at the given index with only its price data between the two trade dates. The price data is
+     * found with a binary search since it is sorted by trade date.
+     *
+     * @param index the index of the option, between 0 and {@link #optionCount()}
+     * @param startDate the start trade date, inclusive
+     * @param endDate the end trade date, inclusive
+     * @return a new HistoricalOption, which has no price data if there is none between the dates
+     */
+    public HistoricalOption getHistoricalOption(int index, LocalDate startDate, LocalDate endDate) {
+        // Null trade dates are stored as the smallest int, they are never between two dates
+        long from = Math.max(startDate.toEpochDay(), NULL_INT + 1L);
+        int start = firstTradeDateNotBefore(priceStart[index], priceStart[index + 1], from);
+        int end = firstTradeDateNotBefore(start, priceStart[index + 1], endDate.toEpochDay() + 1);
+        return buildHistoricalOption(index, start, end);
+    }
+
+    public LocalDate getExpiration(int index) {
+        return LocalDate.ofEpochDay(expirations[index]);
+    }
+
+    private int firstExpirationNotBefore(long epochDay) {
+        int low = 0;
+        int high = optionCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (expirations[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstTradeDateNotBefore(int low, int high, long epochDay) {
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tradeDates[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private HistoricalOption buildHistoricalOption(int index, int priceFrom, int priceTo) {
+        List<OptionPriceData> priceData = new ArrayList<>(priceTo - priceFrom);
+        for (int p = priceFrom; p < priceTo; p++) {
+            priceData.add(getOptionPriceData(p));
+        }
+        HistoricalOption historicalOption = new HistoricalOption();
+        historicalOption.setId(toLong(optionIds[index]));
+        historicalOption.setTicker(ticker);
+        historicalOption.setExpiration(LocalDate.ofEpochDay(expirations[index]));
+        historicalOption.setStrike(strikes[index]);
+        historicalOption.setOptionType(OPTION_TYPES[optionTypes[index]]);
+        historicalOption.setOptionPriceData(priceData);
+        return historicalOption;
+    }
+
+    /**
+     * Builds every option in the store.
+     *
+     * @return a new set of HistoricalOptions
+     */
+    public Set<HistoricalOption> toHistoricalOptions() {
+        Set<HistoricalOption> historicalOptions = new HashSet<>();
+        for (int i = 0; i < optionCount(); i++) {
+            historicalOptions.add(getHistoricalOption(i));
+        }
+        return historicalOptions;
+    }
+
+    /**
+     * Writes the store column by column, which keeps similar values next to each other so the output compresses well.
+     *
+     * @param out the output to write to
+     * @throws IOException if the output cannot be written to
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(ticker);
+        out.writeInt(optionCount());
+        out.writeInt(priceDataCount());
+        writeLongs(out, optionIds);
+        writeInts(out, expirations);
+        writeDoubles(out, strikes);
+        out.write(optionTypes);
+        writeInts(out, priceStart);
+        writeLongs(out, priceIds);
+        writeInts(out, tradeDates);
+        writeDoubles(out, lastTradePrices);
+        writeDoubles(out, bids);
+        writeDoubles(out, asks);
+        writeDoubles(out, impliedVolatilities);
+        writeInts(out, volumes);
+        writeInts(out, openInterests);
+        writeLongs(out, dataObtainedDates);
+    }
+
+    /**
+     * Reads a store written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in the input to read from
+     * @return the store
+     * @throws IOException if the input cannot be read or was not written by this class
+     */
+    public static HistoricalOptionColumnStore readFrom(DataInput in) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported column store format version: " + version);
+        }
+        Builder builder = new Builder(in.readUTF());
+        int options = in.readInt();
+        int prices = in.readInt();
+        builder.optionCount = options;
+        builder.optionIds = readLongs(in, options);
+        builder.expirations = readInts(in, options);
+        builder.strikes = readDoubles(in, options);
+        builder.optionTypes = new byte[options];
+        in.readFully(builder.optionTypes);
+        builder.priceStart = readInts(in, options + 1);
+        builder.priceCount = prices;
+        builder.priceIds = readLongs(in, prices);
+        builder.tradeDates = readInts(in, prices);
+        builder.lastTradePrices = readDoubles(in, prices);
+        builder.bids = readDoubles(in, prices);
+        builder.asks = readDoubles(in, prices);
+        builder.impliedVolatilities = readDoubles(in, prices);
+        builder.volumes = readInts(in, prices);
+        builder.openInterests = readInts(in, prices);
+        builder.dataObtainedDates = readLongs(in, prices);
+        return builder.build();
+    }
+
+    /**
+     * Copies a column with the values from {@code from} (inclusive) to {@code to} (exclusive) replaced by the first
+     * {@code replacementLength} values of another column of the same type.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T splice(T values, int from, int to, T replacement, int replacementLength) {
+        int length = Array.getLength(values);
+        T spliced = (T) Array.newInstance(values.getClass().getComponentType(), from + replacementLength + length - to);
+        System.arraycopy(values, 0, spliced, 0, from);
+        System.arraycopy(replacement, 0, spliced, from, replacementLength);
+        System.arraycopy(values, to, spliced, from + replacementLength, length - to);
+        return spliced;
+    }
+
+    private static void writeLongs(DataOutput out, long[] values) throws IOException {
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    private static void writeInts(DataOutput out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void writeDoubles(DataOutput out, double[] values) throws IOException {
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static long[] readLongs(DataInput in, int length) throws IOException {
+        long[] values = new long[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+
+    private static int[] readInts(DataInput in, int length) throws IOException {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static double[] readDoubles(DataInput in, int length) throws IOException {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+
+    private OptionPriceData getOptionPriceData(int p) {
+        return OptionPriceData.builder()
+                .id(toLong(priceIds[p]))
+                .tradeDate(tradeDates[p] == NULL_INT ? null : LocalDate.ofEpochDay(tradeDates[p]))
+                .lastTradePrice(toDouble(lastTradePrices[p]))
+                .bid(toDouble(bids[p]))
+                .ask(toDouble(asks[p]))
+                .impliedVolatility(toDouble(impliedVolatilities[p]))
+                .volume(toInteger(volumes[p]))
+                .openInterest(toInteger(openInterests[p]))
+                .dataObtainedDate(toTimestamp(dataObtainedDates[p]))
+                .build();
+    }
+
+    private static long toEpochNanos(Timestamp timestamp) {
+        return Math.floorDiv(timestamp.getTime(), 1000L) * NANOS_PER_SECOND + timestamp.getNanos();
+    }
+
+    private static Timestamp toTimestamp(long epochNanos) {
+        if (epochNanos == NULL_LONG) {
+            return null;
+        }
+        Timestamp timestamp = new Timestamp(Math.floorDiv(epochNanos, NANOS_PER_SECOND) * 1000L);
+        timestamp.setNanos((int) Math.floorMod(epochNanos, NANOS_PER_SECOND));
+        return timestamp;
+    }
+
+    private static Long toLong(long value) {
+        return value == NULL_LONG ? null : value;
+    }
+
+    private static Double toDouble(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static Integer toInteger(int value) {
+        return value == NULL_INT ? null : value;
+    }
+
+    /**
+     * Appends options and their price data to growable arrays. Options must be started in (expiration, strike,
+     * option type) order and price data must be added in trade date order after the option it belongs to.
+     */
+    public static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final String ticker;
+
+        private int optionCount;
+        private long[] optionIds = new long[INITIAL_CAPACITY];
+        private int[] expirations = new int[INITIAL_CAPACITY];
+        private double[] strikes = new double[INITIAL_CAPACITY];
+        private byte[] optionTypes = new byte[INITIAL_CAPACITY];
+        private int[] priceStart = new int[INITIAL_CAPACITY + 1];
+
+        private int priceCount;
+        private long[] priceIds = new long[INITIAL_CAPACITY];
+        private int[] tradeDates = new int[INITIAL_CAPACITY];
+        private double[] lastTradePrices = new double[INITIAL_CAPACITY];
+        private double[] bids = new double[INITIAL_CAPACITY];
+        private double[] asks = new double[INITIAL_CAPACITY];
+        private double[] impliedVolatilities = new double[INITIAL_CAPACITY];
+        private int[] volumes = new int[INITIAL_CAPACITY];
+        private int[] openInterests = new int[INITIAL_CAPACITY];
+        private long[] dataObtainedDates = new long[INITIAL_CAPACITY];
+
+        private Builder(String ticker) {
+            this.ticker = ticker;
+        }
+
+        public Builder startOption(Long id, LocalDate expiration, double strike, Option.OptionType optionType) {
+            if (optionCount == optionIds.length) {
+                int capacity = optionCount * 2;
+                optionIds = Arrays.copyOf(optionIds, capacity);
+                expirations = Arrays.copyOf(expirations, capacity);
+                strikes = Arrays.copyOf(strikes, capacity);
+                optionTypes = Arrays.copyOf(optionTypes, capacity);
+                priceStart = Arrays.copyOf(priceStart, capacity + 1);
+            }
+            optionIds[optionCount] = id == null ? NULL_LONG : id;
+            expirations[optionCount] = (int) expiration.toEpochDay();
+            strikes[optionCount] = strike;
+            optionTypes[optionCount] = (byte) optionType.ordinal();
+            priceStart[optionCount] = priceCount;
+            optionCount++;
+            return this;
+        }
+
+        public Builder addPriceData(OptionPriceData priceData) {
+            return addPriceData(priceData.getId(), priceData.getTradeDate(), priceData.getLastTradePrice(),
+                    priceData.getBid(), priceData.getAsk(), priceData.getImpliedVolatility(), priceData.getVolume(),
+                    priceData.getOpenInterest(), priceData.getDataObtainedDate());
+        }
+
+        public Builder addPriceData(Long id, LocalDate tradeDate, Double lastTradePrice, Double bid, Double ask,
+                                    Double impliedVolatility, Integer volume, Integer openInterest, Timestamp dataObtainedDate) {
+            if (optionCount == 0) {
+                throw new IllegalStateException("An option must be started before price data can be added.");
+            }
+            if (priceCount == priceIds.length) {
+                int capacity = priceCount * 2;
+                priceIds = Arrays.copyOf(priceIds, capacity);
+                tradeDates = Arrays.copyOf(tradeDates, capacity);
+                lastTradePrices = Arrays.copyOf(lastTradePrices, capacity);
+                bids = Arrays.copyOf(bids, capacity);
+                asks = Arrays.copyOf(asks, capacity);
+                impliedVolatilities = Arrays.copyOf(impliedVolatilities, capacity);
+                volumes = Arrays.copyOf(volumes, capacity);
+                openInterests = Arrays.copyOf(openInterests, capacity);
+                dataObtainedDates = Arrays.copyOf(dataObtainedDates, capacity);
+            }
+            priceIds[priceCount] = id == null ? NULL_LONG : id;
+            tradeDates[priceCount] = tradeDate == null ? NULL_INT : (int) tradeDate.toEpochDay();
+            lastTradePrices[priceCount] = lastTradePrice == null ? Double.NaN : lastTradePrice;
+            bids[priceCount] = bid == null ? Double.NaN : bid;
+            asks[priceCount] = ask == null ? Double.NaN : ask;
+            impliedVolatilities[priceCount] = impliedVolatility == null ? Double.NaN : impliedVolatility;
+            volumes[priceCount] = volume == null ? NULL_INT : volume;
+            openInterests[priceCount] = openInterest == null ? NULL_INT : openInterest;
+            dataObtainedDates[priceCount] = dataObtainedDate == null ? NULL_LONG : toEpochNanos(dataObtainedDate);
+            priceCount++;
+            return this;
+        }
+
+        public HistoricalOptionColumnStore build() {
+            return new HistoricalOptionColumnStore(this);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.dpgrandslam.stockdataservice.domain.model.options;
 
+import com.dpgrandslam.stockdataservice.domain.util.ValueInterner;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Data;
@@ -23,10 +24,10 @@ public class LiveOption extends Option {
     }
 
     @Builder
-    public LiveOption(String ticker, Double strike, OptionType optionType, LocalDate expiration, OptionPriceData optionPriceData) {
-        super.ticker = ticker;
+    public LiveOption(String ticker, double strike, OptionType optionType, LocalDate expiration, OptionPriceData optionPriceData) {
+        super.ticker = ValueInterner.ticker(ticker);
         super.strike = strike;
-        super.expiration = expiration;
+        super.expiration = ValueInterner.date(expiration);
         super.optionType = optionType;
         this.livePriceData = optionPriceData;
     }
@@ -1,5 +1,6 @@
 package com.dpgrandslam.stockdataservice.domain.model.options;
 
+import com.dpgrandslam.stockdataservice.domain.util.ValueInterner;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.*;
@@ -33,7 +34,21 @@ public abstract class Option {
 
     @Column(nullable = false)
     @EqualsAndHashCode.Include
-    protected Double strike;
+    protected double strike;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient OptionChainKey optionChainKey;
+
+    public void setTicker(String ticker) {
+        this.ticker = ValueInterner.ticker(ticker);
+    }
+
+    public void setExpiration(LocalDate expiration) {
+        this.expiration = ValueInterner.date(expiration);
+    }
 
     @Transient
     public boolean isExpired() {
@@ -62,7 +77,13 @@ public abstract class Option {
     @Transient
     @JsonIgnore
     public OptionChainKey getOptionChainKey() {
-        return new OptionChainKey(this.strike, this.optionType);
+        // Fields can be set without going through the setters (hibernate, subclasses), so check the key is still current
+        OptionChainKey key = optionChainKey;
+        if (key == null || key.getStrike() != strike || key.getOptionType() != optionType) {
+            key = new OptionChainKey(strike, optionType);
+            optionChainKey = key;
+        }
+        return key;
     }
 
     public enum OptionType {
@@ -11,7 +11,7 @@ import lombok.Getter;
 @Builder
 public class OptionChainKey {
 
-    public Double strike;
-    public Option.OptionType optionType;
+    private final double strike;
+    private final Option.OptionType optionType;
 
 }
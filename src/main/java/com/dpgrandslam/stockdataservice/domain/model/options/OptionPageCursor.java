@@ -0,0 +1,58 @@
+package com.dpgrandslam.stockdataservice.domain.model.options;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Position of the last price data row returned in a page of historical options. Rows are ordered by
+ * (expiration, strike, option type, trade date), which is unique for a ticker, so the next page starts at the first
+ * row after this key.
+ */
+@Data
+@AllArgsConstructor
+public class OptionPageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private LocalDate expiration;
+    private Double strike;
+    private Option.OptionType optionType;
+    private LocalDate tradeDate;
+
+    /**
+     * Encodes the cursor into an opaque url safe string.
+     *
+     * @return the encoded cursor
+     */
+    public String encode() {
+        String raw = expiration + SEPARATOR + strike + SEPARATOR + optionType.name() + SEPARATOR + tradeDate;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor created by {@link #encode()}.
+     *
+     * @param cursor the encoded cursor
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    public static OptionPageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new OptionPageCursor(LocalDate.parse(parts[0]), Double.valueOf(parts[1]),
+                    Option.OptionType.valueOf(parts[2]), LocalDate.parse(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -29,7 +29,8 @@ import java.time.LocalDate;
 public class OptionPriceData {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "option_price_data_seq")
+    @SequenceGenerator(name = "option_price_data_seq", sequenceName = "option_price_data_seq", allocationSize = HistoricalOption.ID_ALLOCATION_SIZE)
     @EqualsAndHashCode.Include
     @JsonIgnore
     private Long id;
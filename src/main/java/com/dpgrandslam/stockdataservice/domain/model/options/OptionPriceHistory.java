@@ -0,0 +1,214 @@
+package com.dpgrandslam.stockdataservice.domain.model.options;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Array backed list of price data that is always sorted by trade date (oldest first, null trade dates before all
+ * others). Lookups by trade date use binary search, the latest price data is the last element and range queries cost
+ * O(log n) plus the size of the result.
+ *
+ * <p>{@link #add(OptionPriceData)} inserts at the element's sorted position rather than at the end of the list.
+ * Inserting at an index, replacing an element and sorting are only allowed when the result is still in trade date
+ * order, otherwise they throw an {@link IllegalArgumentException} and leave the history unchanged. The trade date of an
+ * element should not be changed while it is in the history.</p>
+ */
+public class OptionPriceHistory extends AbstractList<OptionPriceData> implements RandomAccess {
+
+    private static final Comparator<LocalDate> TRADE_DATE_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+    private static final OptionPriceData[] EMPTY = new OptionPriceData[0];
+
+    private OptionPriceData[] data;
+    private int size;
+
+    public OptionPriceHistory() {
+        this.data = EMPTY;
+    }
+
+    public OptionPriceHistory(Collection<OptionPriceData> priceData) {
+        this.data = priceData.toArray(EMPTY);
+        this.size = data.length;
+        // Stable sort, and linear for input that is already sorted in either direction
+        Arrays.sort(data, Comparator.comparing(OptionPriceData::getTradeDate, TRADE_DATE_ORDER));
+    }
+
+    @Override
+    public OptionPriceData get(int index) {
+        Objects.checkIndex(index, size);
+        return data[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(OptionPriceData optionPriceData) {
+        insert(upperBound(optionPriceData.getTradeDate()), optionPriceData);
+        return true;
+    }
+
+    @Override
+    public void add(int index, OptionPriceData optionPriceData) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        checkOrder(index - 1, index, optionPriceData.getTradeDate());
+        insert(index, optionPriceData);
+    }
+
+    @Override
+    public OptionPriceData set(int index, OptionPriceData optionPriceData) {
+        Objects.checkIndex(index, size);
+        checkOrder(index - 1, index + 1, optionPriceData.getTradeDate());
+        OptionPriceData replaced = data[index];
+        data[index] = optionPriceData;
+        return replaced;
+    }
+
+    @Override
+    public void sort(Comparator<? super OptionPriceData> comparator) {
+        OptionPriceData[] sorted = Arrays.copyOf(data, size);
+        Arrays.sort(sorted, comparator);
+        for (int i = 1; i < size; i++) {
+            if (TRADE_DATE_ORDER.compare(sorted[i - 1].getTradeDate(), sorted[i].getTradeDate()) > 0) {
+                throw new IllegalArgumentException("Price history can only be sorted by trade date.");
+            }
+        }
+        System.arraycopy(sorted, 0, data, 0, size);
+        modCount++;
+    }
+
+    @Override
+    public OptionPriceData remove(int index) {
+        Objects.checkIndex(index, size);
+        OptionPriceData removed = data[index];
+        System.arraycopy(data, index + 1, data, index, size - index - 1);
+        data[--size] = null;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super OptionPriceData> filter) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!filter.test(data[i])) {
+                data[kept++] = data[i];
+            }
+        }
+        if (kept == size) {
+            return false;
+        }
+        Arrays.fill(data, kept, size, null);
+        size = kept;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(data, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * @return the price data with the latest trade date, or null if there is none
+     */
+    public OptionPriceData latest() {
+        return size == 0 ? null : data[size - 1];
+    }
+
+    /**
+     * Finds the price data for a trade date.
+     *
+     * @param tradeDate the trade date
+     * @return the price data, if there is any for the trade date
+     */
+    public Optional<OptionPriceData> find(LocalDate tradeDate) {
+        int index = lowerBound(tradeDate);
+        if (index < size && Objects.equals(data[index].getTradeDate(), tradeDate)) {
+            return Optional.of(data[index]);
+        }
+        return Optional.empty();
+    }
+
+    public boolean containsTradeDate(LocalDate tradeDate) {
+        return find(tradeDate).isPresent();
+    }
+
+    /**
+     * Gets the price data with a trade date between the two dates, inclusive.
+     *
+     * @param startDate the start date
+     * @param endDate the end date
+     * @return a new list with the price data in trade date order
+     */
+    public List<OptionPriceData> between(LocalDate startDate, LocalDate endDate) {
+        int from = lowerBound(startDate);
+        int to = upperBound(endDate);
+        if (from >= to) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(data).subList(from, to));
+    }
+
+    private void insert(int index, OptionPriceData optionPriceData) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, Math.max(8, size * 2));
+        }
+        System.arraycopy(data, index, data, index + 1, size - index);
+        data[index] = optionPriceData;
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Checks that an element with the trade date fits after the element at the previous index and before the element at
+     * the next index. Indexes outside of the history are not checked.
+     */
+    private void checkOrder(int previous, int next, LocalDate tradeDate) {
+        if ((previous >= 0 && TRADE_DATE_ORDER.compare(data[previous].getTradeDate(), tradeDate) > 0)
+                || (next < size && TRADE_DATE_ORDER.compare(tradeDate, data[next].getTradeDate()) > 0)) {
+            throw new IllegalArgumentException("Price data with trade date " + tradeDate + " does not belong at index "
+                    + (previous + 1) + " of the price history.");
+        }
+    }
+
+    /**
+     * @return the index of the first element with a trade date not before the given date
+     */
+    private int lowerBound(LocalDate tradeDate) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (TRADE_DATE_ORDER.compare(data[mid].getTradeDate(), tradeDate) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the index of the first element with a trade date after the given date
+     */
+    private int upperBound(LocalDate tradeDate) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (TRADE_DATE_ORDER.compare(data[mid].getTradeDate(), tradeDate) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -1,5 +1,6 @@
 package com.dpgrandslam.stockdataservice.domain.model.options;
 
+import com.dpgrandslam.stockdataservice.domain.util.ValueInterner;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -35,8 +36,8 @@ public class OptionsChain {
 
     @Builder
     public OptionsChain(String ticker, LocalDate expirationDate) {
-        this.ticker = ticker;
-        this.expirationDate = expirationDate;
+        this.ticker = ValueInterner.ticker(ticker);
+        this.expirationDate = ValueInterner.date(expirationDate);
         options = new HashMap<>();
     }
 
@@ -0,0 +1,24 @@
+package com.dpgrandslam.stockdataservice.domain.model.options;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * One page of historical options, grouped into options chains. An option's price data, and a chain's options, can be
+ * split across consecutive pages.
+ */
+@Data
+@AllArgsConstructor
+public class OptionsChainPage {
+
+    private List<OptionsChain> optionsChains;
+
+    private OptionPageCursor nextCursor;
+
+    public Optional<OptionPageCursor> getNextCursor() {
+        return Optional.ofNullable(nextCursor);
+    }
+}
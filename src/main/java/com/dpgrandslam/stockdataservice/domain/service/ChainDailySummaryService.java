@@ -0,0 +1,64 @@
+package com.dpgrandslam.stockdataservice.domain.service;
+
+import com.dpgrandslam.stockdataservice.adapter.repository.ChainDailySummaryRepository;
+import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionJDBCRepository;
+import com.dpgrandslam.stockdataservice.domain.model.options.ChainDailySummary;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ChainDailySummaryService {
+
+    private final ChainDailySummaryRepository chainDailySummaryRepository;
+
+    private final HistoricalOptionJDBCRepository historicalOptionJDBCRepository;
+
+    /**
+     * Gets the daily summaries for a ticker between two trade dates, ordered by trade date. Summaries are kept when
+     * options are archived, so archived trade dates are covered without reading the archive.
+     *
+     * @param ticker the ticker
+     * @param expiration only return summaries for this expiration if present
+     * @param startDate the start trade date
+     * @param endDate the end trade date
+     * @return the summaries that were found
+     */
+    @Transactional(readOnly = true)
+    public List<ChainDailySummary> getSummaries(String ticker, Optional<LocalDate> expiration, LocalDate startDate, LocalDate endDate) {
+        return expiration
+                .map(e -> chainDailySummaryRepository.findAllByTickerAndExpirationAndTradeDateBetweenOrderByTradeDateAsc(ticker, e, startDate, endDate))
+                .orElseGet(() -> chainDailySummaryRepository.findAllByTickerAndTradeDateBetweenOrderByTradeDateAscExpirationAsc(ticker, startDate, endDate));
+    }
+
+    /**
+     * Rebuilds the daily summaries for every chain and trade date covered by the price data of the given options.
+     * Use this after writing price data through a path that does not maintain the summaries itself.
+     *
+     * @param options the options that were written
+     */
+    @Transactional
+    public void refreshSummaries(Collection<? extends Option> options) {
+        Map<Pair<String, LocalDate>, List<LocalDate>> tradeDatesByChain = options.stream()
+                .collect(Collectors.groupingBy(option -> Pair.of(option.getTicker(), option.getExpiration()),
+                        Collectors.flatMapping(option -> option.getOptionPriceData().stream()
+                                .map(OptionPriceData::getTradeDate)
+                                .filter(Objects::nonNull), Collectors.toList())));
+        tradeDatesByChain.forEach((chain, tradeDates) -> {
+            if (!tradeDates.isEmpty()) {
+                historicalOptionJDBCRepository.refreshChainDailySummary(chain.getLeft(), chain.getRight(),
+                        Collections.min(tradeDates), Collections.max(tradeDates));
+            }
+        });
+    }
+}
@@ -4,21 +4,29 @@ import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionJDBCR
 import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionRepository;
 import com.dpgrandslam.stockdataservice.adapter.repository.OptionPriceDataRepository;
 import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOptionColumnStore;
 import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionChainKey;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPageCursor;
 import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceHistory;
 import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChainPage;
 import com.dpgrandslam.stockdataservice.domain.util.TimerUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.Synchronized;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityNotFoundException;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import com.github.benmanes.caffeine.cache.Cache;
 
 
 @Service
@@ -28,13 +36,17 @@ public class HistoricOptionsDataService {
 
     private final HistoricalOptionRepository historicalOptionRepository;
 
-    private final Cache<String, Set<HistoricalOption.CacheableHistoricalOption>> historicalOptionCache;
+    private final HistoricalOptionCache historicalOptionCache;
 
     private final HistoricalOptionJDBCRepository historicalOptionJDBCRepository;
 
     private final OptionPriceDataRepository optionPriceDataRepository;
 
-    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(3);
+    private final OptionArchiveService optionArchiveService;
+
+    private final PriceDataDuplicateFilter priceDataDuplicateFilter;
+
+    private final IngestionStatistics ingestionStatistics;
 
     public List<HistoricalOption> findAll() {
         return historicalOptionRepository.findAll();
@@ -64,6 +76,9 @@ public class HistoricOptionsDataService {
             ret = addPriceDataToOption(found.get(), option.getOptionPriceData());
         } else {
             ret = historicalOptionRepository.save(option.toHistoricalOption());
+            priceDataDuplicateFilter.putAll(option);
+            ingestionStatistics.recordRowsWritten(option, option.getOptionPriceData());
+            patchCache(option);
         }
         log.debug("Took {} ms to add option (ticker: {}, strike: {}, expiration: {}, type: {})", timerUtil.stop(), option.getTicker(), option.getStrike(), option.getExpiration(), option.getOptionType());
         return ret;
@@ -73,48 +88,65 @@ public class HistoricOptionsDataService {
         fullOptionsChain.forEach(this::addOptionsChain);
     }
 
+    /**
+     * Adds an options chain to the database. Options that do not exist yet are created and price data that is already
+     * stored for an option's trade date is skipped. The whole chain is written with batch statements.
+     *
+     * @param optionsChain the options chain to add
+     * @return if the chain was stored, false if the write failed and was logged
+     */
     @Synchronized
-    public void addOptionsChain(OptionsChain optionsChain) {
+    public boolean addOptionsChain(OptionsChain optionsChain) {
         TimerUtil timerUtil = TimerUtil.startTimer();
         log.info("Adding new options chain with ticker {} and expiration {} to database.", optionsChain.getTicker(),
                 optionsChain.getExpirationDate());
-        CompletableFuture<?>[] cfs = new CompletableFuture<?>[optionsChain.getAllOptions().size()];
-        List<CompletableFuture<HistoricalOption>> futures = new LinkedList<>();
-        optionsChain.getAllOptions().forEach(option -> futures.add(CompletableFuture.supplyAsync(() -> addOption(option), EXECUTOR)));
         try {
-            CompletableFuture.allOf(futures.toArray(cfs)).thenRun(() -> log.info("Options chain with ticker {} and expiration {} added successfully.", optionsChain.getTicker(), optionsChain.getExpirationDate())).get();
-        } catch (InterruptedException | ExecutionException e) {
+            int inserted = upsertOptionsChain(optionsChain);
+            log.info("Options chain with ticker {} and expiration {} added successfully. Added {} new price data rows.",
+                    optionsChain.getTicker(), optionsChain.getExpirationDate(), inserted);
+        } catch (DataAccessException e) {
             log.error("Could not add all options to the chain for option chain with ticker {} and expiration {}",
                     optionsChain.getTicker(),
                     optionsChain.getExpirationDate(),
                     e);
-            return;
+            return false;
         }
         log.debug("Took {} ms to add options chain with ticker {} and expiration {}.", timerUtil.stop(),
                 optionsChain.getTicker(),
                 optionsChain.getExpirationDate());
+        return true;
     }
 
     /**
-     * Finds options for the given ticker. Uses a cache to find them faster.
+     * Finds options for the given ticker, including the archived ones. The stored options are cached per ticker in a
+     * compact columnar form and are only built into objects when returned.
      * @param ticker the ticker
      * @return a set of options
      */
-    //This method is very weird. Not sure why, but the cache only works this way...
     public Set<HistoricalOption> findOptions(String ticker) {
+        return withArchivedOptions(findOptionsSnapshot(ticker).toHistoricalOptions(),
+                optionArchiveService.findOptions(ticker, LocalDate.MIN, LocalDate.MAX));
+    }
+
+    /**
+     * Finds every stored option for the given ticker as the cached, immutable snapshot. The snapshot is shared with
+     * other readers and is replaced rather than changed when options for the ticker are written.
+     *
+     * @param ticker the ticker
+     * @return the snapshot of the ticker's options
+     */
+    public HistoricalOptionColumnStore findOptionsSnapshot(String ticker) {
         log.info("Searching DB for options with ticker: {}", ticker);
         TimerUtil timerUtil = TimerUtil.startTimer();
-        Set<HistoricalOption.CacheableHistoricalOption> options =  historicalOptionCache.get(ticker, t -> {
-            Set<HistoricalOption> o = historicalOptionRepository.findByTicker(t);
-            return o.stream().map(HistoricalOption.CacheableHistoricalOption::fromHistoricalOption).collect(Collectors.toSet());
-        });
+        HistoricalOptionColumnStore columnStore = historicalOptionCache.getSnapshot(ticker);
         log.debug("Took {} ms to load options with ticker: {}", timerUtil.stop(), ticker);
-        log.debug("Found {} options with ticker: {}", options.size(), ticker);
-        return options.stream().map(HistoricalOption::fromCacheableHistoricalOption).collect(Collectors.toSet());
+        log.debug("Found {} options with {} price data with ticker: {}", columnStore.optionCount(), columnStore.priceDataCount(), ticker);
+        return columnStore;
     }
 
     /**
-     * Finds options with price data within the two dates.
+     * Finds options with price data within the two dates. Reads through to the option archive when the start date is
+     * before the archive cutoff.
      *
      * @param ticker the ticker to look for
      * @param startDate the start date
@@ -122,21 +154,111 @@ public class HistoricOptionsDataService {
      * @return a set of option that has the data between the dates
      */
     public Set<HistoricalOption> findOptions(String ticker, final LocalDate startDate, final LocalDate endDate) {
-        return historicalOptionJDBCRepository.findByTickerBetweenDates(ticker, startDate, endDate);
+        return withArchivedOptions(historicalOptionJDBCRepository.findByTickerBetweenDates(ticker, startDate, endDate),
+                optionArchiveService.findOptions(ticker, startDate, endDate));
+    }
+
+    /**
+     * Finds one page of price data for a ticker between the two dates. Reads through to the option archive when the
+     * start date is before the archive cutoff, archived rows are merged into the page in the same order as the stored
+     * rows.
+     *
+     * @param ticker the ticker to look for
+     * @param startDate the start date
+     * @param endDate the end date
+     * @param after the cursor returned with the previous page, or null for the first page
+     * @param limit the maximum number of price data rows in the page
+     * @return the page of options chains
+     */
+    public OptionsChainPage findOptionsPage(String ticker, LocalDate startDate, LocalDate endDate, OptionPageCursor after, int limit) {
+        log.info("Searching DB for page of options with ticker: {} between {} and {} after {}", ticker, startDate, endDate, after);
+        OptionsChainPage page = historicalOptionJDBCRepository.findPageByTickerBetweenDates(ticker, startDate, endDate, after, limit);
+        if (!optionArchiveService.isArchived(startDate)) {
+            return page;
+        }
+        // One more archived row than fits in the page tells if there is a next page
+        List<PageRow> archivedRows = new ArrayList<>();
+        LocalDate fromExpiration = after == null || after.getExpiration().isBefore(startDate) ? startDate : after.getExpiration();
+        Iterator<OptionsChain> archivedChains = optionArchiveService.iterateChains(ticker, fromExpiration, startDate, endDate);
+        while (archivedRows.size() <= limit && archivedChains.hasNext()) {
+            toPageRows(Collections.singletonList(archivedChains.next())).stream()
+                    .filter(row -> after == null || PageRow.ORDER.compare(row.getCursor(), after) > 0)
+                    .forEach(archivedRows::add);
+        }
+        if (archivedRows.isEmpty()) {
+            return page;
+        }
+        // Stored rows win over archived rows with the same key, they are only in both if archiving was interrupted
+        Map<OptionPageCursor, PageRow> rows = new TreeMap<>(PageRow.ORDER);
+        archivedRows.forEach(row -> rows.put(row.getCursor(), row));
+        toPageRows(page.getOptionsChains()).forEach(row -> rows.put(row.getCursor(), row));
+        boolean hasNextPage = rows.size() > limit || page.getNextCursor().isPresent();
+        List<PageRow> pageRows = rows.values().stream().limit(limit).collect(Collectors.toList());
+        Map<LocalDate, OptionsChain> chains = new LinkedHashMap<>();
+        pageRows.forEach(row -> chains.computeIfAbsent(row.getCursor().getExpiration(),
+                expiration -> new OptionsChain(row.getOption().getTicker(), expiration)).addOption(row.toOption()));
+        return new OptionsChainPage(new ArrayList<>(chains.values()),
+                hasNextPage ? pageRows.get(pageRows.size() - 1).getCursor() : null);
+    }
+
+    /**
+     * Streams the options for a ticker with price data between the two dates, one options chain per expiration,
+     * without loading the whole range into memory. Reads through to the option archive when the start date is before
+     * the archive cutoff, one archived expiration month at a time.
+     *
+     * @param ticker the ticker to look for
+     * @param startDate the start date
+     * @param endDate the end date
+     * @param consumer receives each options chain in expiration order
+     */
+    public void streamOptions(String ticker, LocalDate startDate, LocalDate endDate, Consumer<OptionsChain> consumer) {
+        log.info("Streaming options from DB with ticker: {} between {} and {}", ticker, startDate, endDate);
+        TimerUtil timerUtil = TimerUtil.startTimer();
+        Iterator<OptionsChain> archivedChains = optionArchiveService.iterateChains(ticker, startDate, startDate, endDate);
+        OptionsChain[] nextArchivedChain = {archivedChains.hasNext() ? archivedChains.next() : null};
+        historicalOptionJDBCRepository.streamByTickerBetweenDates(ticker, startDate, endDate, optionsChain -> {
+            while (nextArchivedChain[0] != null && !nextArchivedChain[0].getExpirationDate().isAfter(optionsChain.getExpirationDate())) {
+                OptionsChain archivedChain = nextArchivedChain[0];
+                nextArchivedChain[0] = archivedChains.hasNext() ? archivedChains.next() : null;
+                if (archivedChain.getExpirationDate().isBefore(optionsChain.getExpirationDate())) {
+                    consumer.accept(archivedChain);
+                } else {
+                    // Stored options win over archived ones, they are only in both if archiving was interrupted
+                    archivedChain.getAllOptions().stream()
+                            .filter(option -> optionsChain.getOption(option.getOptionChainKey()) == null)
+                            .forEach(optionsChain::addOption);
+                }
+            }
+            consumer.accept(optionsChain);
+        });
+        while (nextArchivedChain[0] != null) {
+            consumer.accept(nextArchivedChain[0]);
+            nextArchivedChain[0] = archivedChains.hasNext() ? archivedChains.next() : null;
+        }
+        log.debug("Took {} ms to stream options with ticker {}.", timerUtil.stop(), ticker);
     }
 
     public Set<HistoricalOption> findOptions(String ticker, LocalDate expiration) {
         log.info("Searching DB for options with ticker: {} and expiration: {}", ticker, expiration);
         TimerUtil timerUtil = new TimerUtil();
         timerUtil.start();
-        Set<HistoricalOption> options = historicalOptionRepository.findByExpirationAndTicker(expiration, ticker);
+        Set<HistoricalOption> options = historicalOptionJDBCRepository.findByTickerAndExpiration(ticker, expiration);
         log.debug("Took {} ms to load options with ticker: {} and expiration {}", timerUtil.stop(), ticker, expiration);
+        options = withArchivedOptions(options, optionArchiveService.findOptions(ticker, expiration));
         log.debug("Found {} options with ticker: {} and expiration: {}", options.size(), ticker, expiration);
         return options;
     }
 
     public Set<HistoricalOption> findOptions(String ticker, LocalDate expiration, LocalDate startDate, LocalDate endDate) {
-        return filterPriceDataBetweenDates(findOptions(ticker, expiration), startDate, endDate);
+        if (endDate.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("End date cannot be after today.");
+        }
+        TimerUtil timerUtil = TimerUtil.startTimer();
+        Set<HistoricalOption> options = historicalOptionJDBCRepository.findByTickerAndExpirationBetweenDates(ticker, expiration, startDate, endDate);
+        options = withArchivedOptions(options, optionArchiveService.findOptions(ticker, expiration, startDate, endDate));
+        log.debug("Took {} ms to load options with ticker: {}, expiration: {}, between {} and {}", timerUtil.stop(), ticker,
+                expiration, startDate, endDate);
+        return options;
     }
 
     public HistoricalOption findOption(String ticker, LocalDate expiration, Double strike, Option.OptionType optionType) {
@@ -161,7 +283,11 @@ public class HistoricOptionsDataService {
         HistoricalOption option = findById(optionId);
         optionPriceData.setOption(option);
         option.getOptionPriceData().add(optionPriceData);
-        return historicalOptionRepository.save(option);
+        HistoricalOption saved = historicalOptionRepository.save(option);
+        priceDataDuplicateFilter.put(option, optionPriceData.getTradeDate());
+        ingestionStatistics.recordRowsWritten(option, Collections.singleton(optionPriceData));
+        patchCache(option);
+        return saved;
     }
 
     public HistoricalOption addPriceDataToOption(Long optionId, Collection<OptionPriceData> optionPriceData) {
@@ -174,15 +300,25 @@ public class HistoricOptionsDataService {
         HistoricalOption saved = option;
         log.debug("Adding new price data {} to option {}", optionPriceData, option);
         Set<OptionPriceData> priceDataCopy = new HashSet<>(optionPriceData);
-        priceDataCopy.removeIf(data -> option.getOptionPriceData()
-                .stream()
-                .anyMatch(x -> data.getTradeDate().equals(x.getTradeDate())));
+        // Only read the stored price history when the filter cannot rule out a duplicate trade date
+        List<OptionPriceData> possibleDuplicates = priceDataCopy.stream()
+                .filter(data -> priceDataDuplicateFilter.mightContain(option, data.getTradeDate()))
+                .collect(Collectors.toList());
+        if (!possibleDuplicates.isEmpty()) {
+            OptionPriceHistory existing = option.getPriceHistory();
+            possibleDuplicates.stream()
+                    .filter(data -> existing.containsTradeDate(data.getTradeDate()))
+                    .forEach(priceDataCopy::remove);
+        }
         priceDataCopy.forEach(data -> data.setOption(option));
         if (priceDataCopy.size() == 0) {
             log.debug("Price data for option {} at trade date {} already exists. Skipping addition...", option, optionPriceData.stream().findFirst().get().getTradeDate());
         } else {
             option.getOptionPriceData().addAll(priceDataCopy);
             saved = historicalOptionRepository.save(option);
+            priceDataDuplicateFilter.putAll(option, priceDataCopy);
+            ingestionStatistics.recordRowsWritten(option, priceDataCopy);
+            patchCache(option);
         }
         log.debug("Took {} ms to add price data {} to option {}", timerUtil.stop(), optionPriceData, option);
         return saved;
@@ -190,20 +326,118 @@ public class HistoricOptionsDataService {
 
     public void removeOption(Long optionId) {
         historicalOptionRepository.deleteById(optionId);
+        // The ticker of the removed option is not known here
+        historicalOptionCache.invalidateAll();
     }
 
     public void removeOption(HistoricalOption option) {
         historicalOptionRepository.delete(option);
+        patchCache(option);
     }
 
     public HistoricalOption saveOption(HistoricalOption historicalOption) {
-        return historicalOptionRepository.save(historicalOption);
+        HistoricalOption saved = historicalOptionRepository.save(historicalOption);
+        patchCache(saved);
+        return saved;
     }
 
     public List<HistoricalOption> saveOptions(Collection<HistoricalOption> historicalOptions) {
-        return historicalOptionRepository.saveAllAndFlush(historicalOptions);
+        List<HistoricalOption> saved = historicalOptionRepository.saveAllAndFlush(historicalOptions);
+        historicalOptionCache.patch(saved);
+        return saved;
+    }
+
+    /**
+     * Bulk loads options through the postgres COPY path. Options and price data that already exist are skipped.
+     *
+     * @param historicalOptions the options to add
+     * @return the number of price data rows added
+     */
+    public int copyOptions(Collection<? extends HistoricalOption> historicalOptions) {
+        TimerUtil timerUtil = TimerUtil.startTimer();
+        int inserted = historicalOptionJDBCRepository.copyOptions(historicalOptions);
+        historicalOptions.forEach(option -> priceDataDuplicateFilter.putAll(option));
+        ingestionStatistics.recordRowsWritten(historicalOptions, inserted);
+        historicalOptionCache.patch(historicalOptions);
+        log.debug("Took {} ms to copy {} options into the database.", timerUtil.stop(), historicalOptions.size());
+        return inserted;
+    }
+
+    /**
+     * Writes several options chains in one transaction. Unlike {@link #addOptionsChain(OptionsChain)} a failure is not
+     * swallowed, it rolls back every chain in the call and is rethrown so the caller can fall back to writing the
+     * chains one at a time.
+     * <p>
+     * Not synchronized, the write queue calls this from several writers at once. Chains are written in (ticker,
+     * expiration) order and each chain's rows in key order, so writers that share a chain wait on each other rather
+     * than deadlock. The on conflict inserts and summary upserts skip what the other writer stored first.
+     *
+     * @param optionsChains the options chains to add
+     * @return the number of price data rows added
+     */
+    @Transactional
+    public int addOptionsChains(Collection<OptionsChain> optionsChains) {
+        TimerUtil timerUtil = TimerUtil.startTimer();
+        List<OptionsChain> orderedChains = new ArrayList<>(optionsChains);
+        orderedChains.sort(Comparator.comparing(OptionsChain::getTicker).thenComparing(OptionsChain::getExpirationDate));
+        int inserted = 0;
+        for (OptionsChain optionsChain : orderedChains) {
+            inserted += upsertOptionsChain(optionsChain);
+        }
+        log.debug("Took {} ms to add {} options chains with {} new price data rows.", timerUtil.stop(), optionsChains.size(), inserted);
+        return inserted;
     }
 
+    private int upsertOptionsChain(OptionsChain optionsChain) {
+        // The stored price data only has to be looked up when the filter cannot rule out every row in the chain
+        boolean checkStoredPriceData = optionsChain.getAllOptions().stream().anyMatch(priceDataDuplicateFilter::mightContainAny);
+        int inserted = historicalOptionJDBCRepository.upsertOptionsChain(optionsChain, checkStoredPriceData);
+        optionsChain.getAllOptions().forEach(option -> priceDataDuplicateFilter.putAll(option));
+        ingestionStatistics.recordRowsWritten(optionsChain.getAllOptions(), inserted);
+        historicalOptionCache.patch(optionsChain.getTicker(), optionsChain.getExpirationDate(), optionsChain.getExpirationDate());
+        return inserted;
+    }
+
+    private void patchCache(Option option) {
+        historicalOptionCache.patch(option.getTicker(), option.getExpiration(), option.getExpiration());
+    }
+
+    /**
+     * Loads the duplicate filter for the trade date so the first writers do not have to wait for it.
+     *
+     * @param tradeDate the trade date that is about to be loaded
+     */
+    public void warmPriceDataDuplicateFilter(LocalDate tradeDate) {
+        priceDataDuplicateFilter.warm(tradeDate);
+    }
+
+    /**
+     * @param option the option
+     * @param tradeDate the trade date
+     * @return false if the option definitely has no price data stored for the trade date, true if it might
+     */
+    public boolean mightHavePriceDataOnTradeDate(Option option, LocalDate tradeDate) {
+        return priceDataDuplicateFilter.mightContain(option, tradeDate);
+    }
+
+    /**
+     * Records price data that is about to be written outside of this service, e.g. by the option csv job writer.
+     *
+     * @param option the option
+     * @param tradeDate the trade date of the price data
+     */
+    public void markPriceDataOnTradeDate(Option option, LocalDate tradeDate) {
+        priceDataDuplicateFilter.put(option, tradeDate);
+        ingestionStatistics.recordRowsWritten(option.getTicker(), option.getExpiration(), tradeDate, 1);
+    }
+
+    /**
+     * Counts the price data rows stored for the trade date. This scans option_price_data, while the job is running
+     * {@link IngestionStatistics} should be used instead.
+     *
+     * @param tradeDate the trade date
+     * @return the number of stored price data rows
+     */
     public Long countOptionsLoadedOnTradeDate(LocalDate tradeDate) {
         return optionPriceDataRepository.countAllByTradeDate(tradeDate);
     }
@@ -215,15 +449,59 @@ public class HistoricOptionsDataService {
         return historicalOptionJDBCRepository.getExpirationDatesForOptionsAfterDate(ticker, startDate);
     }
 
-    private Set<HistoricalOption> filterPriceDataBetweenDates(Set<HistoricalOption> historicalOptions, LocalDate startDate, LocalDate endDate) {
-        if (endDate.isAfter(LocalDate.now())) {
-            throw new IllegalArgumentException("End date cannot be after today.");
+    private static List<PageRow> toPageRows(Collection<OptionsChain> optionsChains) {
+        List<PageRow> rows = new ArrayList<>();
+        optionsChains.forEach(optionsChain -> optionsChain.getAllOptions().forEach(option ->
+                option.getOptionPriceData().forEach(priceData -> rows.add(new PageRow(new OptionPageCursor(option.getExpiration(),
+                        option.getStrike(), option.getOptionType(), priceData.getTradeDate()), option, priceData)))));
+        return rows;
+    }
+
+    /**
+     * Adds the archived options that are not also still stored. Options are only in both places if archiving was
+     * interrupted before the stored rows were deleted.
+     */
+    private Set<HistoricalOption> withArchivedOptions(Set<HistoricalOption> options, Set<HistoricalOption> archivedOptions) {
+        if (archivedOptions.isEmpty()) {
+            return options;
         }
-        if (historicalOptions != null && !historicalOptions.isEmpty()) {
-            historicalOptions.forEach(ho -> ho.getOptionPriceData().removeIf(priceData -> !((startDate.isEqual(priceData.getTradeDate()) || endDate.isEqual(priceData.getTradeDate()))
-                    || (startDate.isBefore(priceData.getTradeDate()) && endDate.isAfter(priceData.getTradeDate())))));
-            return historicalOptions.stream().filter(x -> !x.getOptionPriceData().isEmpty()).collect(Collectors.toSet());
+        Set<Pair<LocalDate, OptionChainKey>> storedKeys = options.stream()
+                .map(option -> Pair.of(option.getExpiration(), option.getOptionChainKey()))
+                .collect(Collectors.toSet());
+        Set<HistoricalOption> combined = new HashSet<>(options);
+        archivedOptions.stream()
+                .filter(option -> !storedKeys.contains(Pair.of(option.getExpiration(), option.getOptionChainKey())))
+                .forEach(combined::add);
+        return combined;
+    }
+
+    /**
+     * A price data row of a page with its position in the page order, which matches the order of the stored pages.
+     */
+    @Value
+    private static class PageRow {
+
+        private static final Comparator<OptionPageCursor> ORDER = Comparator.comparing(OptionPageCursor::getExpiration)
+                .thenComparing(OptionPageCursor::getStrike)
+                .thenComparing(cursor -> cursor.getOptionType().name())
+                .thenComparing(OptionPageCursor::getTradeDate);
+
+        OptionPageCursor cursor;
+        Option option;
+        OptionPriceData priceData;
+
+        HistoricalOption toOption() {
+            HistoricalOption historicalOption = HistoricalOption.builder()
+                    .ticker(option.getTicker())
+                    .expiration(option.getExpiration())
+                    .strike(option.getStrike())
+                    .optionType(option.getOptionType())
+                    .build();
+            if (option instanceof HistoricalOption) {
+                historicalOption.setId(((HistoricalOption) option).getId());
+            }
+            historicalOption.getOptionPriceData().add(priceData);
+            return historicalOption;
         }
-        return Collections.emptySet();
     }
 }
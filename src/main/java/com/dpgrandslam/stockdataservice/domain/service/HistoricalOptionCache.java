@@ -0,0 +1,127 @@
+package com.dpgrandslam.stockdataservice.domain.service;
+
+import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionJDBCRepository;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOptionColumnStore;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.util.TimerUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Holds every stored option of recently read tickers as an immutable {@link HistoricalOptionColumnStore} snapshot. A
+ * ticker is loaded from the database once and after that every write for the ticker re-reads only the expirations it
+ * touched and swaps in a new snapshot with them replaced, so readers never see a snapshot change underneath them.
+ * Writes inside a transaction are applied once it commits.
+ * <p>
+ * Only writes made through this instance are applied. Writes from another instance are picked up when the ticker is
+ * evicted and loaded again.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class HistoricalOptionCache {
+
+    private static final int MAX_PATCH_ATTEMPTS = 3;
+
+    private final Cache<String, HistoricalOptionColumnStore> historicalOptionSnapshotCache;
+
+    private final HistoricalOptionJDBCRepository historicalOptionJDBCRepository;
+
+    /**
+     * Gets the snapshot of every stored option for the ticker, loading it if the ticker is not cached yet.
+     *
+     * @param ticker the ticker
+     * @return the snapshot
+     */
+    public HistoricalOptionColumnStore getSnapshot(String ticker) {
+        return historicalOptionSnapshotCache.get(ticker, this::load);
+    }
+
+    /**
+     * Re-reads the expirations of the written options for each cached ticker they belong to.
+     *
+     * @param options the options that were written
+     */
+    public void patch(Collection<? extends Option> options) {
+        Map<String, List<LocalDate>> expirationsByTicker = options.stream()
+                .collect(Collectors.groupingBy(Option::getTicker, Collectors.mapping(Option::getExpiration, Collectors.toList())));
+        expirationsByTicker.forEach((ticker, expirations) -> patch(ticker,
+                expirations.stream().min(Comparator.naturalOrder()).get(),
+                expirations.stream().max(Comparator.naturalOrder()).get()));
+    }
+
+    /**
+     * Re-reads the options for a ticker expiring between the two dates if the ticker is cached.
+     *
+     * @param ticker the ticker that was written
+     * @param fromExpiration the first expiration that was written, inclusive
+     * @param toExpiration the last expiration that was written, inclusive
+     */
+    public void patch(String ticker, LocalDate fromExpiration, LocalDate toExpiration) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    replaceExpirations(ticker, fromExpiration, toExpiration);
+                }
+            });
+        } else {
+            replaceExpirations(ticker, fromExpiration, toExpiration);
+        }
+    }
+
+    public void invalidate(String ticker) {
+        historicalOptionSnapshotCache.invalidate(ticker);
+    }
+
+    public void invalidateAll() {
+        historicalOptionSnapshotCache.invalidateAll();
+    }
+
+    private HistoricalOptionColumnStore load(String ticker) {
+        TimerUtil timerUtil = TimerUtil.startTimer();
+        HistoricalOptionColumnStore snapshot = historicalOptionJDBCRepository.findColumnStoreByTicker(ticker);
+        log.info("Took {} ms to load {} options with {} price data into the historical option cache for ticker {}.",
+                timerUtil.stop(), snapshot.optionCount(), snapshot.priceDataCount(), ticker);
+        return snapshot;
+    }
+
+    private void replaceExpirations(String ticker, LocalDate fromExpiration, LocalDate toExpiration) {
+        try {
+            for (int attempt = 1; ; attempt++) {
+                // compute, unlike get, waits for a load of the ticker that is still running, so a patch made meanwhile
+                // is applied to the loaded snapshot instead of being lost. Returning the current value changes nothing.
+                HistoricalOptionColumnStore snapshot = historicalOptionSnapshotCache.asMap().compute(ticker, (key, current) -> current);
+                if (snapshot == null) {
+                    return;
+                }
+                // Read outside of the entry lock so readers and loads of the ticker are not blocked on the database
+                HistoricalOptionColumnStore patched = snapshot.withExpirationsReplaced(fromExpiration, toExpiration,
+                        historicalOptionJDBCRepository.findColumnStoreByTickerAndExpirationBetween(ticker, fromExpiration, toExpiration));
+                // Another patch swapped the snapshot while the range was read. Read again, so an older read never
+                // replaces a newer one.
+                if (historicalOptionSnapshotCache.asMap().replace(ticker, snapshot, patched)) {
+                    return;
+                }
+                if (attempt == MAX_PATCH_ATTEMPTS) {
+                    throw new IllegalStateException("Snapshot kept changing while it was patched.");
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not patch cached options for ticker {} expiring between {} and {}. Evicting the ticker instead.",
+                    ticker, fromExpiration, toExpiration, e);
+            historicalOptionSnapshotCache.invalidate(ticker);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.dpgrandslam.stockdataservice.domain.service;
+
+import com.dpgrandslam.stockdataservice.domain.model.OptionPriceDataLoadRetry;
+import com.dpgrandslam.stockdataservice.domain.model.TradeDateIngestionStatistics;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps count of the option price data rows written for each trade date, broken down by ticker and expiration, and
+ * of the load retries for each trade date. The writers update it as they write, so the end of day job does not have to
+ * count rows and retries in the database while it runs. The counts are reconciled with the database when a job
+ * completes. Only the most recent trade dates are kept.
+ * <p>
+ * Rows written inside a transaction are counted once it commits, so a write that is rolled back and retried is not
+ * counted twice.
+ */
+@Service
+@Slf4j
+public class IngestionStatistics {
+
+    private static final int MAX_TRADE_DATES = 10;
+
+    private final ConcurrentSkipListMap<LocalDate, TradeDateCounts> tradeDates = new ConcurrentSkipListMap<>();
+
+    // The trade date of each pending retry, so a retry removed by id can be found
+    private final Map<Long, LocalDate> retryTradeDates = new ConcurrentHashMap<>();
+
+    public void recordRowsWritten(String ticker, LocalDate expiration, LocalDate tradeDate, long rows) {
+        if (rows <= 0 || tradeDate == null) {
+            return;
+        }
+        afterCommit(() -> addRowsWritten(ticker, expiration, tradeDate, rows));
+    }
+
+    /**
+     * Records price data of an option that was written.
+     *
+     * @param option the option
+     * @param priceData the price data rows that were written
+     */
+    public void recordRowsWritten(Option option, Collection<OptionPriceData> priceData) {
+        afterCommit(() -> addRowsWritten(option, priceData));
+    }
+
+    /**
+     * Records a write where only the total number of inserted rows is known, e.g. when rows that were already stored
+     * were skipped. If not every row was inserted the inserted rows are counted against the latest trade date of each
+     * option, which is exact for live loaded chains since they only hold price data for one trade date.
+     *
+     * @param options the options that were written
+     * @param inserted the number of price data rows that were inserted
+     */
+    public void recordRowsWritten(Collection<? extends Option> options, int inserted) {
+        if (inserted <= 0) {
+            return;
+        }
+        afterCommit(() -> {
+            int rows = options.stream().mapToInt(option -> option.getOptionPriceData().size()).sum();
+            if (rows == inserted) {
+                options.forEach(option -> addRowsWritten(option, option.getOptionPriceData()));
+                return;
+            }
+            int remaining = inserted;
+            for (Option option : options) {
+                if (remaining == 0) {
+                    break;
+                }
+                OptionPriceData latest = option.getMostRecentPriceData();
+                if (latest != null) {
+                    addRowsWritten(option.getTicker(), option.getExpiration(), latest.getTradeDate(), 1);
+                    remaining--;
+                }
+            }
+        });
+    }
+
+    private void addRowsWritten(Option option, Collection<OptionPriceData> priceData) {
+        priceData.forEach(data -> addRowsWritten(option.getTicker(), option.getExpiration(), data.getTradeDate(), 1));
+    }
+
+    private void addRowsWritten(String ticker, LocalDate expiration, LocalDate tradeDate, long rows) {
+        if (rows <= 0 || tradeDate == null) {
+            return;
+        }
+        getCounts(tradeDate).rowsWritten
+                .computeIfAbsent(ticker, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(expiration, key -> new LongAdder())
+                .add(rows);
+    }
+
+    /**
+     * Runs the update once the current transaction commits, or right away when there is no transaction.
+     */
+    private void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    public void recordRetryAdded(OptionPriceDataLoadRetry retry) {
+        if (retry.getTradeDate() == null) {
+            return;
+        }
+        TradeDateCounts counts = getCounts(retry.getTradeDate());
+        counts.retriesAdded.increment();
+        if (retry.getRetryId() != null) {
+            counts.pendingRetryIds.add(retry.getRetryId());
+            retryTradeDates.put(retry.getRetryId(), retry.getTradeDate());
+        }
+    }
+
+    public void recordRetryAttempt(OptionPriceDataLoadRetry retry) {
+        if (retry.getTradeDate() != null) {
+            getCounts(retry.getTradeDate()).retryAttempts.increment();
+        }
+    }
+
+    public void recordRetryRemoved(Long retryId) {
+        LocalDate tradeDate = retryId == null ? null : retryTradeDates.remove(retryId);
+        TradeDateCounts counts = tradeDate == null ? null : tradeDates.get(tradeDate);
+        if (counts != null && counts.pendingRetryIds.remove(retryId)) {
+            counts.retriesResolved.increment();
+        }
+    }
+
+    public long getRowsWritten(LocalDate tradeDate) {
+        TradeDateCounts counts = tradeDates.get(tradeDate);
+        return counts == null ? 0 : counts.totalRowsWritten();
+    }
+
+    public int getPendingRetries(LocalDate tradeDate) {
+        TradeDateCounts counts = tradeDates.get(tradeDate);
+        return counts == null ? 0 : counts.pendingRetryIds.size();
+    }
+
+    /**
+     * Replaces the pending retries for the trade date with the ones stored in the database.
+     *
+     * @param tradeDate the trade date
+     * @param storedRetries the retries stored for the trade date
+     */
+    public void reconcileRetries(LocalDate tradeDate, Collection<OptionPriceDataLoadRetry> storedRetries) {
+        TradeDateCounts counts = getCounts(tradeDate);
+        counts.pendingRetryIds.forEach(retryTradeDates::remove);
+        counts.pendingRetryIds.clear();
+        storedRetries.stream()
+                .map(OptionPriceDataLoadRetry::getRetryId)
+                .filter(Objects::nonNull)
+                .forEach(retryId -> {
+                    counts.pendingRetryIds.add(retryId);
+                    retryTradeDates.put(retryId, tradeDate);
+                });
+    }
+
+    /**
+     * Records the number of price data rows stored in the database for the trade date.
+     *
+     * @param tradeDate the trade date
+     * @param storedRows the number of rows stored for the trade date
+     */
+    public void reconcileRows(LocalDate tradeDate, long storedRows) {
+        TradeDateCounts counts = getCounts(tradeDate);
+        counts.storedRows = storedRows;
+        counts.reconciledAt = Instant.now();
+        long written = counts.totalRowsWritten();
+        if (written > storedRows) {
+            log.warn("Counted {} price data rows written for trade date {} but only {} are stored.", written, tradeDate, storedRows);
+        }
+    }
+
+    /**
+     * @return the totals of every tracked trade date, latest first
+     */
+    public List<TradeDateIngestionStatistics> getStatistics() {
+        List<TradeDateIngestionStatistics> statistics = new ArrayList<>();
+        tradeDates.descendingMap().forEach((tradeDate, counts) -> statistics.add(counts.toStatistics(tradeDate).build()));
+        return statistics;
+    }
+
+    /**
+     * @param tradeDate the trade date
+     * @return the totals of the trade date with the rows written per ticker and expiration
+     */
+    public Optional<TradeDateIngestionStatistics> getStatistics(LocalDate tradeDate) {
+        TradeDateCounts counts = tradeDates.get(tradeDate);
+        if (counts == null) {
+            return Optional.empty();
+        }
+        Map<String, Map<LocalDate, Long>> rowsWritten = new TreeMap<>();
+        counts.rowsWritten.forEach((ticker, byExpiration) -> {
+            Map<LocalDate, Long> rows = new TreeMap<>();
+            byExpiration.forEach((expiration, adder) -> rows.put(expiration, adder.sum()));
+            rowsWritten.put(ticker, rows);
+        });
+        return Optional.of(counts.toStatistics(tradeDate)
+                .rowsWrittenByTickerAndExpiration(rowsWritten)
+                .build());
+    }
+
+    private TradeDateCounts getCounts(LocalDate tradeDate) {
+        TradeDateCounts counts = tradeDates.get(tradeDate);
+        if (counts != null) {
+            return counts;
+        }
+        counts = tradeDates.computeIfAbsent(tradeDate, key -> new TradeDateCounts());
+        while (tradeDates.size() > MAX_TRADE_DATES) {
+            Map.Entry<LocalDate, TradeDateCounts> oldest = tradeDates.pollFirstEntry();
+            if (oldest != null) {
+                oldest.getValue().pendingRetryIds.forEach(retryTradeDates::remove);
+            }
+        }
+        return counts;
+    }
+
+    private static class TradeDateCounts {
+
+        private final Map<String, Map<LocalDate, LongAdder>> rowsWritten = new ConcurrentHashMap<>();
+        private final Set<Long> pendingRetryIds = ConcurrentHashMap.newKeySet();
+        private final LongAdder retriesAdded = new LongAdder();
+        private final LongAdder retryAttempts = new LongAdder();
+        private final LongAdder retriesResolved = new LongAdder();
+        private volatile Long storedRows;
+        private volatile Instant reconciledAt;
+
+        private long totalRowsWritten() {
+            return rowsWritten.values().stream()
+                    .flatMap(byExpiration -> byExpiration.values().stream())
+                    .mapToLong(LongAdder::sum)
+                    .sum();
+        }
+
+        private TradeDateIngestionStatistics.TradeDateIngestionStatisticsBuilder toStatistics(LocalDate tradeDate) {
+            return TradeDateIngestionStatistics.builder()
+                    .tradeDate(tradeDate)
+                    .rowsWritten(totalRowsWritten())
+                    .storedRows(storedRows)
+                    .reconciledAt(reconciledAt)
+                    .pendingRetries(pendingRetryIds.size())
+                    .retriesAdded(retriesAdded.sum())
+                    .retryAttempts(retryAttempts.sum())
+                    .retriesResolved(retriesResolved.sum());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.dpgrandslam.stockdataservice.domain.service;
+
+import com.dpgrandslam.stockdataservice.domain.config.LiveOptionsChainCacheConfigurationProperties;
+import com.dpgrandslam.stockdataservice.domain.error.OptionsChainLoadException;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import com.dpgrandslam.stockdataservice.domain.util.TimeUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Short lived cache of the live options chains served to api callers, keyed on ticker and expiration, so callers that
+ * ask for the same chain at about the same time share one load from the options source instead of each scraping it.
+ * <p>
+ * Concurrent misses for a key wait on the one load in flight. A chain older than its ttl is still served while a
+ * single background reload replaces it, until it is older than the ttl plus the max stale time, after which callers
+ * wait for a load again. The ttl is shorter while the market is open since the chains only change then, so a chain
+ * loaded after hours can be too stale to serve once the market opens even though it has not expired yet.
+ */
+@Service
+@Slf4j
+public class LiveOptionsChainCache {
+
+    private static final LocalTime MARKET_OPEN = LocalTime.of(9, 30);
+    private static final LocalTime MARKET_CLOSE = LocalTime.of(16, 0);
+
+    @FunctionalInterface
+    private interface ChainLoader {
+        List<OptionsChain> load() throws OptionsChainLoadException;
+    }
+
+    private static class CachedChains {
+
+        private final List<OptionsChain> chains;
+        private final long loadedAtNanos;
+
+        private CachedChains(List<OptionsChain> chains, long loadedAtNanos) {
+            this.chains = chains;
+            this.loadedAtNanos = loadedAtNanos;
+        }
+    }
+
+    private final OptionsChainLoadService optionsChainLoadService;
+
+    private final LiveOptionsChainCacheConfigurationProperties properties;
+
+    private final TimeUtils timeUtils;
+
+    private final Ticker ticker;
+
+    // The expiration is null for the full chain of a ticker
+    private final Cache<Pair<String, LocalDate>, CachedChains> cache;
+
+    private final Map<Pair<String, LocalDate>, CompletableFuture<List<OptionsChain>>> loadsInFlight = new ConcurrentHashMap<>();
+
+    private final ExecutorService refreshExecutor;
+
+    @Autowired
+    public LiveOptionsChainCache(OptionsChainLoadService optionsChainLoadService,
+                                 @Qualifier("LiveOptionsChainCacheConfigurationProperties") LiveOptionsChainCacheConfigurationProperties properties,
+                                 TimeUtils timeUtils) {
+        this(optionsChainLoadService, properties, timeUtils, Ticker.systemTicker());
+    }
+
+    /**
+     * @param ticker the source of time for the age of cached chains and their expiry
+     */
+    public LiveOptionsChainCache(OptionsChainLoadService optionsChainLoadService,
+                                 LiveOptionsChainCacheConfigurationProperties properties,
+                                 TimeUtils timeUtils, Ticker ticker) {
+        this.optionsChainLoadService = optionsChainLoadService;
+        this.properties = properties;
+        this.timeUtils = timeUtils;
+        this.ticker = ticker;
+        this.cache = Caffeine.newBuilder()
+                .ticker(ticker)
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(Math.max(properties.getMarketHoursTtlSeconds(), properties.getAfterHoursTtlSeconds())
+                        + properties.getMaxStaleSeconds(), TimeUnit.SECONDS)
+                .build();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refreshExecutor = Executors.newFixedThreadPool(properties.getRefreshThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "live-options-chain-refresh-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    public List<OptionsChain> getFullLiveOptionsChain(String ticker) throws OptionsChainLoadException {
+        if (!properties.isEnabled()) {
+            return optionsChainLoadService.loadFullLiveOptionsChain(ticker);
+        }
+        return get(Pair.of(ticker.toUpperCase(), null), () -> optionsChainLoadService.loadFullLiveOptionsChain(ticker));
+    }
+
+    public OptionsChain getLiveOptionsChainForExpirationDate(String ticker, LocalDate expirationDate) throws OptionsChainLoadException {
+        if (!properties.isEnabled()) {
+            return optionsChainLoadService.loadLiveOptionsChainForExpirationDate(ticker, expirationDate);
+        }
+        return get(Pair.of(ticker.toUpperCase(), expirationDate), () -> Collections.singletonList(
+                optionsChainLoadService.loadLiveOptionsChainForExpirationDate(ticker, expirationDate))).get(0);
+    }
+
+    private List<OptionsChain> get(Pair<String, LocalDate> key, ChainLoader loader) throws OptionsChainLoadException {
+        CachedChains cached = cache.getIfPresent(key);
+        if (cached == null) {
+            return join(load(key, loader));
+        }
+        long ttlSeconds = getTtlSeconds();
+        long ageNanos = ticker.read() - cached.loadedAtNanos;
+        if (ageNanos >= TimeUnit.SECONDS.toNanos(ttlSeconds + properties.getMaxStaleSeconds())) {
+            return join(load(key, loader));
+        }
+        if (ageNanos >= TimeUnit.SECONDS.toNanos(ttlSeconds)) {
+            refreshInBackground(key, loader);
+        }
+        return cached.chains;
+    }
+
+    private boolean isFresh(CachedChains cached) {
+        return ticker.read() - cached.loadedAtNanos < TimeUnit.SECONDS.toNanos(getTtlSeconds());
+    }
+
+    private long getTtlSeconds() {
+        LocalDateTime now = timeUtils.getNowAmericaNewYork();
+        boolean marketOpen = timeUtils.isTradingOpenOnDay(now.toLocalDate())
+                && !now.toLocalTime().isBefore(MARKET_OPEN)
+                && now.toLocalTime().isBefore(MARKET_CLOSE);
+        return marketOpen ? properties.getMarketHoursTtlSeconds() : properties.getAfterHoursTtlSeconds();
+    }
+
+    private void refreshInBackground(Pair<String, LocalDate> key, ChainLoader loader) {
+        if (loadsInFlight.containsKey(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> load(key, loader).whenComplete((chains, e) -> {
+                if (e != null) {
+                    log.warn("Could not refresh live options chain for {}, serving the stale chain until it expires.", key, e);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            log.debug("Live options chain refresh for {} rejected, the application is shutting down.", key);
+        }
+    }
+
+    /**
+     * Loads the chains on the calling thread, unless a load of the key is already in flight in which case that load's
+     * result is returned.
+     */
+    private CompletableFuture<List<OptionsChain>> load(Pair<String, LocalDate> key, ChainLoader loader) {
+        CompletableFuture<List<OptionsChain>> load = new CompletableFuture<>();
+        CompletableFuture<List<OptionsChain>> inFlight = loadsInFlight.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        try {
+            // A load that finished between the caller's cache miss and claiming the key already has a fresh chain
+            CachedChains cached = cache.getIfPresent(key);
+            if (cached != null && isFresh(cached)) {
+                load.complete(cached.chains);
+            } else {
+                List<OptionsChain> chains = loader.load();
+                cache.put(key, new CachedChains(chains, ticker.read()));
+                load.complete(chains);
+            }
+        } catch (Exception e) {
+            load.completeExceptionally(e);
+        } finally {
+            loadsInFlight.remove(key, load);
+        }
+        return load;
+    }
+
+    private static List<OptionsChain> join(CompletableFuture<List<OptionsChain>> load) throws OptionsChainLoadException {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof OptionsChainLoadException) {
+                throw (OptionsChainLoadException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.dpgrandslam.stockdataservice.domain.service;
+
+import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionJDBCRepository;
+import com.dpgrandslam.stockdataservice.adapter.repository.OptionArchiveRepository;
+import com.dpgrandslam.stockdataservice.domain.config.OptionArchiveConfigurationProperties;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOptionColumnStore;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionChainKey;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceHistory;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import com.dpgrandslam.stockdataservice.domain.util.TimerUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Moves options that expired long ago out of the database into per ticker, per expiration month archive segments and
+ * reads them back when a query reaches that far into the past. Decoded segments are cached, a segment only changes
+ * when the month is archived again and the cache is updated then.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OptionArchiveService {
+
+    private final OptionArchiveRepository optionArchiveRepository;
+
+    private final HistoricalOptionJDBCRepository historicalOptionJDBCRepository;
+
+    private final OptionArchiveConfigurationProperties optionArchiveConfigurationProperties;
+
+    private final HistoricalOptionCache historicalOptionCache;
+
+    private final ChainDailySummaryService chainDailySummaryService;
+
+    private final Cache<Pair<String, YearMonth>, HistoricalOptionColumnStore> optionArchiveSegmentCache;
+
+    public boolean isEnabled() {
+        return optionArchiveConfigurationProperties.isEnabled();
+    }
+
+    /**
+     * @return options that expire before this date are archived
+     */
+    public LocalDate getArchiveCutoff() {
+        return YearMonth.now().minusMonths(optionArchiveConfigurationProperties.getMonths()).atDay(1);
+    }
+
+    /**
+     * Finds the archived options with price data between the two dates.
+     *
+     * @param ticker the ticker
+     * @param startDate the start date
+     * @param endDate the end date
+     * @return the archived options with only their price data between the dates
+     */
+    public Set<HistoricalOption> findOptions(String ticker, LocalDate startDate, LocalDate endDate) {
+        if (!isArchived(startDate)) {
+            return Collections.emptySet();
+        }
+        TimerUtil timerUtil = TimerUtil.startTimer();
+        Set<HistoricalOption> options = new HashSet<>();
+        // An option only trades until it expires, so segments for months before the start date cannot have any data
+        for (YearMonth month : optionArchiveRepository.findSegmentMonths(ticker).tailSet(YearMonth.from(startDate))) {
+            findSegment(ticker, month).ifPresent(segment -> {
+                for (int i = 0; i < segment.optionCount(); i++) {
+                    HistoricalOption option = segment.getHistoricalOption(i, startDate, endDate);
+                    if (!option.getOptionPriceData().isEmpty()) {
+                        options.add(option);
+                    }
+                }
+            });
+        }
+        log.debug("Took {} ms to load {} archived options with ticker: {} between {} and {}", timerUtil.stop(),
+                options.size(), ticker, startDate, endDate);
+        return options;
+    }
+
+    /**
+     * Iterates over the archived options chains with price data between the two dates in expiration order. Segments are
+     * read one expiration month at a time as the iterator reaches them, so only a month of archived options is held at
+     * once.
+     *
+     * @param ticker the ticker
+     * @param fromExpiration the first expiration to return
+     * @param startDate the start date
+     * @param endDate the end date
+     * @return the archived options chains with only their price data between the dates
+     */
+    public Iterator<OptionsChain> iterateChains(String ticker, LocalDate fromExpiration, LocalDate startDate, LocalDate endDate) {
+        if (!isArchived(startDate) || !isArchived(fromExpiration)) {
+            return Collections.emptyIterator();
+        }
+        Iterator<YearMonth> months = new ArrayList<>(optionArchiveRepository.findSegmentMonths(ticker)
+                .tailSet(YearMonth.from(fromExpiration))).iterator();
+        return new Iterator<>() {
+
+            private Iterator<OptionsChain> chains = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!chains.hasNext() && months.hasNext()) {
+                    chains = findChains(ticker, months.next(), fromExpiration, startDate, endDate).iterator();
+                }
+                return chains.hasNext();
+            }
+
+            @Override
+            public OptionsChain next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return chains.next();
+            }
+        };
+    }
+
+    /**
+     * Finds the archived options for an expiration with all of their price data.
+     *
+     * @param ticker the ticker
+     * @param expiration the expiration
+     * @return the archived options
+     */
+    public Set<HistoricalOption> findOptions(String ticker, LocalDate expiration) {
+        Set<HistoricalOption> options = new HashSet<>();
+        findSegment(ticker, expiration).ifPresent(segment -> {
+            for (int i = 0; i < segment.optionCount(); i++) {
+                if (expiration.equals(segment.getExpiration(i))) {
+                    options.add(segment.getHistoricalOption(i));
+                }
+            }
+        });
+        return options;
+    }
+
+    /**
+     * Finds the archived options for an expiration with price data between the two dates.
+     *
+     * @param ticker the ticker
+     * @param expiration the expiration
+     * @param startDate the start date
+     * @param endDate the end date
+     * @return the archived options with only their price data between the dates
+     */
+    public Set<HistoricalOption> findOptions(String ticker, LocalDate expiration, LocalDate startDate, LocalDate endDate) {
+        Set<HistoricalOption> options = new HashSet<>();
+        findSegment(ticker, expiration).ifPresent(segment -> {
+            for (int i = 0; i < segment.optionCount(); i++) {
+                if (expiration.equals(segment.getExpiration(i))) {
+                    HistoricalOption option = segment.getHistoricalOption(i, startDate, endDate);
+                    if (!option.getOptionPriceData().isEmpty()) {
+                        options.add(option);
+                    }
+                }
+            }
+        });
+        return options;
+    }
+
+    /**
+     * Finds the expiration months of the stored options that should be archived, keyed by ticker.
+     *
+     * @return the months to archive
+     */
+    public Map<String, SortedSet<YearMonth>> findMonthsToArchive() {
+        if (!isEnabled()) {
+            return Collections.emptyMap();
+        }
+        return historicalOptionJDBCRepository.findExpirationMonthsBefore(getArchiveCutoff());
+    }
+
+    /**
+     * Writes every stored option for a ticker that expires in the month to the month's archive segment, merging with
+     * the segment that is already there, and then deletes the options from the database.
+     *
+     * @param ticker the ticker
+     * @param month the expiration month
+     * @return the number of options moved to the archive
+     */
+    @Transactional
+    public int archiveMonth(String ticker, YearMonth month) {
+        TimerUtil timerUtil = TimerUtil.startTimer();
+        LocalDate firstDay = month.atDay(1);
+        LocalDate lastDay = month.atEndOfMonth();
+        HistoricalOptionColumnStore stored = historicalOptionJDBCRepository.findColumnStoreByTickerAndExpirationBetween(ticker, firstDay, lastDay);
+        if (stored.optionCount() == 0) {
+            return 0;
+        }
+        HistoricalOptionColumnStore segment = optionArchiveRepository.findSegment(ticker, month)
+                .map(existing -> merge(ticker, existing, stored))
+                .orElse(stored);
+        // Summaries are kept for archived options, so the summary endpoint still covers them. Make sure they are there
+        // before the price data they are built from is deleted.
+        chainDailySummaryService.refreshSummaries(stored.toHistoricalOptions());
+        // The segment has to be written before the rows are deleted, a failed delete is merged again on the next run
+        optionArchiveRepository.saveSegment(segment, month);
+        optionArchiveSegmentCache.put(Pair.of(ticker, month), segment);
+        int deleted = historicalOptionJDBCRepository.deleteByTickerAndExpirationBetween(ticker, firstDay, lastDay);
+        historicalOptionCache.patch(ticker, firstDay, lastDay);
+        log.info("Archived {} options with {} price data for ticker {} expiring in {} in {} ms.", deleted,
+                stored.priceDataCount(), ticker, month, timerUtil.stop());
+        return deleted;
+    }
+
+    /**
+     * @param date the date
+     * @return true if options that expire or trade before this date can be in the archive
+     */
+    public boolean isArchived(LocalDate date) {
+        return isEnabled() && date.isBefore(getArchiveCutoff());
+    }
+
+    private Optional<HistoricalOptionColumnStore> findSegment(String ticker, LocalDate expiration) {
+        if (!isArchived(expiration)) {
+            return Optional.empty();
+        }
+        return findSegment(ticker, YearMonth.from(expiration));
+    }
+
+    private Optional<HistoricalOptionColumnStore> findSegment(String ticker, YearMonth month) {
+        // Missing segments are not cached, the loader returning null leaves the key absent
+        return Optional.ofNullable(optionArchiveSegmentCache.get(Pair.of(ticker, month),
+                key -> optionArchiveRepository.findSegment(ticker, month).orElse(null)));
+    }
+
+    private Collection<OptionsChain> findChains(String ticker, YearMonth month, LocalDate fromExpiration,
+                                                LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, OptionsChain> chains = new TreeMap<>();
+        findSegment(ticker, month).ifPresent(segment -> {
+            for (int i = 0; i < segment.optionCount(); i++) {
+                if (segment.getExpiration(i).isBefore(fromExpiration)) {
+                    continue;
+                }
+                HistoricalOption option = segment.getHistoricalOption(i, startDate, endDate);
+                if (!option.getOptionPriceData().isEmpty()) {
+                    chains.computeIfAbsent(option.getExpiration(), expiration -> new OptionsChain(option.getTicker(), expiration))
+                            .addOption(option);
+                }
+            }
+        });
+        return chains.values();
+    }
+
+    private static HistoricalOptionColumnStore merge(String ticker, HistoricalOptionColumnStore existing, HistoricalOptionColumnStore added) {
+        Map<Pair<LocalDate, OptionChainKey>, HistoricalOption> options = new HashMap<>();
+        existing.toHistoricalOptions().forEach(option -> options.put(Pair.of(option.getExpiration(), option.getOptionChainKey()), option));
+        added.toHistoricalOptions().forEach(option -> options.merge(Pair.of(option.getExpiration(), option.getOptionChainKey()), option,
+                (current, other) -> {
+                    OptionPriceHistory priceHistory = current.getPriceHistory();
+                    other.getOptionPriceData().stream()
+                            .filter(priceData -> !priceHistory.containsTradeDate(priceData.getTradeDate()))
+                            .forEach(priceHistory::add);
+                    return current;
+                }));
+        return HistoricalOptionColumnStore.of(ticker, options.values());
+    }
+}
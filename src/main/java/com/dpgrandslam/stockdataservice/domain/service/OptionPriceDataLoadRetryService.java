@@ -18,8 +18,11 @@ public class OptionPriceDataLoadRetryService {
 
     private final OptionPriceDataLoadRetryRepository retryRepository;
 
-    public OptionPriceDataLoadRetryService(OptionPriceDataLoadRetryRepository retryRepository) {
+    private final IngestionStatistics ingestionStatistics;
+
+    public OptionPriceDataLoadRetryService(OptionPriceDataLoadRetryRepository retryRepository, IngestionStatistics ingestionStatistics) {
         this.retryRepository = retryRepository;
+        this.ingestionStatistics = ingestionStatistics;
     }
 
     public Optional<OptionPriceDataLoadRetry> findById(Long id) {
@@ -52,7 +55,9 @@ public class OptionPriceDataLoadRetryService {
             optionPriceDataLoadRetry.setOptionTicker(ticker);
             optionPriceDataLoadRetry.setTradeDate(tradeDate);
             optionPriceDataLoadRetry.setRetryCount(0);
-            return retryRepository.save(optionPriceDataLoadRetry);
+            OptionPriceDataLoadRetry saved = retryRepository.save(optionPriceDataLoadRetry);
+            ingestionStatistics.recordRetryAdded(saved);
+            return saved;
         } else {
             log.debug("Option retry {} already exists. Updating retry count instead.", existing);
             return updateRetryCount(existing);
@@ -62,6 +67,7 @@ public class OptionPriceDataLoadRetryService {
     public OptionPriceDataLoadRetry updateRetryCount(OptionPriceDataLoadRetry optionPriceDataLoadRetry) {
         int newCount = optionPriceDataLoadRetry.getRetryCount() + 1;
         optionPriceDataLoadRetry.setRetryCount(newCount);
+        ingestionStatistics.recordRetryAttempt(optionPriceDataLoadRetry);
         return retryRepository.save(optionPriceDataLoadRetry);
     }
 
@@ -78,6 +84,7 @@ public class OptionPriceDataLoadRetryService {
 
     public void removeRetry(Long id) {
         retryRepository.deleteById(id);
+        ingestionStatistics.recordRetryRemoved(id);
     }
 
     public void removeRetry(String ticker, LocalDate expiration, LocalDate tradeDate) {
@@ -85,6 +92,7 @@ public class OptionPriceDataLoadRetryService {
                 expiration, tradeDate);
         if (retry != null) {
             retryRepository.delete(retry);
+            ingestionStatistics.recordRetryRemoved(retry.getRetryId());
         } else {
             log.warn("Could not find retry record with ticker {} and expiration {} and tradeDate {} so no record was removed.",
                     ticker, expiration, tradeDate);
@@ -1,20 +1,36 @@
 package com.dpgrandslam.stockdataservice.domain.service;
 
+import com.dpgrandslam.stockdataservice.adapter.apiclient.OptionsChainResponse;
+import com.dpgrandslam.stockdataservice.adapter.apiclient.WebpageFetchExecutor;
+import com.dpgrandslam.stockdataservice.domain.error.AllOptionsExpirationDatesNotPresentException;
 import com.dpgrandslam.stockdataservice.domain.error.OptionsChainLoadException;
+import com.dpgrandslam.stockdataservice.domain.event.OptionChainParseFailedEvent;
 import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPageCursor;
 import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
 import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChainPage;
 import com.dpgrandslam.stockdataservice.domain.util.TimeUtils;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+/**
+ * Loads live options chains and combines them with the stored ones. How the options of a ticker are fetched from the
+ * source is left to the implementations, see {@link #fetchOptions(String, LocalDate)}.
+ */
+@Slf4j
 @RequiredArgsConstructor
 public abstract class OptionsChainLoadService {
 
@@ -22,21 +38,98 @@ public abstract class OptionsChainLoadService {
 
     protected final TimeUtils timeUtils;
 
+    protected final ApplicationEventPublisher eventPublisher;
+
+    protected final WebpageFetchExecutor webpageFetchExecutor;
+
+    /**
+     * Fetches the options of a ticker for an expiration from the source. Failures to fetch are not thrown, the response
+     * is returned as not loaded instead.
+     *
+     * @param ticker the ticker
+     * @param expirationDate the expiration date, or null for the closest expiration
+     * @return the response
+     */
+    protected abstract OptionsChainResponse fetchOptions(String ticker, LocalDate expirationDate);
+
+    /**
+     * Builds the options chain of an expiration from the response fetched for it.
+     *
+     * @param ticker the ticker
+     * @param expirationDate the expiration date the response was fetched for
+     * @param response the response
+     * @return the options chain
+     */
+    protected OptionsChain buildOptionsChain(String ticker, LocalDate expirationDate, OptionsChainResponse response) {
+        OptionsChain optionsChain = new OptionsChain(ticker.toUpperCase(), expirationDate);
+        optionsChain.addOptions(response.getOptions());
+        return optionsChain;
+    }
+
     /**
      * Gets the a live OptionChain for a ticker that is for the closest expiration date.
      * @param ticker the ticker to search
      * @return the live option data for the closest expiration
      */
-    public abstract OptionsChain loadLiveOptionsChainForClosestExpiration(String ticker) throws OptionsChainLoadException;
+    public OptionsChain loadLiveOptionsChainForClosestExpiration(String ticker) throws OptionsChainLoadException {
+        OptionsChainResponse response = fetchOptions(ticker, null);
+        LocalDate expiration = null;
+        try {
+            expiration = response.getExpirationDates().get(0);
+            return buildOptionsChain(ticker, expiration, response);
+        } catch (Exception e) {
+            eventPublisher.publishEvent(new OptionChainParseFailedEvent(this, ticker, expiration, timeUtils.getCurrentOrLastTradeDate()));
+            throw new OptionsChainLoadException(ticker, response.getUrl(), "Options chain load failure most likely due to too many calls.", e);
+        }
+    }
 
     /**
      * Loads the full options chain (List of OptionsChain) for a ticker. A full options chain is the complete chain for
-     * every available expiration date.
+     * every available expiration date. The closest expiration comes with the response that lists the expirations, the
+     * others are fetched in parallel, as fast as the rate limit for the host allows, and the chains are returned in
+     * expiration order.
      *
      * @param ticker the ticker to look for
      * @return a list of OptionsChain
      */
-    public abstract List<OptionsChain> loadFullLiveOptionsChain(String ticker) throws OptionsChainLoadException;
+    public List<OptionsChain> loadFullLiveOptionsChain(String ticker) throws OptionsChainLoadException {
+        log.info("Started loading of full options chain for ticker {}.", ticker);
+        long startTime = System.currentTimeMillis();
+        List<OptionsChain> optionsChains = new ArrayList<>();
+        OptionsChainResponse response = fetchOptions(ticker, null);
+        try {
+            List<LocalDate> expirationDates = response.getExpirationDates();
+            log.info("Found {} option expiration dates for ticker {}: {}", expirationDates.size(), ticker, expirationDates);
+            try {
+                validateExpirationDates(ticker, expirationDates);
+            } catch (AllOptionsExpirationDatesNotPresentException e) {
+                log.warn("Not all options dates could be loaded for ticker {}.", ticker, e);
+                e.getMissingDates().forEach(date -> eventPublisher.publishEvent(new OptionChainParseFailedEvent(this, ticker, date, timeUtils.getCurrentOrLastTradeDate())));
+            }
+            if (!expirationDates.isEmpty()) {
+                optionsChains.add(buildOptionsChain(ticker, expirationDates.get(0), response));
+            }
+            Map<LocalDate, CompletableFuture<OptionsChain>> pendingChains = new LinkedHashMap<>();
+            for (LocalDate expiration : expirationDates.subList(Math.min(1, expirationDates.size()), expirationDates.size())) {
+                pendingChains.put(expiration, webpageFetchExecutor.submit(() -> loadListedExpirationDate(ticker, expiration)));
+            }
+            for (Map.Entry<LocalDate, CompletableFuture<OptionsChain>> pendingChain : pendingChains.entrySet()) {
+                try {
+                    optionsChains.add(pendingChain.getValue().join());
+                } catch (CompletionException e) {
+                    if (!(e.getCause() instanceof OptionsChainLoadException)) {
+                        throw e;
+                    }
+                    log.warn("Could not load options chain for ticker {} and date {}. Live data for this option will not be added to the chain.",
+                            ticker, pendingChain.getKey());
+                }
+            }
+            log.info("Loading of options for ticker {} complete. Took {} seconds to load all options.", ticker, (System.currentTimeMillis() - startTime) / 1000.0);
+        } catch (Exception e) {
+            throw new OptionsChainLoadException(ticker, response.getUrl(), "Options chain load failure most likely due to too many calls.", e);
+        }
+        return optionsChains;
+    }
 
     /**
      * Loads the live options chain for a ticker and expiration date.
@@ -45,7 +138,18 @@ public abstract class OptionsChainLoadService {
      * @param expirationDate the expiration date of the option
      * @return the live options chain
      */
-    public abstract OptionsChain loadLiveOptionsChainForExpirationDate(String ticker, LocalDate expirationDate) throws OptionsChainLoadException;
+    public OptionsChain loadLiveOptionsChainForExpirationDate(String ticker, LocalDate expirationDate) throws OptionsChainLoadException {
+        OptionsChainResponse response = fetchOptions(ticker, expirationDate);
+        try {
+            if (response.getExpirationDates().stream().noneMatch(x -> x.compareTo(expirationDate) == 0)) {
+                throw new IllegalArgumentException("The expiration date provided (" + expirationDate.toString() + ") is not valid for ticker: " + ticker + ".");
+            }
+            return buildOptionsChain(ticker, expirationDate, response);
+        } catch (Exception e) {
+            eventPublisher.publishEvent(new OptionChainParseFailedEvent(this, ticker, expirationDate, timeUtils.getCurrentOrLastTradeDate()));
+            throw new OptionsChainLoadException(ticker, response.getUrl(), "Options chain load failure most likely due to too many calls.", e);
+        }
+    }
 
     /**
      * Loads possible expiration dates for the option as of today.
@@ -53,7 +157,14 @@ public abstract class OptionsChainLoadService {
      * @param ticker the ticker to look for
      * @return a list of expiration dates
      */
-    public abstract List<LocalDate> getOptionExpirationDates(String ticker) throws OptionsChainLoadException;
+    public List<LocalDate> getOptionExpirationDates(String ticker) throws OptionsChainLoadException {
+        OptionsChainResponse response = fetchOptions(ticker, null);
+        try {
+            return response.getExpirationDates();
+        } catch (Exception e) {
+            throw new OptionsChainLoadException(ticker, response.getUrl(), "Options chain load failure most likely due to too many calls.", e);
+        }
+    }
 
     /**
      * Loads the options chain for a specific ticker on a specific expiration date. Includes stored historic options
@@ -117,6 +228,98 @@ public abstract class OptionsChainLoadService {
         return fullChain;
     }
 
+    /**
+     * Loads one page of stored options chain data for a ticker with price data between the two dates. Pages only
+     * contain stored data, live data is not merged in.
+     *
+     * @param ticker the ticker
+     * @param start the start date
+     * @param end the end date
+     * @param after the cursor returned with the previous page, or null for the first page
+     * @param limit the maximum number of price data rows in the page
+     * @return the page of options chains
+     */
+    public OptionsChainPage loadOptionsChainPageBetweenDates(String ticker, LocalDate start, LocalDate end, OptionPageCursor after, int limit) {
+        return historicOptionsDataService.findOptionsPage(ticker, start, end, after, limit);
+    }
+
+    /**
+     * Streams the full options chain for a ticker with price data between the two dates, one options chain per
+     * expiration. Stored data is read through a cursor and merged with the live chain for the same expiration when the
+     * range includes today, so memory use is bounded by a single expiration rather than the whole range. Chains are
+     * passed to the consumer in expiration order.
+     *
+     * @param ticker the ticker
+     * @param start the start date
+     * @param end the end date
+     * @param consumer receives each options chain in expiration order
+     * @throws OptionsChainLoadException if the live options chain could not be loaded
+     */
+    public void streamFullOptionsChainWithAllDataBetweenDates(String ticker, LocalDate start, LocalDate end,
+                                                              Consumer<OptionsChain> consumer) throws OptionsChainLoadException {
+        final TreeMap<LocalDate, OptionsChain> liveChains = new TreeMap<>();
+        if (end == null) {
+            end = LocalDate.now();
+        }
+        if (end.isAfter(LocalDate.now()) || end.isEqual(LocalDate.now())) {
+            loadFullLiveOptionsChain(ticker).forEach(chain -> liveChains.put(chain.getExpirationDate(), chain));
+        }
+        if (start == null) {
+            start = LocalDate.MIN;
+        }
+        historicOptionsDataService.streamOptions(ticker, start, end, historicChain -> {
+            // Live only expirations before this one go first so the consumer gets every chain in expiration order
+            while (!liveChains.isEmpty() && liveChains.firstKey().isBefore(historicChain.getExpirationDate())) {
+                consumer.accept(liveChains.pollFirstEntry().getValue());
+            }
+            OptionsChain liveChain = liveChains.remove(historicChain.getExpirationDate());
+            if (liveChain != null) {
+                liveChain.addOptions(new ArrayList<>(historicChain.getAllOptions()));
+                consumer.accept(liveChain);
+            } else {
+                consumer.accept(historicChain);
+            }
+        });
+        liveChains.values().forEach(consumer);
+    }
+
+    /**
+     * Checks that the expiration dates loaded for a ticker include every stored expiration that has not expired yet.
+     *
+     * @param ticker the ticker
+     * @param expirationDates the expiration dates that were loaded
+     * @throws AllOptionsExpirationDatesNotPresentException with the stored expirations that are missing
+     */
+    protected void validateExpirationDates(String ticker, List<LocalDate> expirationDates) throws AllOptionsExpirationDatesNotPresentException {
+        Set<LocalDate> expDatesCopy = new HashSet<>(expirationDates);
+        Set<LocalDate> storedExpirationDates = historicOptionsDataService.getExpirationDatesAtStartDate(ticker, timeUtils.getStartDayOfCurrentTradeWeek(2));
+        storedExpirationDates.removeAll(expDatesCopy);
+        storedExpirationDates = storedExpirationDates.stream()
+                .filter(date -> date.isAfter(LocalDate.now())
+                    || date.isEqual(LocalDate.now())).collect(Collectors.toSet());
+        if (!storedExpirationDates.isEmpty()) {
+            throw new AllOptionsExpirationDatesNotPresentException(new ArrayList<>(storedExpirationDates));
+        }
+    }
+
+    /**
+     * Loads the chain of an expiration that the first response of a full chain load listed, so unlike
+     * {@link #loadLiveOptionsChainForExpirationDate(String, LocalDate)} the expiration is not checked against the
+     * expirations listed again.
+     */
+    private OptionsChain loadListedExpirationDate(String ticker, LocalDate expirationDate) throws OptionsChainLoadException {
+        OptionsChainResponse response = fetchOptions(ticker, expirationDate);
+        try {
+            if (!response.isLoaded()) {
+                throw new IllegalStateException("The options at " + response.getUrl() + " could not be loaded.");
+            }
+            return buildOptionsChain(ticker, expirationDate, response);
+        } catch (Exception e) {
+            eventPublisher.publishEvent(new OptionChainParseFailedEvent(this, ticker, expirationDate, timeUtils.getCurrentOrLastTradeDate()));
+            throw new OptionsChainLoadException(ticker, response.getUrl(), "Options chain load failure most likely due to too many calls.", e);
+        }
+    }
+
     private void combineLiveAndHistoricData(String ticker, List<OptionsChain> fullChain, LocalDate startDate, LocalDate endDate) {
         historicOptionsDataService.findOptions(ticker, startDate, endDate).forEach(option -> {
             Optional<OptionsChain> found = fullChain.stream()
@@ -0,0 +1,308 @@
+package com.dpgrandslam.stockdataservice.domain.service;
+
+import com.dpgrandslam.stockdataservice.domain.config.OptionsChainWriteQueueConfigurationProperties;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * A bounded write behind queue between loading options chains and storing them, so the end of day job can load the
+ * next ticker while the last one is still being written. Writer threads take up to the configured batch size of queued
+ * chains, across expirations and tickers, and write them in one transaction. When the queue is full producers wait
+ * for room, and write the chain themselves if there is still none after the offer timeout.
+ * <p>
+ * Queued chains are only held in memory. A ticker is reported as written through its callback once all of its chains
+ * are stored, so a ticker that was queued when the application stopped is loaded again by the next job run. Callers
+ * that need every queued chain written, like the end of the job, wait with {@link #awaitWritten(long, TimeUnit)}.
+ */
+@Service
+@Slf4j
+public class OptionsChainWriteQueue {
+
+    private static final String METRIC_PREFIX = "options.chain.write.queue";
+
+    private final HistoricOptionsDataService historicOptionsDataService;
+
+    private final OptionsChainWriteQueueConfigurationProperties properties;
+
+    private final BlockingQueue<PendingWrite> queue;
+
+    private final Timer lagTimer;
+    private final Counter chainsWritten;
+    private final Counter rowsWritten;
+    private final Counter batchFailures;
+    private final Counter producerWrites;
+
+    // Chains handed to enqueue that are not written or failed yet, also the monitor awaitWritten waits on
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private ExecutorService writers;
+    private volatile boolean running;
+
+    public OptionsChainWriteQueue(HistoricOptionsDataService historicOptionsDataService,
+                                  @Qualifier("OptionsChainWriteQueueConfigurationProperties") OptionsChainWriteQueueConfigurationProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.historicOptionsDataService = historicOptionsDataService;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getCapacity());
+        Gauge.builder(METRIC_PREFIX + ".depth", queue, Collection::size)
+                .description("Options chains waiting to be written")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder(METRIC_PREFIX + ".lag")
+                .description("Time from queueing an options chain until it is written")
+                .register(meterRegistry);
+        this.chainsWritten = Counter.builder(METRIC_PREFIX + ".chains.written")
+                .description("Options chains written from the queue")
+                .register(meterRegistry);
+        this.rowsWritten = Counter.builder(METRIC_PREFIX + ".rows.written")
+                .description("Price data rows inserted by batched queue writes")
+                .register(meterRegistry);
+        this.batchFailures = Counter.builder(METRIC_PREFIX + ".batch.failures")
+                .description("Batched writes that failed and were retried one options chain at a time")
+                .register(meterRegistry);
+        this.producerWrites = Counter.builder(METRIC_PREFIX + ".producer.writes")
+                .description("Options chains written by the producer because the queue stayed full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("Options chain write queue is disabled, options chains are written when they are loaded.");
+            return;
+        }
+        running = true;
+        AtomicInteger threadCount = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(properties.getConsumers(), runnable -> {
+            Thread thread = new Thread(runnable, "options-chain-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < properties.getConsumers(); i++) {
+            writers.submit(this::consume);
+        }
+        log.info("Started {} options chain writers with a queue capacity of {}.", properties.getConsumers(), properties.getCapacity());
+    }
+
+    /**
+     * Stops taking new chains and gives the writers a minute to write what is still queued.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writers != null) {
+            writers.shutdown();
+            if (!writers.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Options chain writers did not finish in time. {} options chains were not written.", queue.size());
+                writers.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Queues the options chains of a ticker to be written. Waits for room when the queue is full. When the queue is
+     * disabled or stopped the chains are written before returning.
+     *
+     * @param ticker the ticker the chains belong to
+     * @param optionsChains the options chains to write
+     * @param onWritten runs once every chain has been written, on the thread that wrote the last one
+     */
+    public void enqueue(String ticker, Collection<OptionsChain> optionsChains, Runnable onWritten) {
+        TickerWrite tickerWrite = new TickerWrite(ticker, optionsChains.size(), onWritten);
+        if (!running) {
+            historicOptionsDataService.addFullOptionsChain(new ArrayList<>(optionsChains));
+            tickerWrite.complete();
+            return;
+        }
+        if (optionsChains.isEmpty()) {
+            tickerWrite.complete();
+            return;
+        }
+        for (OptionsChain optionsChain : optionsChains) {
+            PendingWrite pendingWrite = new PendingWrite(optionsChain, tickerWrite, System.nanoTime());
+            pending.incrementAndGet();
+            if (!offer(pendingWrite)) {
+                producerWrites.increment();
+                try {
+                    if (historicOptionsDataService.addOptionsChain(optionsChain)) {
+                        written(pendingWrite);
+                    }
+                } finally {
+                    finished(1);
+                }
+            }
+        }
+    }
+
+    public int getDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return the number of options chains that were enqueued and are not written yet, including the ones a writer is
+     * writing right now
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Waits until every options chain enqueued so far has been written, or has failed to be written.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return true if nothing is pending anymore, false if the timeout passed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitWritten(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (pending) {
+            while (pending.get() > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(pending, remaining);
+            }
+        }
+        return true;
+    }
+
+    private boolean offer(PendingWrite pendingWrite) {
+        if (!running) {
+            return false;
+        }
+        try {
+            if (queue.offer(pendingWrite)) {
+                return true;
+            }
+            log.info("Options chain write queue is full, waiting up to {} seconds for room.", properties.getOfferTimeoutSeconds());
+            if (queue.offer(pendingWrite, properties.getOfferTimeoutSeconds(), TimeUnit.SECONDS)) {
+                return true;
+            }
+            log.warn("Options chain write queue stayed full. Writing options chain with ticker {} and expiration {} on the loading thread.",
+                    pendingWrite.optionsChain.getTicker(), pendingWrite.optionsChain.getExpirationDate());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private void consume() {
+        List<PendingWrite> batch = new ArrayList<>(properties.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, properties.getBatchSize() - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Options chain writer failed to write {} options chains.", batch.size(), e);
+            } finally {
+                finished(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingWrite> batch) {
+        try {
+            int inserted = historicOptionsDataService.addOptionsChains(batch.stream()
+                    .map(pendingWrite -> pendingWrite.optionsChain)
+                    .collect(Collectors.toList()));
+            rowsWritten.increment(inserted);
+        } catch (RuntimeException e) {
+            log.warn("Could not write {} options chains in one transaction. Writing them one at a time.", batch.size(), e);
+            batchFailures.increment();
+            batch.forEach(this::writeOne);
+            return;
+        }
+        batch.forEach(this::written);
+    }
+
+    // A chain that fails is left unwritten, the others in the batch can belong to other tickers and are still written
+    private void writeOne(PendingWrite pendingWrite) {
+        try {
+            if (historicOptionsDataService.addOptionsChain(pendingWrite.optionsChain)) {
+                written(pendingWrite);
+            }
+        } catch (RuntimeException e) {
+            log.error("Options chain writer failed to write options chain with ticker {} and expiration {}.",
+                    pendingWrite.optionsChain.getTicker(), pendingWrite.optionsChain.getExpirationDate(), e);
+        }
+    }
+
+    private void finished(int chains) {
+        if (chains > 0 && pending.addAndGet(-chains) == 0) {
+            synchronized (pending) {
+                pending.notifyAll();
+            }
+        }
+    }
+
+    private void written(PendingWrite pendingWrite) {
+        lagTimer.record(System.nanoTime() - pendingWrite.queuedAt, TimeUnit.NANOSECONDS);
+        chainsWritten.increment();
+        if (pendingWrite.tickerWrite.remaining.decrementAndGet() == 0) {
+            pendingWrite.tickerWrite.complete();
+        }
+    }
+
+    private static class PendingWrite {
+
+        private final OptionsChain optionsChain;
+        private final TickerWrite tickerWrite;
+        private final long queuedAt;
+
+        private PendingWrite(OptionsChain optionsChain, TickerWrite tickerWrite, long queuedAt) {
+            this.optionsChain = optionsChain;
+            this.tickerWrite = tickerWrite;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    private static class TickerWrite {
+
+        private final String ticker;
+        private final AtomicInteger remaining;
+        private final Runnable onWritten;
+
+        private TickerWrite(String ticker, int chains, Runnable onWritten) {
+            this.ticker = ticker;
+            this.remaining = new AtomicInteger(chains);
+            this.onWritten = onWritten;
+        }
+
+        private void complete() {
+            try {
+                onWritten.run();
+            } catch (RuntimeException e) {
+                log.error("Callback for written options chains of ticker {} failed.", ticker, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.dpgrandslam.stockdataservice.domain.service;
+
+import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionJDBCRepository;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
+import com.dpgrandslam.stockdataservice.domain.util.BloomFilter;
+import com.dpgrandslam.stockdataservice.domain.util.TimerUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Keeps a Bloom filter per trade date of the options that have price data stored for that date, so writers can rule
+ * out a duplicate (option, trade date) row without reading the option's price history. A filter is warmed from
+ * option_price_data the first time its trade date is used and every writer adds the rows it stores. A positive answer
+ * only means the row might exist and has to be confirmed against the database.
+ * <p>
+ * The filters only know about rows written through this instance after they were warmed. Writes from another instance
+ * are picked up when the filter expires and is warmed again.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PriceDataDuplicateFilter {
+
+    private static final long MIN_EXPECTED_INSERTIONS = 50000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final HistoricalOptionJDBCRepository historicalOptionJDBCRepository;
+
+    private final Cache<LocalDate, BloomFilter> priceDataDuplicateFilterCache;
+
+    /**
+     * Loads the filter for the trade date if it is not loaded yet.
+     *
+     * @param tradeDate the trade date
+     */
+    public void warm(LocalDate tradeDate) {
+        getFilter(tradeDate);
+    }
+
+    /**
+     * @param option the option
+     * @param tradeDate the trade date
+     * @return false if the option definitely has no price data stored for the trade date, true if it might
+     */
+    public boolean mightContain(Option option, LocalDate tradeDate) {
+        return getFilter(tradeDate).mightContain(hash(option.getTicker(), option.getExpiration(), option.getStrike(), option.getOptionType()));
+    }
+
+    /**
+     * @param option the option
+     * @return true if any of the option's price data might already be stored
+     */
+    public boolean mightContainAny(Option option) {
+        return option.getOptionPriceData().stream()
+                .anyMatch(data -> data.getTradeDate() != null && mightContain(option, data.getTradeDate()));
+    }
+
+    public void put(Option option, LocalDate tradeDate) {
+        getFilter(tradeDate).put(hash(option.getTicker(), option.getExpiration(), option.getStrike(), option.getOptionType()));
+    }
+
+    public void putAll(Option option, Collection<OptionPriceData> optionPriceData) {
+        optionPriceData.stream()
+                .map(OptionPriceData::getTradeDate)
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(tradeDate -> put(option, tradeDate));
+    }
+
+    public void putAll(Option option) {
+        putAll(option, option.getOptionPriceData());
+    }
+
+    private BloomFilter getFilter(LocalDate tradeDate) {
+        return priceDataDuplicateFilterCache.get(tradeDate, this::load);
+    }
+
+    private BloomFilter load(LocalDate tradeDate) {
+        TimerUtil timerUtil = TimerUtil.startTimer();
+        final long[][] hashes = {new long[1024]};
+        final int[] count = {0};
+        historicalOptionJDBCRepository.streamOptionsOnTradeDate(tradeDate, option -> {
+            if (count[0] == hashes[0].length) {
+                hashes[0] = Arrays.copyOf(hashes[0], count[0] * 2);
+            }
+            hashes[0][count[0]++] = hash(option.getTicker(), option.getExpiration(), option.getStrike(), option.getOptionType());
+        });
+        // Leave room for the rows the ingest jobs still have to write for the trade date
+        BloomFilter filter = new BloomFilter(Math.max(MIN_EXPECTED_INSERTIONS, count[0] * 2L), FALSE_POSITIVE_RATE);
+        for (int i = 0; i < count[0]; i++) {
+            filter.put(hashes[0][i]);
+        }
+        log.info("Took {} ms to warm the price data duplicate filter for trade date {} with {} options.", timerUtil.stop(),
+                tradeDate, count[0]);
+        return filter;
+    }
+
+    private static long hash(String ticker, LocalDate expiration, double strike, Option.OptionType optionType) {
+        long hash = 1125899906842597L;
+        for (int i = 0; i < ticker.length(); i++) {
+            hash = 31 * hash + ticker.charAt(i);
+        }
+        hash = BloomFilter.mix(hash ^ expiration.toEpochDay());
+        hash = BloomFilter.mix(hash ^ Double.doubleToLongBits(strike));
+        return BloomFilter.mix(hash ^ optionType.ordinal());
+    }
+}
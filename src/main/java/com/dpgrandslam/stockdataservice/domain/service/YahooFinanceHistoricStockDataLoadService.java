@@ -1,9 +1,11 @@
 package com.dpgrandslam.stockdataservice.domain.service;
 
+import com.dpgrandslam.stockdataservice.adapter.apiclient.WebpageFetchExecutor;
 import com.dpgrandslam.stockdataservice.adapter.apiclient.WebpageLoader;
 import com.dpgrandslam.stockdataservice.domain.config.ApiClientConfigurationProperties;
 import com.dpgrandslam.stockdataservice.domain.error.YahooFinanceQuoteLoadException;
 import com.dpgrandslam.stockdataservice.domain.model.stock.YahooFinanceQuote;
+import com.dpgrandslam.stockdataservice.domain.util.NumberParser;
 import com.dpgrandslam.stockdataservice.domain.util.TimeUtils;
 import com.google.common.base.Charsets;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +22,10 @@ import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,8 +33,15 @@ import java.util.stream.Collectors;
 @Slf4j
 public class YahooFinanceHistoricStockDataLoadService {
 
+    // Times a chunk is loaded before the whole load fails
+    private static final int CHUNK_ATTEMPTS = 3;
+    // Wait before the next attempt of a chunk, times the attempts made so far
+    private static final long CHUNK_RETRY_BACKOFF_MILLIS = 500;
+
     private final WebpageLoader basicWebPageLoader;
 
+    private final WebpageFetchExecutor webpageFetchExecutor;
+
     @Autowired
     @Qualifier("YahooFinanceApiClientConfigurationProperties")
     private ApiClientConfigurationProperties clientConfigurationProperties;
@@ -37,25 +50,76 @@ public class YahooFinanceHistoricStockDataLoadService {
     private TimeUtils timeUtils;
 
 
+    /**
+     * Loads the daily quotes of a ticker between two dates. The range is loaded in chunks that are fetched in parallel
+     * within the limits for the yahoo-finance host, and a chunk that fails is loaded again on its own, after a short
+     * backoff, before the whole load fails. Once it fails the chunks that are still pending are cancelled.
+     *
+     * @param ticker the ticker
+     * @param startDate the first date
+     * @param endDate the last date
+     * @return the quotes of the trading days in the range, sorted by date
+     * @throws YahooFinanceQuoteLoadException if a chunk could not be loaded
+     */
     public List<YahooFinanceQuote> loadQuoteForDates(String ticker, LocalDate startDate, LocalDate endDate) {
         // Break into 3 month chunks since yahoo finance is weird about long dates
-        List<YahooFinanceQuote> quotes = new ArrayList<>();
+        List<CompletableFuture<List<YahooFinanceQuote>>> chunks = new ArrayList<>();
+        AtomicBoolean loadFailed = new AtomicBoolean();
         LocalDate sd = startDate;
         LocalDate ed = sd.plusMonths(3);
         while (sd.isBefore(endDate)) {
-            quotes.addAll(doLoad(ticker, sd, ed).stream()
-                    .filter(x -> x.getClose() != null)
-                    .collect(Collectors.toList()));
+            LocalDate chunkStart = sd;
+            LocalDate chunkEnd = ed;
+            chunks.add(webpageFetchExecutor.submit(() -> loadChunk(ticker, chunkStart, chunkEnd, loadFailed)));
             sd = ed.plusDays(1);
             ed = sd.plusMonths(3);
         }
-        return quotes.stream().filter(x -> (x.getDate().isAfter(startDate) || x.getDate().equals(startDate))
+        // The last day of a chunk can also come back with the next chunk
+        Map<LocalDate, YahooFinanceQuote> quotes = new TreeMap<>();
+        try {
+            for (CompletableFuture<List<YahooFinanceQuote>> chunk : chunks) {
+                chunk.join().forEach(quote -> quotes.putIfAbsent(quote.getDate(), quote));
+            }
+        } catch (CompletionException e) {
+            // The chunks that have not started are not run, the ones that are loading stop retrying
+            loadFailed.set(true);
+            chunks.forEach(chunk -> chunk.cancel(false));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return quotes.values().stream().filter(x -> (x.getDate().isAfter(startDate) || x.getDate().equals(startDate))
                         && (x.getDate().isBefore(endDate) || x.getDate().equals(endDate)))
                 .filter(x -> timeUtils.isTradingOpenOnDay(x.getDate()))
-                .sorted(Comparator.comparing(YahooFinanceQuote::getDate))
                 .collect(Collectors.toList());
     }
 
+    private List<YahooFinanceQuote> loadChunk(String ticker, LocalDate startDate, LocalDate endDate, AtomicBoolean loadFailed) {
+        for (int attempt = 1; ; attempt++) {
+            if (loadFailed.get()) {
+                throw new CancellationException("The load of ticker " + ticker + " failed before the chunk from " + startDate + " was loaded.");
+            }
+            try {
+                return doLoad(ticker, startDate, endDate).stream()
+                        .filter(x -> x.getClose() != null)
+                        .collect(Collectors.toList());
+            } catch (YahooFinanceQuoteLoadException e) {
+                if (attempt >= CHUNK_ATTEMPTS || loadFailed.get()) {
+                    throw e;
+                }
+                log.warn("Could not load quotes for ticker {} between {} and {}. Retrying, attempt {} of {}.",
+                        ticker, startDate, endDate, attempt + 1, CHUNK_ATTEMPTS);
+                try {
+                    Thread.sleep(CHUNK_RETRY_BACKOFF_MILLIS * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
     private List<YahooFinanceQuote> doLoad(String ticker, LocalDate startDate, LocalDate endDate) {
         StringBuilder sb = new StringBuilder(clientConfigurationProperties.getUrlAndPort());
         sb.append("/quote/");
@@ -69,7 +133,7 @@ public class YahooFinanceHistoricStockDataLoadService {
         String url = sb.toString();
         List<YahooFinanceQuote> quotes;
         try {
-            quotes = parseDocument(basicWebPageLoader.parseUrl(url));
+            quotes = parseDocument(webpageFetchExecutor.fetch(url, basicWebPageLoader::parseUrl));
         }  catch (Exception e) {
             log.error("Error parsing document at url {}", url, e);
             throw new YahooFinanceQuoteLoadException(ticker, startDate, endDate, e);
@@ -100,17 +164,28 @@ public class YahooFinanceHistoricStockDataLoadService {
                 .date(d);
 
         try {
-            builder.open(Double.parseDouble(dataPoints.get(1).selectFirst("span").text()))
-                    .high(Double.parseDouble(dataPoints.get(2).selectFirst("span").text()))
-                    .low(Double.parseDouble(dataPoints.get(3).selectFirst("span").text()))
-                    .close(Double.parseDouble(dataPoints.get(4).selectFirst("span").text()))
-                    .adjClose(Double.parseDouble(dataPoints.get(5).selectFirst("span").text()));
+            builder.open(parsePrice(dataPoints.get(1)))
+                    .high(parsePrice(dataPoints.get(2)))
+                    .low(parsePrice(dataPoints.get(3)))
+                    .close(parsePrice(dataPoints.get(4)))
+                    .adjClose(parsePrice(dataPoints.get(5)));
         } catch (NullPointerException e) {
             log.warn("Could not parse row for date {} in chart.", d);
         }
         return builder.build();
     }
 
+    // Prices of 1000 and up have grouping separators, e.g. 4,185.47
+    private Double parsePrice(Element dataPoint) {
+        String text = dataPoint.selectFirst("span").text();
+        double price = NumberParser.parseDecimal(text);
+        if (Double.isNaN(price)) {
+            log.warn("Could not parse price from value '{}'.", text);
+            return null;
+        }
+        return price;
+    }
+
     private LocalDate parseYahooFinanceDate(Element dateElement) {
         return LocalDate.parse( dateElement.select("span").text(), DateTimeFormatter.ofPattern("MMM dd, yyyy"));
     }
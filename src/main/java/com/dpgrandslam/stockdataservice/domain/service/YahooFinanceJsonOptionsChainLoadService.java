@@ -0,0 +1,76 @@
+package com.dpgrandslam.stockdataservice.domain.service;
+
+import com.dpgrandslam.stockdataservice.adapter.apiclient.WebpageFetchExecutor;
+import com.dpgrandslam.stockdataservice.adapter.apiclient.YahooFinanceOptionsApiClient;
+import com.dpgrandslam.stockdataservice.adapter.apiclient.YahooFinanceOptionsResponse;
+import com.dpgrandslam.stockdataservice.domain.config.ApiClientConfigurationProperties;
+import com.dpgrandslam.stockdataservice.domain.util.TimeUtils;
+import feign.FeignException;
+import feign.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Loads live options chains from the yahoo-finance options json endpoint instead of scraping the options pages. The
+ * responses are a fraction of the size of the pages and are decoded as they are read. Used when
+ * options-chain-load.source is yahoo-finance-json.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(prefix = "options-chain-load", name = "source", havingValue = "yahoo-finance-json")
+public class YahooFinanceJsonOptionsChainLoadService extends OptionsChainLoadService {
+
+    private final YahooFinanceOptionsApiClient optionsApiClient;
+
+    private final ApiClientConfigurationProperties clientConfigurationProperties;
+
+    public YahooFinanceJsonOptionsChainLoadService(HistoricOptionsDataService historicOptionsDataService,
+                                                   TimeUtils timeUtils, YahooFinanceOptionsApiClient optionsApiClient,
+                                                   ApplicationEventPublisher applicationEventPublisher,
+                                                   @Qualifier("YahooFinanceJsonApiClientConfigurationProperties")
+                                                           ApiClientConfigurationProperties clientConfigurationProperties,
+                                                   WebpageFetchExecutor webpageFetchExecutor) {
+        super(historicOptionsDataService, timeUtils, applicationEventPublisher, webpageFetchExecutor);
+        this.optionsApiClient = optionsApiClient;
+        this.clientConfigurationProperties = clientConfigurationProperties;
+    }
+
+    @Override
+    protected YahooFinanceOptionsResponse fetchOptions(String ticker, LocalDate expirationDate) {
+        String upperCaseTicker = ticker.toUpperCase();
+        String fullUrl = clientConfigurationProperties.getUrlAndPort() + "/v7/finance/options/" + upperCaseTicker;
+        Long date = null;
+        if (expirationDate != null) {
+            date = expirationDate.atStartOfDay().toInstant(ZoneOffset.UTC).getEpochSecond();
+            fullUrl += "?date=" + date;
+        }
+        Long finalDate = date;
+        return webpageFetchExecutor.fetch(fullUrl, url -> load(url, upperCaseTicker, finalDate));
+    }
+
+    private YahooFinanceOptionsResponse load(String url, String ticker, Long date) {
+        try (Response response = date == null ? optionsApiClient.getOptions(ticker) : optionsApiClient.getOptions(ticker, date)) {
+            if (response.status() < 200 || response.status() >= 300 || response.body() == null) {
+                log.warn("Could not load options from {}. Status was {}.", url, response.status());
+                return YahooFinanceOptionsResponse.failed(url, "Status was " + response.status() + ".");
+            }
+            Instant dataObtained = Instant.now();
+            LocalDate tradeDate = timeUtils.getCurrentOrLastTradeDate();
+            try (InputStream body = response.body().asInputStream()) {
+                return YahooFinanceOptionsResponse.parse(url, body, dataObtained, tradeDate);
+            }
+        } catch (IOException | FeignException e) {
+            log.warn("Could not load options from {}.", url, e);
+            return YahooFinanceOptionsResponse.failed(url, e.getMessage());
+        }
+    }
+}
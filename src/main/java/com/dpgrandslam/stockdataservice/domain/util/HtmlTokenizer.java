@@ -0,0 +1,284 @@
+package com.dpgrandslam.stockdataservice.domain.util;
+
+import org.jsoup.parser.Parser;
+
+import java.util.Locale;
+
+/**
+ * Pulls start tags, end tags and text out of an html string one token at a time without building a document. Tag and
+ * attribute names are read in place and only turned into strings when asked for, and text is only decoded when it is
+ * asked for, so walking past the parts of a page that are not needed costs little more than scanning it.
+ * <p>
+ * Comments, doctypes and processing instructions are skipped, as is the content of script, style and the other raw
+ * text elements. The tokenizer does not build a tree, so it is up to the caller to track which elements are open.
+ */
+public class HtmlTokenizer {
+
+    public enum Token {
+        START_TAG, END_TAG, TEXT, EOF
+    }
+
+    private static final String[] RAW_TEXT_TAGS = {"script", "style", "title", "textarea", "xmp", "iframe", "noembed", "noframes"};
+
+    private static final String[] VOID_TAGS = {"area", "base", "br", "col", "embed", "hr", "img", "input", "keygen", "link",
+            "meta", "param", "source", "track", "wbr"};
+
+    private static final int MAX_ATTRIBUTES = 32;
+
+    private final String html;
+    private final int length;
+    private int position;
+
+    private int start;
+    private int end;
+    private boolean selfClosing;
+
+    // Name start, name end, value start and value end of each attribute of the current start tag
+    private final int[] attributes = new int[MAX_ATTRIBUTES * 4];
+    private int attributeCount;
+
+    public HtmlTokenizer(String html) {
+        this.html = html;
+        this.length = html.length();
+    }
+
+    public Token next() {
+        while (position < length) {
+            if (html.charAt(position) != '<') {
+                start = position;
+                int lt = html.indexOf('<', position);
+                position = lt < 0 ? length : lt;
+                end = position;
+                return Token.TEXT;
+            }
+            char next = position + 1 < length ? html.charAt(position + 1) : 0;
+            if (isLetter(next)) {
+                readStartTag();
+                return Token.START_TAG;
+            }
+            if (next == '/' && position + 2 < length && isLetter(html.charAt(position + 2))) {
+                readEndTag();
+                return Token.END_TAG;
+            }
+            if (next == '!' && html.startsWith("--", position + 2)) {
+                int close = html.indexOf("-->", position + 4);
+                position = close < 0 ? length : close + 3;
+            } else if (next == '!' || next == '?' || next == '/') {
+                int close = html.indexOf('>', position + 2);
+                position = close < 0 ? length : close + 1;
+            } else {
+                // A stray '<' is text
+                start = position;
+                int lt = html.indexOf('<', position + 1);
+                position = lt < 0 ? length : lt;
+                end = position;
+                return Token.TEXT;
+            }
+        }
+        return Token.EOF;
+    }
+
+    /**
+     * @return the lower case name of the current start or end tag
+     */
+    public String tagName() {
+        return html.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    public boolean tagNameIs(String name) {
+        return end - start == name.length() && html.regionMatches(true, start, name, 0, name.length());
+    }
+
+    /**
+     * @return if the current start tag closes itself, either because it ends with '/>' or because it is a void element
+     */
+    public boolean isSelfClosing() {
+        return selfClosing;
+    }
+
+    /**
+     * @param name the attribute name
+     * @return the decoded value of the attribute of the current start tag, an empty string if it has no value, or null
+     * if the tag does not have it
+     */
+    public String attribute(String name) {
+        for (int i = 0; i < attributeCount; i++) {
+            int offset = i * 4;
+            int nameStart = attributes[offset];
+            if (attributes[offset + 1] - nameStart == name.length() && html.regionMatches(true, nameStart, name, 0, name.length())) {
+                String value = html.substring(attributes[offset + 2], attributes[offset + 3]);
+                return value.indexOf('&') < 0 ? value : Parser.unescapeEntities(value, true);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param name the attribute name
+     * @param className the class to look for
+     * @return if the attribute of the current start tag is a whitespace separated list that holds the class
+     */
+    public boolean attributeHasClass(String name, String className) {
+        String value = attribute(name);
+        if (value == null) {
+            return false;
+        }
+        int valueLength = value.length();
+        int classLength = className.length();
+        int i = 0;
+        while (i < valueLength) {
+            while (i < valueLength && Character.isWhitespace(value.charAt(i))) {
+                i++;
+            }
+            int classStart = i;
+            while (i < valueLength && !Character.isWhitespace(value.charAt(i))) {
+                i++;
+            }
+            if (i - classStart == classLength && value.regionMatches(true, classStart, className, 0, classLength)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean hasClass(String className) {
+        return attributeHasClass("class", className);
+    }
+
+    /**
+     * @return the current text with its character references decoded
+     */
+    public String text() {
+        String text = html.substring(start, end);
+        return text.indexOf('&') < 0 ? text : Parser.unescapeEntities(text, false);
+    }
+
+    private void readStartTag() {
+        start = position + 1;
+        int i = start;
+        while (i < length && !isTagNameEnd(html.charAt(i))) {
+            i++;
+        }
+        end = i;
+        attributeCount = 0;
+        selfClosing = false;
+        while (i < length) {
+            char c = html.charAt(i);
+            if (c == '>') {
+                i++;
+                break;
+            }
+            if (c == '/') {
+                selfClosing = i + 1 < length && html.charAt(i + 1) == '>';
+                i++;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            i = readAttribute(i);
+        }
+        position = i;
+        if (!selfClosing) {
+            selfClosing = isOneOf(VOID_TAGS);
+        }
+        if (!selfClosing && isOneOf(RAW_TEXT_TAGS)) {
+            skipRawText();
+        }
+    }
+
+    private int readAttribute(int i) {
+        int nameStart = i;
+        while (i < length && !isAttributeNameEnd(html.charAt(i))) {
+            i++;
+        }
+        int nameEnd = i;
+        while (i < length && Character.isWhitespace(html.charAt(i))) {
+            i++;
+        }
+        int valueStart = i;
+        int valueEnd = i;
+        if (i < length && html.charAt(i) == '=') {
+            i++;
+            while (i < length && Character.isWhitespace(html.charAt(i))) {
+                i++;
+            }
+            char quote = i < length ? html.charAt(i) : 0;
+            if (quote == '"' || quote == '\'') {
+                valueStart = i + 1;
+                int close = html.indexOf(quote, valueStart);
+                valueEnd = close < 0 ? length : close;
+                i = close < 0 ? length : close + 1;
+            } else {
+                valueStart = i;
+                while (i < length && !Character.isWhitespace(html.charAt(i)) && html.charAt(i) != '>') {
+                    i++;
+                }
+                valueEnd = i;
+            }
+        }
+        if (attributeCount < MAX_ATTRIBUTES && nameEnd > nameStart) {
+            int offset = attributeCount++ * 4;
+            attributes[offset] = nameStart;
+            attributes[offset + 1] = nameEnd;
+            attributes[offset + 2] = valueStart;
+            attributes[offset + 3] = valueEnd;
+        }
+        // Always move past at least one character so a malformed attribute can not stall the tokenizer
+        return Math.max(i, nameStart + 1);
+    }
+
+    private void readEndTag() {
+        start = position + 2;
+        int i = start;
+        while (i < length && !isTagNameEnd(html.charAt(i))) {
+            i++;
+        }
+        end = i;
+        int close = html.indexOf('>', i);
+        position = close < 0 ? length : close + 1;
+        attributeCount = 0;
+        selfClosing = false;
+    }
+
+    private void skipRawText() {
+        int nameLength = end - start;
+        int i = position;
+        while (true) {
+            int lt = html.indexOf("</", i);
+            if (lt < 0) {
+                position = length;
+                return;
+            }
+            if (html.regionMatches(true, lt + 2, html, start, nameLength)
+                    && (lt + 2 + nameLength >= length || isTagNameEnd(html.charAt(lt + 2 + nameLength)))) {
+                // Leave the end tag to be read as the next token
+                position = lt;
+                return;
+            }
+            i = lt + 2;
+        }
+    }
+
+    private boolean isOneOf(String[] names) {
+        for (String name : names) {
+            if (tagNameIs(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isTagNameEnd(char c) {
+        return c == '>' || c == '/' || Character.isWhitespace(c);
+    }
+
+    private static boolean isAttributeNameEnd(char c) {
+        return c == '=' || c == '>' || c == '/' || Character.isWhitespace(c);
+    }
+}
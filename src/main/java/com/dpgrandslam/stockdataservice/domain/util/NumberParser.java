@@ -0,0 +1,110 @@
+package com.dpgrandslam.stockdataservice.domain.util;
+
+/**
+ * Parses US formatted numbers, e.g. 1,234.56, -0.25 or 12.50%, straight from a {@link CharSequence} without creating a
+ * {@link java.text.NumberFormat} or any other object per value. A value is read the way
+ * <code>NumberFormat.getNumberInstance(Locale.US).parse</code> reads it: grouping separators are skipped before the
+ * decimal point and anything after the number is ignored. Exponents are not supported. Values that can not be parsed
+ * are returned as {@link Double#NaN} instead of throwing, so callers check with {@link Double#isNaN(double)}.
+ */
+public final class NumberParser {
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Mantissas up to this size and powers of ten in the table are exact doubles, so one division rounds correctly
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private NumberParser() {
+    }
+
+    /**
+     * @param text the text, e.g. 1,234.56
+     * @return the number the text starts with, or NaN if it does not start with one
+     */
+    public static double parseDecimal(CharSequence text) {
+        return parseDecimal(text, 0, text.length());
+    }
+
+    /**
+     * @param text the text
+     * @param start the index the number starts at
+     * @param end the index after the last character that may belong to the number
+     * @return the number that starts at start, or NaN if there is none
+     */
+    public static double parseDecimal(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = i < end && text.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean sawDecimal = false;
+        boolean exact = true;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (exact) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (sawDecimal) {
+                        scale++;
+                    }
+                    exact = mantissa <= MAX_EXACT_MANTISSA && scale < POWERS_OF_TEN.length;
+                }
+            } else if (c == '.' && !sawDecimal) {
+                sawDecimal = true;
+            } else if (c != ',' || sawDecimal) {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        if (!exact) {
+            return parseSlow(text, start, i);
+        }
+        double value = scale == 0 ? mantissa : mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Same as {@link #parseDecimal(CharSequence)}, except that the "-" yahoo-finance shows for a missing value is 0.
+     */
+    public static double parseDecimalOrPlaceholder(CharSequence text) {
+        if (text.length() == 1 && text.charAt(0) == '-') {
+            return 0;
+        }
+        return parseDecimal(text);
+    }
+
+    /**
+     * @param text the text, e.g. 12.50%
+     * @return the number in front of the percent sign, e.g. 12.5, or NaN if there is no percent sign or no number in
+     * front of it
+     */
+    public static double parsePercent(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '%') {
+                return parseDecimal(text, 0, i);
+            }
+        }
+        return Double.NaN;
+    }
+
+    // Values with more digits than a double holds exactly are rare enough to go through Double.parseDouble
+    private static double parseSlow(CharSequence text, int start, int end) {
+        StringBuilder number = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c != ',') {
+                number.append(c);
+            }
+        }
+        return Double.parseDouble(number.toString());
+    }
+}
@@ -0,0 +1,52 @@
+package com.dpgrandslam.stockdataservice.domain.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket rate limiter. Tokens are added at a fixed rate up to the burst size and every call to
+ * {@link #acquire()} takes one, waiting for it when the bucket is empty. Waiting callers reserve their token before
+ * sleeping, so they are served in the order they arrived and the lock is not held while they wait.
+ */
+public class TokenBucket {
+
+    private final double nanosPerToken;
+    private final double burst;
+
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double tokensPerSecond, int burst) {
+        if (tokensPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("A token bucket needs a positive rate and a burst of at least one.");
+        }
+        this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / tokensPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes a token, waiting until one is available.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Takes a token, going into debt if there is none so later callers wait longer.
+     *
+     * @return how long the caller has to wait before its token is available, in nanoseconds
+     */
+    public synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) / nanosPerToken);
+        lastRefill = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) (-tokens * nanosPerToken);
+    }
+}
@@ -0,0 +1,45 @@
+package com.dpgrandslam.stockdataservice.domain.util;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical instances of the small set of tickers and expirations that every option in a chain repeats, so a full
+ * chain holds one instance of each instead of one per option. Once a pool is full new values are returned as they
+ * are instead of growing it further.
+ */
+public final class ValueInterner {
+
+    private static final int MAX_TICKERS = 10000;
+    private static final int MAX_DATES = 20000;
+
+    private static final Map<String, String> TICKERS = new ConcurrentHashMap<>();
+    private static final Map<LocalDate, LocalDate> DATES = new ConcurrentHashMap<>();
+
+    private ValueInterner() {
+    }
+
+    public static String ticker(String ticker) {
+        return intern(TICKERS, ticker, MAX_TICKERS);
+    }
+
+    public static LocalDate date(LocalDate date) {
+        return intern(DATES, date, MAX_DATES);
+    }
+
+    private static <T> T intern(Map<T, T> pool, T value, int maxSize) {
+        if (value == null) {
+            return null;
+        }
+        T canonical = pool.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (pool.size() >= maxSize) {
+            return value;
+        }
+        canonical = pool.putIfAbsent(value, value);
+        return canonical == null ? value : canonical;
+    }
+}
@@ -16,8 +16,6 @@ import com.dpgrandslam.stockdataservice.domain.service.OptionPriceDataLoadRetryS
 import com.dpgrandslam.stockdataservice.domain.service.OptionsChainLoadService;
 import com.dpgrandslam.stockdataservice.domain.service.TrackedStockService;
 import com.dpgrandslam.stockdataservice.domain.util.TimeUtils;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -28,6 +26,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -44,6 +43,8 @@ import static org.mockito.Mockito.*;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = StockDataServiceApplication.class)
+// Writes the loaded chains on the job thread so they can be verified right after the job runs
+@TestPropertySource(properties = "options-chain-write-queue.enabled=false")
 public class EndOfDayOptionLoaderJobIntTest {
 
     @MockBean
@@ -76,15 +77,15 @@ public class EndOfDayOptionLoaderJobIntTest {
     @Captor
     private ArgumentCaptor<List<OptionsChain>> optionsChainListAC;
 
-    private Document mockSuccessDoc;
-    private Document mockErrorDoc;
+    private String mockSuccessDoc;
+    private String mockErrorDoc;
 
     @Before
     public void init() throws IOException {
         when(timeUtils.isStockMarketHoliday(any())).thenReturn(false);
         when(timeUtils.getCurrentOrLastTradeDate()).thenReturn(LocalDate.now());
-        mockErrorDoc = Jsoup.parse(loadHtmlFileAndClean("mocks/yahoofinance/yahoo-finance-aapl_error.html"));
-        mockSuccessDoc = Jsoup.parse(loadHtmlFileAndClean("mocks/yahoofinance/yahoo-finance-aapl_empty-chain.html"));
+        mockErrorDoc = loadHtmlFileAndClean("mocks/yahoofinance/yahoo-finance-aapl_error.html");
+        mockSuccessDoc = loadHtmlFileAndClean("mocks/yahoofinance/yahoo-finance-aapl_empty-chain.html");
     }
 
     @Test
@@ -95,14 +96,11 @@ public class EndOfDayOptionLoaderJobIntTest {
         Queue<String> queue = new ConcurrentLinkedQueue<>();
         queue.add(trackedStock.getTicker());
 
-        Document mockErrorDoc = Jsoup.parse(loadHtmlFileAndClean("mocks/yahoofinance/yahoo-finance-aapl_error.html"));
-        Document mockSuccessDoc = Jsoup.parse(loadHtmlFileAndClean("mocks/yahoofinance/yahoo-finance-aapl_empty-chain.html"));
-
         ReflectionTestUtils.setField(subject, "mainJobStatus", EndOfDayOptionsLoaderJob.JobStatus.RUNNING_SCHEDULED);
         ReflectionTestUtils.setField(subject, "trackedStocks", queue);
 
         when(trackedStocksRepository.findById(anyString())).thenReturn(Optional.of(trackedStock));
-        when(webpageLoader.parseUrl(any())).thenReturn(mockSuccessDoc).thenReturn(mockSuccessDoc).thenReturn(mockErrorDoc);
+        when(webpageLoader.loadPage(any())).thenReturn(mockSuccessDoc).thenReturn(mockErrorDoc);
 
         subject.weekdayLoadJobAfterHours();
 
@@ -122,8 +120,8 @@ public class EndOfDayOptionLoaderJobIntTest {
 
         ReflectionTestUtils.setField(subject, "mainJobStatus", EndOfDayOptionsLoaderJob.JobStatus.COMPLETE_WITH_FAILURES);
 
-        doNothing().when(historicOptionsDataService).addOptionsChain(any(OptionsChain.class));
-        when(webpageLoader.parseUrl(any())).thenReturn(mockSuccessDoc);
+        doReturn(true).when(historicOptionsDataService).addOptionsChain(any(OptionsChain.class));
+        when(webpageLoader.loadPage(any())).thenReturn(mockSuccessDoc);
 
         subject.runRetryBeforeMidnight();
 
@@ -139,7 +137,7 @@ public class EndOfDayOptionLoaderJobIntTest {
 
         ReflectionTestUtils.setField(subject, "mainJobStatus", EndOfDayOptionsLoaderJob.JobStatus.COMPLETE_WITH_FAILURES);
 
-        when(webpageLoader.parseUrl(any())).thenReturn(mockErrorDoc);
+        when(webpageLoader.loadPage(any())).thenReturn(mockErrorDoc);
 
         subject.runRetryBeforeMidnight();
 
@@ -211,7 +209,7 @@ public class EndOfDayOptionLoaderJobIntTest {
         ReflectionTestUtils.setField(subject, "trackedStocks", queue);
         ReflectionTestUtils.setField(subject, "mainJobStatus", EndOfDayOptionsLoaderJob.JobStatus.RUNNING_SCHEDULED);
 
-        when(webpageLoader.parseUrl(any())).thenReturn(mockErrorDoc);
+        when(webpageLoader.loadPage(any())).thenReturn(mockErrorDoc);
         when(trackedStocksRepository.findById(eq(trackedStock.getTicker()))).thenReturn(Optional.of(trackedStock));
 
         Map<String, Integer> failMap = (Map<String, Integer>) ReflectionTestUtils.getField(subject, "failCountMap");
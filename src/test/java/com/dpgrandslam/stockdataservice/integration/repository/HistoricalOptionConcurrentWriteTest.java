@@ -0,0 +1,122 @@
+package com.dpgrandslam.stockdataservice.integration.repository;
+
+import com.dpgrandslam.stockdataservice.adapter.repository.ChainDailySummaryRepository;
+import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionJDBCRepository;
+import com.dpgrandslam.stockdataservice.domain.model.options.ChainDailySummary;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import com.dpgrandslam.stockdataservice.domain.util.DatabaseUtils;
+import com.dpgrandslam.stockdataservice.testUtils.TestDataFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Writes the same options chain from several transactions at once. Not transactional like the other repository tests,
+ * every writer has to commit on its own. Only runs against PostgreSQL since the on conflict clauses that make the
+ * writes safe are not used on H2.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+public class HistoricalOptionConcurrentWriteTest {
+
+    private static final String TICKER = "CONCURRENT";
+    private static final int WRITERS = 4;
+
+    @Autowired
+    private HistoricalOptionJDBCRepository jdbcRepository;
+
+    @Autowired
+    private ChainDailySummaryRepository chainDailySummaryRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final LocalDate tradeDate = LocalDate.now().minusDays(1);
+    private final LocalDate expiration = LocalDate.now().plusDays(7);
+
+    @Before
+    public void setup() {
+        assumeTrue(DatabaseUtils.isPostgres(dataSource));
+        cleanUp();
+    }
+
+    @After
+    public void cleanUp() {
+        if (DatabaseUtils.isPostgres(dataSource)) {
+            chainDailySummaryRepository.findAllByTickerAndExpirationAndTradeDateBetweenOrderByTradeDateAsc(TICKER, expiration,
+                    tradeDate, tradeDate).forEach(chainDailySummaryRepository::delete);
+            jdbcRepository.deleteByTickerAndExpirationBetween(TICKER, expiration, expiration);
+        }
+    }
+
+    @Test
+    public void testUpsertOptionsChain_storedRowsNotChecked_skipsAndDoesNotCountThem() {
+        assertEquals(2, jdbcRepository.upsertOptionsChain(buildChain(), false));
+
+        assertEquals(0, jdbcRepository.upsertOptionsChain(buildChain(), false));
+        assertEquals(2, jdbcRepository.findByTickerBetweenDates(TICKER, tradeDate, tradeDate).size());
+    }
+
+    @Test
+    public void testUpsertOptionsChain_concurrentWritersOfSameChain_storeEachRowAndSummaryOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> writes = new ArrayList<>();
+        int inserted = 0;
+        try {
+            for (int i = 0; i < WRITERS; i++) {
+                OptionsChain optionsChain = buildChain();
+                writes.add(executor.submit(() -> {
+                    start.await();
+                    return jdbcRepository.upsertOptionsChain(optionsChain, false);
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> write : writes) {
+                inserted += write.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Rows skipped because another writer inserted them first are not counted
+        assertEquals(2, inserted);
+        assertEquals(2, jdbcRepository.findOptionIdsByTickerAndExpiration(TICKER, expiration).size());
+        assertEquals(2, jdbcRepository.findByTickerBetweenDates(TICKER, tradeDate, tradeDate).size());
+        List<ChainDailySummary> summaries = chainDailySummaryRepository.findAllByTickerAndExpirationAndTradeDateBetweenOrderByTradeDateAsc(
+                TICKER, expiration, tradeDate, tradeDate);
+        assertEquals(1, summaries.size());
+        assertEquals(2, summaries.get(0).getOptionCount());
+        assertEquals(10, summaries.get(0).getCallVolume());
+        assertEquals(30, summaries.get(0).getPutVolume());
+    }
+
+    private OptionsChain buildChain() {
+        OptionsChain optionsChain = TestDataFactory.OptionsChainMother.emptyOptions().ticker(TICKER).expirationDate(expiration).build();
+        optionsChain.addOption(TestDataFactory.HistoricalOptionMother.noPriceData().ticker(TICKER).expiration(expiration)
+                .strike(12.5).optionType(Option.OptionType.CALL)
+                .historicalPriceData(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).volume(10).build())).build());
+        optionsChain.addOption(TestDataFactory.HistoricalOptionMother.noPriceData().ticker(TICKER).expiration(expiration)
+                .strike(12.5).optionType(Option.OptionType.PUT)
+                .historicalPriceData(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).volume(30).build())).build());
+        return optionsChain;
+    }
+}
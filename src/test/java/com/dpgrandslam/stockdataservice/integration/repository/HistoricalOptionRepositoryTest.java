@@ -1,15 +1,25 @@
 package com.dpgrandslam.stockdataservice.integration.repository;
 
+import com.dpgrandslam.stockdataservice.adapter.repository.ChainDailySummaryRepository;
 import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionJDBCRepository;
 import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionRepository;
+import com.dpgrandslam.stockdataservice.domain.model.options.ChainDailySummary;
 import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
 import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionChainKey;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPageCursor;
 import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChainPage;
 import com.dpgrandslam.stockdataservice.testUtils.TestDataFactory;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
 
+import javax.persistence.EntityManagerFactory;
 import java.sql.Date;
 import java.sql.Timestamp;
 import java.time.DayOfWeek;
@@ -21,11 +31,13 @@ import java.time.temporal.TemporalAdjuster;
 import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 
 @Slf4j
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class HistoricalOptionRepositoryTest extends RepositoryIntTestBase {
 
     @Autowired
@@ -34,6 +46,12 @@ public class HistoricalOptionRepositoryTest extends RepositoryIntTestBase {
     @Autowired
     protected HistoricalOptionJDBCRepository jdbcRepository;
 
+    @Autowired
+    protected ChainDailySummaryRepository chainDailySummaryRepository;
+
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+
     @Test
     public void testAddAndRemoveData() {
         HistoricalOption option = subject.save(TestDataFactory.HistoricalOptionMother.completeWithOnePriceData().build());
@@ -127,6 +145,46 @@ public class HistoricalOptionRepositoryTest extends RepositoryIntTestBase {
         assertEquals(2, priceData.size());
     }
 
+    @Test
+    public void testFindByTickerAndExpiration_jdbc_includesOptionsWithoutPriceData() {
+        LocalDate expiration = LocalDate.now().plusDays(7);
+        subject.save(TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration).strike(12.5).build());
+        subject.saveAndFlush(TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration).strike(13.0)
+                .historicalPriceData(new HashSet<>(Arrays.asList(
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(LocalDate.now().minusDays(1)).build(),
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(LocalDate.now().minusDays(2)).build()))).build());
+        subject.saveAndFlush(TestDataFactory.HistoricalOptionMother.completeWithOnePriceData().expiration(expiration.plusDays(1)).build());
+
+        Set<HistoricalOption> found = jdbcRepository.findByTickerAndExpiration("TEST", expiration);
+
+        assertEquals(2, found.size());
+        assertTrue(found.stream().filter(x -> x.getStrike() == 12.5).findFirst().get().getOptionPriceData().isEmpty());
+        HistoricalOption withData = found.stream().filter(x -> x.getStrike() == 13.0).findFirst().get();
+        assertNotNull(withData.getId());
+        assertEquals(2, withData.getOptionPriceData().size());
+        assertEquals(LocalDate.now().minusDays(1), withData.getMostRecentPriceData().getTradeDate());
+    }
+
+    @Test
+    public void testFindByTickerAndExpirationBetweenDates_jdbc_onlyLoadsPriceDataInRange() {
+        LocalDate expiration = LocalDate.now().plusDays(7);
+        subject.save(TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration).strike(12.5)
+                .historicalPriceData(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(LocalDate.now().minusDays(20)).build())).build());
+        subject.saveAndFlush(TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration).strike(13.0)
+                .historicalPriceData(new HashSet<>(Arrays.asList(
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(LocalDate.now().minusDays(1)).build(),
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(LocalDate.now().minusDays(5)).build(),
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(LocalDate.now().minusDays(10)).build()))).build());
+
+        Set<HistoricalOption> found = jdbcRepository.findByTickerAndExpirationBetweenDates("TEST", expiration,
+                LocalDate.now().minusDays(5), LocalDate.now());
+
+        assertEquals(1, found.size());
+        HistoricalOption option = found.iterator().next();
+        assertEquals(13.0, option.getStrike(), 0.01);
+        assertEquals(2, option.getOptionPriceData().size());
+    }
+
     @Test
     public void testGetExpirationDatesForOptionsAfterDate() {
         LocalDate monday = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
@@ -160,4 +218,142 @@ public class HistoricalOptionRepositoryTest extends RepositoryIntTestBase {
         assertTrue(actual.contains(expiration2));
         assertTrue(actual.contains(expiration3));
     }
+
+    @Test
+    public void testUpsertOptionsChain_insertsNewOptionsAndSkipsExistingPriceData() {
+        LocalDate tradeDate = LocalDate.now().minusDays(1);
+        HistoricalOption existing = subject.saveAndFlush(TestDataFactory.HistoricalOptionMother.noPriceData().strike(12.5)
+                .historicalPriceData(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).build())).build());
+
+        OptionsChain optionsChain = TestDataFactory.OptionsChainMother.emptyOptions().build();
+        optionsChain.addOption(TestDataFactory.HistoricalOptionMother.noPriceData().strike(12.5)
+                .historicalPriceData(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).build())).build());
+        optionsChain.addOption(TestDataFactory.HistoricalOptionMother.noPriceData().strike(13.0)
+                .historicalPriceData(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).build())).build());
+
+        int inserted = jdbcRepository.upsertOptionsChain(optionsChain);
+
+        assertEquals(1, inserted);
+        Map<OptionChainKey, Long> optionIds = jdbcRepository.findOptionIdsByTickerAndExpiration("TEST", optionsChain.getExpirationDate());
+        assertEquals(2, optionIds.size());
+        assertEquals(existing.getId(), optionIds.get(new OptionChainKey(12.5, Option.OptionType.CALL)));
+
+        Set<HistoricalOption> found = jdbcRepository.findByTickerBetweenDates("TEST", tradeDate, tradeDate);
+        assertEquals(2, found.size());
+        assertTrue(found.stream().allMatch(option -> option.getOptionPriceData().size() == 1));
+    }
+
+    @Test
+    public void testSaveAllAndFlush_batchesInserts() {
+        int optionCount = 200;
+        LocalDate tradeDate = LocalDate.now().minusDays(1);
+        List<HistoricalOption> options = IntStream.range(0, optionCount)
+                .mapToObj(i -> TestDataFactory.HistoricalOptionMother.noPriceData().strike(100.0 + i)
+                        .historicalPriceData(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).build())).build())
+                .collect(Collectors.toList());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        subject.saveAllAndFlush(options);
+
+        // Without batching every row costs an insert statement and a sequence call
+        long unbatchedStatements = optionCount * 2 * 2L;
+        log.info("Inserted {} rows with {} prepared statements.", statistics.getEntityInsertCount(), statistics.getPrepareStatementCount());
+        assertEquals(optionCount * 2, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() * 20 < unbatchedStatements);
+    }
+
+    @Test
+    public void testStreamOptionsOnTradeDate_onlyEmitsOptionsWithPriceDataOnTheDate() {
+        LocalDate tradeDate = LocalDate.now().minusDays(1);
+        subject.save(TestDataFactory.HistoricalOptionMother.noPriceData().strike(12.5)
+                .historicalPriceData(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).build())).build());
+        subject.saveAndFlush(TestDataFactory.HistoricalOptionMother.noPriceData().strike(13.0)
+                .historicalPriceData(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate.minusDays(1)).build())).build());
+
+        List<HistoricalOption> options = new ArrayList<>();
+        jdbcRepository.streamOptionsOnTradeDate(tradeDate, options::add);
+
+        assertEquals(1, options.size());
+        assertEquals(12.5, options.get(0).getStrike(), 0.01);
+        assertEquals("TEST", options.get(0).getTicker());
+    }
+
+    @Test
+    public void testStreamByTickerBetweenDates_emitsOneChainPerExpirationInOrder() {
+        LocalDate tradeDate = LocalDate.now().minusDays(1);
+        LocalDate firstExpiration = LocalDate.now().plusDays(7);
+        LocalDate secondExpiration = LocalDate.now().plusDays(14);
+        subject.save(TestDataFactory.HistoricalOptionMother.noPriceData().expiration(secondExpiration).strike(12.5)
+                .historicalPriceData(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).build())).build());
+        subject.save(TestDataFactory.HistoricalOptionMother.noPriceData().expiration(firstExpiration).strike(12.5)
+                .historicalPriceData(new HashSet<>(Arrays.asList(
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).build(),
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate.minusDays(1)).build(),
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate.minusDays(30)).build()))).build());
+        subject.saveAndFlush(TestDataFactory.HistoricalOptionMother.noPriceData().expiration(firstExpiration).strike(13.0)
+                .historicalPriceData(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).build())).build());
+
+        List<OptionsChain> chains = new ArrayList<>();
+        jdbcRepository.streamByTickerBetweenDates("TEST", tradeDate.minusDays(5), tradeDate, chains::add);
+
+        assertEquals(2, chains.size());
+        assertEquals(firstExpiration, chains.get(0).getExpirationDate());
+        assertEquals(secondExpiration, chains.get(1).getExpirationDate());
+        assertEquals(2, chains.get(0).getAllOptions().size());
+        assertEquals(2, chains.get(0).getOption(12.5, Option.OptionType.CALL).getOptionPriceData().size());
+        assertEquals(1, chains.get(1).getAllOptions().size());
+    }
+
+    @Test
+    public void testUpsertOptionsChain_buildsChainDailySummary() {
+        LocalDate tradeDate = LocalDate.now().minusDays(1);
+        OptionsChain optionsChain = TestDataFactory.OptionsChainMother.emptyOptions().build();
+        optionsChain.addOption(TestDataFactory.HistoricalOptionMother.noPriceData().strike(12.5).optionType(Option.OptionType.CALL)
+                .historicalPriceData(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).volume(10).build())).build());
+        optionsChain.addOption(TestDataFactory.HistoricalOptionMother.noPriceData().strike(12.5).optionType(Option.OptionType.PUT)
+                .historicalPriceData(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).volume(30)
+                        .impliedVolatility(50.0).build())).build());
+
+        jdbcRepository.upsertOptionsChain(optionsChain);
+
+        List<ChainDailySummary> summaries = chainDailySummaryRepository.findAllByTickerAndExpirationAndTradeDateBetweenOrderByTradeDateAsc(
+                "TEST", optionsChain.getExpirationDate(), tradeDate, tradeDate);
+        assertEquals(1, summaries.size());
+        ChainDailySummary summary = summaries.get(0);
+        assertEquals(10, summary.getCallVolume());
+        assertEquals(30, summary.getPutVolume());
+        assertEquals(120, summary.getCallOpenInterest());
+        assertEquals(120, summary.getPutOpenInterest());
+        assertEquals(2, summary.getOptionCount());
+        assertEquals(3.0, summary.getPutCallRatio(), 0.0001);
+        assertEquals((100.0 * 10 + 50.0 * 30) / 40, summary.getVolumeWeightedImpliedVolatility(), 0.0001);
+    }
+
+    @Test
+    public void testFindPageByTickerBetweenDates_pagesThroughAllRowsInKeyOrder() {
+        LocalDate tradeDate = LocalDate.now().minusDays(1);
+        LocalDate expiration = LocalDate.now().plusDays(7);
+        subject.save(TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration).strike(13.0)
+                .historicalPriceData(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).build())).build());
+        subject.saveAndFlush(TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration).strike(12.5)
+                .historicalPriceData(new HashSet<>(Arrays.asList(
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).build(),
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate.minusDays(1)).build()))).build());
+
+        OptionsChainPage first = jdbcRepository.findPageByTickerBetweenDates("TEST", tradeDate.minusDays(5), tradeDate, null, 2);
+
+        assertEquals(1, first.getOptionsChains().size());
+        assertEquals(1, first.getOptionsChains().get(0).getAllOptions().size());
+        assertEquals(2, first.getOptionsChains().get(0).getOption(12.5, Option.OptionType.CALL).getOptionPriceData().size());
+        assertTrue(first.getNextCursor().isPresent());
+        assertEquals(tradeDate, first.getNextCursor().get().getTradeDate());
+
+        OptionPageCursor cursor = OptionPageCursor.decode(first.getNextCursor().get().encode());
+        OptionsChainPage second = jdbcRepository.findPageByTickerBetweenDates("TEST", tradeDate.minusDays(5), tradeDate, cursor, 2);
+
+        assertEquals(1, second.getOptionsChains().size());
+        assertNotNull(second.getOptionsChains().get(0).getOption(13.0, Option.OptionType.CALL));
+        assertFalse(second.getNextCursor().isPresent());
+    }
 }
@@ -0,0 +1,128 @@
+package com.dpgrandslam.stockdataservice.integration.service;
+
+import com.dpgrandslam.stockdataservice.domain.error.OptionsChainLoadException;
+import com.dpgrandslam.stockdataservice.domain.event.OptionChainParseFailedEvent;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import com.dpgrandslam.stockdataservice.domain.service.OptionsChainLoadService;
+import com.dpgrandslam.stockdataservice.domain.service.YahooFinanceJsonOptionsChainLoadService;
+import com.dpgrandslam.stockdataservice.integration.client.MockClientTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.matchers.Times;
+import org.mockserver.model.HttpResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static junit.framework.TestCase.*;
+import static org.mockserver.model.HttpRequest.request;
+
+@TestPropertySource(properties = "options-chain-load.source=yahoo-finance-json")
+@Import(YahooFinanceJsonOptionsChainLoadServiceTest.ParseFailedEvents.class)
+public class YahooFinanceJsonOptionsChainLoadServiceTest extends MockClientTest {
+
+    @Autowired
+    private OptionsChainLoadService subject;
+
+    @Autowired
+    private ParseFailedEvents parseFailedEvents;
+
+    @Before
+    public void init() {
+        parseFailedEvents.events.clear();
+    }
+
+    @Test
+    public void testLoadClosestOptionsChain() throws IOException, OptionsChainLoadException {
+        mockOptions("mocks/yahoofinance/yahoo-finance-spy-options.json");
+
+        OptionsChain optionsChain = subject.loadLiveOptionsChainForClosestExpiration("spy");
+
+        assertTrue(subject instanceof YahooFinanceJsonOptionsChainLoadService);
+        assertEquals("SPY", optionsChain.getTicker());
+        assertEquals(LocalDate.of(2021, 3, 5), optionsChain.getExpirationDate());
+        assertEquals(5, optionsChain.getAllOptions().size());
+        OptionPriceData call = optionsChain.getOption(380.0, Option.OptionType.CALL).getMostRecentPriceData();
+        assertEquals(5.43, call.getLastTradePrice());
+        assertEquals(5.4, call.getBid());
+        assertEquals(5.45, call.getAsk());
+        assertEquals(Integer.valueOf(10234), call.getVolume());
+        assertEquals(Integer.valueOf(25311), call.getOpenInterest());
+        assertEquals(23.46, call.getImpliedVolatility());
+        assertEquals(Integer.valueOf(0), optionsChain.getOption(382.5, Option.OptionType.CALL).getMostRecentPriceData().getVolume());
+        assertNotNull(optionsChain.getOption(381.0, Option.OptionType.PUT));
+    }
+
+    @Test
+    public void testLoadFullOptionsChain_failedExpiration_publishesEvent() throws IOException, OptionsChainLoadException {
+        mockOptionsForDate("1615161600", "mocks/yahoofinance/yahoo-finance-spy-options-2021-03-08.json");
+        mockOptionsForDate("1615334400", "mocks/yahoofinance/yahoo-finance-options-error.json");
+        mockOptions("mocks/yahoofinance/yahoo-finance-spy-options.json");
+
+        List<OptionsChain> optionsChains = subject.loadFullLiveOptionsChain("SPY");
+
+        assertEquals(2, optionsChains.size());
+        assertEquals(LocalDate.of(2021, 3, 5), optionsChains.get(0).getExpirationDate());
+        assertEquals(LocalDate.of(2021, 3, 8), optionsChains.get(1).getExpirationDate());
+        assertEquals(5, optionsChains.get(1).getAllOptions().size());
+        assertEquals(1, parseFailedEvents.events.size());
+        assertEquals("SPY", parseFailedEvents.events.get(0).getTicker());
+        assertEquals(LocalDate.of(2021, 3, 10), parseFailedEvents.events.get(0).getExpiration());
+    }
+
+    @Test
+    public void testLoadOptionsChain_expirationNotListed_throwsExceptionAndPublishesEvent() throws IOException {
+        mockOptionsForDate("1615420800", "mocks/yahoofinance/yahoo-finance-spy-options.json");
+
+        try {
+            subject.loadLiveOptionsChainForExpirationDate("SPY", LocalDate.of(2021, 3, 11));
+            fail("Expected an OptionsChainLoadException.");
+        } catch (OptionsChainLoadException e) {
+            assertEquals(1, parseFailedEvents.events.size());
+            assertEquals(LocalDate.of(2021, 3, 11), parseFailedEvents.events.get(0).getExpiration());
+        }
+    }
+
+    private void mockOptions(String fixture) throws IOException {
+        mockServerRule.getClient().when(
+                request()
+                        .withMethod("GET")
+                        .withPath("/v7/finance/options/SPY"),
+                Times.exactly(1)
+        ).respond(HttpResponse.response()
+                .withStatusCode(200)
+                .withHeader("Content-Type", "application/json")
+                .withBody(loadBodyFromTestResourceFile(fixture)));
+    }
+
+    private void mockOptionsForDate(String date, String fixture) throws IOException {
+        mockServerRule.getClient().when(
+                request()
+                        .withMethod("GET")
+                        .withPath("/v7/finance/options/SPY")
+                        .withQueryStringParameter("date", date),
+                Times.exactly(1)
+        ).respond(HttpResponse.response()
+                .withStatusCode(200)
+                .withHeader("Content-Type", "application/json")
+                .withBody(loadBodyFromTestResourceFile(fixture)));
+    }
+
+    static class ParseFailedEvents {
+
+        private final List<OptionChainParseFailedEvent> events = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        public void onParseFailed(OptionChainParseFailedEvent event) {
+            events.add(event);
+        }
+    }
+}
@@ -3,12 +3,15 @@ package com.dpgrandslam.stockdataservice.unit.api;
 import com.dpgrandslam.stockdataservice.adapter.api.StockDataServiceController;
 import com.dpgrandslam.stockdataservice.domain.error.OptionsChainLoadException;
 import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPageCursor;
 import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChainPage;
 import com.dpgrandslam.stockdataservice.domain.model.stock.EndOfDayStockData;
 import com.dpgrandslam.stockdataservice.domain.model.stock.LiveStockData;
 import com.dpgrandslam.stockdataservice.domain.model.stock.StockSearchResult;
 import com.dpgrandslam.stockdataservice.domain.model.stock.TrackedStock;
 import com.dpgrandslam.stockdataservice.domain.model.tiingo.TiingoStockSearchResponse;
+import com.dpgrandslam.stockdataservice.domain.service.LiveOptionsChainCache;
 import com.dpgrandslam.stockdataservice.domain.service.OptionsChainLoadService;
 import com.dpgrandslam.stockdataservice.domain.service.StockDataLoadService;
 import com.dpgrandslam.stockdataservice.domain.service.TrackedStockService;
@@ -21,6 +24,7 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import javax.persistence.EntityNotFoundException;
@@ -37,6 +41,9 @@ public class StockDataServiceControllerTest {
     @Mock
     private OptionsChainLoadService optionsChainLoadService;
 
+    @Mock
+    private LiveOptionsChainCache liveOptionsChainCache;
+
     @Mock
     private TrackedStockService trackedStockService;
 
@@ -110,13 +117,13 @@ public class StockDataServiceControllerTest {
 
     @Test
     public void testGetOptionsChain_noDates_loadsLive() throws OptionsChainLoadException {
-        when(optionsChainLoadService.loadFullLiveOptionsChain(anyString())).thenReturn(Collections.singletonList(
+        when(liveOptionsChainCache.getFullLiveOptionsChain(anyString())).thenReturn(Collections.singletonList(
                 TestDataFactory.OptionsChainMother.oneOption()));
 
-        ResponseEntity<List<OptionsChain>> response = subject.getOptionsChain("TEST", Optional.empty(), Optional.empty(), Optional.empty());
+        ResponseEntity<List<OptionsChain>> response = subject.getOptionsChain("TEST", Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
 
-        verify(optionsChainLoadService, times(1)).loadFullLiveOptionsChain(eq("TEST"));
-        verify(optionsChainLoadService, never()).loadLiveOptionsChainForExpirationDate(any(),  any());
+        verify(liveOptionsChainCache, times(1)).getFullLiveOptionsChain(eq("TEST"));
+        verify(liveOptionsChainCache, never()).getLiveOptionsChainForExpirationDate(any(),  any());
         verify(optionsChainLoadService, never()).loadCompleteOptionsChainForExpirationDateWithPriceDataInRange(any(), any(), any(), any());
         assertTrue(response.getStatusCode().is2xxSuccessful());
     }
@@ -131,7 +138,9 @@ public class StockDataServiceControllerTest {
         ResponseEntity response = subject.getOptionsChain("TEST",
                 Optional.of(expiration.toString()),
                 Optional.of(now.minusDays(1).toString()),
-                Optional.of(now.toString()));
+                Optional.of(now.toString()),
+                Optional.empty(),
+                Optional.empty());
 
         assertTrue(response.getStatusCode().is2xxSuccessful());
 
@@ -150,7 +159,7 @@ public class StockDataServiceControllerTest {
         when(optionsChainLoadService.loadCompleteOptionsChainForExpirationDateWithPriceDataInRange(anyString(), any(), any(), any()))
                 .thenReturn(TestDataFactory.OptionsChainMother.oneOption());
 
-        ResponseEntity response = subject.getOptionsChain("TEST", Optional.of(now.toString()), Optional.empty(), Optional.of(end.toString()));
+        ResponseEntity response = subject.getOptionsChain("TEST", Optional.of(now.toString()), Optional.empty(), Optional.of(end.toString()), Optional.empty(), Optional.empty());
 
         assertTrue(response.getStatusCode().is2xxSuccessful());
         verify(optionsChainLoadService, times(1)).loadCompleteOptionsChainForExpirationDateWithPriceDataInRange(
@@ -167,22 +176,22 @@ public class StockDataServiceControllerTest {
     public void testGetOptionsChain_expirationDate_loadsLiveForExpiration() throws OptionsChainLoadException {
         LocalDate expiration = LocalDate.now().plusDays(100);
 
-        when(optionsChainLoadService.loadLiveOptionsChainForExpirationDate(anyString(), any())).thenReturn(TestDataFactory.OptionsChainMother.oneOption());
+        when(liveOptionsChainCache.getLiveOptionsChainForExpirationDate(anyString(), any())).thenReturn(TestDataFactory.OptionsChainMother.oneOption());
 
-        ResponseEntity response = subject.getOptionsChain("TEST", Optional.of(expiration.toString()), Optional.empty(), Optional.empty());
+        ResponseEntity response = subject.getOptionsChain("TEST", Optional.of(expiration.toString()), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
 
         assertTrue(response.getStatusCode().is2xxSuccessful());
 
-        verify(optionsChainLoadService, times(1)).loadLiveOptionsChainForExpirationDate(eq("TEST"), eq(expiration));
+        verify(liveOptionsChainCache, times(1)).getLiveOptionsChainForExpirationDate(eq("TEST"), eq(expiration));
         verify(optionsChainLoadService, never()).loadCompleteOptionsChainForExpirationDateWithPriceDataInRange(any(), any(), any(), any());
-        verify(optionsChainLoadService, never()).loadFullLiveOptionsChain(any());
+        verify(liveOptionsChainCache, never()).getFullLiveOptionsChain(any());
     }
 
     @Test
     public void testGetOptionsChain_empty_returnsNothing() throws OptionsChainLoadException {
         when(optionsChainLoadService.loadFullLiveOptionsChain(anyString())).thenReturn(Collections.emptyList());
 
-        ResponseEntity<List<OptionsChain>> response = subject.getOptionsChain("TEST", Optional.empty(), Optional.empty(), Optional.empty());
+        ResponseEntity<List<OptionsChain>> response = subject.getOptionsChain("TEST", Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
 
         assertTrue(response.getStatusCode().is2xxSuccessful());
         assertTrue(response.getBody().isEmpty());
@@ -258,11 +267,46 @@ public class StockDataServiceControllerTest {
 
     @Test
     public void testLoadFullOptionsChain() throws OptionsChainLoadException {
-        subject.getFullOptionsChain("TEST");
+        subject.getFullOptionsChain("TEST", Optional.empty(), Optional.empty());
 
         verify(optionsChainLoadService, times(1)).loadFullOptionsChainWithAllData(eq("TEST"));
     }
 
+    @Test
+    public void testGetOptionsChain_limit_loadsPageAndReturnsNextCursor() throws OptionsChainLoadException {
+        LocalDate start = LocalDate.now().minusDays(30);
+        OptionPageCursor cursor = new OptionPageCursor(LocalDate.now(), 12.5, Option.OptionType.CALL, LocalDate.now().minusDays(1));
+        OptionPageCursor next = new OptionPageCursor(LocalDate.now(), 13.0, Option.OptionType.PUT, LocalDate.now().minusDays(2));
+        when(optionsChainLoadService.loadOptionsChainPageBetweenDates(anyString(), any(), any(), any(), anyInt()))
+                .thenReturn(new OptionsChainPage(Collections.singletonList(TestDataFactory.OptionsChainMother.oneOption()), next));
+
+        ResponseEntity<List<OptionsChain>> response = subject.getOptionsChain("TEST", Optional.empty(), Optional.of(start.toString()),
+                Optional.empty(), Optional.of(50), Optional.of(cursor.encode()));
+
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        assertEquals(1, response.getBody().size());
+        assertEquals(next.encode(), response.getHeaders().getFirst(StockDataServiceController.NEXT_CURSOR_HEADER));
+        verify(optionsChainLoadService, times(1)).loadOptionsChainPageBetweenDates(eq("TEST"), eq(start), eq(LocalDate.now()), eq(cursor), eq(50));
+        verify(optionsChainLoadService, never()).loadFullOptionsChainWithAllDataBetweenDates(any(), any(), any());
+    }
+
+    @Test
+    public void testGetOptionsChain_limitWithExpirationDate_badRequest() throws OptionsChainLoadException {
+        ResponseEntity<List<OptionsChain>> response = subject.getOptionsChain("TEST", Optional.of(LocalDate.now().toString()),
+                Optional.empty(), Optional.empty(), Optional.of(50), Optional.empty());
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(optionsChainLoadService, liveOptionsChainCache);
+    }
+
+    @Test
+    public void testGetFullOptionsChain_invalidCursor_badRequest() throws OptionsChainLoadException {
+        ResponseEntity<List<OptionsChain>> response = subject.getFullOptionsChain("TEST", Optional.empty(), Optional.of("not a cursor"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(optionsChainLoadService, never()).loadOptionsChainPageBetweenDates(any(), any(), any(), any(), anyInt());
+    }
+
     @Test
     public void testGetVix() {
         when(vixLoadService.loadVIXBetweenDates(any(), any())).thenReturn(Collections.emptyList());
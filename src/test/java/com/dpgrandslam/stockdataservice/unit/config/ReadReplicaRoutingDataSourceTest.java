@@ -0,0 +1,69 @@
+package com.dpgrandslam.stockdataservice.unit.config;
+
+import com.dpgrandslam.stockdataservice.domain.config.ReadReplicaRoutingDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReadReplicaRoutingDataSourceTest {
+
+    private static final String FIND_NAME_SQL = "select name from database_name";
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate readWriteTransaction;
+
+    @Before
+    public void init() {
+        DataSource primary = h2DataSource("primary");
+        DataSource replica = h2DataSource("replica");
+        DataSource routing = ReadReplicaRoutingDataSource.lazy(primary, replica);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+
+        jdbcTemplate = new JdbcTemplate(routing);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    public void testReadOnlyTransaction_usesReplica() {
+        assertEquals("replica", readOnlyTransaction.execute(status -> jdbcTemplate.queryForObject(FIND_NAME_SQL, String.class)));
+    }
+
+    @Test
+    public void testReadWriteTransaction_usesPrimary() {
+        assertEquals("primary", readWriteTransaction.execute(status -> jdbcTemplate.queryForObject(FIND_NAME_SQL, String.class)));
+    }
+
+    @Test
+    public void testNoTransaction_usesPrimary() {
+        assertEquals("primary", jdbcTemplate.queryForObject(FIND_NAME_SQL, String.class));
+    }
+
+    @Test
+    public void testReadOnlyInsideReadWriteTransaction_staysOnPrimary() {
+        String name = readWriteTransaction.execute(status -> {
+            jdbcTemplate.update("insert into database_name (name) values ('written')");
+            return readOnlyTransaction.execute(inner -> jdbcTemplate.queryForObject(FIND_NAME_SQL + " where name = 'written'", String.class));
+        });
+
+        assertEquals("written", name);
+    }
+
+    private static DataSource h2DataSource(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "SA", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("drop table if exists database_name");
+        jdbcTemplate.execute("create table database_name (name varchar(255))");
+        jdbcTemplate.update("insert into database_name (name) values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,63 @@
+package com.dpgrandslam.stockdataservice.unit.job;
+
+import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionJDBCRepository;
+import com.dpgrandslam.stockdataservice.domain.jobs.OptionPriceDataPartitionJob;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OptionPriceDataPartitionJobTest {
+
+    @Mock
+    private HistoricalOptionJDBCRepository historicalOptionJDBCRepository;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private DatabaseMetaData databaseMetaData;
+
+    @InjectMocks
+    private OptionPriceDataPartitionJob subject;
+
+    @Test
+    public void testRunJob_postgres_createsPartitionsAhead() throws SQLException {
+        mockDatabaseProduct("PostgreSQL");
+        LocalDate today = LocalDate.now();
+
+        subject.runJob();
+
+        verify(historicalOptionJDBCRepository, times(1)).createPriceDataPartitions(eq(today), eq(today.plusMonths(3)));
+    }
+
+    @Test
+    public void testRunJob_notPostgres_doesNothing() throws SQLException {
+        mockDatabaseProduct("H2");
+
+        subject.runJob();
+
+        verify(historicalOptionJDBCRepository, never()).createPriceDataPartitions(any(), any());
+    }
+
+    private void mockDatabaseProduct(String productName) throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(databaseMetaData);
+        when(databaseMetaData.getDatabaseProductName()).thenReturn(productName);
+    }
+}
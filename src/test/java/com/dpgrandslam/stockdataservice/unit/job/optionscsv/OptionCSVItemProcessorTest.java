@@ -7,6 +7,7 @@ import com.dpgrandslam.stockdataservice.domain.model.options.Option;
 import com.dpgrandslam.stockdataservice.domain.model.stock.TrackedStock;
 import com.dpgrandslam.stockdataservice.domain.service.HistoricOptionsDataService;
 import com.dpgrandslam.stockdataservice.domain.service.TrackedStockService;
+import com.dpgrandslam.stockdataservice.testUtils.TestDataFactory;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -16,11 +17,16 @@ import org.mockito.junit.MockitoJUnitRunner;
 import javax.persistence.EntityNotFoundException;
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.HashSet;
 
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -37,6 +43,44 @@ public class OptionCSVItemProcessorTest {
 
     @Test
     public void testProcess_nonISODate() throws Exception {
+        OptionCSVFile file = csvFile();
+
+        when(trackedStockService.getAllTrackedStocks(anyBoolean())).thenReturn(Collections.singletonList(TrackedStock
+                .builder()
+                .ticker("SPY")
+                .active(true)
+                .optionsHistoricDataStartDate(LocalDate.MIN)
+                .build()));
+        when(historicOptionsDataService.findOption(any(), any(), any(), any())).thenThrow(EntityNotFoundException.class);
+
+        HistoricalOption actual = subject.process(file);
+
+        assertNotNull(actual);
+        assertEquals(actual.getOptionType(), Option.OptionType.CALL);
+        assertEquals(actual.getExpiration(), LocalDate.of(2020, 1, 2));
+        assertEquals(actual.getOptionPriceData().stream().findFirst().get().getTradeDate(), LocalDate.of(2019, 12, 23));
+        verify(historicOptionsDataService).markPriceDataOnTradeDate(any(), eq(LocalDate.of(2019, 12, 23)));
+    }
+
+    @Test
+    public void testProcess_priceDataAlreadyStored_skipsRow() throws Exception {
+        LocalDate tradeDate = LocalDate.of(2019, 12, 23);
+        when(trackedStockService.getAllTrackedStocks(anyBoolean())).thenReturn(Collections.singletonList(TrackedStock
+                .builder()
+                .ticker("SPY")
+                .active(true)
+                .optionsHistoricDataStartDate(LocalDate.MIN)
+                .build()));
+        when(historicOptionsDataService.findOption(any(), any(), any(), any())).thenReturn(TestDataFactory.HistoricalOptionMother.noPriceData()
+                .historicalPriceData(new HashSet<>(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).build())))
+                .build());
+        when(historicOptionsDataService.mightHavePriceDataOnTradeDate(any(), eq(tradeDate))).thenReturn(true);
+
+        assertNull(subject.process(csvFile()));
+        verify(historicOptionsDataService, never()).markPriceDataOnTradeDate(any(), any());
+    }
+
+    private static OptionCSVFile csvFile() {
         String expiration = "1/2/2020";
         String tradeDate = "12/23/2019";
 
@@ -53,20 +97,6 @@ public class OptionCSVItemProcessorTest {
         file.setVolume("1000");
         file.setPutCall("CALL");
         file.setStrikePrice("120.0");
-
-        when(trackedStockService.getAllTrackedStocks(anyBoolean())).thenReturn(Collections.singletonList(TrackedStock
-                .builder()
-                .ticker("SPY")
-                .active(true)
-                .optionsHistoricDataStartDate(LocalDate.MIN)
-                .build()));
-        when(historicOptionsDataService.findOption(any(), any(), any(), any())).thenThrow(EntityNotFoundException.class);
-
-        HistoricalOption actual = subject.process(file);
-
-        assertNotNull(actual);
-        assertEquals(actual.getOptionType(), Option.OptionType.CALL);
-        assertEquals(actual.getExpiration(), LocalDate.of(2020, 1, 2));
-        assertEquals(actual.getOptionPriceData().stream().findFirst().get().getTradeDate(), LocalDate.of(2019, 12, 23));
+        return file;
     }
 }
@@ -0,0 +1,75 @@
+package com.dpgrandslam.stockdataservice.unit.job.optionscsv;
+
+import com.dpgrandslam.stockdataservice.domain.jobs.optioncsv.OptionCSVWriteModeDecider;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OptionCSVWriteModeDeciderTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private DatabaseMetaData databaseMetaData;
+
+    @InjectMocks
+    private OptionCSVWriteModeDecider subject;
+
+    @Before
+    public void setup() throws SQLException {
+        lenient().when(dataSource.getConnection()).thenReturn(connection);
+        lenient().when(connection.getMetaData()).thenReturn(databaseMetaData);
+    }
+
+    @Test
+    public void testDecide_copyModeOnPostgres_returnsCopy() throws SQLException {
+        when(databaseMetaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+
+        String status = subject.decide(jobExecution("copy"), null).getName();
+
+        assertEquals(OptionCSVWriteModeDecider.COPY, status);
+    }
+
+    @Test
+    public void testDecide_copyModeOnH2_fallsBackToJpa() throws SQLException {
+        when(databaseMetaData.getDatabaseProductName()).thenReturn("H2");
+
+        String status = subject.decide(jobExecution("copy"), null).getName();
+
+        assertEquals(OptionCSVWriteModeDecider.JPA, status);
+    }
+
+    @Test
+    public void testDecide_noWriteMode_returnsJpa() throws SQLException {
+        String status = subject.decide(jobExecution(null), null).getName();
+
+        assertEquals(OptionCSVWriteModeDecider.JPA, status);
+        verify(dataSource, never()).getConnection();
+    }
+
+    private JobExecution jobExecution(String writeMode) {
+        JobParametersBuilder builder = new JobParametersBuilder().addString("bucket", "test");
+        if (writeMode != null) {
+            builder.addString(OptionCSVWriteModeDecider.WRITE_MODE_PARAM, writeMode);
+        }
+        return new JobExecution(1L, builder.toJobParameters());
+    }
+}
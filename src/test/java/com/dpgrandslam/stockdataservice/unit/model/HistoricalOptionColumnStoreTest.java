@@ -0,0 +1,137 @@
+package com.dpgrandslam.stockdataservice.unit.model;
+
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOptionColumnStore;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
+import com.dpgrandslam.stockdataservice.testUtils.TestDataFactory;
+import org.junit.Test;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class HistoricalOptionColumnStoreTest {
+
+    @Test
+    public void testOf_sortsOptionsAndPriceData() {
+        LocalDate expiration = LocalDate.now();
+        OptionPriceData older = TestDataFactory.OptionPriceDataMother.complete().tradeDate(expiration.minusDays(10)).build();
+        OptionPriceData newer = TestDataFactory.OptionPriceDataMother.complete().tradeDate(expiration.minusDays(1)).build();
+        HistoricalOption put = TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration)
+                .optionType(Option.OptionType.PUT).historicalPriceData(new HashSet<>(Arrays.asList(newer, older))).build();
+        HistoricalOption call = TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration)
+                .optionType(Option.OptionType.CALL).build();
+        HistoricalOption earlier = TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration.minusDays(7)).build();
+
+        HistoricalOptionColumnStore subject = HistoricalOptionColumnStore.of("TEST", Arrays.asList(put, call, earlier));
+
+        assertEquals(3, subject.optionCount());
+        assertEquals(2, subject.priceDataCount());
+        assertEquals(expiration.minusDays(7), subject.getHistoricalOption(0).getExpiration());
+        assertEquals(Option.OptionType.CALL, subject.getHistoricalOption(1).getOptionType());
+        assertTrue(subject.getHistoricalOption(1).getOptionPriceData().isEmpty());
+        List<OptionPriceData> priceData = new ArrayList<>(subject.getHistoricalOption(2).getOptionPriceData());
+        assertEquals(older.getTradeDate(), priceData.get(0).getTradeDate());
+        assertEquals(newer.getTradeDate(), priceData.get(1).getTradeDate());
+    }
+
+    @Test
+    public void testGetHistoricalOption_roundTripsValuesAndNulls() {
+        OptionPriceData complete = TestDataFactory.OptionPriceDataMother.complete().id(5L).build();
+        OptionPriceData withNulls = TestDataFactory.OptionPriceDataMother.complete()
+                .impliedVolatility(null)
+                .volume(null)
+                .dataObtainedDate(null)
+                .build();
+        HistoricalOption option = TestDataFactory.HistoricalOptionMother.noPriceData()
+                .historicalPriceData(new HashSet<>(Arrays.asList(complete, withNulls))).build();
+        option.setId(10L);
+
+        HistoricalOption found = HistoricalOptionColumnStore.of("TEST", Collections.singleton(option)).getHistoricalOption(0);
+
+        assertEquals(Long.valueOf(10L), found.getId());
+        assertEquals(option.getTicker(), found.getTicker());
+        assertEquals(option.getStrike(), found.getStrike(), 0);
+        assertEquals(option.getExpiration(), found.getExpiration());
+        assertEquals(option.getOptionType(), found.getOptionType());
+        assertEquals(new HashSet<>(Arrays.asList(complete, withNulls)), new HashSet<>(found.getOptionPriceData()));
+        OptionPriceData foundWithNulls = found.getOptionPriceData().stream()
+                .filter(opd -> opd.getTradeDate().equals(withNulls.getTradeDate()))
+                .findFirst()
+                .orElseThrow();
+        assertNull(foundWithNulls.getId());
+        assertNull(foundWithNulls.getImpliedVolatility());
+        assertNull(foundWithNulls.getVolume());
+        assertNull(foundWithNulls.getDataObtainedDate());
+    }
+
+    @Test
+    public void testWriteToAndReadFrom_roundTripsStore() throws IOException {
+        OptionPriceData withNulls = TestDataFactory.OptionPriceDataMother.complete().impliedVolatility(null).dataObtainedDate(null).build();
+        HistoricalOption option = TestDataFactory.HistoricalOptionMother.noPriceData()
+                .historicalPriceData(new HashSet<>(Arrays.asList(TestDataFactory.OptionPriceDataMother.complete().id(3L).build(), withNulls))).build();
+        option.setId(7L);
+        HistoricalOption noPriceData = TestDataFactory.HistoricalOptionMother.noPriceData().optionType(Option.OptionType.PUT).build();
+        HistoricalOptionColumnStore store = HistoricalOptionColumnStore.of("TEST", Arrays.asList(option, noPriceData));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        store.writeTo(new DataOutputStream(bytes));
+        HistoricalOptionColumnStore read = HistoricalOptionColumnStore.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals("TEST", read.getTicker());
+        assertEquals(2, read.optionCount());
+        assertEquals(2, read.priceDataCount());
+        assertEquals(store.toHistoricalOptions(), read.toHistoricalOptions());
+    }
+
+    @Test
+    public void testGetHistoricalOption_betweenDates_onlyBuildsPriceDataInRange() {
+        LocalDate start = LocalDate.of(2021, 3, 1);
+        HistoricalOption option = TestDataFactory.HistoricalOptionMother.noPriceData()
+                .historicalPriceData(new HashSet<>(Arrays.asList(
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(start.minusDays(1)).build(),
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(start).build(),
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(start.plusDays(2)).build(),
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(start.plusDays(5)).build()))).build();
+        HistoricalOptionColumnStore store = HistoricalOptionColumnStore.of("TEST", Collections.singleton(option));
+
+        assertEquals(2, store.getHistoricalOption(0, start, start.plusDays(2)).getOptionPriceData().size());
+        assertEquals(4, store.getHistoricalOption(0, LocalDate.MIN, LocalDate.MAX).getOptionPriceData().size());
+        assertTrue(store.getHistoricalOption(0, start.plusDays(6), start.plusDays(10)).getOptionPriceData().isEmpty());
+    }
+
+    @Test
+    public void testWithExpirationsReplaced_replacesOnlyOptionsInRange() {
+        LocalDate expiration = LocalDate.of(2021, 6, 18);
+        OptionPriceData priceData = TestDataFactory.OptionPriceDataMother.complete().tradeDate(expiration.minusDays(14)).build();
+        OptionPriceData addedPriceData = TestDataFactory.OptionPriceDataMother.complete().tradeDate(expiration.minusDays(13)).build();
+        HistoricalOption earlier = TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration.minusDays(7))
+                .historicalPriceData(new HashSet<>(Collections.singleton(priceData))).build();
+        HistoricalOption replaced = TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration)
+                .historicalPriceData(new HashSet<>(Collections.singleton(priceData))).build();
+        HistoricalOption later = TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration.plusDays(7))
+                .historicalPriceData(new HashSet<>(Collections.singleton(priceData))).build();
+        HistoricalOption replacement = TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration)
+                .historicalPriceData(new HashSet<>(Arrays.asList(priceData, addedPriceData))).build();
+        HistoricalOption added = TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration)
+                .optionType(Option.OptionType.PUT).build();
+        HistoricalOptionColumnStore store = HistoricalOptionColumnStore.of("TEST", Arrays.asList(earlier, replaced, later));
+
+        HistoricalOptionColumnStore subject = store.withExpirationsReplaced(expiration, expiration,
+                HistoricalOptionColumnStore.of("TEST", Arrays.asList(replacement, added)));
+
+        assertEquals(4, subject.optionCount());
+        assertEquals(4, subject.priceDataCount());
+        assertEquals(1, subject.getHistoricalOption(0).getOptionPriceData().size());
+        assertEquals(2, subject.getHistoricalOption(1).getOptionPriceData().size());
+        assertEquals(Option.OptionType.PUT, subject.getHistoricalOption(2).getOptionType());
+        assertTrue(subject.getHistoricalOption(2).getOptionPriceData().isEmpty());
+        assertEquals(expiration.plusDays(7), subject.getHistoricalOption(3).getExpiration());
+        assertEquals(1, subject.getHistoricalOption(3).getOptionPriceData().size());
+        assertEquals(3, store.optionCount());
+        assertEquals(3, store.priceDataCount());
+    }
+}
@@ -0,0 +1,173 @@
+package com.dpgrandslam.stockdataservice.unit.model;
+
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceHistory;
+import com.dpgrandslam.stockdataservice.testUtils.TestDataFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OptionPriceHistoryTest {
+
+    private static final LocalDate START = LocalDate.of(2021, 1, 4);
+
+    private OptionPriceHistory priceHistory;
+
+    @Before
+    public void init() {
+        priceHistory = new OptionPriceHistory(Arrays.asList(
+                priceData(START.plusDays(3)),
+                priceData(START),
+                priceData(START.plusDays(7)),
+                priceData(START.plusDays(1))
+        ));
+    }
+
+    @Test
+    public void testConstructor_sortsByTradeDate() {
+        assertEquals(4, priceHistory.size());
+        assertEquals(START, priceHistory.get(0).getTradeDate());
+        assertEquals(START.plusDays(1), priceHistory.get(1).getTradeDate());
+        assertEquals(START.plusDays(3), priceHistory.get(2).getTradeDate());
+        assertEquals(START.plusDays(7), priceHistory.get(3).getTradeDate());
+    }
+
+    @Test
+    public void testAdd_insertsInOrder() {
+        priceHistory.add(priceData(START.plusDays(2)));
+        priceHistory.add(priceData(START.plusDays(10)));
+        priceHistory.add(priceData(START.minusDays(1)));
+
+        assertEquals(7, priceHistory.size());
+        for (int i = 1; i < priceHistory.size(); i++) {
+            assertFalse(priceHistory.get(i).getTradeDate().isBefore(priceHistory.get(i - 1).getTradeDate()));
+        }
+        assertEquals(START.plusDays(10), priceHistory.latest().getTradeDate());
+    }
+
+    @Test
+    public void testLatest() {
+        assertEquals(START.plusDays(7), priceHistory.latest().getTradeDate());
+        assertNull(new OptionPriceHistory().latest());
+    }
+
+    @Test
+    public void testFind() {
+        assertTrue(priceHistory.find(START.plusDays(3)).isPresent());
+        assertEquals(START.plusDays(3), priceHistory.find(START.plusDays(3)).get().getTradeDate());
+        assertFalse(priceHistory.find(START.plusDays(2)).isPresent());
+        assertFalse(priceHistory.containsTradeDate(START.plusDays(8)));
+        assertTrue(priceHistory.containsTradeDate(START));
+    }
+
+    @Test
+    public void testBetween_inclusive() {
+        List<OptionPriceData> between = priceHistory.between(START.plusDays(1), START.plusDays(7));
+
+        assertEquals(3, between.size());
+        assertEquals(START.plusDays(1), between.get(0).getTradeDate());
+        assertEquals(START.plusDays(7), between.get(2).getTradeDate());
+    }
+
+    @Test
+    public void testBetween_noneInRange() {
+        assertTrue(priceHistory.between(START.plusDays(4), START.plusDays(6)).isEmpty());
+        assertTrue(priceHistory.between(START.plusDays(7), START).isEmpty());
+    }
+
+    @Test
+    public void testRemoveIf_keepsOrder() {
+        assertTrue(priceHistory.removeIf(data -> data.getTradeDate().equals(START.plusDays(1))));
+
+        assertEquals(3, priceHistory.size());
+        assertEquals(START, priceHistory.get(0).getTradeDate());
+        assertEquals(START.plusDays(3), priceHistory.get(1).getTradeDate());
+        assertFalse(priceHistory.containsTradeDate(START.plusDays(1)));
+    }
+
+    @Test
+    public void testSet_keepsOrder_replacesElement() {
+        OptionPriceData replacement = priceData(START.plusDays(2));
+
+        OptionPriceData replaced = priceHistory.set(1, replacement);
+
+        assertEquals(START.plusDays(1), replaced.getTradeDate());
+        assertSame(replacement, priceHistory.get(1));
+        assertTrue(priceHistory.containsTradeDate(START.plusDays(2)));
+        assertEquals(4, priceHistory.size());
+    }
+
+    @Test
+    public void testSet_outOfOrder_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> priceHistory.set(0, priceData(START.plusDays(5))));
+        assertEquals(START, priceHistory.get(0).getTradeDate());
+    }
+
+    @Test
+    public void testAddAtIndex_checksOrder() {
+        priceHistory.add(2, priceData(START.plusDays(2)));
+
+        assertEquals(5, priceHistory.size());
+        assertEquals(START.plusDays(2), priceHistory.get(2).getTradeDate());
+        assertThrows(IllegalArgumentException.class, () -> priceHistory.add(0, priceData(START.plusDays(1))));
+        assertEquals(5, priceHistory.size());
+    }
+
+    @Test
+    public void testSort_otherOrder_throwsExceptionAndKeepsHistory() {
+        assertThrows(IllegalArgumentException.class, () -> priceHistory.sort(Comparator.comparing(OptionPriceData::getTradeDate).reversed()));
+        assertEquals(START, priceHistory.get(0).getTradeDate());
+        assertEquals(START.plusDays(7), priceHistory.latest().getTradeDate());
+    }
+
+    @Test
+    public void testHistoricalOption_getPriceHistory_reusesSortedCopyUntilPriceDataChanges() {
+        HistoricalOption option = TestDataFactory.HistoricalOptionMother.noPriceData().build();
+        // Stands in for the persistent collection hibernate loads the price data into
+        List<OptionPriceData> loaded = new ArrayList<>(priceHistory);
+        Collections.reverse(loaded);
+        ReflectionTestUtils.setField(option, "historicalPriceData", loaded);
+
+        OptionPriceHistory sorted = option.getPriceHistory();
+
+        assertSame(sorted, option.getPriceHistory());
+        assertEquals(START, sorted.get(0).getTradeDate());
+        loaded.set(0, priceData(START.plusDays(8)));
+        assertNotSame(sorted, option.getPriceHistory());
+        assertEquals(START.plusDays(8), option.getMostRecentPriceData().getTradeDate());
+        loaded.add(priceData(START.plusDays(9)));
+        assertEquals(START.plusDays(9), option.getMostRecentPriceData().getTradeDate());
+    }
+
+    @Test
+    public void testHistoricalOption_withPriceDataBetween() {
+        HistoricalOption option = TestDataFactory.HistoricalOptionMother.noPriceData()
+                .historicalPriceData(new HashSet<>(priceHistory))
+                .build();
+        option.setId(12L);
+
+        HistoricalOption filtered = option.withPriceDataBetween(START, START.plusDays(2));
+
+        assertEquals(Long.valueOf(12L), filtered.getId());
+        assertEquals(option.getStrike(), filtered.getStrike(), 0);
+        assertEquals(2, filtered.getOptionPriceData().size());
+        assertEquals(4, option.getOptionPriceData().size());
+        assertEquals(START.plusDays(7), option.getMostRecentPriceData().getTradeDate());
+        assertEquals(START.plusDays(1), filtered.getMostRecentPriceData().getTradeDate());
+    }
+
+    private static OptionPriceData priceData(LocalDate tradeDate) {
+        return TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).build();
+    }
+}
@@ -1,12 +1,17 @@
 package com.dpgrandslam.stockdataservice.unit.model;
 
 import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.LiveOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionChainKey;
 import com.dpgrandslam.stockdataservice.testUtils.TestDataFactory;
 import org.junit.Test;
 
 import java.time.LocalDate;
 
+import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertSame;
 import static junit.framework.TestCase.assertTrue;
 
 public class OptionTest {
@@ -22,4 +27,29 @@ public class OptionTest {
         option = TestDataFactory.HistoricalOptionMother.noPriceData().build();
         assertFalse(option.isExpired());
     }
+
+    @Test
+    public void testGetOptionChainKey_cachedUntilStrikeOrTypeChanges() {
+        HistoricalOption option = TestDataFactory.HistoricalOptionMother.noPriceData().strike(12.5).build();
+        OptionChainKey key = option.getOptionChainKey();
+
+        assertSame(key, option.getOptionChainKey());
+
+        option.setStrike(13.0);
+        assertEquals(new OptionChainKey(13.0, Option.OptionType.CALL), option.getOptionChainKey());
+
+        option.setOptionType(Option.OptionType.PUT);
+        assertEquals(new OptionChainKey(13.0, Option.OptionType.PUT), option.getOptionChainKey());
+    }
+
+    @Test
+    public void testTickerAndExpiration_areInterned() {
+        LiveOption first = LiveOption.builder().ticker(new String("SPY")).expiration(LocalDate.of(2021, 6, 18)).strike(400.0).build();
+        LiveOption second = new LiveOption();
+        second.setTicker(new String("SPY"));
+        second.setExpiration(LocalDate.parse("2021-06-18"));
+
+        assertSame(first.getTicker(), second.getTicker());
+        assertSame(first.getExpiration(), second.getExpiration());
+    }
 }
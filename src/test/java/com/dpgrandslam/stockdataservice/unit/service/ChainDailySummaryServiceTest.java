@@ -0,0 +1,66 @@
+package com.dpgrandslam.stockdataservice.unit.service;
+
+import com.dpgrandslam.stockdataservice.adapter.repository.ChainDailySummaryRepository;
+import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionJDBCRepository;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.service.ChainDailySummaryService;
+import com.dpgrandslam.stockdataservice.testUtils.TestDataFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChainDailySummaryServiceTest {
+
+    @Mock
+    private ChainDailySummaryRepository chainDailySummaryRepository;
+
+    @Mock
+    private HistoricalOptionJDBCRepository historicalOptionJDBCRepository;
+
+    @InjectMocks
+    private ChainDailySummaryService subject;
+
+    @Test
+    public void testRefreshSummaries_refreshesEachChainOverItsTradeDates() {
+        LocalDate expiration = LocalDate.now();
+        LocalDate tradeDate = LocalDate.now().minusDays(1);
+        HistoricalOption call = TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration)
+                .historicalPriceData(new HashSet<>(Arrays.asList(
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).build(),
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate.minusDays(5)).build()))).build();
+        HistoricalOption otherExpiration = TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration.plusDays(7))
+                .historicalPriceData(new HashSet<>(Arrays.asList(
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).build()))).build();
+        HistoricalOption noPriceData = TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration.plusDays(14)).build();
+
+        subject.refreshSummaries(Arrays.asList(call, otherExpiration, noPriceData));
+
+        verify(historicalOptionJDBCRepository, times(1)).refreshChainDailySummary(eq("TEST"), eq(expiration), eq(tradeDate.minusDays(5)), eq(tradeDate));
+        verify(historicalOptionJDBCRepository, times(1)).refreshChainDailySummary(eq("TEST"), eq(expiration.plusDays(7)), eq(tradeDate), eq(tradeDate));
+        verify(historicalOptionJDBCRepository, times(2)).refreshChainDailySummary(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testGetSummaries_withExpiration_usesExpirationQuery() {
+        LocalDate expiration = LocalDate.now();
+        LocalDate start = LocalDate.now().minusDays(10);
+        LocalDate end = LocalDate.now();
+
+        subject.getSummaries("TEST", Optional.of(expiration), start, end);
+
+        verify(chainDailySummaryRepository, times(1)).findAllByTickerAndExpirationAndTradeDateBetweenOrderByTradeDateAsc(eq("TEST"), eq(expiration), eq(start), eq(end));
+        verify(chainDailySummaryRepository, never()).findAllByTickerAndTradeDateBetweenOrderByTradeDateAscExpirationAsc(any(), any(), any(), any());
+    }
+}
@@ -3,27 +3,41 @@ package com.dpgrandslam.stockdataservice.unit.service;
 import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionJDBCRepository;
 import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionRepository;
 import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOptionColumnStore;
 import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionPageCursor;
 import com.dpgrandslam.stockdataservice.domain.model.options.OptionPriceData;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChainPage;
 import com.dpgrandslam.stockdataservice.domain.service.HistoricOptionsDataService;
+import com.dpgrandslam.stockdataservice.domain.service.HistoricalOptionCache;
+import com.dpgrandslam.stockdataservice.domain.service.IngestionStatistics;
+import com.dpgrandslam.stockdataservice.domain.service.OptionArchiveService;
+import com.dpgrandslam.stockdataservice.domain.service.PriceDataDuplicateFilter;
 import com.dpgrandslam.stockdataservice.testUtils.TestDataFactory;
-import com.github.benmanes.caffeine.cache.Cache;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.*;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
 
 import javax.persistence.EntityNotFoundException;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
 import static junit.framework.TestCase.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -38,7 +52,16 @@ public class HistoricOptionsDataServiceTest {
     private HistoricalOptionJDBCRepository historicalOptionJDBCRepository;
 
     @Mock
-    private Cache<String, Set<HistoricalOption.CacheableHistoricalOption>> historicalOptionCache;
+    private HistoricalOptionCache historicalOptionCache;
+
+    @Mock
+    private OptionArchiveService optionArchiveService;
+
+    @Mock
+    private PriceDataDuplicateFilter priceDataDuplicateFilter;
+
+    @Mock
+    private IngestionStatistics ingestionStatistics;
 
     @InjectMocks
     private HistoricOptionsDataService subject;
@@ -96,21 +119,42 @@ public class HistoricOptionsDataServiceTest {
     @Test
     public void testFindOptions_expirationAndTicker_callsCorrectMethod() {
         LocalDate now = LocalDate.now(ZoneId.of("America/New_York"));
-        when(historicalOptionRepository.findByExpirationAndTicker(any(), anyString())).thenReturn(Stream.of(TestDataFactory.HistoricalOptionMother.completeWithOnePriceData().build()).collect(Collectors.toSet()));
+        when(historicalOptionJDBCRepository.findByTickerAndExpiration(anyString(), any())).thenReturn(Stream.of(TestDataFactory.HistoricalOptionMother.completeWithOnePriceData().build()).collect(Collectors.toSet()));
 
         subject.findOptions("TEST", now);
 
-        verify(historicalOptionRepository, times(1)).findByExpirationAndTicker(eq(now), eq("TEST"));
+        verify(historicalOptionJDBCRepository, times(1)).findByTickerAndExpiration(eq("TEST"), eq(now));
+        verify(historicalOptionRepository, never()).findByExpirationAndTicker(any(), any());
+    }
+
+    @Test
+    public void testFindOptions_expirationBetweenDates_callsCorrectMethod() {
+        LocalDate expiration = LocalDate.now().plusDays(10);
+        LocalDate start = LocalDate.now().minusDays(5);
+        LocalDate end = LocalDate.now().minusDays(1);
+        when(historicalOptionJDBCRepository.findByTickerAndExpirationBetweenDates(anyString(), any(), any(), any()))
+                .thenReturn(Collections.singleton(TestDataFactory.HistoricalOptionMother.completeWithOnePriceData().build()));
+
+        Set<HistoricalOption> found = subject.findOptions("TEST", expiration, start, end);
+
+        assertEquals(1, found.size());
+        verify(historicalOptionJDBCRepository, times(1)).findByTickerAndExpirationBetweenDates(eq("TEST"), eq(expiration), eq(start), eq(end));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindOptions_expirationBetweenDates_endDateAfterToday_throwsException() {
+        subject.findOptions("TEST", LocalDate.now(), LocalDate.now().minusDays(1), LocalDate.now().plusDays(1));
     }
 
     @Test
     public void testFindOptions_byTicker_callsCorrectMethod() throws ExecutionException {
         LocalDate now = LocalDate.now(ZoneId.of("America/New_York"));
-        when(historicalOptionCache.get(anyString(), any())).thenReturn(Stream.of(HistoricalOption.CacheableHistoricalOption.fromHistoricalOption(TestDataFactory.HistoricalOptionMother.completeWithOnePriceData().build())).collect(Collectors.toSet()));
+        when(historicalOptionCache.getSnapshot(anyString())).thenReturn(HistoricalOptionColumnStore.of("TEST",
+                Collections.singleton(TestDataFactory.HistoricalOptionMother.completeWithOnePriceData().build())));
 
         subject.findOptions("TEST");
 
-        verify(historicalOptionCache, times(1)).get(eq("TEST"), any());
+        verify(historicalOptionCache, times(1)).getSnapshot(eq("TEST"));
     }
 
     @Test
@@ -125,6 +169,7 @@ public class HistoricOptionsDataServiceTest {
         existingPriceDataSet.add(TestDataFactory.OptionPriceDataMother.complete().tradeDate(now).build());
         when(historicalOptionRepository.findById(anyLong())).thenReturn(Optional.of(TestDataFactory.HistoricalOptionMother.noPriceData()
         .historicalPriceData(existingPriceDataSet).build()));
+        when(priceDataDuplicateFilter.mightContain(any(), eq(now))).thenReturn(true);
 
         subject.addPriceDataToOption(1234L, priceDataSet);
 
@@ -137,6 +182,21 @@ public class HistoricOptionsDataServiceTest {
         assertTrue(saved.getOptionPriceData().stream().anyMatch(data -> data.getTradeDate().equals(tomorrow)));
     }
 
+    @Test
+    public void testAddPriceDataToOption_filterRulesOutDuplicates_doesNotReadPriceHistory() {
+        HistoricalOption option = spy(TestDataFactory.HistoricalOptionMother.noPriceData().build());
+        Set<OptionPriceData> priceDataSet = Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(LocalDate.now()).build());
+        when(historicalOptionRepository.findById(anyLong())).thenReturn(Optional.of(option));
+
+        subject.addPriceDataToOption(1234L, priceDataSet);
+
+        verify(option, never()).getPriceHistory();
+        verify(historicalOptionRepository, times(1)).save(eq(option));
+        verify(priceDataDuplicateFilter, times(1)).putAll(eq(option), eq(priceDataSet));
+        verify(ingestionStatistics, times(1)).recordRowsWritten(eq(option), eq(priceDataSet));
+        verify(historicalOptionCache, times(1)).patch(eq(option.getTicker()), eq(option.getExpiration()), eq(option.getExpiration()));
+    }
+
     @Test
     public void testFindOptions_betweenDates_returnsCorrect() throws ExecutionException {
         OptionPriceData priceDataEarly = TestDataFactory.OptionPriceDataMother.complete().tradeDate(LocalDate.now().minusDays(20)).build();
@@ -169,4 +229,137 @@ public class HistoricOptionsDataServiceTest {
 
         assertEquals(2, historicalOptions.size());
     }
+
+    @Test
+    public void testFindOptions_betweenDates_addsArchivedOptionsNotStored() {
+        LocalDate start = LocalDate.now().minusYears(3);
+        LocalDate end = LocalDate.now().minusDays(1);
+        HistoricalOption stored = TestDataFactory.HistoricalOptionMother.completeWithOnePriceData().strike(12.5).build();
+        HistoricalOption archived = TestDataFactory.HistoricalOptionMother.completeWithOnePriceData()
+                .expiration(LocalDate.now().minusYears(2)).build();
+        HistoricalOption archivedAndStored = TestDataFactory.HistoricalOptionMother.completeWithOnePriceData().strike(12.5).build();
+        when(historicalOptionJDBCRepository.findByTickerBetweenDates(anyString(), any(), any())).thenReturn(Collections.singleton(stored));
+        when(optionArchiveService.findOptions(anyString(), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(new HashSet<>(Arrays.asList(archived, archivedAndStored)));
+
+        Set<HistoricalOption> found = subject.findOptions("TEST", start, end);
+
+        verify(optionArchiveService, times(1)).findOptions(eq("TEST"), eq(start), eq(end));
+        assertEquals(2, found.size());
+        assertTrue(found.stream().anyMatch(option -> option.getExpiration().equals(LocalDate.now().minusYears(2))));
+    }
+
+    @Test
+    public void testFindOptions_byTicker_addsArchivedOptions() {
+        HistoricalOption archived = TestDataFactory.HistoricalOptionMother.completeWithOnePriceData()
+                .expiration(LocalDate.now().minusYears(2)).build();
+        when(historicalOptionCache.getSnapshot(anyString())).thenReturn(HistoricalOptionColumnStore.of("TEST",
+                Collections.singleton(TestDataFactory.HistoricalOptionMother.completeWithOnePriceData().build())));
+        when(optionArchiveService.findOptions(anyString(), any(LocalDate.class), any(LocalDate.class))).thenReturn(Collections.singleton(archived));
+
+        assertEquals(2, subject.findOptions("TEST").size());
+        verify(optionArchiveService, times(1)).findOptions(eq("TEST"), eq(LocalDate.MIN), eq(LocalDate.MAX));
+    }
+
+    @Test
+    public void testStreamOptions_mergesArchivedChainsInExpirationOrder() {
+        LocalDate expiration = LocalDate.now().minusYears(2);
+        OptionsChain archivedSameExpiration = chain(expiration.plusDays(1), 12.5, 13.0);
+        when(optionArchiveService.iterateChains(anyString(), any(), any(), any())).thenReturn(Arrays.asList(
+                chain(expiration, 12.5), archivedSameExpiration, chain(expiration.plusDays(3), 12.5)).iterator());
+        doAnswer(invocation -> {
+            Consumer<OptionsChain> consumer = invocation.getArgument(3);
+            consumer.accept(chain(expiration.plusDays(1), 12.5));
+            consumer.accept(chain(expiration.plusDays(2), 12.5));
+            return null;
+        }).when(historicalOptionJDBCRepository).streamByTickerBetweenDates(anyString(), any(), any(), any());
+
+        List<OptionsChain> streamed = new ArrayList<>();
+        subject.streamOptions("TEST", expiration.minusMonths(1), LocalDate.now(), streamed::add);
+
+        assertEquals(Arrays.asList(expiration, expiration.plusDays(1), expiration.plusDays(2), expiration.plusDays(3)),
+                streamed.stream().map(OptionsChain::getExpirationDate).collect(Collectors.toList()));
+        assertEquals(2, streamed.get(1).getAllOptions().size());
+        // The stored option is kept over the archived one with the same key
+        assertEquals(1, streamed.get(1).getOption(12.5, Option.OptionType.CALL).getOptionPriceData().size());
+    }
+
+    @Test
+    public void testFindOptionsPage_mergesArchivedRowsBeforeStoredRows() {
+        LocalDate expiration = LocalDate.now().minusYears(2);
+        LocalDate start = expiration.minusMonths(1);
+        OptionsChain archived = TestDataFactory.OptionsChainMother.emptyOptions().expirationDate(expiration).build();
+        archived.addOption(TestDataFactory.HistoricalOptionMother.noPriceData().expiration(expiration)
+                .historicalPriceData(new HashSet<>(Arrays.asList(
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(expiration.minusDays(2)).build(),
+                        TestDataFactory.OptionPriceDataMother.complete().tradeDate(expiration.minusDays(1)).build())))
+                .build());
+        when(optionArchiveService.isArchived(eq(start))).thenReturn(true);
+        when(optionArchiveService.iterateChains(anyString(), any(), any(), any())).thenReturn(Collections.singletonList(archived).iterator());
+        when(historicalOptionJDBCRepository.findPageByTickerBetweenDates(anyString(), any(), any(), any(), anyInt()))
+                .thenReturn(new OptionsChainPage(Collections.singletonList(chain(expiration.plusDays(1), 12.5)), null));
+
+        OptionsChainPage page = subject.findOptionsPage("TEST", start, LocalDate.now(), null, 2);
+
+        assertEquals(1, page.getOptionsChains().size());
+        assertEquals(expiration, page.getOptionsChains().get(0).getExpirationDate());
+        assertEquals(2, page.getOptionsChains().get(0).getOption(12.5, Option.OptionType.CALL).getOptionPriceData().size());
+        OptionPageCursor nextCursor = page.getNextCursor().get();
+        assertEquals(expiration, nextCursor.getExpiration());
+        assertEquals(expiration.minusDays(1), nextCursor.getTradeDate());
+        verify(optionArchiveService, times(1)).iterateChains(eq("TEST"), eq(start), eq(start), any());
+    }
+
+    @Test
+    public void testFindOptionsPage_startAfterArchiveCutoff_onlyReadsStoredRows() {
+        OptionsChainPage stored = new OptionsChainPage(Collections.emptyList(), null);
+        when(historicalOptionJDBCRepository.findPageByTickerBetweenDates(anyString(), any(), any(), any(), anyInt())).thenReturn(stored);
+
+        assertSame(stored, subject.findOptionsPage("TEST", LocalDate.now().minusDays(5), LocalDate.now(), null, 10));
+        verify(optionArchiveService, never()).iterateChains(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testAddOptionsChain_usesBulkUpsert() {
+        OptionsChain optionsChain = TestDataFactory.OptionsChainMother.oneOption();
+        when(historicalOptionJDBCRepository.upsertOptionsChain(any(), anyBoolean())).thenReturn(1);
+
+        subject.addOptionsChain(optionsChain);
+
+        verify(historicalOptionJDBCRepository, times(1)).upsertOptionsChain(eq(optionsChain), eq(false));
+        verify(historicalOptionRepository, never()).findByStrikeAndExpirationAndTickerAndOptionType(any(), any(), any(), any());
+        verify(historicalOptionRepository, never()).save(any());
+        verify(priceDataDuplicateFilter, times(1)).putAll(any(Option.class));
+        verify(historicalOptionCache, times(1)).patch(eq(optionsChain.getTicker()), eq(optionsChain.getExpirationDate()), eq(optionsChain.getExpirationDate()));
+    }
+
+    @Test
+    public void testAddOptionsChain_insertedOptionsNotFound_logsAndDoesNotThrow() {
+        OptionsChain optionsChain = TestDataFactory.OptionsChainMother.oneOption();
+        when(historicalOptionJDBCRepository.upsertOptionsChain(any(), anyBoolean()))
+                .thenThrow(new IncorrectResultSizeDataAccessException("missing", 1, 0));
+
+        subject.addOptionsChain(optionsChain);
+
+        verify(historicalOptionCache, never()).patch(any(), any(), any());
+    }
+
+    @Test
+    public void testAddOptionsChain_filterHit_checksStoredPriceData() {
+        OptionsChain optionsChain = TestDataFactory.OptionsChainMother.oneOption();
+        when(priceDataDuplicateFilter.mightContainAny(any())).thenReturn(true);
+
+        subject.addOptionsChain(optionsChain);
+
+        verify(historicalOptionJDBCRepository, times(1)).upsertOptionsChain(eq(optionsChain), eq(true));
+    }
+
+    private static OptionsChain chain(LocalDate expiration, double... strikes) {
+        OptionsChain optionsChain = TestDataFactory.OptionsChainMother.emptyOptions().expirationDate(expiration).build();
+        for (double strike : strikes) {
+            optionsChain.addOption(TestDataFactory.HistoricalOptionMother.completeWithOnePriceData()
+                    .expiration(expiration).strike(strike).build());
+        }
+        return optionsChain;
+    }
 }
@@ -0,0 +1,125 @@
+package com.dpgrandslam.stockdataservice.unit.service;
+
+import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionJDBCRepository;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOptionColumnStore;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.service.HistoricalOptionCache;
+import com.dpgrandslam.stockdataservice.testUtils.TestDataFactory;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HistoricalOptionCacheTest {
+
+    private static final LocalDate EXPIRATION = LocalDate.of(2021, 6, 18);
+
+    @Mock
+    private HistoricalOptionJDBCRepository historicalOptionJDBCRepository;
+
+    private Cache<String, HistoricalOptionColumnStore> cache;
+
+    private HistoricalOptionCache subject;
+
+    @Before
+    public void init() {
+        cache = Caffeine.newBuilder().build();
+        subject = new HistoricalOptionCache(cache, historicalOptionJDBCRepository);
+    }
+
+    @Test
+    public void testGetSnapshot_loadsTickerOnce() {
+        when(historicalOptionJDBCRepository.findColumnStoreByTicker(anyString()))
+                .thenReturn(HistoricalOptionColumnStore.of("TEST", Collections.singleton(option(EXPIRATION, Option.OptionType.CALL))));
+
+        HistoricalOptionColumnStore first = subject.getSnapshot("TEST");
+        HistoricalOptionColumnStore second = subject.getSnapshot("TEST");
+
+        assertSame(first, second);
+        verify(historicalOptionJDBCRepository, times(1)).findColumnStoreByTicker(eq("TEST"));
+    }
+
+    @Test
+    public void testPatch_cachedTicker_replacesWrittenExpirationsWithoutReloading() {
+        HistoricalOption earlier = option(EXPIRATION.minusDays(7), Option.OptionType.CALL);
+        HistoricalOption written = option(EXPIRATION, Option.OptionType.CALL);
+        when(historicalOptionJDBCRepository.findColumnStoreByTicker(anyString()))
+                .thenReturn(HistoricalOptionColumnStore.of("TEST", Collections.singleton(earlier)));
+        when(historicalOptionJDBCRepository.findColumnStoreByTickerAndExpirationBetween(anyString(), any(), any()))
+                .thenReturn(HistoricalOptionColumnStore.of("TEST", Arrays.asList(written, option(EXPIRATION, Option.OptionType.PUT))));
+        HistoricalOptionColumnStore before = subject.getSnapshot("TEST");
+
+        subject.patch(Collections.singleton(written));
+
+        HistoricalOptionColumnStore after = subject.getSnapshot("TEST");
+        assertEquals(1, before.optionCount());
+        assertEquals(3, after.optionCount());
+        assertEquals(EXPIRATION.minusDays(7), after.getExpiration(0));
+        verify(historicalOptionJDBCRepository, times(1)).findColumnStoreByTicker(eq("TEST"));
+        verify(historicalOptionJDBCRepository, times(1)).findColumnStoreByTickerAndExpirationBetween(eq("TEST"), eq(EXPIRATION), eq(EXPIRATION));
+    }
+
+    @Test
+    public void testPatch_snapshotSwappedDuringRead_readsAgain() {
+        HistoricalOption swappedIn = option(EXPIRATION.minusDays(14), Option.OptionType.CALL);
+        when(historicalOptionJDBCRepository.findColumnStoreByTicker(anyString()))
+                .thenReturn(HistoricalOptionColumnStore.of("TEST", Collections.singleton(option(EXPIRATION.minusDays(7), Option.OptionType.CALL))));
+        when(historicalOptionJDBCRepository.findColumnStoreByTickerAndExpirationBetween(anyString(), any(), any()))
+                .thenAnswer(invocation -> {
+                    // Another patch of the ticker finishes while this one reads
+                    cache.put("TEST", HistoricalOptionColumnStore.of("TEST", Collections.singleton(swappedIn)));
+                    return HistoricalOptionColumnStore.of("TEST", Collections.singleton(option(EXPIRATION, Option.OptionType.CALL)));
+                })
+                .thenReturn(HistoricalOptionColumnStore.of("TEST", Collections.singleton(option(EXPIRATION, Option.OptionType.CALL))));
+        subject.getSnapshot("TEST");
+
+        subject.patch("TEST", EXPIRATION, EXPIRATION);
+
+        HistoricalOptionColumnStore after = subject.getSnapshot("TEST");
+        assertEquals(2, after.optionCount());
+        assertEquals(EXPIRATION.minusDays(14), after.getExpiration(0));
+        assertEquals(EXPIRATION, after.getExpiration(1));
+        verify(historicalOptionJDBCRepository, times(2)).findColumnStoreByTickerAndExpirationBetween(eq("TEST"), eq(EXPIRATION), eq(EXPIRATION));
+    }
+
+    @Test
+    public void testPatch_tickerNotCached_doesNotReadDatabase() {
+        subject.patch("TEST", EXPIRATION, EXPIRATION);
+
+        verifyNoInteractions(historicalOptionJDBCRepository);
+    }
+
+    @Test
+    public void testPatch_readFails_evictsTicker() {
+        when(historicalOptionJDBCRepository.findColumnStoreByTicker(anyString()))
+                .thenReturn(HistoricalOptionColumnStore.of("TEST", Collections.singleton(option(EXPIRATION, Option.OptionType.CALL))));
+        when(historicalOptionJDBCRepository.findColumnStoreByTickerAndExpirationBetween(anyString(), any(), any()))
+                .thenThrow(new IllegalStateException("connection lost"));
+        subject.getSnapshot("TEST");
+
+        subject.patch("TEST", EXPIRATION, EXPIRATION);
+        subject.getSnapshot("TEST");
+
+        verify(historicalOptionJDBCRepository, times(2)).findColumnStoreByTicker(eq("TEST"));
+    }
+
+    private static HistoricalOption option(LocalDate expiration, Option.OptionType optionType) {
+        return TestDataFactory.HistoricalOptionMother.completeWithOnePriceData()
+                .expiration(expiration)
+                .optionType(optionType)
+                .build();
+    }
+}
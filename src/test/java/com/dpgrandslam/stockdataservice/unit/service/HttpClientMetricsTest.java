@@ -0,0 +1,60 @@
+package com.dpgrandslam.stockdataservice.unit.service;
+
+import com.dpgrandslam.stockdataservice.adapter.apiclient.HttpClientMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HttpClientMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private HttpClientMetrics subject;
+
+    private Call call;
+
+    @Before
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        subject = new HttpClientMetrics(meterRegistry);
+        call = mock(Call.class);
+        when(call.request()).thenReturn(new Request.Builder().url("https://finance.yahoo.com/quote/SPY/options").build());
+    }
+
+    @Test
+    public void testCallsByHost_countsNewAndReusedConnections() {
+        InetSocketAddress address = InetSocketAddress.createUnresolved("finance.yahoo.com", 443);
+        Connection connection = mock(Connection.class);
+
+        EventListener first = subject.create(call);
+        first.callStart(call);
+        first.connectStart(call, address, Proxy.NO_PROXY);
+        first.connectEnd(call, address, Proxy.NO_PROXY, Protocol.HTTP_1_1);
+        first.connectionAcquired(call, connection);
+        first.callEnd(call);
+
+        EventListener second = subject.create(call);
+        second.callStart(call);
+        second.connectionAcquired(call, connection);
+        second.callFailed(call, new IOException("reset"));
+
+        assertEquals(1.0, meterRegistry.get("http.client.connections").tag("host", "finance.yahoo.com").tag("type", "new").counter().count(), 0);
+        assertEquals(1.0, meterRegistry.get("http.client.connections").tag("host", "finance.yahoo.com").tag("type", "reused").counter().count(), 0);
+        assertEquals(1, meterRegistry.get("http.client.connect").tag("host", "finance.yahoo.com").timer().count());
+        assertEquals(1, meterRegistry.get("http.client.calls").tag("host", "finance.yahoo.com").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("http.client.calls").tag("host", "finance.yahoo.com").tag("outcome", "failure").timer().count());
+    }
+}
@@ -0,0 +1,144 @@
+package com.dpgrandslam.stockdataservice.unit.service;
+
+import com.dpgrandslam.stockdataservice.domain.model.OptionPriceDataLoadRetry;
+import com.dpgrandslam.stockdataservice.domain.model.TradeDateIngestionStatistics;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.service.IngestionStatistics;
+import com.dpgrandslam.stockdataservice.testUtils.TestDataFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class IngestionStatisticsTest {
+
+    private static final LocalDate TRADE_DATE = LocalDate.of(2021, 6, 11);
+    private static final LocalDate EXPIRATION = LocalDate.of(2021, 7, 16);
+
+    private IngestionStatistics subject;
+
+    @Before
+    public void init() {
+        subject = new IngestionStatistics();
+    }
+
+    @Test
+    public void testRecordRowsWritten_countsPerTickerAndExpiration() {
+        subject.recordRowsWritten("TEST", EXPIRATION, TRADE_DATE, 3);
+        subject.recordRowsWritten("TEST", EXPIRATION.plusDays(7), TRADE_DATE, 2);
+        subject.recordRowsWritten("SPY", EXPIRATION, TRADE_DATE, 1);
+
+        TradeDateIngestionStatistics statistics = subject.getStatistics(TRADE_DATE).get();
+
+        assertEquals(6, statistics.getRowsWritten());
+        assertEquals(Long.valueOf(3), statistics.getRowsWrittenByTickerAndExpiration().get("TEST").get(EXPIRATION));
+        assertEquals(Long.valueOf(1), statistics.getRowsWrittenByTickerAndExpiration().get("SPY").get(EXPIRATION));
+        assertNull(subject.getStatistics().get(0).getRowsWrittenByTickerAndExpiration());
+    }
+
+    @Test
+    public void testRecordRowsWritten_someRowsSkipped_countsOnlyInsertedRows() {
+        HistoricalOption first = option(12.5);
+        HistoricalOption second = option(13.0);
+
+        subject.recordRowsWritten(Arrays.asList(first, second), 1);
+
+        assertEquals(1, subject.getRowsWritten(TRADE_DATE));
+    }
+
+    @Test
+    public void testRecordRowsWritten_inTransaction_countedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            subject.recordRowsWritten("TEST", EXPIRATION, TRADE_DATE, 3);
+            subject.recordRowsWritten(Collections.singletonList(option(12.5)), 1);
+
+            assertEquals(0, subject.getRowsWritten(TRADE_DATE));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(4, subject.getRowsWritten(TRADE_DATE));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testRecordRowsWritten_transactionRolledBack_notCounted() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            subject.recordRowsWritten("TEST", EXPIRATION, TRADE_DATE, 3);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            assertEquals(0, subject.getRowsWritten(TRADE_DATE));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testRetries_trackedUntilRemoved() {
+        OptionPriceDataLoadRetry retry = retry(1L);
+        subject.recordRetryAdded(retry);
+        subject.recordRetryAdded(retry(2L));
+        subject.recordRetryAttempt(retry);
+
+        subject.recordRetryRemoved(1L);
+
+        TradeDateIngestionStatistics statistics = subject.getStatistics(TRADE_DATE).get();
+        assertEquals(1, statistics.getPendingRetries());
+        assertEquals(2, statistics.getRetriesAdded());
+        assertEquals(1, statistics.getRetryAttempts());
+        assertEquals(1, statistics.getRetriesResolved());
+    }
+
+    @Test
+    public void testReconcile_replacesPendingRetriesAndRecordsStoredRows() {
+        subject.recordRetryAdded(retry(1L));
+        subject.recordRowsWritten("TEST", EXPIRATION, TRADE_DATE, 5);
+
+        subject.reconcileRetries(TRADE_DATE, new HashSet<>(Arrays.asList(retry(2L), retry(3L))));
+        subject.reconcileRows(TRADE_DATE, 20);
+
+        TradeDateIngestionStatistics statistics = subject.getStatistics(TRADE_DATE).get();
+        assertEquals(2, statistics.getPendingRetries());
+        assertEquals(Long.valueOf(20), statistics.getStoredRows());
+        assertNotNull(statistics.getReconciledAt());
+        assertEquals(5, statistics.getRowsWritten());
+    }
+
+    @Test
+    public void testGetStatistics_keepsOnlyRecentTradeDates() {
+        for (int i = 0; i < 15; i++) {
+            subject.recordRowsWritten("TEST", EXPIRATION, TRADE_DATE.minusDays(i), 1);
+        }
+
+        assertEquals(10, subject.getStatistics().size());
+        assertEquals(TRADE_DATE, subject.getStatistics().get(0).getTradeDate());
+        assertFalse(subject.getStatistics(TRADE_DATE.minusDays(14)).isPresent());
+    }
+
+    private static HistoricalOption option(double strike) {
+        return TestDataFactory.HistoricalOptionMother.noPriceData()
+                .strike(strike)
+                .expiration(EXPIRATION)
+                .historicalPriceData(new HashSet<>(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(TRADE_DATE).build())))
+                .build();
+    }
+
+    private static OptionPriceDataLoadRetry retry(Long retryId) {
+        return OptionPriceDataLoadRetry.builder()
+                .retryId(retryId)
+                .optionTicker("TEST")
+                .optionExpiration(EXPIRATION)
+                .tradeDate(TRADE_DATE)
+                .retryCount(0)
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+package com.dpgrandslam.stockdataservice.unit.service;
+
+import com.dpgrandslam.stockdataservice.domain.config.LiveOptionsChainCacheConfigurationProperties;
+import com.dpgrandslam.stockdataservice.domain.error.OptionsChainLoadException;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import com.dpgrandslam.stockdataservice.domain.service.LiveOptionsChainCache;
+import com.dpgrandslam.stockdataservice.domain.service.OptionsChainLoadService;
+import com.dpgrandslam.stockdataservice.domain.util.TimeUtils;
+import com.dpgrandslam.stockdataservice.testUtils.TestDataFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LiveOptionsChainCacheTest {
+
+    private static final LocalDate TUESDAY = LocalDate.of(2021, 6, 8);
+
+    @Mock
+    private OptionsChainLoadService optionsChainLoadService;
+
+    @Mock
+    private TimeUtils timeUtils;
+
+    private LiveOptionsChainCacheConfigurationProperties properties;
+
+    private LiveOptionsChainCache subject;
+
+    @Before
+    public void init() {
+        properties = new LiveOptionsChainCacheConfigurationProperties();
+        lenient().when(timeUtils.getNowAmericaNewYork()).thenReturn(LocalDateTime.of(TUESDAY, LocalTime.of(11, 0)));
+        lenient().when(timeUtils.isTradingOpenOnDay(any())).thenReturn(true);
+        subject = new LiveOptionsChainCache(optionsChainLoadService, properties, timeUtils);
+    }
+
+    @After
+    public void cleanup() {
+        subject.shutdown();
+    }
+
+    @Test
+    public void testGetFullLiveOptionsChain_concurrentMisses_loadOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<OptionsChain> chains = Collections.singletonList(TestDataFactory.OptionsChainMother.oneOption());
+        when(optionsChainLoadService.loadFullLiveOptionsChain(anyString())).then(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return chains;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<OptionsChain>> first = executor.submit(() -> subject.getFullLiveOptionsChain("spy"));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<List<OptionsChain>> second = executor.submit(() -> subject.getFullLiveOptionsChain("SPY"));
+            Thread.sleep(50);
+            release.countDown();
+
+            assertSame(chains, first.get(5, TimeUnit.SECONDS));
+            assertSame(chains, second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertSame(chains, subject.getFullLiveOptionsChain("SPY"));
+        verify(optionsChainLoadService, times(1)).loadFullLiveOptionsChain(anyString());
+    }
+
+    @Test
+    public void testGetLiveOptionsChainForExpirationDate_stale_servesStaleAndRefreshes() throws OptionsChainLoadException {
+        properties.setMarketHoursTtlSeconds(0);
+        OptionsChain stale = TestDataFactory.OptionsChainMother.oneOption();
+        OptionsChain refreshed = TestDataFactory.OptionsChainMother.oneOption();
+        when(optionsChainLoadService.loadLiveOptionsChainForExpirationDate(anyString(), any())).thenReturn(stale, refreshed);
+
+        assertSame(stale, subject.getLiveOptionsChainForExpirationDate("SPY", TUESDAY));
+        assertSame(stale, subject.getLiveOptionsChainForExpirationDate("SPY", TUESDAY));
+
+        verify(optionsChainLoadService, timeout(5000).times(2)).loadLiveOptionsChainForExpirationDate(eq("SPY"), eq(TUESDAY));
+    }
+
+    @Test
+    public void testGetLiveOptionsChainForExpirationDate_pastMaxStale_waitsForLoad() throws OptionsChainLoadException {
+        AtomicLong nanos = new AtomicLong();
+        LiveOptionsChainCache fakeClockSubject = new LiveOptionsChainCache(optionsChainLoadService, properties, timeUtils, nanos::get);
+        OptionsChain stale = TestDataFactory.OptionsChainMother.oneOption();
+        OptionsChain loaded = TestDataFactory.OptionsChainMother.oneOption();
+        when(optionsChainLoadService.loadLiveOptionsChainForExpirationDate(anyString(), any())).thenReturn(stale, loaded);
+        try {
+            assertSame(stale, fakeClockSubject.getLiveOptionsChainForExpirationDate("SPY", TUESDAY));
+            nanos.addAndGet(TimeUnit.SECONDS.toNanos(properties.getMarketHoursTtlSeconds() + properties.getMaxStaleSeconds()));
+
+            assertSame(loaded, fakeClockSubject.getLiveOptionsChainForExpirationDate("SPY", TUESDAY));
+            verify(optionsChainLoadService, times(2)).loadLiveOptionsChainForExpirationDate(eq("SPY"), eq(TUESDAY));
+        } finally {
+            fakeClockSubject.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetLiveOptionsChainForExpirationDate_loadedAfterHours_tooStaleOnceMarketOpens() throws OptionsChainLoadException {
+        AtomicLong nanos = new AtomicLong();
+        LiveOptionsChainCache fakeClockSubject = new LiveOptionsChainCache(optionsChainLoadService, properties, timeUtils, nanos::get);
+        OptionsChain afterHours = TestDataFactory.OptionsChainMother.oneOption();
+        OptionsChain marketHours = TestDataFactory.OptionsChainMother.oneOption();
+        when(optionsChainLoadService.loadLiveOptionsChainForExpirationDate(anyString(), any())).thenReturn(afterHours, marketHours);
+        when(timeUtils.getNowAmericaNewYork()).thenReturn(LocalDateTime.of(TUESDAY, LocalTime.of(9, 20)));
+        try {
+            assertSame(afterHours, fakeClockSubject.getLiveOptionsChainForExpirationDate("SPY", TUESDAY));
+            // Still within the after hours ttl, but past the market hours ttl plus the max stale time
+            nanos.addAndGet(TimeUnit.MINUTES.toNanos(10));
+            when(timeUtils.getNowAmericaNewYork()).thenReturn(LocalDateTime.of(TUESDAY, LocalTime.of(9, 30)));
+
+            assertSame(marketHours, fakeClockSubject.getLiveOptionsChainForExpirationDate("SPY", TUESDAY));
+            verify(optionsChainLoadService, times(2)).loadLiveOptionsChainForExpirationDate(eq("SPY"), eq(TUESDAY));
+        } finally {
+            fakeClockSubject.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetFullLiveOptionsChain_failedLoad_throwsAndIsNotCached() throws OptionsChainLoadException {
+        OptionsChainLoadException failure = new OptionsChainLoadException("SPY", "url", "Error");
+        when(optionsChainLoadService.loadFullLiveOptionsChain(anyString())).thenThrow(failure);
+
+        try {
+            subject.getFullLiveOptionsChain("SPY");
+            fail();
+        } catch (OptionsChainLoadException e) {
+            assertSame(failure, e);
+        }
+        try {
+            subject.getFullLiveOptionsChain("SPY");
+            fail();
+        } catch (OptionsChainLoadException e) {
+            assertSame(failure, e);
+        }
+        verify(optionsChainLoadService, times(2)).loadFullLiveOptionsChain(eq("SPY"));
+    }
+
+    @Test
+    public void testGetFullLiveOptionsChain_disabled_alwaysLoads() throws OptionsChainLoadException {
+        properties.setEnabled(false);
+        when(optionsChainLoadService.loadFullLiveOptionsChain(anyString())).thenReturn(Collections.emptyList());
+
+        subject.getFullLiveOptionsChain("SPY");
+        subject.getFullLiveOptionsChain("SPY");
+
+        verify(optionsChainLoadService, times(2)).loadFullLiveOptionsChain(eq("SPY"));
+    }
+}
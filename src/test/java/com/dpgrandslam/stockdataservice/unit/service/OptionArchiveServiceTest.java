@@ -0,0 +1,199 @@
+package com.dpgrandslam.stockdataservice.unit.service;
+
+import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionJDBCRepository;
+import com.dpgrandslam.stockdataservice.adapter.repository.LocalOptionArchiveRepository;
+import com.dpgrandslam.stockdataservice.domain.config.OptionArchiveConfigurationProperties;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOptionColumnStore;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import com.dpgrandslam.stockdataservice.domain.service.ChainDailySummaryService;
+import com.dpgrandslam.stockdataservice.domain.service.HistoricalOptionCache;
+import com.dpgrandslam.stockdataservice.domain.service.OptionArchiveService;
+import com.dpgrandslam.stockdataservice.testUtils.TestDataFactory;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OptionArchiveServiceTest {
+
+    private static final YearMonth MONTH = YearMonth.now().minusYears(3);
+    private static final LocalDate EXPIRATION = MONTH.atDay(15);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private HistoricalOptionJDBCRepository historicalOptionJDBCRepository;
+
+    @Mock
+    private HistoricalOptionCache historicalOptionCache;
+
+    @Mock
+    private ChainDailySummaryService chainDailySummaryService;
+
+    private LocalOptionArchiveRepository optionArchiveRepository;
+
+    private OptionArchiveConfigurationProperties properties;
+
+    private OptionArchiveService subject;
+
+    @Before
+    public void init() {
+        properties = new OptionArchiveConfigurationProperties();
+        properties.setEnabled(true);
+        properties.setMonths(12);
+        optionArchiveRepository = spy(new LocalOptionArchiveRepository(temporaryFolder.getRoot().toPath()));
+        subject = new OptionArchiveService(optionArchiveRepository, historicalOptionJDBCRepository, properties,
+                historicalOptionCache, chainDailySummaryService, Caffeine.newBuilder().build());
+    }
+
+    @Test
+    public void testArchiveMonth_writesSegmentAndDeletesStoredOptions() {
+        when(historicalOptionJDBCRepository.findColumnStoreByTickerAndExpirationBetween(anyString(), any(), any()))
+                .thenReturn(HistoricalOptionColumnStore.of("TEST", Arrays.asList(option(12.5, EXPIRATION.minusDays(3)), option(13.0, EXPIRATION.minusDays(3)))));
+        when(historicalOptionJDBCRepository.deleteByTickerAndExpirationBetween(anyString(), any(), any())).thenReturn(2);
+
+        int archived = subject.archiveMonth("TEST", MONTH);
+
+        assertEquals(2, archived);
+        verify(historicalOptionJDBCRepository, times(1)).deleteByTickerAndExpirationBetween(eq("TEST"), eq(MONTH.atDay(1)), eq(MONTH.atEndOfMonth()));
+        assertEquals(Collections.singleton(MONTH), optionArchiveRepository.findSegmentMonths("TEST"));
+        verify(historicalOptionCache, times(1)).patch(eq("TEST"), eq(MONTH.atDay(1)), eq(MONTH.atEndOfMonth()));
+        verify(chainDailySummaryService, times(1)).refreshSummaries(argThat(options -> options.size() == 2));
+        assertEquals(2, optionArchiveRepository.findSegment("TEST", MONTH).get().optionCount());
+    }
+
+    @Test
+    public void testArchiveMonth_mergesWithExistingSegment() {
+        optionArchiveRepository.saveSegment(HistoricalOptionColumnStore.of("TEST", Collections.singleton(option(12.5, EXPIRATION.minusDays(3)))), MONTH);
+        when(historicalOptionJDBCRepository.findColumnStoreByTickerAndExpirationBetween(anyString(), any(), any()))
+                .thenReturn(HistoricalOptionColumnStore.of("TEST", Arrays.asList(option(12.5, EXPIRATION.minusDays(2)), option(13.0, EXPIRATION.minusDays(2)))));
+
+        subject.archiveMonth("TEST", MONTH);
+
+        HistoricalOptionColumnStore segment = optionArchiveRepository.findSegment("TEST", MONTH).get();
+        assertEquals(2, segment.optionCount());
+        assertEquals(3, segment.priceDataCount());
+    }
+
+    @Test
+    public void testArchiveMonth_nothingStored_doesNotWriteOrDelete() {
+        when(historicalOptionJDBCRepository.findColumnStoreByTickerAndExpirationBetween(anyString(), any(), any()))
+                .thenReturn(HistoricalOptionColumnStore.builder("TEST").build());
+
+        assertEquals(0, subject.archiveMonth("TEST", MONTH));
+
+        verify(historicalOptionJDBCRepository, never()).deleteByTickerAndExpirationBetween(any(), any(), any());
+        assertTrue(optionArchiveRepository.findSegmentMonths("TEST").isEmpty());
+    }
+
+    @Test
+    public void testFindOptions_betweenDates_readsSegmentsFromStartMonth() {
+        optionArchiveRepository.saveSegment(HistoricalOptionColumnStore.of("TEST", Collections.singleton(option(12.5, EXPIRATION.minusDays(3)))), MONTH);
+        optionArchiveRepository.saveSegment(HistoricalOptionColumnStore.of("TEST", Collections.singleton(
+                option(12.5, EXPIRATION.minusMonths(2), EXPIRATION.minusMonths(2).minusDays(1)))), MONTH.minusMonths(2));
+
+        Set<HistoricalOption> found = subject.findOptions("TEST", MONTH.atDay(1), MONTH.atEndOfMonth());
+
+        assertEquals(1, found.size());
+        HistoricalOption option = found.iterator().next();
+        assertEquals(EXPIRATION, option.getExpiration());
+        assertEquals(1, option.getOptionPriceData().size());
+    }
+
+    @Test
+    public void testFindOptions_betweenDates_startAfterCutoff_doesNotReadArchive() {
+        optionArchiveRepository.saveSegment(HistoricalOptionColumnStore.of("TEST", Collections.singleton(option(12.5, EXPIRATION.minusDays(3)))), MONTH);
+
+        assertTrue(subject.findOptions("TEST", LocalDate.now().minusDays(5), LocalDate.now()).isEmpty());
+    }
+
+    @Test
+    public void testFindOptions_betweenDates_decodesSegmentOnce() {
+        optionArchiveRepository.saveSegment(HistoricalOptionColumnStore.of("TEST", Collections.singleton(option(12.5, EXPIRATION.minusDays(3)))), MONTH);
+
+        assertEquals(1, subject.findOptions("TEST", MONTH.atDay(1), MONTH.atEndOfMonth()).size());
+        assertEquals(1, subject.findOptions("TEST", EXPIRATION.minusDays(3), EXPIRATION).size());
+        assertEquals(1, subject.findOptions("TEST", EXPIRATION).size());
+
+        verify(optionArchiveRepository, times(1)).findSegment("TEST", MONTH);
+    }
+
+    @Test
+    public void testIterateChains_inExpirationOrderFromExpiration() {
+        LocalDate previousMonthExpiration = EXPIRATION.minusMonths(1);
+        optionArchiveRepository.saveSegment(HistoricalOptionColumnStore.of("TEST", Arrays.asList(
+                option(12.5, EXPIRATION.plusDays(1), EXPIRATION.minusDays(3)),
+                option(12.5, EXPIRATION, EXPIRATION.minusDays(3)),
+                option(13.0, EXPIRATION, EXPIRATION.minusDays(3)))), MONTH);
+        optionArchiveRepository.saveSegment(HistoricalOptionColumnStore.of("TEST", Arrays.asList(
+                option(12.5, previousMonthExpiration.minusDays(1), previousMonthExpiration.minusDays(3)),
+                option(12.5, previousMonthExpiration, previousMonthExpiration.minusDays(3)))), MONTH.minusMonths(1));
+
+        Iterator<OptionsChain> chains = subject.iterateChains("TEST", previousMonthExpiration, LocalDate.MIN, LocalDate.now());
+
+        assertEquals(previousMonthExpiration, chains.next().getExpirationDate());
+        OptionsChain chain = chains.next();
+        assertEquals(EXPIRATION, chain.getExpirationDate());
+        assertEquals(2, chain.getAllOptions().size());
+        assertEquals(EXPIRATION.plusDays(1), chains.next().getExpirationDate());
+        assertFalse(chains.hasNext());
+    }
+
+    @Test
+    public void testFindOptions_byExpiration() {
+        optionArchiveRepository.saveSegment(HistoricalOptionColumnStore.of("TEST", Arrays.asList(
+                option(12.5, EXPIRATION.minusDays(3)),
+                TestDataFactory.HistoricalOptionMother.noPriceData().expiration(EXPIRATION.plusDays(1)).build())), MONTH);
+
+        Set<HistoricalOption> found = subject.findOptions("TEST", EXPIRATION);
+
+        assertEquals(1, found.size());
+        assertTrue(subject.findOptions("TEST", EXPIRATION, EXPIRATION.minusDays(2), EXPIRATION).isEmpty());
+        assertEquals(1, subject.findOptions("TEST", EXPIRATION, EXPIRATION.minusDays(3), EXPIRATION).size());
+    }
+
+    @Test
+    public void testFindOptions_disabled_returnsEmpty() {
+        optionArchiveRepository.saveSegment(HistoricalOptionColumnStore.of("TEST", Collections.singleton(option(12.5, EXPIRATION.minusDays(3)))), MONTH);
+        properties.setEnabled(false);
+
+        assertTrue(subject.findOptions("TEST", EXPIRATION).isEmpty());
+        assertTrue(subject.findOptions("TEST", LocalDate.MIN, LocalDate.now()).isEmpty());
+        assertFalse(subject.iterateChains("TEST", LocalDate.MIN, LocalDate.MIN, LocalDate.now()).hasNext());
+        assertTrue(subject.findMonthsToArchive().isEmpty());
+    }
+
+    private static HistoricalOption option(double strike, LocalDate tradeDate) {
+        return option(strike, EXPIRATION, tradeDate);
+    }
+
+    private static HistoricalOption option(double strike, LocalDate expiration, LocalDate tradeDate) {
+        return TestDataFactory.HistoricalOptionMother.noPriceData()
+                .strike(strike)
+                .expiration(expiration)
+                .optionType(Option.OptionType.CALL)
+                .historicalPriceData(new HashSet<>(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(tradeDate).build())))
+                .build();
+    }
+}
@@ -2,6 +2,7 @@ package com.dpgrandslam.stockdataservice.unit.service;
 
 import com.dpgrandslam.stockdataservice.adapter.repository.OptionPriceDataLoadRetryRepository;
 import com.dpgrandslam.stockdataservice.domain.model.OptionPriceDataLoadRetry;
+import com.dpgrandslam.stockdataservice.domain.service.IngestionStatistics;
 import com.dpgrandslam.stockdataservice.domain.service.OptionPriceDataLoadRetryService;
 import org.apache.tomcat.jni.Local;
 import org.junit.Test;
@@ -30,6 +31,9 @@ public class OptionPriceDataLoadRetryServiceTest {
     @Mock
     private OptionPriceDataLoadRetry mockRetryRecord;
 
+    @Mock
+    private IngestionStatistics ingestionStatistics;
+
     @InjectMocks
     private OptionPriceDataLoadRetryService subject;
 
@@ -139,6 +143,7 @@ public class OptionPriceDataLoadRetryServiceTest {
         subject.removeRetry(1234L);
 
         verify(retryRepository, times(1)).deleteById(eq(1234L));
+        verify(ingestionStatistics, times(1)).recordRetryRemoved(eq(1234L));
     }
 
     @Test
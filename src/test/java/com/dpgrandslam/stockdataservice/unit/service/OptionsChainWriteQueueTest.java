@@ -0,0 +1,163 @@
+package com.dpgrandslam.stockdataservice.unit.service;
+
+import com.dpgrandslam.stockdataservice.domain.config.OptionsChainWriteQueueConfigurationProperties;
+import com.dpgrandslam.stockdataservice.domain.model.options.OptionsChain;
+import com.dpgrandslam.stockdataservice.domain.service.HistoricOptionsDataService;
+import com.dpgrandslam.stockdataservice.domain.service.OptionsChainWriteQueue;
+import com.dpgrandslam.stockdataservice.testUtils.TestDataFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OptionsChainWriteQueueTest {
+
+    @Mock
+    private HistoricOptionsDataService historicOptionsDataService;
+
+    private OptionsChainWriteQueueConfigurationProperties properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OptionsChainWriteQueue subject;
+
+    @Before
+    public void init() {
+        properties = new OptionsChainWriteQueueConfigurationProperties();
+        properties.setConsumers(1);
+        properties.setBatchSize(10);
+        meterRegistry = new SimpleMeterRegistry();
+        subject = new OptionsChainWriteQueue(historicOptionsDataService, properties, meterRegistry);
+    }
+
+    @After
+    public void cleanup() throws InterruptedException {
+        subject.stop();
+    }
+
+    @Test
+    public void testEnqueue_writesChainsAndRunsCallbackOnceAllAreWritten() throws InterruptedException {
+        subject.start();
+        CountDownLatch written = new CountDownLatch(1);
+
+        subject.enqueue("TEST", chains(), written::countDown);
+
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        verify(historicOptionsDataService, atLeastOnce()).addOptionsChains(anyCollection());
+        verify(historicOptionsDataService, never()).addOptionsChain(any());
+        assertEquals(3.0, meterRegistry.get("options.chain.write.queue.chains.written").counter().count(), 0);
+    }
+
+    @Test
+    public void testEnqueue_batchFails_writesChainsOneAtATime() throws InterruptedException {
+        when(historicOptionsDataService.addOptionsChains(anyCollection())).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(historicOptionsDataService.addOptionsChain(any())).thenReturn(true);
+        subject.start();
+        CountDownLatch written = new CountDownLatch(1);
+
+        subject.enqueue("TEST", chains(), written::countDown);
+
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        verify(historicOptionsDataService, times(3)).addOptionsChain(any());
+        assertTrue(meterRegistry.get("options.chain.write.queue.batch.failures").counter().count() > 0);
+    }
+
+    @Test
+    public void testEnqueue_batchFailsAndChainFails_writesOtherChains() throws InterruptedException {
+        when(historicOptionsDataService.addOptionsChains(anyCollection())).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(historicOptionsDataService.addOptionsChain(any())).thenAnswer(invocation -> {
+            OptionsChain optionsChain = invocation.getArgument(0);
+            if (optionsChain.getTicker().equals("FAIL")) {
+                throw new IllegalStateException("failed");
+            }
+            return !optionsChain.getTicker().equals("NOT_STORED");
+        });
+        subject.start();
+        CountDownLatch otherWritten = new CountDownLatch(1);
+        boolean[] failedWritten = new boolean[2];
+
+        subject.enqueue("FAIL", chains("FAIL"), () -> failedWritten[0] = true);
+        subject.enqueue("NOT_STORED", chains("NOT_STORED"), () -> failedWritten[1] = true);
+        subject.enqueue("TEST", chains(), otherWritten::countDown);
+
+        assertTrue(otherWritten.await(5, TimeUnit.SECONDS));
+        assertTrue(subject.awaitWritten(5, TimeUnit.SECONDS));
+        verify(historicOptionsDataService, times(9)).addOptionsChain(any());
+        assertFalse(failedWritten[0]);
+        assertFalse(failedWritten[1]);
+        assertEquals(3.0, meterRegistry.get("options.chain.write.queue.chains.written").counter().count(), 0);
+    }
+
+    @Test
+    public void testAwaitWritten_waitsForQueuedChains() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(historicOptionsDataService.addOptionsChains(anyCollection())).thenAnswer(invocation -> {
+            release.await();
+            return 0;
+        });
+        subject.start();
+
+        subject.enqueue("TEST", chains(), () -> {});
+
+        assertFalse(subject.awaitWritten(100, TimeUnit.MILLISECONDS));
+        assertEquals(3, subject.getPending());
+        release.countDown();
+        assertTrue(subject.awaitWritten(5, TimeUnit.SECONDS));
+        assertEquals(0, subject.getPending());
+    }
+
+    @Test
+    public void testAwaitWritten_failedWrites_areNotPending() throws InterruptedException {
+        when(historicOptionsDataService.addOptionsChains(anyCollection())).thenThrow(new DataIntegrityViolationException("duplicate"));
+        doThrow(new IllegalStateException("failed")).when(historicOptionsDataService).addOptionsChain(any());
+        subject.start();
+        boolean[] written = new boolean[1];
+
+        subject.enqueue("TEST", chains(), () -> written[0] = true);
+
+        assertTrue(subject.awaitWritten(5, TimeUnit.SECONDS));
+        assertFalse(written[0]);
+    }
+
+    @Test
+    public void testEnqueue_disabled_writesOnCallingThread() {
+        properties.setEnabled(false);
+        subject.start();
+        boolean[] written = new boolean[1];
+        List<OptionsChain> chains = chains();
+
+        subject.enqueue("TEST", chains, () -> written[0] = true);
+
+        assertTrue(written[0]);
+        verify(historicOptionsDataService, times(1)).addFullOptionsChain(eq(chains));
+        verify(historicOptionsDataService, never()).addOptionsChains(anyCollection());
+    }
+
+    private static List<OptionsChain> chains() {
+        return chains("TEST");
+    }
+
+    private static List<OptionsChain> chains(String ticker) {
+        LocalDate expiration = LocalDate.now();
+        return Arrays.asList(
+                TestDataFactory.OptionsChainMother.emptyOptions().ticker(ticker).expirationDate(expiration).build(),
+                TestDataFactory.OptionsChainMother.emptyOptions().ticker(ticker).expirationDate(expiration.plusDays(7)).build(),
+                TestDataFactory.OptionsChainMother.emptyOptions().ticker(ticker).expirationDate(expiration.plusDays(14)).build());
+    }
+}
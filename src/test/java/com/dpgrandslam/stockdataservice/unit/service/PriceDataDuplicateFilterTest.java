@@ -0,0 +1,90 @@
+package com.dpgrandslam.stockdataservice.unit.service;
+
+import com.dpgrandslam.stockdataservice.adapter.repository.HistoricalOptionJDBCRepository;
+import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.domain.service.PriceDataDuplicateFilter;
+import com.dpgrandslam.stockdataservice.domain.util.BloomFilter;
+import com.dpgrandslam.stockdataservice.testUtils.TestDataFactory;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PriceDataDuplicateFilterTest {
+
+    private static final LocalDate TRADE_DATE = LocalDate.of(2021, 6, 11);
+
+    @Mock
+    private HistoricalOptionJDBCRepository historicalOptionJDBCRepository;
+
+    private PriceDataDuplicateFilter subject;
+
+    @Before
+    public void init() {
+        subject = new PriceDataDuplicateFilter(historicalOptionJDBCRepository, Caffeine.newBuilder().<LocalDate, BloomFilter>build());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMightContain_warmedFromStoredPriceData() {
+        doAnswer(invocation -> {
+            ((Consumer<HistoricalOption>) invocation.getArgument(1)).accept(option(12.5, Option.OptionType.CALL));
+            return null;
+        }).when(historicalOptionJDBCRepository).streamOptionsOnTradeDate(eq(TRADE_DATE), any());
+
+        assertTrue(subject.mightContain(option(12.5, Option.OptionType.CALL), TRADE_DATE));
+        assertFalse(subject.mightContain(option(12.5, Option.OptionType.PUT), TRADE_DATE));
+        assertFalse(subject.mightContain(option(13.0, Option.OptionType.CALL), TRADE_DATE));
+        verify(historicalOptionJDBCRepository, times(1)).streamOptionsOnTradeDate(eq(TRADE_DATE), any());
+    }
+
+    @Test
+    public void testPutAll_addsEveryTradeDateOfTheOption() {
+        HistoricalOption option = option(12.5, Option.OptionType.CALL);
+        option.setOptionPriceData(new HashSet<>(Collections.singleton(TestDataFactory.OptionPriceDataMother.complete().tradeDate(TRADE_DATE).build())));
+
+        assertFalse(subject.mightContainAny(option));
+        subject.putAll(option);
+
+        assertTrue(subject.mightContainAny(option));
+        assertFalse(subject.mightContain(option, TRADE_DATE.plusDays(1)));
+    }
+
+    @Test
+    public void testBloomFilter_noFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (long i = 0; i < 10000; i++) {
+            filter.put(BloomFilter.mix(i));
+        }
+        int falsePositives = 0;
+        for (long i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain(BloomFilter.mix(i)));
+            if (filter.mightContain(BloomFilter.mix(i + 10000))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300);
+    }
+
+    private static HistoricalOption option(double strike, Option.OptionType optionType) {
+        return TestDataFactory.HistoricalOptionMother.noPriceData()
+                .strike(strike)
+                .optionType(optionType)
+                .expiration(LocalDate.of(2021, 7, 16))
+                .build();
+    }
+}
@@ -0,0 +1,161 @@
+package com.dpgrandslam.stockdataservice.unit.service;
+
+import com.dpgrandslam.stockdataservice.adapter.apiclient.WebpageFetchExecutor;
+import com.dpgrandslam.stockdataservice.adapter.apiclient.WebpageLoader;
+import com.dpgrandslam.stockdataservice.domain.config.ApiClientConfigurationProperties;
+import com.dpgrandslam.stockdataservice.domain.config.WebpageFetchConfigurationProperties;
+import com.dpgrandslam.stockdataservice.domain.error.YahooFinanceQuoteLoadException;
+import com.dpgrandslam.stockdataservice.domain.model.stock.YahooFinanceQuote;
+import com.dpgrandslam.stockdataservice.domain.service.YahooFinanceHistoricStockDataLoadService;
+import com.dpgrandslam.stockdataservice.domain.util.TimeUtils;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class YahooFinanceHistoricStockDataLoadServiceTest {
+
+    private static final Pattern PERIODS = Pattern.compile("period1=(\\d+)&period2=(\\d+)");
+    private static final LocalDate START = LocalDate.of(2021, 1, 4);
+    private static final LocalDate END = LocalDate.of(2021, 12, 31);
+    // Period of the second three month chunk, 2021-04-05
+    private static final String SECOND_CHUNK = "period1=1617580800";
+    // Period of the third three month chunk, 2021-07-06
+    private static final String THIRD_CHUNK = "period1=1625529600";
+
+    @Mock
+    private WebpageLoader webpageLoader;
+
+    @Mock
+    private ApiClientConfigurationProperties clientConfigurationProperties;
+
+    @Mock
+    private TimeUtils timeUtils;
+
+    private WebpageFetchExecutor webpageFetchExecutor;
+
+    private YahooFinanceHistoricStockDataLoadService subject;
+
+    @Before
+    public void setup() {
+        webpageFetchExecutor = new WebpageFetchExecutor(new WebpageFetchConfigurationProperties());
+        subject = new YahooFinanceHistoricStockDataLoadService(webpageLoader, webpageFetchExecutor);
+        ReflectionTestUtils.setField(subject, "clientConfigurationProperties", clientConfigurationProperties);
+        ReflectionTestUtils.setField(subject, "timeUtils", timeUtils);
+        when(clientConfigurationProperties.getUrlAndPort()).thenReturn("https://yahoofinancetest.com");
+        lenient().when(timeUtils.isTradingOpenOnDay(any(LocalDate.class))).thenAnswer(invocation -> isWeekday(invocation.getArgument(0)));
+        when(webpageLoader.parseUrl(anyString())).thenAnswer(invocation -> historyPage(invocation.getArgument(0)));
+    }
+
+    @After
+    public void tearDown() {
+        webpageFetchExecutor.shutdown();
+    }
+
+    @Test
+    public void testLoadQuoteForDates_mergesChunksSortedWithoutDuplicates() {
+        List<YahooFinanceQuote> quotes = subject.loadQuoteForDates("^VIX", START, END);
+
+        assertEquals(countWeekdays(START, END), quotes.size());
+        assertEquals(START, quotes.get(0).getDate());
+        assertEquals(END, quotes.get(quotes.size() - 1).getDate());
+        for (int i = 1; i < quotes.size(); i++) {
+            assertTrue(quotes.get(i).getDate().isAfter(quotes.get(i - 1).getDate()));
+        }
+        assertEquals("^VIX", quotes.get(0).getTicker());
+        verify(webpageLoader, times(4)).parseUrl(anyString());
+    }
+
+    @Test
+    public void testLoadQuoteForDates_failedChunk_retriesOnlyThatChunk() {
+        when(webpageLoader.parseUrl(contains(SECOND_CHUNK)))
+                .thenReturn(Jsoup.parse("<html><body></body></html>"))
+                .thenAnswer(invocation -> historyPage(invocation.getArgument(0)));
+
+        List<YahooFinanceQuote> quotes = subject.loadQuoteForDates("^VIX", START, END);
+
+        assertEquals(countWeekdays(START, END), quotes.size());
+        verify(webpageLoader, times(2)).parseUrl(contains(SECOND_CHUNK));
+        verify(webpageLoader, times(5)).parseUrl(anyString());
+    }
+
+    @Test
+    public void testLoadQuoteForDates_chunkKeepsFailing_throwsException() {
+        when(webpageLoader.parseUrl(contains(SECOND_CHUNK))).thenReturn(Jsoup.parse("<html><body></body></html>"));
+
+        assertThrows(YahooFinanceQuoteLoadException.class, () -> subject.loadQuoteForDates("^VIX", START, END));
+        verify(webpageLoader, times(3)).parseUrl(contains(SECOND_CHUNK));
+    }
+
+    @Test
+    public void testLoadQuoteForDates_chunkKeepsFailing_otherChunksStopRetrying() {
+        CountDownLatch failed = new CountDownLatch(1);
+        when(webpageLoader.parseUrl(contains(SECOND_CHUNK))).thenReturn(Jsoup.parse("<html><body></body></html>"));
+        when(webpageLoader.parseUrl(contains(THIRD_CHUNK))).thenAnswer(invocation -> {
+            failed.await(10, TimeUnit.SECONDS);
+            return Jsoup.parse("<html><body></body></html>");
+        });
+
+        assertThrows(YahooFinanceQuoteLoadException.class, () -> subject.loadQuoteForDates("^VIX", START, END));
+        failed.countDown();
+
+        verify(webpageLoader, after(1000).times(1)).parseUrl(contains(THIRD_CHUNK));
+    }
+
+    // A history page with a row for every weekday from period1 to period2, newest first like yahoo-finance
+    private static Document historyPage(String url) {
+        Matcher matcher = PERIODS.matcher(url);
+        assertTrue(matcher.find());
+        LocalDate first = toDate(Long.parseLong(matcher.group(1)));
+        LocalDate last = toDate(Long.parseLong(matcher.group(2)));
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd, yyyy", Locale.US);
+        StringBuilder html = new StringBuilder("<html><body><div id=\"Main\"><table data-test=\"historical-prices\"><tbody>");
+        for (LocalDate date = last; !date.isBefore(first); date = date.minusDays(1)) {
+            if (isWeekday(date)) {
+                html.append("<tr><td><span>").append(formatter.format(date)).append("</span></td>");
+                for (int i = 0; i < 5; i++) {
+                    html.append("<td><span>1,021.5").append(i).append("</span></td>");
+                }
+                html.append("</tr>");
+            }
+        }
+        html.append("</tbody></table></div></body></html>");
+        return Jsoup.parse(html.toString());
+    }
+
+    private static LocalDate toDate(long epochSecond) {
+        return LocalDate.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC);
+    }
+
+    private static boolean isWeekday(LocalDate date) {
+        return date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY;
+    }
+
+    private static long countWeekdays(LocalDate start, LocalDate end) {
+        return start.datesUntil(end.plusDays(1)).filter(YahooFinanceHistoricStockDataLoadServiceTest::isWeekday).count();
+    }
+}
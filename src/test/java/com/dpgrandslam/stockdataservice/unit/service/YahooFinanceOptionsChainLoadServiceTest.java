@@ -1,7 +1,9 @@
 package com.dpgrandslam.stockdataservice.unit.service;
 
+import com.dpgrandslam.stockdataservice.adapter.apiclient.WebpageFetchExecutor;
 import com.dpgrandslam.stockdataservice.adapter.apiclient.WebpageLoader;
 import com.dpgrandslam.stockdataservice.domain.config.ApiClientConfigurationProperties;
+import com.dpgrandslam.stockdataservice.domain.config.WebpageFetchConfigurationProperties;
 import com.dpgrandslam.stockdataservice.domain.error.OptionsChainLoadException;
 import com.dpgrandslam.stockdataservice.domain.event.OptionChainParseFailedEvent;
 import com.dpgrandslam.stockdataservice.domain.model.options.HistoricalOption;
@@ -13,7 +15,6 @@ import com.dpgrandslam.stockdataservice.domain.service.YahooFinanceOptionsChainL
 import com.dpgrandslam.stockdataservice.domain.util.TimeUtils;
 import com.dpgrandslam.stockdataservice.testUtils.TestDataFactory;
 import com.dpgrandslam.stockdataservice.testUtils.TestUtils;
-import org.jsoup.Jsoup;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -21,19 +22,23 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.context.ApplicationEventPublisher;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.*;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static junit.framework.TestCase.*;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -56,6 +61,9 @@ public class YahooFinanceOptionsChainLoadServiceTest {
     @Mock
     private ApplicationEventPublisher applicationEventPublisher;
 
+    @Spy
+    private WebpageFetchExecutor webpageFetchExecutor = new WebpageFetchExecutor(new WebpageFetchConfigurationProperties());
+
     @InjectMocks
     private YahooFinanceOptionsChainLoadService subject;
 
@@ -65,8 +73,8 @@ public class YahooFinanceOptionsChainLoadServiceTest {
     @Before
     public void setup() throws IOException {
         when(clientConfigurationProperties.getUrlAndPort()).thenReturn(TEST_URL + ":8080");
-        when(webpageLoader.parseUrl(anyString())).thenReturn(Jsoup.parse(TestUtils
-                .loadResourceFile("mocks/yahoofinance/yahoo-finance-spy.html"), "UTF-8"));
+        when(webpageLoader.loadPage(anyString())).thenReturn(new String(TestUtils
+                .loadBodyFromTestResourceFile("mocks/yahoofinance/yahoo-finance-spy.html"), StandardCharsets.UTF_8));
         when(timeUtils.getNowAmericaNewYork()).thenCallRealMethod();
         when(timeUtils.isStockMarketHoliday(any(LocalDate.class))).thenReturn(false);
         when(timeUtils.getCurrentOrLastTradeDate()).thenCallRealMethod();
@@ -84,13 +92,52 @@ public class YahooFinanceOptionsChainLoadServiceTest {
         assertEquals(269, optionsChain.getAllOptions().size());
         assertNotNull(optionsChain.getOption(new OptionChainKey(406.0, Option.OptionType.CALL)));
 
-        verify(webpageLoader, times(1)).parseUrl(eq(TEST_URL + "/quote/TEST/options?p=TEST"));
+        verify(webpageLoader, times(1)).loadPage(eq(TEST_URL + "/quote/TEST/options?p=TEST"));
+    }
+
+    @Test
+    public void testLoadOptionsChainForClosestExpiration_invalidStrike_skipsRow() throws IOException, OptionsChainLoadException {
+        String html = new String(TestUtils.loadBodyFromTestResourceFile("mocks/yahoofinance/yahoo-finance-spy.html"), StandardCharsets.UTF_8);
+        when(webpageLoader.loadPage(anyString())).thenReturn(html.replace("data-reactid=\"115\">190.00<", "data-reactid=\"115\">abc<"));
+
+        OptionsChain optionsChain = subject.loadLiveOptionsChainForClosestExpiration("test");
+
+        assertEquals(268, optionsChain.getAllOptions().size());
+        assertNull(optionsChain.getOption(new OptionChainKey(190.0, Option.OptionType.CALL)));
+        assertNull(optionsChain.getOption(new OptionChainKey(0.0, Option.OptionType.CALL)));
+    }
+
+    @Test
+    public void testLoadOptionsChainForClosestExpiration_rowMissingColumn_throwsExceptionAndPublishesEvent() throws IOException {
+        when(webpageLoader.loadPage(anyString())).thenReturn(malformedRowPage());
+
+        try {
+            subject.loadLiveOptionsChainForClosestExpiration("test");
+            fail("Expected an OptionsChainLoadException.");
+        } catch (OptionsChainLoadException e) {
+            verify(applicationEventPublisher).publishEvent(optionChainParseFailedEventAC.capture());
+            assertEquals(LocalDate.of(2021, 3, 5), optionChainParseFailedEventAC.getValue().getExpiration());
+        }
+    }
+
+    @Test
+    public void loadFullLiveOptionsChain_listedExpirationRowMissingColumn_skipsChainAndPublishesEvent() throws IOException, OptionsChainLoadException {
+        List<LocalDate> expirationDates = subject.getOptionExpirationDates("TEST");
+        when(webpageLoader.loadPage(contains("&date="))).thenReturn(malformedRowPage());
+
+        List<OptionsChain> optionsChains = subject.loadFullLiveOptionsChain("TEST");
+
+        assertEquals(1, optionsChains.size());
+        assertEquals(expirationDates.get(0), optionsChains.get(0).getExpirationDate());
+        verify(applicationEventPublisher, times(expirationDates.size() - 1)).publishEvent(optionChainParseFailedEventAC.capture());
+        assertEquals(new HashSet<>(expirationDates.subList(1, expirationDates.size())), optionChainParseFailedEventAC.getAllValues().stream()
+                .map(OptionChainParseFailedEvent::getExpiration).collect(Collectors.toSet()));
     }
 
     @Test
     public void testLoadOptionsChainForClosestExpiration_portInUrl() throws OptionsChainLoadException {
         subject.loadLiveOptionsChainForClosestExpiration("test");
-        verify(webpageLoader, times(1)).parseUrl(eq(TEST_URL + ":8080/quote/TEST/options?p=TEST"));
+        verify(webpageLoader, times(1)).loadPage(eq(TEST_URL + ":8080/quote/TEST/options?p=TEST"));
     }
 
     @Test
@@ -112,7 +159,7 @@ public class YahooFinanceOptionsChainLoadServiceTest {
 
         verify(historicOptionsDataService, times(1)).findOptions(
                 eq("TEST"), eq(LocalDate.now()), eq(LocalDate.now().minusDays(9)), eq(LocalDate.now().minusDays(2)));
-        verify(webpageLoader, never()).parseUrl(any());
+        verify(webpageLoader, never()).loadPage(any());
     }
 
     @Test
@@ -135,7 +182,7 @@ public class YahooFinanceOptionsChainLoadServiceTest {
 
         verify(historicOptionsDataService, times(1)).findOptions(
                 eq("AAPL"), eq(march15th2021), eq(LocalDate.now().minusDays(9)), eq(LocalDate.now()));
-        verify(webpageLoader, times(1)).parseUrl(any());
+        verify(webpageLoader, times(1)).loadPage(any());
     }
 
     @Test
@@ -156,7 +203,7 @@ public class YahooFinanceOptionsChainLoadServiceTest {
 
         verify(historicOptionsDataService, times(1)).findOptions(
                 eq("AAPL"), eq(march15th2021));
-        verify(webpageLoader, times(1)).parseUrl(any());
+        verify(webpageLoader, times(1)).loadPage(any());
     }
 
     @Test
@@ -267,7 +314,21 @@ public class YahooFinanceOptionsChainLoadServiceTest {
 
         subject.loadFullOptionsChainWithAllDataBetweenDates("SPCE", null, endDate);
 
-        verify(webpageLoader, never()).parseUrl(any());
+        verify(webpageLoader, never()).loadPage(any());
+    }
+
+    @Test
+    public void loadFullLiveOptionsChain_readsClosestExpirationFromLandingPage() throws OptionsChainLoadException {
+        List<LocalDate> expirationDates = subject.getOptionExpirationDates("TEST");
+        clearInvocations(webpageLoader);
+
+        List<OptionsChain> optionsChains = subject.loadFullLiveOptionsChain("TEST");
+
+        assertEquals(expirationDates.size(), optionsChains.size());
+        assertEquals(expirationDates.get(0), optionsChains.get(0).getExpirationDate());
+        verify(webpageLoader, times(expirationDates.size())).loadPage(anyString());
+        verify(webpageLoader, never()).loadPage(eq(TEST_URL + ":8080/quote/TEST/options?p=TEST&date="
+                + expirationDates.get(0).atStartOfDay(ZoneId.of("Z")).toEpochSecond()));
     }
 
     @Test
@@ -289,6 +350,25 @@ public class YahooFinanceOptionsChainLoadServiceTest {
         assertEquals(LocalDate.now().plusYears(20), optionChainParseFailedEvent.getExpiration());
     }
 
+    @Test
+    public void streamFullOptionsChainWithAllDataBetweenDates_passesChainsInExpirationOrder() throws OptionsChainLoadException {
+        List<LocalDate> expirationDates = subject.getOptionExpirationDates("TEST");
+        LocalDate storedOnly = expirationDates.get(expirationDates.size() - 1).plusYears(1);
+        doAnswer(invocation -> {
+            Consumer<OptionsChain> consumer = invocation.getArgument(3);
+            consumer.accept(new OptionsChain("TEST", expirationDates.get(2)));
+            consumer.accept(new OptionsChain("TEST", storedOnly));
+            return null;
+        }).when(historicOptionsDataService).streamOptions(anyString(), any(LocalDate.class), any(LocalDate.class), any());
+
+        List<LocalDate> streamed = new ArrayList<>();
+        subject.streamFullOptionsChainWithAllDataBetweenDates("TEST", null, null, chain -> streamed.add(chain.getExpirationDate()));
+
+        List<LocalDate> expected = new ArrayList<>(expirationDates);
+        expected.add(storedOnly);
+        assertEquals(expected, streamed);
+    }
+
     private Set<HistoricalOption> buildHistoricalOptions(LocalDate actual, String ticker, LocalDate expiration, Double strike) {
         Set<HistoricalOption> options = new HashSet<>();
         options.add(TestDataFactory.HistoricalOptionMother.noPriceData().ticker(ticker).strike(strike).expiration(expiration).historicalPriceData(new HashSet<>(Arrays.asList(
@@ -299,4 +379,10 @@ public class YahooFinanceOptionsChainLoadServiceTest {
         ))).build());
         return options;
     }
+
+    // The spy page with the first row missing its last price column
+    private static String malformedRowPage() throws IOException {
+        String html = new String(TestUtils.loadBodyFromTestResourceFile("mocks/yahoofinance/yahoo-finance-spy.html"), StandardCharsets.UTF_8);
+        return html.replace("class=\"data-col3 Ta(end) Pstart(7px)\" data-reactid=\"116\"", "class=\"Ta(end) Pstart(7px)\" data-reactid=\"116\"");
+    }
 }
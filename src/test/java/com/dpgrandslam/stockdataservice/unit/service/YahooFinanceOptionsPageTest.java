@@ -0,0 +1,117 @@
+package com.dpgrandslam.stockdataservice.unit.service;
+
+import com.dpgrandslam.stockdataservice.adapter.apiclient.YahooFinanceOptionsPage;
+import com.dpgrandslam.stockdataservice.domain.model.options.LiveOption;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.testUtils.TestUtils;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class YahooFinanceOptionsPageTest {
+
+    private static final String TEST_URL = "https://yahoofinancetest.com/quote/TEST/options?p=TEST";
+
+    private static final int[] COLUMNS = {2, 3, 4, 5, 8, 9, 10};
+
+    @Test
+    public void testParse_optionsChain_matchesDocumentSelectors() throws IOException {
+        assertMatchesDocument(loadMock("yahoo-finance-spy.html"), 37, 269);
+    }
+
+    @Test
+    public void testParse_emptyOptionsChain_matchesDocumentSelectors() throws IOException {
+        assertMatchesDocument(loadMock("yahoo-finance-aapl_empty-chain.html"), 17, 0);
+    }
+
+    @Test
+    public void testParse_cleanedPage_matchesDocumentSelectors() throws IOException {
+        assertMatchesDocument(TestUtils.loadHtmlFileAndClean("mocks/yahoofinance/yahoo-finance-spy.html"), 37, 269);
+    }
+
+    @Test
+    public void testParse_errorPage_throwsOnRead() throws IOException {
+        YahooFinanceOptionsPage page = YahooFinanceOptionsPage.parse(TEST_URL, loadMock("yahoo-finance-aapl_error.html"),
+                (optionType, cells) -> new LiveOption());
+
+        assertTrue(page.isLoaded());
+        try {
+            page.getExpirationDates();
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains(TEST_URL));
+        }
+        try {
+            page.getOptions();
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains(TEST_URL));
+        }
+    }
+
+    @Test
+    public void testParse_pageNotLoaded_isEmpty() {
+        YahooFinanceOptionsPage page = YahooFinanceOptionsPage.parse(TEST_URL, null, null);
+
+        assertFalse(page.isLoaded());
+        assertTrue(page.getExpirationDates().isEmpty());
+        assertTrue(page.getOptions().isEmpty());
+        assertEquals(TEST_URL, page.getUrl());
+    }
+
+    private void assertMatchesDocument(String html, int expectedExpirations, int expectedOptions) {
+        List<String> rows = new ArrayList<>();
+        YahooFinanceOptionsPage page = YahooFinanceOptionsPage.parse(TEST_URL, html, (optionType, cells) -> {
+            StringBuilder row = new StringBuilder(optionType.name());
+            for (int column : COLUMNS) {
+                row.append('|').append(cells[column]);
+            }
+            rows.add(row.toString());
+            return new LiveOption();
+        });
+
+        Document document = Jsoup.parse(html);
+        Element mainContent = document.selectFirst("div#Col1-1-OptionContracts-Proxy");
+        List<LocalDate> expectedDates = new ArrayList<>();
+        mainContent.selectFirst("div.controls").selectFirst("select").select("option").forEach(element ->
+                expectedDates.add(LocalDate.ofInstant(Instant.ofEpochSecond(Long.parseLong(element.attr("value"))), ZoneId.of("Z"))));
+        List<String> expectedRows = new ArrayList<>();
+        addDocumentRows(mainContent.selectFirst("table.calls"), Option.OptionType.CALL, expectedRows);
+        addDocumentRows(mainContent.selectFirst("table.puts"), Option.OptionType.PUT, expectedRows);
+
+        assertEquals(expectedExpirations, expectedDates.size());
+        assertEquals(expectedOptions, expectedRows.size());
+        assertEquals(expectedDates, page.getExpirationDates());
+        assertEquals(expectedRows, rows);
+        assertEquals(expectedOptions, page.getOptions().size());
+    }
+
+    private void addDocumentRows(Element table, Option.OptionType optionType, List<String> rows) {
+        if (table == null) {
+            return;
+        }
+        table.select("tbody").select("tr").forEach(optionRow -> {
+            StringBuilder row = new StringBuilder(optionType.name());
+            for (int column : COLUMNS) {
+                Element cell = optionRow.selectFirst("td.data-col" + column);
+                row.append('|').append(column == 2 ? cell.selectFirst("a").text() : cell.text());
+            }
+            rows.add(row.toString());
+        });
+    }
+
+    private String loadMock(String name) throws IOException {
+        return new String(TestUtils.loadBodyFromTestResourceFile("mocks/yahoofinance/" + name), StandardCharsets.UTF_8);
+    }
+}
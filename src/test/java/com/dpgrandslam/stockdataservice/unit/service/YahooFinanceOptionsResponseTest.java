@@ -0,0 +1,70 @@
+package com.dpgrandslam.stockdataservice.unit.service;
+
+import com.dpgrandslam.stockdataservice.adapter.apiclient.YahooFinanceOptionsResponse;
+import com.dpgrandslam.stockdataservice.domain.model.options.Option;
+import com.dpgrandslam.stockdataservice.testUtils.TestUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class YahooFinanceOptionsResponseTest {
+
+    private static final Instant DATA_OBTAINED = Instant.now();
+    private static final LocalDate TRADE_DATE = LocalDate.of(2021, 3, 4);
+
+    @Test
+    public void testParse_readsExpirationsAndOptions() throws IOException {
+        YahooFinanceOptionsResponse response = parse(TestUtils.loadBodyFromTestResourceFile("mocks/yahoofinance/yahoo-finance-spy-options.json"));
+
+        assertNull(response.getError());
+        assertEquals(Arrays.asList(LocalDate.of(2021, 3, 5), LocalDate.of(2021, 3, 8), LocalDate.of(2021, 3, 10)),
+                response.getExpirationDates());
+        assertEquals(LocalDate.of(2021, 3, 5), response.getExpirationDate());
+        List<Option> options = response.getOptions();
+        assertEquals(5, options.size());
+        assertEquals(Option.OptionType.CALL, options.get(0).getOptionType());
+        assertEquals(Option.OptionType.PUT, options.get(4).getOptionType());
+        assertEquals(381.0, options.get(4).getStrike(), 0);
+        assertEquals(24.56, options.get(4).getMostRecentPriceData().getImpliedVolatility(), 0);
+        assertEquals(TRADE_DATE, options.get(4).getMostRecentPriceData().getTradeDate());
+        assertEquals(Timestamp.from(DATA_OBTAINED), options.get(4).getMostRecentPriceData().getDataObtainedDate());
+        // The timestamps are mutable, so the options do not share one
+        assertNotSame(options.get(0).getMostRecentPriceData().getDataObtainedDate(), options.get(4).getMostRecentPriceData().getDataObtainedDate());
+    }
+
+    @Test
+    public void testParse_error_hasNoResult() throws IOException {
+        YahooFinanceOptionsResponse response = parse(TestUtils.loadBodyFromTestResourceFile("mocks/yahoofinance/yahoo-finance-options-error.json"));
+
+        assertEquals("Unauthorized: Invalid Crumb", response.getError());
+        assertThrows(IllegalStateException.class, response::getExpirationDates);
+        assertThrows(IllegalStateException.class, response::getOptions);
+    }
+
+    @Test
+    public void testParse_emptyResult_hasNoResult() throws IOException {
+        YahooFinanceOptionsResponse response = parse("{\"optionChain\":{\"result\":[],\"error\":null}}".getBytes(StandardCharsets.UTF_8));
+
+        assertNotNull(response.getError());
+        assertThrows(IllegalStateException.class, response::getExpirationDates);
+    }
+
+    @Test(expected = IOException.class)
+    public void testParse_truncated_throwsException() throws IOException {
+        parse("{\"optionChain\":{\"result\":[{\"expirationDates\":[1614902400,".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static YahooFinanceOptionsResponse parse(byte[] body) throws IOException {
+        return YahooFinanceOptionsResponse.parse("https://query2.finance.yahoo.com/v7/finance/options/SPY",
+                new ByteArrayInputStream(body), DATA_OBTAINED, TRADE_DATE);
+    }
+}
@@ -0,0 +1,49 @@
+package com.dpgrandslam.stockdataservice.unit.util;
+
+import com.dpgrandslam.stockdataservice.domain.util.HtmlTokenizer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HtmlTokenizerTest {
+
+    @Test
+    public void testNext_readsTagsAttributesAndText() {
+        HtmlTokenizer subject = new HtmlTokenizer("<!DOCTYPE html><!-- comment --><TD class=\"data-col2 Ta(end)\" data-x='a&amp;b' hidden>"
+                + "1,234.00 &amp; up<br/></td>");
+
+        assertEquals(HtmlTokenizer.Token.START_TAG, subject.next());
+        assertEquals("td", subject.tagName());
+        assertTrue(subject.hasClass("data-col2"));
+        assertFalse(subject.hasClass("data-col"));
+        assertEquals("a&b", subject.attribute("data-x"));
+        assertEquals("", subject.attribute("hidden"));
+        assertNull(subject.attribute("id"));
+        assertFalse(subject.isSelfClosing());
+
+        assertEquals(HtmlTokenizer.Token.TEXT, subject.next());
+        assertEquals("1,234.00 & up", subject.text());
+
+        assertEquals(HtmlTokenizer.Token.START_TAG, subject.next());
+        assertTrue(subject.tagNameIs("br"));
+        assertTrue(subject.isSelfClosing());
+
+        assertEquals(HtmlTokenizer.Token.END_TAG, subject.next());
+        assertEquals("td", subject.tagName());
+        assertEquals(HtmlTokenizer.Token.EOF, subject.next());
+    }
+
+    @Test
+    public void testNext_skipsRawText() {
+        HtmlTokenizer subject = new HtmlTokenizer("<script>if (a < b) { x = '</div>'; }</script><img src=x.png>");
+
+        assertEquals(HtmlTokenizer.Token.START_TAG, subject.next());
+        assertEquals("script", subject.tagName());
+        assertEquals(HtmlTokenizer.Token.END_TAG, subject.next());
+        assertEquals("script", subject.tagName());
+        assertEquals(HtmlTokenizer.Token.START_TAG, subject.next());
+        assertEquals("x.png", subject.attribute("src"));
+        assertTrue(subject.isSelfClosing());
+        assertEquals(HtmlTokenizer.Token.EOF, subject.next());
+    }
+}
@@ -0,0 +1,46 @@
+package com.dpgrandslam.stockdataservice.unit.util;
+
+import com.dpgrandslam.stockdataservice.domain.util.NumberParser;
+import org.junit.Test;
+
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class NumberParserTest {
+
+    private static final String[] VALUES = {"0", "406.00", "196.20", "0.10", "1,156", "1,234.56", "7,000,000", "-0.25",
+            "-1,000.5", ".5", "5.", "12.5abc", "3.14.15", "1,", "0.0000001", "123456789012345678.5", "abc", "", "-"};
+
+    @Test
+    public void testParseDecimal_matchesNumberFormat() {
+        for (String value : VALUES) {
+            assertEquals(value, parseWithNumberFormat(value), NumberParser.parseDecimal(value), 0);
+        }
+    }
+
+    @Test
+    public void testParseDecimalOrPlaceholder_placeholderIsZero() {
+        assertEquals(0, NumberParser.parseDecimalOrPlaceholder("-"), 0);
+        assertEquals(-2.5, NumberParser.parseDecimalOrPlaceholder("-2.5"), 0);
+        assertTrue(Double.isNaN(NumberParser.parseDecimalOrPlaceholder("--")));
+    }
+
+    @Test
+    public void testParsePercent() {
+        assertEquals(512.5, NumberParser.parsePercent("512.50%"), 0);
+        assertEquals(1234.5, NumberParser.parsePercent("1,234.5%"), 0);
+        assertTrue(Double.isNaN(NumberParser.parsePercent("12.5")));
+        assertTrue(Double.isNaN(NumberParser.parsePercent("%")));
+    }
+
+    private static double parseWithNumberFormat(String value) {
+        try {
+            return NumberFormat.getNumberInstance(Locale.US).parse(value).doubleValue();
+        } catch (ParseException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.dpgrandslam.stockdataservice.unit.util;
+
+import com.dpgrandslam.stockdataservice.domain.util.TokenBucket;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketTest {
+
+    @Test
+    public void testReserve_burstIsFreeThenCallersWaitForTheRate() {
+        TokenBucket subject = new TokenBucket(10, 3);
+
+        assertEquals(0, subject.reserve());
+        assertEquals(0, subject.reserve());
+        assertEquals(0, subject.reserve());
+        long firstWait = subject.reserve();
+        long secondWait = subject.reserve();
+
+        assertTrue(firstWait > TimeUnit.MILLISECONDS.toNanos(50) && firstWait <= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(secondWait - firstWait > TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNew_noRate_throwsException() {
+        new TokenBucket(0, 1);
+    }
+}